@@ -22,6 +22,7 @@ import com.dremio.dac.annotations.APIResource;
 import com.dremio.dac.annotations.Secured;
 import com.dremio.dac.resource.BaseResourceWithAllocator;
 import com.dremio.dac.server.BufferAllocatorFactory;
+import com.dremio.dac.server.WebServer;
 import com.dremio.dac.service.errors.InvalidReflectionJobException;
 import com.dremio.service.job.CancelJobRequest;
 import com.dremio.service.job.CancelReflectionJobRequest;
@@ -120,6 +121,7 @@ public class JobResource extends BaseResourceWithAllocator {
   @WithSpan
   @GET
   @Path("/{id}/results")
+  @Produces({APPLICATION_JSON, WebServer.MediaType.APPLICATION_ARROW_STREAM})
   public JobResourceData getQueryResults(
       @PathParam("id") String id,
       @QueryParam("offset") @DefaultValue("0") Integer offset,
@@ -34,6 +34,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.types.pojo.Field;
@@ -47,6 +48,7 @@ public class JobResourceData {
 
   private JobDataFragment delegate;
   private long rowCount;
+  private BufferAllocator allocator;
 
   public JobResourceData() {}
 
@@ -64,6 +66,14 @@ public class JobResourceData {
                 jobsService, JobsProtoUtil.toStuff(jobSummary.getJobId()), sessionId, userName)
             .range(allocator, offset, limit);
     this.rowCount = jobSummary.getOutputRecords();
+    this.allocator = allocator;
+  }
+
+  @VisibleForTesting
+  JobResourceData(JobDataFragment delegate, long rowCount, BufferAllocator allocator) {
+    this.delegate = delegate;
+    this.rowCount = rowCount;
+    this.allocator = allocator;
   }
 
   public JobDataFragment getJobDataFragment() {
@@ -74,6 +84,10 @@ public class JobResourceData {
     return rowCount;
   }
 
+  BufferAllocator getAllocator() {
+    return allocator;
+  }
+
   /** Serializer for Query data */
   public static class JobDataSerializer extends JsonSerializer<JobResourceData> {
     private void writeField(Field field, JsonGenerator generator, boolean skipName)
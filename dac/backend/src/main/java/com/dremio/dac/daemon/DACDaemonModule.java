@@ -1190,7 +1190,8 @@ public class DACDaemonModule implements DACModule {
         ResourceAllocator.class,
         new BasicResourceAllocator(
             registry.provider(ClusterCoordinator.class),
-            registry.provider(GroupResourceInformation.class)));
+            registry.provider(GroupResourceInformation.class),
+            registry.provider(OptionManager.class)));
     if (isCoordinator) {
       final Provider<OptionManager> optionManagerProvider =
           () -> sabotContextProvider.get().getOptionManager();
@@ -18,6 +18,7 @@ package com.dremio.dac.server;
 import com.dremio.common.perf.Timer;
 import com.dremio.common.scanner.persistence.ScanResult;
 import com.dremio.dac.annotations.APIResource;
+import com.dremio.dac.api.JobResourceDataArrowWriter;
 import org.glassfish.jersey.CommonProperties;
 import org.glassfish.jersey.internal.util.PropertiesHelper;
 import org.glassfish.jersey.server.ResourceConfig;
@@ -47,6 +48,9 @@ public class APIServer extends ResourceConfig {
     // FEATURES
     register(DACAuthFilterFeature.class);
     register(DACJacksonJaxbJsonFeature.class);
+
+    // MESSAGE BODY WRITERS
+    register(JobResourceDataArrowWriter.class);
     register(DACExceptionMapperFeature.class);
 
     // EXCEPTION MAPPERS
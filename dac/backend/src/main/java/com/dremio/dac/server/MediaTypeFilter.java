@@ -15,7 +15,9 @@
  */
 package com.dremio.dac.server;
 
+import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
+import java.util.Map;
 import javax.annotation.Priority;
 import javax.ws.rs.Priorities;
 import javax.ws.rs.container.ContainerRequestContext;
@@ -27,12 +29,16 @@ import javax.ws.rs.core.UriInfo;
 
 /**
  * Filter to get output media type from parameter and modify response accordingly by overwriting
- * {@link HttpHeaders#ACCEPT} header
+ * {@link HttpHeaders#ACCEPT} header. Besides full media types, a few short aliases are accepted
+ * (e.g. {@code format=arrow} for the Arrow IPC stream format).
  */
 @PreMatching
 @Priority(Priorities.HEADER_DECORATOR)
 public class MediaTypeFilter implements ContainerRequestFilter {
 
+  private static final Map<String, String> FORMAT_ALIASES =
+      ImmutableMap.of("arrow", WebServer.MediaType.APPLICATION_ARROW_STREAM);
+
   @Override
   public void filter(ContainerRequestContext requestContext) throws IOException {
     final UriInfo info = requestContext.getUriInfo();
@@ -42,6 +48,8 @@ public class MediaTypeFilter implements ContainerRequestFilter {
     if (format == null) {
       return;
     }
-    requestContext.getHeaders().putSingle(HttpHeaders.ACCEPT, format);
+    requestContext
+        .getHeaders()
+        .putSingle(HttpHeaders.ACCEPT, FORMAT_ALIASES.getOrDefault(format, format));
   }
 }
@@ -69,6 +69,13 @@ public class WebServer implements Service {
 
     /** Power BI DS media type */
     public static final String APPLICATION_PBIDS = "application/pbids";
+
+    /** Arrow IPC stream media type string */
+    public static final String APPLICATION_ARROW_STREAM = "application/vnd.apache.arrow.stream";
+
+    /** Arrow IPC stream media type */
+    public static final MediaType APPLICATION_ARROW_STREAM_TYPE =
+        new MediaType("application", "vnd.apache.arrow.stream");
   }
 
   /** Dremio hostname to use for response (usually match the Host header field). */
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.dac.api;
+
+import static com.dremio.exec.record.RecordBatchHolder.newRecordBatchHolder;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.dac.model.job.JobDataFragmentWrapper;
+import com.dremio.dac.server.WebServer;
+import com.dremio.exec.record.BatchSchema.SelectionVectorMode;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.service.job.proto.JobId;
+import com.dremio.service.job.proto.SessionId;
+import com.dremio.service.jobs.JobDataFragmentImpl;
+import com.dremio.service.jobs.RecordBatches;
+import com.dremio.test.AllocatorRule;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.ws.rs.core.MediaType;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/** Tests for {@link JobResourceDataArrowWriter} */
+public class TestJobResourceDataArrowWriter {
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-job-results-arrow", 0, Long.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  @Test
+  public void testIsWriteable() {
+    JobResourceDataArrowWriter writer = new JobResourceDataArrowWriter();
+    assertTrue(
+        writer.isWriteable(
+            JobResourceData.class,
+            JobResourceData.class,
+            null,
+            WebServer.MediaType.APPLICATION_ARROW_STREAM_TYPE));
+    assertFalse(
+        writer.isWriteable(
+            JobResourceData.class,
+            JobResourceData.class,
+            null,
+            MediaType.APPLICATION_JSON_TYPE));
+  }
+
+  @Test
+  public void testWriteRange() throws Exception {
+    RecordBatchData first = createRecordBatch(0, 5);
+    RecordBatchData second = createRecordBatch(5, 5);
+    JobDataFragmentWrapper fragment =
+        new JobDataFragmentWrapper(
+            0,
+            new JobDataFragmentImpl(
+                new RecordBatches(
+                    asList(newRecordBatchHolder(first, 3, 5), newRecordBatchHolder(second, 0, 2))),
+                0,
+                new JobId("testJobId"),
+                new SessionId().setId("testSessionId")));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new JobResourceDataArrowWriter()
+        .writeTo(
+            new JobResourceData(fragment, 10, allocator),
+            JobResourceData.class,
+            JobResourceData.class,
+            null,
+            WebServer.MediaType.APPLICATION_ARROW_STREAM_TYPE,
+            null,
+            out);
+
+    try (ArrowStreamReader reader =
+        new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+      VectorSchemaRoot root = reader.getVectorSchemaRoot();
+      assertEquals(
+          "10",
+          root.getSchema()
+              .getCustomMetadata()
+              .get(JobResourceDataArrowWriter.ROW_COUNT_METADATA_KEY));
+
+      int row = 3;
+      int batches = 0;
+      while (reader.loadNextBatch()) {
+        batches++;
+        IntVector ids = (IntVector) root.getVector("id");
+        VarCharVector names = (VarCharVector) root.getVector("name");
+        for (int i = 0; i < root.getRowCount(); i++, row++) {
+          assertEquals(row, ids.get(i));
+          assertEquals("name-" + row, new String(names.get(i), StandardCharsets.UTF_8));
+        }
+      }
+      assertEquals(2, batches);
+      assertEquals(7, row);
+    }
+  }
+
+  private RecordBatchData createRecordBatch(int firstId, int count) {
+    IntVector ids = new IntVector("id", allocator);
+    VarCharVector names = new VarCharVector("name", allocator);
+    ids.allocateNew(count);
+    names.allocateNew(count);
+    for (int i = 0; i < count; i++) {
+      ids.set(i, firstId + i);
+      names.setSafe(i, ("name-" + (firstId + i)).getBytes(StandardCharsets.UTF_8));
+    }
+    ids.setValueCount(count);
+    names.setValueCount(count);
+
+    VectorContainer container = new VectorContainer();
+    container.addCollection(asList(ids, names));
+    container.setRecordCount(count);
+    container.buildSchema(SelectionVectorMode.NONE);
+    return new RecordBatchData(container, allocator);
+  }
+}
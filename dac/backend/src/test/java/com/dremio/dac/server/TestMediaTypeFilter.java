@@ -58,6 +58,21 @@ public class TestMediaTypeFilter {
     assertEquals(new AcceptableMediaType("unit", "test"), request.getAcceptableMediaTypes().get(0));
   }
 
+  @Test
+  public void testFormatAlias() throws IOException {
+    MediaTypeFilter filter = new MediaTypeFilter();
+    ContainerRequest request =
+        ContainerRequestBuilder.from("http://localhost/foo/bar?format=arrow", "GET", null)
+            .accept("application/json")
+            .build();
+    filter.filter(request);
+
+    assertEquals(1, request.getAcceptableMediaTypes().size());
+    assertEquals(
+        new AcceptableMediaType("application", "vnd.apache.arrow.stream"),
+        request.getAcceptableMediaTypes().get(0));
+  }
+
   @Test
   public void testHeaderIsUntouched() throws IOException {
     MediaTypeFilter filter = new MediaTypeFilter();
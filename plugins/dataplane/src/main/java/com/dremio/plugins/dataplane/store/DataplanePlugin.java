@@ -124,12 +124,14 @@ import com.dremio.service.namespace.NamespaceKey;
 import com.dremio.service.namespace.SourceState;
 import com.dremio.service.namespace.capabilities.BooleanCapabilityValue;
 import com.dremio.service.namespace.capabilities.SourceCapabilities;
+import com.dremio.service.namespace.catalogstatusevents.events.VersionedTableUpdateCatalogStatusEvent;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
 import com.dremio.telemetry.api.metrics.MetricsInstrumenter;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.protobuf.ByteString;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import java.io.IOException;
@@ -896,6 +898,7 @@ public class DataplanePlugin extends FileSystemPlugin<AbstractDataplanePluginCon
 
     logger.debug("Dropping table '{}' at version '{}'", tableKeyWithoutPluginName, version);
     icebergModel.deleteTable(icebergModel.getTableIdentifier(pluginConfig.getRootPath()));
+    publishTableUpdate(tableKeyWithoutPluginName, version);
   }
 
   @Override
@@ -939,6 +942,7 @@ public class DataplanePlugin extends FileSystemPlugin<AbstractDataplanePluginCon
         version,
         alterTableOption);
     icebergModel.alterTable(icebergModel.getTableIdentifier(getRootLocation()), alterTableOption);
+    publishTableUpdate(tableSchemaComponentsWithoutPluginName, version);
   }
 
   @Override
@@ -978,6 +982,7 @@ public class DataplanePlugin extends FileSystemPlugin<AbstractDataplanePluginCon
     IcebergTableIdentifier icebergTableIdentifier =
         icebergModel.getTableIdentifier(getRootLocation());
     icebergModel.truncateTable(icebergTableIdentifier);
+    publishTableUpdate(tableSchemaComponentsWithoutPluginName, version);
   }
 
   @Override
@@ -1022,6 +1027,24 @@ public class DataplanePlugin extends FileSystemPlugin<AbstractDataplanePluginCon
         version,
         rollbackOption);
     icebergModel.rollbackTable(icebergModel.getTableIdentifier(getRootLocation()), rollbackOption);
+    publishTableUpdate(tableSchemaComponentsWithoutPluginName, version);
+  }
+
+  /** Lets the plan cache evict the plans reading the table at the head of the updated branch. */
+  private void publishTableUpdate(
+      List<String> tableKeyWithoutPluginName, ResolvedVersionContext version) {
+    if (!version.isBranch() || context.getCatalogService() == null) {
+      return;
+    }
+    context
+        .getCatalogService()
+        .publish(
+            new VersionedTableUpdateCatalogStatusEvent(
+                ImmutableList.<String>builder()
+                    .add(name)
+                    .addAll(tableKeyWithoutPluginName)
+                    .build(),
+                version.getRefName()));
   }
 
   @Override
@@ -220,6 +220,10 @@ public class ElasticActions {
       return resource;
     }
 
+    public String getQuery() {
+      return query;
+    }
+
     @Override
     Invocation buildRequest(WebTarget initial, ContextListener context, int version) {
       WebTarget t = initial.path(resource).path("_search");
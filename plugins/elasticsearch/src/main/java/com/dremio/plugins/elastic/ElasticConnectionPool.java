@@ -141,6 +141,12 @@ public class ElasticConnectionPool implements AutoCloseable {
    */
   private boolean enable7vFeatures;
 
+  /**
+   * Flag to indicate if aggregates can be pushed down as composite aggregations. Buckets for
+   * missing values are only supported from 6.4.
+   */
+  private boolean enableCompositeAggregation;
+
   private int elasticVersion;
 
   public ElasticConnectionPool(
@@ -366,7 +372,9 @@ public class ElasticConnectionPool implements AutoCloseable {
         new BooleanCapabilityValue(ElasticsearchStoragePlugin.ENABLE_V5_FEATURES, enable5vFeatures),
         new BooleanCapabilityValue(
             ElasticsearchStoragePlugin.SUPPORTS_NEW_FEATURES, enableNewFeatures),
-        new BooleanCapabilityValue(SourceCapabilities.SUPPORTS_CONTAINS, enableContains));
+        new BooleanCapabilityValue(SourceCapabilities.SUPPORTS_CONTAINS, enableContains),
+        new BooleanCapabilityValue(
+            ElasticsearchStoragePlugin.SUPPORTS_COMPOSITE_AGGREGATION, enableCompositeAggregation));
   }
 
   public Version getMinVersionInCluster() {
@@ -486,6 +494,9 @@ public class ElasticConnectionPool implements AutoCloseable {
     enable7vFeatures =
         minVersionInCluster.compareTo(ElasticsearchConstants.ELASTICSEARCH_VERSION_7_0_X) >= 0;
 
+    enableCompositeAggregation =
+        minVersionInCluster.compareTo(ElasticsearchConstants.ELASTICSEARCH_VERSION_6_4_X) >= 0;
+
     elasticVersion = minVersionInCluster.getMajor();
 
     return hosts;
@@ -101,6 +101,8 @@ public class ElasticsearchStoragePlugin implements StoragePlugin, SupportsListin
       new BooleanCapability("enable_elastic_v5_feature", false);
   public static final BooleanCapability SUPPORTS_NEW_FEATURES =
       new BooleanCapability("supports_new_features", false);
+  public static final BooleanCapability SUPPORTS_COMPOSITE_AGGREGATION =
+      new BooleanCapability("supports_composite_aggregation", false);
 
   private final String name;
   private final SabotContext context;
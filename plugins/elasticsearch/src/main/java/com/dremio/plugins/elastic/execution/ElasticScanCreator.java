@@ -77,6 +77,18 @@ public class ElasticScanCreator implements ProducerOperator.Creator<Elasticsearc
                           }
                         }));
 
+        if (spec.getAggregate() != null) {
+          readers.add(
+              new ElasticsearchAggregateRecordReader(
+                  context,
+                  Iterables.getOnlyElement(subScan.getReferencedTables()),
+                  spec,
+                  subScan.getFullSchema(),
+                  split,
+                  connection));
+          continue;
+        }
+
         readers.add(
             new ElasticsearchRecordReader(
                 plugin,
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.execution;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.common.exceptions.InvalidMetadataErrorContext;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.elastic.proto.ElasticReaderProto.ElasticSplitXattr;
+import com.dremio.exec.proto.UserBitShared.DremioPBError.ErrorType;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.store.AbstractRecordReader;
+import com.dremio.exec.store.SplitAndPartitionInfo;
+import com.dremio.plugins.elastic.ElasticActions.Search;
+import com.dremio.plugins.elastic.ElasticActions.SearchBytes;
+import com.dremio.plugins.elastic.ElasticConnectionPool.ElasticConnection;
+import com.dremio.plugins.elastic.ElasticVersionBehaviorProvider;
+import com.dremio.plugins.elastic.planning.ElasticsearchAggregateSpec;
+import com.dremio.plugins.elastic.planning.ElasticsearchAggregateSpec.Output;
+import com.dremio.plugins.elastic.planning.ElasticsearchScanSpec;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Record reader for an aggregate pushed down to Elastic, see {@link ElasticsearchAggregateSpec}.
+ * Each bucket of the composite aggregation is a record. The buckets are requested a page at a
+ * time, the next page starting after the key of the last bucket of the previous one.
+ */
+public class ElasticsearchAggregateRecordReader extends AbstractRecordReader {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(ElasticsearchAggregateRecordReader.class);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final List<String> tableSchemaPath;
+  private final ElasticsearchScanSpec spec;
+  private final ElasticsearchAggregateSpec aggregateSpec;
+  private final BatchSchema schema;
+  private final ElasticConnection connection;
+  private final ElasticSplitXattr splitAttributes;
+  private final String resource;
+  private final OperatorStats stats;
+  private final ElasticVersionBehaviorProvider elasticVersionBehaviorProvider;
+
+  private ObjectNode request;
+  private ValueVector[] vectors;
+  private Iterator<JsonNode> buckets = Collections.emptyIterator();
+  private JsonNode afterKey;
+  private boolean lastPage;
+
+  public ElasticsearchAggregateRecordReader(
+      OperatorContext context,
+      List<String> tableSchemaPath,
+      ElasticsearchScanSpec spec,
+      BatchSchema schema,
+      SplitAndPartitionInfo split,
+      ElasticConnection connection)
+      throws InvalidProtocolBufferException {
+    super(
+        context,
+        schema.getFields().stream()
+            .map(field -> SchemaPath.getSimplePath(field.getName()))
+            .collect(Collectors.toList()));
+    this.tableSchemaPath = tableSchemaPath;
+    this.spec = spec;
+    this.aggregateSpec = spec.getAggregate();
+    this.schema = schema;
+    this.connection = connection;
+    this.splitAttributes =
+        split == null
+            ? null
+            : ElasticSplitXattr.parseFrom(split.getDatasetSplitInfo().getExtendedProperty());
+    this.resource = split == null ? spec.getResource() : splitAttributes.getResource();
+    this.stats = context == null ? null : context.getStats();
+    this.elasticVersionBehaviorProvider =
+        new ElasticVersionBehaviorProvider(connection.getESVersionInCluster());
+  }
+
+  @Override
+  public void setup(OutputMutator output) throws ExecutionSetupException {
+    vectors = new ValueVector[schema.getFieldCount()];
+    for (int i = 0; i < vectors.length; i++) {
+      vectors[i] = output.getVector(schema.getColumn(i).getName());
+    }
+
+    try {
+      final String query =
+          elasticVersionBehaviorProvider.processElasticSearchQuery(spec.getQuery());
+      request = (ObjectNode) MAPPER.readTree(query);
+    } catch (IOException e) {
+      throw new ExecutionSetupException("Failure while parsing Elastic aggregation.", e);
+    }
+  }
+
+  @Override
+  public int next() {
+    int count = 0;
+    while (count < numRowsPerBatch) {
+      if (!buckets.hasNext()) {
+        if (lastPage) {
+          break;
+        }
+        nextPage();
+        continue;
+      }
+
+      final JsonNode bucket = buckets.next();
+      for (int i = 0; i < vectors.length; i++) {
+        setValue(vectors[i], count, getValue(bucket, i));
+      }
+      count++;
+    }
+
+    for (ValueVector vector : vectors) {
+      vector.setValueCount(count);
+    }
+    return count;
+  }
+
+  private void nextPage() {
+    final ObjectNode composite =
+        request
+            .with("aggregations")
+            .with(ElasticsearchAggregateSpec.COMPOSITE_NAME)
+            .with("composite");
+    if (afterKey != null) {
+      composite.set("after", afterKey);
+    }
+
+    final JsonNode response;
+    try {
+      final Search<byte[]> search =
+          new SearchBytes().setQuery(MAPPER.writeValueAsString(request)).setResource(resource);
+      if (splitAttributes != null) {
+        search.setParameter("preference", "_shards:" + splitAttributes.getShard());
+      }
+      response = MAPPER.readTree(search(search));
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+          .message("Failure while reading Elastic aggregation.")
+          .addContext("Resource", resource)
+          .addContext("Shard %s", splitAttributes == null ? "all" : splitAttributes.getShard())
+          .addContext("Query", spec.getQuery())
+          .build(logger);
+    }
+
+    if (response.path("timed_out").asBoolean()
+        || response.path("_shards").path("failed").asInt() > 0) {
+      throw UserException.dataReadError()
+          .message("Elastic failed to aggregate all the documents.")
+          .addContext("Resource", resource)
+          .addContext("Shard %s", splitAttributes == null ? "all" : splitAttributes.getShard())
+          .addContext("Query", spec.getQuery())
+          .addContext("Final Response", response.toString())
+          .build(logger);
+    }
+
+    final JsonNode result =
+        response.path("aggregations").path(ElasticsearchAggregateSpec.COMPOSITE_NAME);
+    final JsonNode page = result.path("buckets");
+    afterKey = result.get("after_key");
+    // a page is only partially filled once all the buckets were read
+    lastPage = afterKey == null || page.size() < aggregateSpec.getPageSize();
+    buckets = page.elements();
+  }
+
+  private byte[] search(Search<byte[]> search) {
+    try {
+      if (stats != null) {
+        stats.startWait();
+      }
+      return elasticVersionBehaviorProvider.getSearchBytes(connection, search);
+    } catch (UserException e) {
+      if (e.getErrorType() == ErrorType.INVALID_DATASET_METADATA) {
+        logger.trace("failed with invalid metadata, ", e);
+        throw UserException.invalidMetadataError()
+            .setAdditionalExceptionContext(
+                new InvalidMetadataErrorContext(Collections.singletonList(tableSchemaPath)))
+            .build(logger);
+      }
+
+      throw e;
+    } finally {
+      if (stats != null) {
+        stats.stopWait();
+      }
+    }
+  }
+
+  private JsonNode getValue(JsonNode bucket, int column) {
+    final String name = ElasticsearchAggregateSpec.getName(column);
+    final Output output = aggregateSpec.getOutputs().get(column);
+    switch (output) {
+      case KEY:
+        return bucket.path("key").get(name);
+      case DOC_COUNT:
+        return bucket.get("doc_count");
+      case METRIC:
+        return bucket.path(name).get("value");
+      case SUM:
+        final String countName = ElasticsearchAggregateSpec.getCountName(column);
+        return bucket.path(countName).path("value").asLong() == 0
+            ? null
+            : bucket.path(name).get("value");
+      default:
+        throw new IllegalStateException("Unknown output " + output);
+    }
+  }
+
+  private static void setValue(ValueVector vector, int index, JsonNode value) {
+    if (value == null || value.isNull()) {
+      // values are null unless set
+      return;
+    }
+
+    switch (vector.getMinorType()) {
+      case VARCHAR:
+        ((VarCharVector) vector).setSafe(index, value.asText().getBytes(UTF_8));
+        break;
+      case BIT:
+        ((BitVector) vector).setSafe(index, value.asBoolean() ? 1 : 0);
+        break;
+      case INT:
+        ((IntVector) vector).setSafe(index, Math.toIntExact(asLong(value)));
+        break;
+      case BIGINT:
+        ((BigIntVector) vector).setSafe(index, asLong(value));
+        break;
+      case FLOAT4:
+        ((Float4Vector) vector).setSafe(index, (float) value.asDouble());
+        break;
+      case FLOAT8:
+        ((Float8Vector) vector).setSafe(index, value.asDouble());
+        break;
+      case TIMESTAMPMILLI:
+        ((TimeStampMilliVector) vector).setSafe(index, asLong(value));
+        break;
+      default:
+        throw UserException.unsupportedError()
+            .message("Elastic aggregation can't read %s values.", vector.getMinorType())
+            .build(logger);
+    }
+  }
+
+  /** Metrics are doubles, even for integer fields. */
+  private static long asLong(JsonNode value) {
+    return value.isIntegralNumber() ? value.asLong() : Math.round(value.asDouble());
+  }
+
+  @Override
+  public void close() throws Exception {}
+}
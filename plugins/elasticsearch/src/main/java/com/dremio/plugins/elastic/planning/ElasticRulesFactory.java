@@ -21,6 +21,7 @@ import com.dremio.exec.ops.OptimizerRulesContext;
 import com.dremio.exec.planner.PlannerPhase;
 import com.dremio.exec.store.StoragePluginRulesFactory.StoragePluginTypeRulesFactory;
 import com.dremio.options.OptionResolver;
+import com.dremio.plugins.elastic.planning.rules.ElasticAggregateRule;
 import com.dremio.plugins.elastic.planning.rules.ElasticFilterRule;
 import com.dremio.plugins.elastic.planning.rules.ElasticLimitRule;
 import com.dremio.plugins.elastic.planning.rules.ElasticProjectRule;
@@ -62,6 +63,10 @@ public class ElasticRulesFactory extends StoragePluginTypeRulesFactory {
           builder.add(ElasticSampleRule.INSTANCE);
         }
 
+        if (options.getOption(ExecConstants.ELASTIC_RULES_AGGREGATE)) {
+          builder.add(ElasticAggregateRule.INSTANCE);
+        }
+
         return builder.build();
 
       default:
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.planning;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+
+/**
+ * Aggregate pushed down to Elastic as a composite aggregation. The group keys are the sources of
+ * the composite aggregation, and the other aggregate calls are metric sub-aggregations. Both are
+ * named after the index of their output column, see {@link #getName(int)}.
+ */
+public class ElasticsearchAggregateSpec {
+
+  public static final String COMPOSITE_NAME = "composite";
+
+  /** How the value of an output column is read from a bucket. */
+  public enum Output {
+    /** A source of the composite key. */
+    KEY,
+
+    /** The number of documents in the bucket. */
+    DOC_COUNT,
+
+    /** The value of a metric sub-aggregation. */
+    METRIC,
+
+    /**
+     * The value of a sum sub-aggregation, which is null when the matching value count
+     * sub-aggregation is 0.
+     */
+    SUM
+  }
+
+  private final List<Output> outputs;
+  private final int pageSize;
+
+  @JsonCreator
+  public ElasticsearchAggregateSpec(
+      @JsonProperty("outputs") List<Output> outputs, @JsonProperty("pageSize") int pageSize) {
+    this.outputs = ImmutableList.copyOf(outputs);
+    this.pageSize = pageSize;
+  }
+
+  public List<Output> getOutputs() {
+    return outputs;
+  }
+
+  public int getPageSize() {
+    return pageSize;
+  }
+
+  /**
+   * @return name of the source or sub-aggregation of an output column
+   */
+  public static String getName(int column) {
+    return "c" + column;
+  }
+
+  /**
+   * @return name of the value count sub-aggregation of a {@link Output#SUM} column
+   */
+  public static String getCountName(int column) {
+    return "n" + column;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (!(other instanceof ElasticsearchAggregateSpec)) {
+      return false;
+    }
+    ElasticsearchAggregateSpec castOther = (ElasticsearchAggregateSpec) other;
+    return Objects.equal(outputs, castOther.outputs)
+        && Objects.equal(pageSize, castOther.pageSize);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(outputs, pageSize);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("outputs", outputs)
+        .add("pageSize", pageSize)
+        .toString();
+  }
+}
@@ -21,9 +21,11 @@ import com.dremio.exec.physical.base.AbstractGroupScan;
 import com.dremio.exec.physical.base.OpProps;
 import com.dremio.exec.physical.base.SubScan;
 import com.dremio.exec.proto.UserBitShared.CoreOperatorType;
+import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.store.SplitAndPartitionInfo;
 import com.dremio.exec.store.SplitWork;
 import com.dremio.exec.store.TableMetadata;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
@@ -36,6 +38,7 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
 
   private final ElasticsearchScanSpec spec;
   private final long rowCountEstimate;
+  private final BatchSchema schema;
 
   public ElasticsearchGroupScan(
       OpProps props,
@@ -43,9 +46,24 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
       TableMetadata table,
       List<SchemaPath> columns,
       long rowCountEstimate) {
+    this(props, spec, table, columns, rowCountEstimate, null);
+  }
+
+  /**
+   * @param schema schema of the rows read, if they are not the documents of the table (e.g. the
+   *     buckets of an aggregate pushed down), null otherwise
+   */
+  public ElasticsearchGroupScan(
+      OpProps props,
+      ElasticsearchScanSpec spec,
+      TableMetadata table,
+      List<SchemaPath> columns,
+      long rowCountEstimate,
+      BatchSchema schema) {
     super(props, table, columns);
     this.spec = spec;
     this.rowCountEstimate = rowCountEstimate;
+    this.schema = schema;
   }
 
   @JsonProperty("spec")
@@ -53,6 +71,12 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
     return spec;
   }
 
+  @Override
+  @JsonIgnore
+  public BatchSchema getFullSchema() {
+    return schema != null ? schema : super.getFullSchema();
+  }
+
   @Override
   public SubScan getSpecificScan(List<SplitWork> work) throws ExecutionSetupException {
     List<SplitAndPartitionInfo> splitWork =
@@ -67,7 +91,7 @@ public class ElasticsearchGroupScan extends AbstractGroupScan {
         splitWork,
         getColumns(),
         Iterables.getOnlyElement(getReferencedTables()),
-        getDataset().getSchema(),
+        getFullSchema(),
         getDataset().getReadDefinition().getExtendedProperty());
   }
 
@@ -22,10 +22,13 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
 import com.dremio.exec.physical.base.GroupScan;
 import com.dremio.exec.physical.base.OpProps;
+import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.planner.physical.PrelUtil;
 import com.dremio.exec.planner.sql.CalciteArrowHelper;
 import com.dremio.exec.store.SplitWork;
 import com.dremio.plugins.elastic.ElasticsearchConf;
+import com.dremio.plugins.elastic.planning.ElasticsearchAggregateSpec;
+import com.dremio.plugins.elastic.planning.ElasticsearchAggregateSpec.Output;
 import com.dremio.plugins.elastic.planning.ElasticsearchGroupScan;
 import com.dremio.plugins.elastic.planning.ElasticsearchScanSpec;
 import com.dremio.plugins.elastic.planning.rules.ExpressionNotAnalyzableException;
@@ -33,11 +36,14 @@ import com.dremio.plugins.elastic.planning.rules.PredicateAnalyzer;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.core.AggregateCall;
 import org.elasticsearch.action.Action;
 import org.elasticsearch.action.ActionFuture;
 import org.elasticsearch.action.ActionListener;
@@ -50,6 +56,10 @@ import org.elasticsearch.client.ElasticsearchClient;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.WrapperQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
 import org.elasticsearch.threadpool.ThreadPool;
 
 public class ScanBuilder {
@@ -58,17 +68,22 @@ public class ScanBuilder {
 
   private static final ImmutableSet<Class<?>> CONSUMEABLE_RELS =
       ImmutableSet.<Class<?>>of(
+          ElasticsearchAggregate.class,
           ElasticsearchSample.class,
           ElasticsearchLimit.class,
           ElasticsearchFilter.class,
           ElasticIntermediateScanPrel.class);
 
+  // default maximum number of buckets of a search in Elastic 7.0 to 7.8
+  private static final int MAX_COMPOSITE_PAGE_SIZE = 10_000;
+
   private ElasticsearchScanSpec spec;
   private ElasticIntermediateScanPrel scan;
+  private BatchSchema aggregateSchema;
 
   public GroupScan<SplitWork> toGroupScan(OpProps props, long estimatedRowCount) {
     return new ElasticsearchGroupScan(
-        props, spec, scan.getTableMetadata(), scan.getProjectedColumns(), estimatedRowCount);
+        props, spec, scan.getTableMetadata(), getColumns(), estimatedRowCount, aggregateSchema);
   }
 
   public String getResource() {
@@ -80,6 +95,11 @@ public class ScanBuilder {
   }
 
   public List<SchemaPath> getColumns() {
+    if (aggregateSchema != null) {
+      return aggregateSchema.getFields().stream()
+          .map(field -> SchemaPath.getSimplePath(field.getName()))
+          .collect(Collectors.toList());
+    }
     return scan.getProjectedColumns();
   }
 
@@ -111,8 +131,8 @@ public class ScanBuilder {
    * ScanBuilder. The stack can only include the following rels (and only one each):
    * ElasticsearchScanPrel, ElasticsearchFilter, ElasticsearchSample, ElasticsearchLimit
    *
-   * <p>The order must be ElasticsearchSample (or ElasticsearchLimit) (optional) \
-   * ElasticsearchFilter (optional) \ ElasticsearchScanPrel
+   * <p>The order must be ElasticsearchSample (or ElasticsearchLimit or ElasticsearchAggregate)
+   * (optional) \ ElasticsearchFilter (optional) \ ElasticsearchScanPrel
    *
    * @param stack
    */
@@ -142,13 +162,15 @@ public class ScanBuilder {
         Preconditions.checkArgument(
             stack.get(0) instanceof ElasticsearchSample
                 || stack.get(0) instanceof ElasticsearchFilter
-                || stack.get(0) instanceof ElasticsearchLimit);
+                || stack.get(0) instanceof ElasticsearchLimit
+                || stack.get(0) instanceof ElasticsearchAggregate);
         Preconditions.checkArgument(stack.get(1) instanceof ElasticIntermediateScanPrel);
         break;
       case 3:
         Preconditions.checkArgument(
             stack.get(0) instanceof ElasticsearchSample
-                || stack.get(0) instanceof ElasticsearchLimit);
+                || stack.get(0) instanceof ElasticsearchLimit
+                || stack.get(0) instanceof ElasticsearchAggregate);
         Preconditions.checkArgument(stack.get(1) instanceof ElasticsearchFilter);
         Preconditions.checkArgument(stack.get(2) instanceof ElasticIntermediateScanPrel);
         break;
@@ -238,6 +260,74 @@ public class ScanBuilder {
     searchRequest.setFetchSource(includesOrderedByOriginalTable, null);
   }
 
+  /**
+   * Replaces the hits of the search with a composite aggregation, that has a source for each group
+   * key and a metric sub-aggregation for each aggregate call.
+   */
+  protected ElasticsearchAggregateSpec applyAggregate(
+      SearchRequestBuilder searchRequest,
+      ElasticsearchConf config,
+      ElasticsearchAggregate aggregate) {
+    final List<String> fieldNames = aggregate.getInput().getRowType().getFieldNames();
+    final List<Output> outputs = new ArrayList<>();
+
+    final List<CompositeValuesSourceBuilder<?>> sources = new ArrayList<>();
+    for (int key : aggregate.getGroupSet()) {
+      sources.add(
+          new TermsValuesSourceBuilder(ElasticsearchAggregateSpec.getName(outputs.size()))
+              .field(fieldNames.get(key))
+              .missingBucket(true));
+      outputs.add(Output.KEY);
+    }
+
+    final int pageSize = Math.min(config.getScrollSize(), MAX_COMPOSITE_PAGE_SIZE);
+    final CompositeAggregationBuilder composite =
+        AggregationBuilders.composite(ElasticsearchAggregateSpec.COMPOSITE_NAME, sources)
+            .size(pageSize);
+    for (AggregateCall aggCall : aggregate.getAggCallList()) {
+      final int column = outputs.size();
+      final String name = ElasticsearchAggregateSpec.getName(column);
+      final String field =
+          aggCall.getArgList().isEmpty() ? null : fieldNames.get(aggCall.getArgList().get(0));
+      switch (aggCall.getAggregation().getKind()) {
+        case COUNT:
+          if (field == null) {
+            outputs.add(Output.DOC_COUNT);
+          } else {
+            composite.subAggregation(AggregationBuilders.count(name).field(field));
+            outputs.add(Output.METRIC);
+          }
+          break;
+        case SUM:
+          // the sum of no values is 0 in Elastic, the count tells when it should be null
+          composite.subAggregation(AggregationBuilders.sum(name).field(field));
+          composite.subAggregation(
+              AggregationBuilders.count(ElasticsearchAggregateSpec.getCountName(column))
+                  .field(field));
+          outputs.add(Output.SUM);
+          break;
+        case SUM0:
+          composite.subAggregation(AggregationBuilders.sum(name).field(field));
+          outputs.add(Output.METRIC);
+          break;
+        case MIN:
+          composite.subAggregation(AggregationBuilders.min(name).field(field));
+          outputs.add(Output.METRIC);
+          break;
+        case MAX:
+          composite.subAggregation(AggregationBuilders.max(name).field(field));
+          outputs.add(Output.METRIC);
+          break;
+        default:
+          throw new IllegalStateException(
+              String.format("ScanBuilder can't consume aggregate call %s.", aggCall));
+      }
+    }
+
+    searchRequest.setSize(0).addAggregation(composite);
+    return new ElasticsearchAggregateSpec(outputs, pageSize);
+  }
+
   public void setup(List<ElasticsearchPrel> stack, FunctionLookupContext functionLookupContext) {
 
     validate(stack);
@@ -253,13 +343,34 @@ public class ScanBuilder {
       final ElasticsearchFilter filter = (ElasticsearchFilter) map.get(ElasticsearchFilter.class);
       final ElasticsearchSample sample = (ElasticsearchSample) map.get(ElasticsearchSample.class);
       final ElasticsearchLimit limit = (ElasticsearchLimit) map.get(ElasticsearchLimit.class);
+      final ElasticsearchAggregate aggregate =
+          (ElasticsearchAggregate) map.get(ElasticsearchAggregate.class);
+      final ElasticsearchConf config =
+          ElasticsearchConf.createElasticsearchConf(scan.getPluginId().getConnectionConf());
+
+      if (aggregate != null) {
+        applyFilter(searchRequest, scan, filter, tableAttributes);
+        final ElasticsearchAggregateSpec aggregateSpec =
+            applyAggregate(searchRequest, config, aggregate);
+
+        this.spec =
+            new ElasticsearchScanSpec(
+                tableAttributes.getResource(),
+                searchRequest.toString(),
+                aggregateSpec.getPageSize(),
+                true,
+                aggregateSpec);
+        this.scan = scan;
+        this.aggregateSchema = aggregate.getSchema(functionLookupContext);
+        return;
+      }
 
       applyEdgeProjection(searchRequest, scan);
       applyFilter(searchRequest, scan, filter, tableAttributes);
       final int fetch =
           applyFetch(
               searchRequest,
-              ElasticsearchConf.createElasticsearchConf(scan.getPluginId().getConnectionConf()),
+              config,
               limit,
               filter,
               sample);
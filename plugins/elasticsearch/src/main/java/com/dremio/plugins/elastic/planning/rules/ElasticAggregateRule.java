@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.planning.rules;
+
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.planner.logical.RelOptHelper;
+import com.dremio.exec.planner.physical.HashAggPrel;
+import com.dremio.plugins.elastic.ElasticsearchConstants;
+import com.dremio.plugins.elastic.ElasticsearchStoragePlugin;
+import com.dremio.plugins.elastic.mapping.FieldAnnotation;
+import com.dremio.plugins.elastic.planning.rels.ElasticIntermediateScanPrel;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchAggregate;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchIntermediatePrel;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchProject;
+import com.dremio.plugins.elastic.planning.rels.ElasticsearchSample;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.apache.calcite.linq4j.Ord;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.sql.SqlAggFunction;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.util.ImmutableBitSet;
+
+/**
+ * Pushes a hash aggregate down to Elastic as a composite aggregation, see {@link
+ * ElasticsearchAggregate}.
+ *
+ * <p>Only aggregates with group keys are pushed down, as the composite aggregation needs at least
+ * one source. The group keys and the arguments of the aggregate calls must be top level fields of
+ * the index that have doc values, and the aggregate calls must be one of COUNT, SUM, $SUM0, MIN or
+ * MAX, without DISTINCT or FILTER. A filter can be pushed down below the aggregate, but not a
+ * project, a limit or a sample.
+ */
+public final class ElasticAggregateRule extends RelOptRule {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(ElasticAggregateRule.class);
+
+  public static final ElasticAggregateRule INSTANCE = new ElasticAggregateRule();
+
+  private static final Set<SqlTypeName> KEY_TYPES =
+      ImmutableSet.of(
+          SqlTypeName.VARCHAR,
+          SqlTypeName.BOOLEAN,
+          SqlTypeName.INTEGER,
+          SqlTypeName.BIGINT,
+          SqlTypeName.FLOAT,
+          SqlTypeName.DOUBLE,
+          SqlTypeName.TIMESTAMP);
+
+  // metrics are computed as doubles, which are only exact for integers up to 2^53
+  private static final Set<SqlTypeName> SUM_TYPES =
+      ImmutableSet.of(SqlTypeName.INTEGER, SqlTypeName.FLOAT, SqlTypeName.DOUBLE);
+
+  private static final Set<SqlTypeName> MIN_MAX_TYPES =
+      ImmutableSet.of(
+          SqlTypeName.INTEGER, SqlTypeName.FLOAT, SqlTypeName.DOUBLE, SqlTypeName.TIMESTAMP);
+
+  private ElasticAggregateRule() {
+    super(
+        RelOptHelper.some(HashAggPrel.class, RelOptHelper.any(ElasticsearchIntermediatePrel.class)),
+        "ElasticAggregateRule");
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    final HashAggPrel aggregate = call.rel(0);
+    final ElasticsearchIntermediatePrel intermediatePrel = call.rel(1);
+
+    if (intermediatePrel.hasTerminalPrel()
+        || intermediatePrel.contains(ElasticsearchProject.class)
+        || intermediatePrel.contains(ElasticsearchSample.class)) {
+      return false;
+    }
+
+    if (!intermediatePrel
+        .getPluginId()
+        .getCapabilities()
+        .getCapability(ElasticsearchStoragePlugin.SUPPORTS_COMPOSITE_AGGREGATION)) {
+      return false;
+    }
+
+    if (aggregate.getGroupCount() == 0 || aggregate.getGroupSets().size() > 1) {
+      return false;
+    }
+
+    final ElasticIntermediateScanPrel scan =
+        intermediatePrel.get(ElasticIntermediateScanPrel.class);
+    if (scan.getExtendedAttributes().getVariationDetected()) {
+      return false;
+    }
+
+    final RelDataType rowType = intermediatePrel.getInput().getRowType();
+    for (int key : aggregate.getGroupSet()) {
+      if (!isSupportedField(scan, rowType, key, KEY_TYPES)) {
+        return false;
+      }
+    }
+    for (AggregateCall aggCall : aggregate.getAggCallList()) {
+      if (!isSupportedCall(scan, rowType, aggCall)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSupportedCall(
+      ElasticIntermediateScanPrel scan, RelDataType rowType, AggregateCall aggCall) {
+    if (aggCall.isDistinct() || aggCall.hasFilter()) {
+      return false;
+    }
+
+    final List<Integer> args = aggCall.getArgList();
+    switch (aggCall.getAggregation().getKind()) {
+      case COUNT:
+        return args.isEmpty()
+            || (args.size() == 1 && isSupportedField(scan, rowType, args.get(0), KEY_TYPES));
+      case SUM:
+      case SUM0:
+        return args.size() == 1 && isSupportedField(scan, rowType, args.get(0), SUM_TYPES);
+      case MIN:
+      case MAX:
+        return args.size() == 1 && isSupportedField(scan, rowType, args.get(0), MIN_MAX_TYPES);
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isSupportedField(
+      ElasticIntermediateScanPrel scan, RelDataType rowType, int index, Set<SqlTypeName> types) {
+    final RelDataTypeField field = rowType.getFieldList().get(index);
+    if (!types.contains(field.getType().getSqlTypeName())
+        || ElasticsearchConstants.META_COLUMNS.contains(field.getName())) {
+      return false;
+    }
+
+    final FieldAnnotation annotation =
+        scan.getAnnotation(SchemaPath.getSimplePath(field.getName()));
+    return annotation == null
+        || !(annotation.isAnalyzed()
+            || annotation.isNormalized()
+            || annotation.isDocValueMissing()
+            || annotation.isIpType()
+            || annotation.isUnknown()
+            || annotation.hasSpecialType());
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    final HashAggPrel aggregate = call.rel(0);
+    final ElasticsearchIntermediatePrel intermediatePrel = call.rel(1);
+
+    try {
+      final ElasticsearchAggregate newAggregate =
+          new ElasticsearchAggregate(
+              intermediatePrel.getInput().getCluster(),
+              intermediatePrel.getInput().getTraitSet(),
+              intermediatePrel.getInput(),
+              aggregate.getGroupSet(),
+              aggregate.getAggCallList(),
+              intermediatePrel.getPluginId());
+
+      // Elastic aggregates each shard separately, so the buckets are rolled up in Dremio.
+      final int groupCount = aggregate.getGroupCount();
+      final List<AggregateCall> rollupCalls = new ArrayList<>();
+      for (Ord<AggregateCall> aggCall : Ord.zip(aggregate.getAggCallList())) {
+        rollupCalls.add(
+            AggregateCall.create(
+                getRollupFunction(aggCall.e),
+                false,
+                false,
+                ImmutableList.of(groupCount + aggCall.i),
+                -1,
+                aggCall.e.getType(),
+                aggCall.e.getName()));
+      }
+
+      call.transformTo(
+          HashAggPrel.create(
+              aggregate.getCluster(),
+              aggregate.getTraitSet(),
+              intermediatePrel.withNewInput(newAggregate),
+              ImmutableBitSet.range(groupCount),
+              null,
+              rollupCalls,
+              aggregate.getOperatorPhase()));
+    } catch (InvalidRelException e) {
+      logger.debug("Failed to push aggregate into Elasticsearch", e);
+    }
+  }
+
+  private static SqlAggFunction getRollupFunction(AggregateCall aggCall) {
+    switch (aggCall.getAggregation().getKind()) {
+      case COUNT:
+        return SqlStdOperatorTable.SUM0;
+      default:
+        return aggCall.getAggregation();
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.plugins.elastic.execution;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.store.SampleMutator;
+import com.dremio.plugins.Version;
+import com.dremio.plugins.elastic.ElasticActions.SearchBytes;
+import com.dremio.plugins.elastic.ElasticConnectionPool.ElasticConnection;
+import com.dremio.plugins.elastic.planning.ElasticsearchAggregateSpec;
+import com.dremio.plugins.elastic.planning.ElasticsearchAggregateSpec.Output;
+import com.dremio.plugins.elastic.planning.ElasticsearchScanSpec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Resources;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.VarCharVector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Test ElasticsearchAggregateRecordReader against recorded Elastic responses. */
+public class TestElasticsearchAggregateRecordReader {
+  private static final BatchSchema SCHEMA =
+      BatchSchema.of(
+          CompleteType.VARCHAR.toField("category"),
+          CompleteType.BIGINT.toField("orders"),
+          CompleteType.BIGINT.toField("quantity"),
+          CompleteType.DOUBLE.toField("price"));
+
+  // category, COUNT(*), SUM(quantity), MAX(price)
+  private static final ElasticsearchAggregateSpec AGGREGATE =
+      new ElasticsearchAggregateSpec(
+          ImmutableList.of(Output.KEY, Output.DOC_COUNT, Output.SUM, Output.METRIC), 2);
+
+  private static final String QUERY =
+      "{\"size\":0,\"aggregations\":{\"composite\":{\"composite\":{\"size\":2,\"sources\":"
+          + "[{\"c0\":{\"terms\":{\"field\":\"category\",\"missing_bucket\":true}}}]},"
+          + "\"aggregations\":{\"c2\":{\"sum\":{\"field\":\"quantity\"}},"
+          + "\"n2\":{\"value_count\":{\"field\":\"quantity\"}},"
+          + "\"c3\":{\"max\":{\"field\":\"price\"}}}}}}";
+
+  private final List<String> queries = new ArrayList<>();
+  private BufferAllocator allocator;
+  private SampleMutator mutator;
+  private ElasticConnection connection;
+
+  @Before
+  public void setUp() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+    mutator = new SampleMutator(allocator);
+    connection = mock(ElasticConnection.class);
+    when(connection.getESVersionInCluster()).thenReturn(new Version(7, 10, 0));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    AutoCloseables.close(mutator, allocator);
+  }
+
+  /** Replies to the searches with the recorded responses, in order. */
+  private void replay(String... files) throws Exception {
+    final Deque<byte[]> responses = new ArrayDeque<>();
+    for (String file : files) {
+      responses.add(
+          Resources.toByteArray(Resources.getResource("json/composite-aggregation/" + file)));
+    }
+    when(connection.execute(any(SearchBytes.class), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              queries.add(invocation.<SearchBytes>getArgument(0).getQuery());
+              return responses.removeFirst();
+            });
+  }
+
+  private ElasticsearchAggregateRecordReader newReader() throws Exception {
+    final ElasticsearchScanSpec spec =
+        new ElasticsearchScanSpec("products/_doc", QUERY, 2, true, AGGREGATE);
+    final ElasticsearchAggregateRecordReader reader =
+        new ElasticsearchAggregateRecordReader(
+            null, ImmutableList.of("elastic", "products"), spec, SCHEMA, null, connection);
+    SCHEMA.materializeVectors(ImmutableList.of(SchemaPath.getSimplePath("*")), mutator);
+    mutator.allocate(0);
+    reader.setup(mutator);
+    return reader;
+  }
+
+  @Test
+  public void testReadPages() throws Exception {
+    replay("page-1.json", "page-2.json");
+
+    try (ElasticsearchAggregateRecordReader reader = newReader()) {
+      assertThat(reader.next()).isEqualTo(3);
+
+      final VarCharVector category = (VarCharVector) mutator.getVector("category");
+      assertThat(category.getObject(0).toString()).isEqualTo("bikes");
+      assertThat(category.getObject(1).toString()).isEqualTo("books");
+      assertThat(category.isNull(2)).isTrue();
+
+      final BigIntVector orders = (BigIntVector) mutator.getVector("orders");
+      assertThat(orders.get(0)).isEqualTo(3);
+      assertThat(orders.get(1)).isEqualTo(2);
+      assertThat(orders.get(2)).isEqualTo(2);
+
+      // the sum of a bucket without values is null
+      final BigIntVector quantity = (BigIntVector) mutator.getVector("quantity");
+      assertThat(quantity.get(0)).isEqualTo(12);
+      assertThat(quantity.get(1)).isEqualTo(5);
+      assertThat(quantity.isNull(2)).isTrue();
+
+      final Float8Vector price = (Float8Vector) mutator.getVector("price");
+      assertThat(price.get(0)).isEqualTo(499.5);
+      assertThat(price.get(1)).isEqualTo(12.25);
+      assertThat(price.isNull(2)).isTrue();
+
+      // the second page is the last one, as it isn't full
+      assertThat(reader.next()).isEqualTo(0);
+    }
+
+    assertThat(queries).hasSize(2);
+    final ObjectMapper mapper = new ObjectMapper();
+    final JsonNode first = mapper.readTree(queries.get(0));
+    final JsonNode second = mapper.readTree(queries.get(1));
+    assertThat(first.at("/aggregations/composite/composite/after").isMissingNode()).isTrue();
+    assertThat(second.at("/aggregations/composite/composite/after/c0").asText())
+        .isEqualTo("books");
+  }
+
+  @Test
+  public void testFailedShard() throws Exception {
+    replay("failed-shard.json");
+
+    try (ElasticsearchAggregateRecordReader reader = newReader()) {
+      assertThatThrownBy(reader::next)
+          .isInstanceOf(UserException.class)
+          .hasMessageContaining("Elastic failed to aggregate all the documents.");
+    }
+  }
+}
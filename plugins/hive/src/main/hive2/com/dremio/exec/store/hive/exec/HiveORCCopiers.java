@@ -33,6 +33,7 @@ import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.vector.BaseVariableWidthVector;
 import org.apache.arrow.vector.BigIntVector;
 import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.BitVectorHelper;
 import org.apache.arrow.vector.DateMilliVector;
 import org.apache.arrow.vector.DecimalVector;
 import org.apache.arrow.vector.FieldVector;
@@ -127,6 +128,27 @@ public class HiveORCCopiers {
     }
   }
 
+  /**
+   * Marks {@code count} consecutive slots starting at {@code startIdx} as non-null. Whole bytes of
+   * the validity buffer are filled at once instead of setting one bit per value.
+   */
+  @VisibleForTesting
+  static void setValidityRange(ArrowBuf validityBuffer, int startIdx, int count) {
+    final int endIdx = startIdx + count;
+    int idx = startIdx;
+    for (; idx < endIdx && (idx & 7) != 0; idx++) {
+      BitVectorHelper.setBit(validityBuffer, idx);
+    }
+    final int fullBytes = (endIdx - idx) >>> 3;
+    if (fullBytes > 0) {
+      validityBuffer.setOne(idx >>> 3, fullBytes);
+      idx += fullBytes << 3;
+    }
+    for (; idx < endIdx; idx++) {
+      BitVectorHelper.setBit(validityBuffer, idx);
+    }
+  }
+
   /**
    * Helper method to create {@link ORCCopier}s based on given input, output vector types and
    * projected column ordinals.
@@ -622,13 +644,17 @@ public class HiveORCCopiers {
           // vector
         }
         final int value = (int) input[0];
-        for (int i = 0; i < count; i++, outputIdx++) {
-          outputVector.set(outputIdx, value);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++) {
+          data.setInt((long) (outputIdx + i) * IntVector.TYPE_WIDTH, value);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else if (inputVector.noNulls) {
-        for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
-          outputVector.set(outputIdx, (int) input[inputIdx]);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++, inputIdx++) {
+          data.setInt((long) (outputIdx + i) * IntVector.TYPE_WIDTH, (int) input[inputIdx]);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else {
         final boolean[] isNull = inputVector.isNull;
         for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
@@ -664,13 +690,17 @@ public class HiveORCCopiers {
           // vector
         }
         final long value = input[0];
-        for (int i = 0; i < count; i++, outputIdx++) {
-          outputVector.set(outputIdx, value);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++) {
+          data.setLong((long) (outputIdx + i) * BigIntVector.TYPE_WIDTH, value);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else if (inputVector.noNulls) {
-        for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
-          outputVector.set(outputIdx, input[inputIdx]);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++, inputIdx++) {
+          data.setLong((long) (outputIdx + i) * BigIntVector.TYPE_WIDTH, input[inputIdx]);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else {
         final boolean[] isNull = inputVector.isNull;
         for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
@@ -1258,13 +1288,18 @@ public class HiveORCCopiers {
           // vector
         }
         final float value = (float) input[0];
-        for (int i = 0; i < count; i++, outputIdx++) {
-          outputVector.set(outputIdx, value);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++) {
+          data.setFloat((long) (outputIdx + i) * Float4Vector.TYPE_WIDTH, value);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else if (inputVector.noNulls) {
-        for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
-          outputVector.set(outputIdx, (float) input[inputIdx]);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++, inputIdx++) {
+          data.setFloat(
+              (long) (outputIdx + i) * Float4Vector.TYPE_WIDTH, (float) input[inputIdx]);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else {
         final boolean[] isNull = inputVector.isNull;
         for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
@@ -1395,13 +1430,17 @@ public class HiveORCCopiers {
           // vector
         }
         final double value = input[0];
-        for (int i = 0; i < count; i++, outputIdx++) {
-          outputVector.set(outputIdx, value);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++) {
+          data.setDouble((long) (outputIdx + i) * Float8Vector.TYPE_WIDTH, value);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else if (inputVector.noNulls) {
-        for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
-          outputVector.set(outputIdx, input[inputIdx]);
+        final ArrowBuf data = outputVector.getDataBuffer();
+        for (int i = 0; i < count; i++, inputIdx++) {
+          data.setDouble((long) (outputIdx + i) * Float8Vector.TYPE_WIDTH, input[inputIdx]);
         }
+        setValidityRange(outputVector.getValidityBuffer(), outputIdx, count);
       } else {
         final boolean[] isNull = inputVector.isNull;
         for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
@@ -1625,6 +1664,18 @@ public class HiveORCCopiers {
       super.ensureVectorHasRequiredCapacity(this.outputVector, required);
     }
 
+    /**
+     * Grows the data buffer once so that {@code totalLength} more bytes can be written starting at
+     * {@code outputIdx}, letting the copy loops use {@code set} instead of {@code setSafe}.
+     */
+    private void ensureDataCapacity(int outputIdx, long totalLength) {
+      final int startIdx = Math.min(outputIdx, outputVector.getLastSet() + 1);
+      final long required = outputVector.getStartOffset(startIdx) + totalLength;
+      if (outputVector.getDataBuffer().capacity() < required) {
+        outputVector.reallocDataBuffer(required);
+      }
+    }
+
     @Override
     public void copy(int inputIdx, int count, int outputIdx) {
       ensureHasRequiredCapacity(outputIdx + count);
@@ -1640,13 +1691,19 @@ public class HiveORCCopiers {
         checkSizeLimit(length[0]);
         final byte[] value = new byte[length[0]];
         System.arraycopy(vector[0], start[0], value, 0, length[0]);
+        ensureDataCapacity(outputIdx, (long) value.length * count);
         for (int i = 0; i < count; i++, outputIdx++) {
-          outputVector.setSafe(outputIdx, value);
+          outputVector.set(outputIdx, value);
         }
       } else if (inputVector.noNulls) {
+        long totalLength = 0;
+        for (int i = inputIdx; i < inputIdx + count; i++) {
+          checkSizeLimit(length[i]);
+          totalLength += length[i];
+        }
+        ensureDataCapacity(outputIdx, totalLength);
         for (int i = 0; i < count; i++, inputIdx++, outputIdx++) {
-          checkSizeLimit(length[inputIdx]);
-          outputVector.setSafe(outputIdx, vector[inputIdx], start[inputIdx], length[inputIdx]);
+          outputVector.set(outputIdx, vector[inputIdx], start[inputIdx], length[inputIdx]);
         }
       } else {
         final boolean[] isNull = inputVector.isNull;
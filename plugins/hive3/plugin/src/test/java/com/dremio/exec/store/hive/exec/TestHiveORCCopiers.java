@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.hive.exec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.exec.store.hive.exec.HiveAbstractReader.HiveOperatorContextOptions;
+import com.dremio.test.AllocatorRule;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/** Tests for {@link HiveORCCopiers} */
+public class TestHiveORCCopiers {
+  private static final int BATCH_SIZE = 1024;
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+  private HiveOperatorContextOptions options;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-hive-orc-copiers", 0, Long.MAX_VALUE);
+    options = mock(HiveOperatorContextOptions.class);
+    when(options.getMaxCellSize()).thenReturn(Integer.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  @Test
+  public void testSetValidityRange() {
+    try (BitVector vector = new BitVector("bits", allocator)) {
+      vector.allocateNew(64);
+      // unaligned start and end, spanning several whole bytes
+      HiveORCCopiers.setValidityRange(vector.getValidityBuffer(), 3, 30);
+      for (int i = 0; i < 64; i++) {
+        assertEquals("index " + i, i >= 3 && i < 33, !vector.isNull(i));
+      }
+      // range inside a single byte
+      HiveORCCopiers.setValidityRange(vector.getValidityBuffer(), 41, 3);
+      for (int i = 33; i < 64; i++) {
+        assertEquals("index " + i, i >= 41 && i < 44, !vector.isNull(i));
+      }
+    }
+  }
+
+  @Test
+  public void testFixedWidthCopiers() {
+    LongColumnVector ints = new LongColumnVector(BATCH_SIZE);
+    LongColumnVector longs = new LongColumnVector(BATCH_SIZE);
+    DoubleColumnVector doubles = new DoubleColumnVector(BATCH_SIZE);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      ints.vector[i] = i;
+      longs.vector[i] = 3L * i;
+      doubles.vector[i] = i / 2.0;
+    }
+    longs.isRepeating = true;
+    doubles.noNulls = false;
+    for (int i = 0; i < BATCH_SIZE; i += 3) {
+      doubles.isNull[i] = true;
+    }
+
+    try (IntVector intVector = new IntVector("i", allocator);
+        BigIntVector bigIntVector = new BigIntVector("l", allocator);
+        Float8Vector float8Vector = new Float8Vector("d", allocator)) {
+      ValueVector[] output = {intVector, bigIntVector, float8Vector};
+      HiveORCCopiers.ORCCopier[] copiers = createCopiers(output, ints, longs, doubles);
+      // copy in two chunks with an unaligned boundary to exercise partial validity bytes
+      for (HiveORCCopiers.ORCCopier copier : copiers) {
+        copier.copy(0, 13, 0);
+        copier.copy(13, BATCH_SIZE - 13, 13);
+      }
+
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        assertEquals(i, intVector.get(i));
+        assertEquals(0L, bigIntVector.get(i));
+        if (i % 3 == 0) {
+          assertTrue(float8Vector.isNull(i));
+        } else {
+          assertEquals(i / 2.0, float8Vector.get(i), 0.0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBytesCopier() {
+    BytesColumnVector input = new BytesColumnVector(BATCH_SIZE);
+    input.initBuffer();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      byte[] value = ("value-" + i).getBytes(StandardCharsets.UTF_8);
+      input.setVal(i, value, 0, value.length);
+    }
+
+    try (VarCharVector output = new VarCharVector("s", allocator)) {
+      output.allocateNew(16, 4);
+      HiveORCCopiers.ORCCopier copier = createCopiers(new ValueVector[] {output}, input)[0];
+      copier.copy(0, 100, 0);
+      copier.copy(100, BATCH_SIZE - 100, 100);
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        assertArrayEquals(("value-" + i).getBytes(StandardCharsets.UTF_8), output.get(i));
+      }
+    }
+  }
+
+  @Test
+  public void testRepeatingBytesCopierAfterNulls() {
+    BytesColumnVector input = new BytesColumnVector(BATCH_SIZE);
+    input.initBuffer();
+    byte[] value = "repeated".getBytes(StandardCharsets.UTF_8);
+    input.setVal(0, value, 0, value.length);
+    input.isRepeating = true;
+
+    try (VarCharVector output = new VarCharVector("s", allocator)) {
+      output.allocateNew(16, 4);
+      HiveORCCopiers.ORCCopier copier = createCopiers(new ValueVector[] {output}, input)[0];
+      // leave a hole at the start of the output that has to be filled with empty offsets
+      copier.copy(0, 500, 10);
+      for (int i = 0; i < 10; i++) {
+        assertNull(output.get(i));
+      }
+      for (int i = 10; i < 510; i++) {
+        assertArrayEquals(value, output.get(i));
+      }
+      assertFalse(output.isNull(509));
+    }
+  }
+
+  private HiveORCCopiers.ORCCopier[] createCopiers(ValueVector[] output, ColumnVector... input) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(input.length, BATCH_SIZE);
+    System.arraycopy(input, 0, batch.cols, 0, input.length);
+    Integer[] ordinals = new Integer[input.length];
+    int[] ordinalIds = new int[input.length];
+    for (int i = 0; i < input.length; i++) {
+      ordinals[i] = i;
+      ordinalIds[i] = i;
+    }
+    return HiveORCCopiers.createCopiers(
+        null, Arrays.asList(ordinals), ordinalIds, output, batch, true, options, new HashMap<>());
+  }
+}
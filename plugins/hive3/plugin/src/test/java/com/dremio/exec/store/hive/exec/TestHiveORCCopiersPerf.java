@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.hive.exec;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.exec.store.hive.exec.HiveAbstractReader.HiveOperatorContextOptions;
+import com.dremio.test.AllocatorRule;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+
+/*
+ * Copy the same ORC column vectors with the per-value copy loops that HiveORCCopiers used before
+ * the bulk copy paths, and with the current copiers, and compare the perf.
+ * Ignoring test by default, since it can take very long to run.
+ */
+@Ignore
+public class TestHiveORCCopiersPerf {
+  private static final int BATCH_SIZE = 4095;
+  private static final int NUM_BATCHES = 20_000;
+  private static final int NUM_ITERATIONS = 5;
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+  private HiveOperatorContextOptions options;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-hive-orc-copiers-perf", 0, Long.MAX_VALUE);
+    options = mock(HiveOperatorContextOptions.class);
+    when(options.getMaxCellSize()).thenReturn(Integer.MAX_VALUE);
+  }
+
+  @After
+  public void cleanup() {
+    allocator.close();
+  }
+
+  @Test
+  public void intColumn() {
+    LongColumnVector input = new LongColumnVector(BATCH_SIZE);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      input.vector[i] = i;
+    }
+    try (IntVector output = new IntVector("i", allocator)) {
+      output.allocateNew(BATCH_SIZE);
+      HiveORCCopiers.ORCCopier copier = createCopier(output, input);
+      compare(
+          "int",
+          output,
+          () -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+              output.set(i, (int) input.vector[i]);
+            }
+          },
+          () -> copier.copy(0, BATCH_SIZE, 0));
+    }
+  }
+
+  @Test
+  public void repeatingBigIntColumn() {
+    LongColumnVector input = new LongColumnVector(BATCH_SIZE);
+    input.vector[0] = 42L;
+    input.isRepeating = true;
+    try (BigIntVector output = new BigIntVector("l", allocator)) {
+      output.allocateNew(BATCH_SIZE);
+      HiveORCCopiers.ORCCopier copier = createCopier(output, input);
+      compare(
+          "repeating bigint",
+          output,
+          () -> {
+            final long value = input.vector[0];
+            for (int i = 0; i < BATCH_SIZE; i++) {
+              output.set(i, value);
+            }
+          },
+          () -> copier.copy(0, BATCH_SIZE, 0));
+    }
+  }
+
+  @Test
+  public void doubleColumn() {
+    DoubleColumnVector input = new DoubleColumnVector(BATCH_SIZE);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      input.vector[i] = i / 7.0;
+    }
+    try (Float8Vector output = new Float8Vector("d", allocator)) {
+      output.allocateNew(BATCH_SIZE);
+      HiveORCCopiers.ORCCopier copier = createCopier(output, input);
+      compare(
+          "double",
+          output,
+          () -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+              output.set(i, input.vector[i]);
+            }
+          },
+          () -> copier.copy(0, BATCH_SIZE, 0));
+    }
+  }
+
+  @Test
+  public void varcharColumn() {
+    BytesColumnVector input = new BytesColumnVector(BATCH_SIZE);
+    input.initBuffer();
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      byte[] value = ("value-" + (i % 100)).getBytes(StandardCharsets.UTF_8);
+      input.setVal(i, value, 0, value.length);
+    }
+    try (VarCharVector output = new VarCharVector("s", allocator)) {
+      output.allocateNew(16L * BATCH_SIZE, BATCH_SIZE);
+      HiveORCCopiers.ORCCopier copier = createCopier(output, input);
+      compare(
+          "varchar",
+          output,
+          () -> {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+              output.setSafe(i, input.vector[i], input.start[i], input.length[i]);
+            }
+          },
+          () -> copier.copy(0, BATCH_SIZE, 0));
+    }
+  }
+
+  private void compare(String name, FieldVector output, Runnable perValue, Runnable bulk) {
+    long perValueMillis = time(output, perValue);
+    long bulkMillis = time(output, bulk);
+    System.out.println(
+        String.format(
+            "%s column (%d batches of %d rows): per-value %d ms, bulk %d ms, speedup %.2fx",
+            name,
+            NUM_BATCHES,
+            BATCH_SIZE,
+            perValueMillis,
+            bulkMillis,
+            (double) perValueMillis / bulkMillis));
+  }
+
+  /*
+   * Returns the best of NUM_ITERATIONS copy times, in millis.
+   */
+  private static long time(FieldVector output, Runnable copy) {
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < NUM_ITERATIONS; i++) {
+      long start = System.nanoTime();
+      for (int batch = 0; batch < NUM_BATCHES; batch++) {
+        output.reset();
+        copy.run();
+        output.setValueCount(BATCH_SIZE);
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return TimeUnit.NANOSECONDS.toMillis(best);
+  }
+
+  private HiveORCCopiers.ORCCopier createCopier(ValueVector output, ColumnVector input) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(1, BATCH_SIZE);
+    batch.cols[0] = input;
+    return HiveORCCopiers.createCopiers(
+        null,
+        Collections.singletonList(0),
+        new int[] {0},
+        new ValueVector[] {output},
+        batch,
+        true,
+        options,
+        new HashMap<>())[0];
+  }
+}
@@ -61,6 +61,15 @@ public interface ExecConstants {
   RangeLongValidator INCOMING_BUFFER_SIZE =
       new RangeLongValidator("exec.buffer.size", 0, Integer.MAX_VALUE, 6);
 
+  /* codec of the buffers of the batches sent over exchanges */
+  EnumeratedStringValidator EXCHANGE_COMPRESSION_CODEC =
+      new EnumeratedStringValidator(
+          "exec.exchange.compression.codec", "lz4", "none", "lz4", "zstd");
+
+  /* exchange buffers that don't compress below this ratio are sent uncompressed for a while */
+  RangeDoubleValidator EXCHANGE_COMPRESSION_MAX_RATIO =
+      new RangeDoubleValidator("exec.exchange.compression.max_ratio", 0.0, 1.0, 0.9);
+
   String SPOOLING_BUFFER_DELETE = "dremio.exec.buffer.spooling.delete";
   String SPOOLING_BUFFER_SIZE = "dremio.exec.buffer.spooling.size";
   String BATCH_PURGE_THRESHOLD = "dremio.exec.sort.purge.threshold";
@@ -97,6 +106,13 @@ public interface ExecConstants {
           "dremio.exec.spill.sweep.threshold",
           Long.MAX_VALUE,
           DefaultSpillServiceOptions.SPILL_SWEEP_THRESHOLD);
+  // size of the pool reading spilled runs ahead, taken into account when the node starts
+  RangeLongValidator SPILL_READ_AHEAD_THREADS =
+      new RangeLongValidator(
+          "dremio.exec.spill.read_ahead.threads",
+          1,
+          256,
+          DefaultSpillServiceOptions.READ_AHEAD_THREADS);
 
   // Set this value to set the execution preference
   // Default value to use in the operators (for now, only projector and filter use this default)
@@ -326,6 +342,9 @@ public interface ExecConstants {
       new BooleanValidator("store.parquet.vectorize.detailed.stats", false);
   BooleanValidator USE_COPIER_IN_PARQUET_READER =
       new BooleanValidator("store.parquet.use_copier", true);
+  // decode supported flat parquet columns with the columnar reader instead of the row-wise reader
+  BooleanValidator PARQUET_COLUMNAR_READER_ENABLED =
+      new BooleanValidator("store.parquet.vectorize.columnar_reader", false);
 
   String PARQUET_READER_INT96_AS_TIMESTAMP = "store.parquet.reader.int96_as_timestamp";
   BooleanValidator PARQUET_READER_INT96_AS_TIMESTAMP_VALIDATOR =
@@ -616,6 +635,8 @@ public interface ExecConstants {
       new BooleanValidator("exec.operator.sort.external.compress_spill_files", true);
   BooleanValidator EXTERNAL_SORT_ENABLE_SPLAY_SORT =
       new BooleanValidator("exec.operator.sort.external.enable_splay_sort", false);
+  BooleanValidator EXTERNAL_SORT_ENABLE_RADIX_SORT =
+      new BooleanValidator("exec.operator.sort.external.enable_radix_sort", false);
   BooleanValidator EXTERNAL_SORT_ENABLE_MICRO_SPILL =
       new BooleanValidator("exec.operator.sort.external.enable_micro_spill", true);
   PositiveLongValidator SORT_MAX_WRITE_BATCH =
@@ -632,6 +653,9 @@ public interface ExecConstants {
   DoubleValidator EXTERNAL_SORT_SPILL_ALLOCATION_DENSITY =
       new RangeDoubleValidator(
           "exec.operator.sort.external.spill.allocation_density", 0.0, Double.MAX_VALUE, 0.01);
+  // number of batches of each spilled run read ahead of the merge, 0 to read them on demand
+  RangeLongValidator EXTERNAL_SORT_READ_AHEAD_BATCHES =
+      new RangeLongValidator("exec.operator.sort.external.read_ahead_batches", 0, 16, 1);
 
   PositiveLongValidator EXTERNAL_SORT_BATCHSIZE_MULTIPLIER =
       new PositiveLongValidator(
@@ -683,6 +707,14 @@ public interface ExecConstants {
   BooleanValidator ENABLE_VECTORIZED_SPILL_VARCHAR_ACCUMULATOR =
       new BooleanValidator("exec.operator.vectorized_spill.varchar", true);
 
+  /** Computes approximate percentiles (TDIGEST/TDIGEST_MERGE) in the spilling vectorized agg. */
+  BooleanValidator ENABLE_VECTORIZED_SPILL_TDIGEST_ACCUMULATOR =
+      new BooleanValidator("exec.operator.vectorized_spill.tdigest", true);
+
+  /** Computes COVAR_POP, COVAR_SAMP and CORR (MOMENTS) in the spilling vectorized agg. */
+  BooleanValidator ENABLE_VECTORIZED_SPILL_MOMENTS_ACCUMULATOR =
+      new BooleanValidator("exec.operator.vectorized_spill.moments", true);
+
   BooleanValidator TRIM_ROWGROUPS_FROM_FOOTER =
       new BooleanValidator("exec.parquet.memory.trim_rowgroups", true);
   BooleanValidator TRIM_COLUMNS_FROM_ROW_GROUP =
@@ -744,6 +776,23 @@ public interface ExecConstants {
       new BooleanValidator("dremio.iceberg.merge_on_read_scan.enabled", true);
   BooleanValidator ENABLE_ICEBERG_MERGE_ON_READ_SCAN_WITH_EQUALITY_DELETE =
       new BooleanValidator("dremio.iceberg.merge_on_read_scan_with_equality_delete.enabled", true);
+  BooleanValidator ENABLE_ICEBERG_POSITIONAL_DELETE_INDEX_CACHE =
+      new BooleanValidator("dremio.iceberg.positional_delete_index_cache.enabled", false);
+  PositiveLongValidator ICEBERG_POSITIONAL_DELETE_INDEX_CACHE_MAX_BYTES =
+      new PositiveLongValidator(
+          "dremio.iceberg.positional_delete_index_cache.max_bytes",
+          Long.MAX_VALUE,
+          128L * 1024 * 1024);
+  PositiveLongValidator ICEBERG_POSITIONAL_DELETE_INDEX_CACHE_EXPIRE_MINUTES =
+      new PositiveLongValidator(
+          "dremio.iceberg.positional_delete_index_cache.expire_mins", Long.MAX_VALUE, 60);
+  BooleanValidator ENABLE_ICEBERG_EQUALITY_DELETE_TABLE_CACHE =
+      new BooleanValidator("dremio.iceberg.equality_delete_table_cache.enabled", false);
+  PositiveLongValidator ICEBERG_EQUALITY_DELETE_TABLE_CACHE_MAX_BYTES =
+      new PositiveLongValidator(
+          "dremio.iceberg.equality_delete_table_cache.max_bytes",
+          Long.MAX_VALUE,
+          256L * 1024 * 1024);
   BooleanValidator ENABLE_ICEBERG_MERGE_ON_READ_WRITER_WITH_POSITIONAL_DELETE =
       new BooleanValidator(
           "dremio.iceberg.merge_on_read_writer_with_positional_delete.enabled", false);
@@ -830,6 +879,12 @@ public interface ExecConstants {
   PositiveLongValidator SLICING_THREAD_SPINDOWN_MULTIPLE =
       new com.dremio.options.TypeValidators.PositiveLongValidator(
           "dremio.sliced.spindown_multiple", Long.MAX_VALUE, 100);
+  // number of slicing threads used by the slicing task pool, 0 means one per available core
+  RangeLongValidator SLICING_NUM_THREADS =
+      new RangeLongValidator("dremio.sliced.num_threads", 0, 1024, 0);
+  // idle slicing threads wait this long before re-checking the other run queues for work to steal
+  PositiveLongValidator SLICING_IDLE_WAIT_MS =
+      new PositiveLongValidator("dremio.sliced.idle_wait_ms", 1000, 10);
 
   // warning threshold for spilling
   PositiveLongValidator SPILL_IO_WARN_MAX_RUNTIME_MS =
@@ -914,6 +969,13 @@ public interface ExecConstants {
   BooleanValidator HADOOP_BLOCK_CACHE_ENABLED =
       new BooleanValidator("hadoop_block_affinity_cache.enabled", true);
 
+  /**
+   * Enables the node-local disk cache for async reads of sources which request caching. The cache
+   * itself is configured with the {@code services.executor.cache} settings of dremio.conf.
+   */
+  BooleanValidator ASYNC_READ_BLOCK_CACHE_ENABLED =
+      new BooleanValidator("store.async_read.block_cache.enabled", true);
+
   BooleanValidator ENABLE_DELTALAKE_COLUMN_MAPPING =
       new BooleanValidator("store.deltalake.column_mapping.enabled", true);
 
@@ -1181,4 +1243,18 @@ public interface ExecConstants {
 
   PositiveLongValidator WINDOW_FRAME_MAX_BOUND_THRESHOLD =
       new PositiveLongValidator("exec.window.max_bound_threshold", Integer.MAX_VALUE, 1000);
+
+  // page the batches buffered by the window operator to disk when they don't fit in memory
+  BooleanValidator WINDOW_SPILL_ENABLED =
+      new BooleanValidator("exec.operator.window.spill.enabled", true);
+  // maximum number of batches the window operator keeps in memory, 0 to only spill when running
+  // low on memory
+  RangeLongValidator WINDOW_SPILL_MAX_BATCHES_IN_MEMORY =
+      new RangeLongValidator(
+          "exec.operator.window.spill.max_batches_in_memory", 0, Integer.MAX_VALUE, 0);
+
+  // evaluate SUM/COUNT/MIN/MAX/AVG over bounded ROWS frames incrementally instead of aggregating
+  // the whole frame of each row
+  BooleanValidator WINDOW_SLIDING_FRAME_AGGREGATES_ENABLED =
+      new BooleanValidator("exec.operator.window.sliding_frame_aggregates.enabled", true);
 }
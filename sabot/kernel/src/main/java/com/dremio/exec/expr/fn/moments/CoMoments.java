@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.expr.fn.moments;
+
+import org.apache.arrow.memory.ArrowBuf;
+
+/**
+ * Running count, means and second order co-moments of a pair of columns, from which COVAR_POP,
+ * COVAR_SAMP and CORR are derived.
+ *
+ * <p>Values are added with Welford's online update and partial states are combined with Chan's
+ * parallel formulas, so the state never holds the raw sums of squares and products that lose
+ * precision (or overflow once cast back) on large inputs.
+ *
+ * <p>The state is serialized as {@link #SIZE} bytes: count (long), mean of x, mean of y, M2 of x,
+ * M2 of y and the co-moment of x and y (doubles). A zero count is an empty state.
+ */
+public final class CoMoments {
+  public static final int SIZE = 48;
+
+  private static final int COUNT_OFFSET = 0;
+  private static final int MEAN_X_OFFSET = 8;
+  private static final int MEAN_Y_OFFSET = 16;
+  private static final int M2_X_OFFSET = 24;
+  private static final int M2_Y_OFFSET = 32;
+  private static final int C_XY_OFFSET = 40;
+
+  private long count;
+  private double meanX;
+  private double meanY;
+  private double m2X;
+  private double m2Y;
+  private double cXY;
+
+  public void add(double x, double y) {
+    count++;
+    final double dx = x - meanX;
+    meanX += dx / count;
+    final double dy = y - meanY;
+    meanY += dy / count;
+    m2X += dx * (x - meanX);
+    m2Y += dy * (y - meanY);
+    cXY += dx * (y - meanY);
+  }
+
+  /** Merge the serialized state at the given offset of a buffer into this state. */
+  public void merge(ArrowBuf buf, long offset) {
+    final long otherCount = buf.getLong(offset + COUNT_OFFSET);
+    if (otherCount == 0) {
+      return;
+    }
+    if (count == 0) {
+      read(buf, offset);
+      return;
+    }
+
+    final double otherMeanX = buf.getDouble(offset + MEAN_X_OFFSET);
+    final double otherMeanY = buf.getDouble(offset + MEAN_Y_OFFSET);
+    final long total = count + otherCount;
+    final double dx = otherMeanX - meanX;
+    final double dy = otherMeanY - meanY;
+    final double weight = (double) count * otherCount / total;
+    meanX += dx * otherCount / total;
+    meanY += dy * otherCount / total;
+    m2X += buf.getDouble(offset + M2_X_OFFSET) + dx * dx * weight;
+    m2Y += buf.getDouble(offset + M2_Y_OFFSET) + dy * dy * weight;
+    cXY += buf.getDouble(offset + C_XY_OFFSET) + dx * dy * weight;
+    count = total;
+  }
+
+  public void read(ArrowBuf buf, long offset) {
+    count = buf.getLong(offset + COUNT_OFFSET);
+    meanX = buf.getDouble(offset + MEAN_X_OFFSET);
+    meanY = buf.getDouble(offset + MEAN_Y_OFFSET);
+    m2X = buf.getDouble(offset + M2_X_OFFSET);
+    m2Y = buf.getDouble(offset + M2_Y_OFFSET);
+    cXY = buf.getDouble(offset + C_XY_OFFSET);
+  }
+
+  public void write(ArrowBuf buf, long offset) {
+    buf.setLong(offset + COUNT_OFFSET, count);
+    buf.setDouble(offset + MEAN_X_OFFSET, meanX);
+    buf.setDouble(offset + MEAN_Y_OFFSET, meanY);
+    buf.setDouble(offset + M2_X_OFFSET, m2X);
+    buf.setDouble(offset + M2_Y_OFFSET, m2Y);
+    buf.setDouble(offset + C_XY_OFFSET, cXY);
+  }
+
+  public void reset() {
+    count = 0;
+    meanX = 0;
+    meanY = 0;
+    m2X = 0;
+    m2Y = 0;
+    cXY = 0;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  /** Only valid for a non empty state. */
+  public double getCovarPop() {
+    return cXY / count;
+  }
+
+  /** Only valid for a state with at least two values. */
+  public double getCovarSamp() {
+    return cXY / (count - 1);
+  }
+
+  /** False when the state is empty or one of the columns is constant. */
+  public boolean hasCorrelation() {
+    return count != 0 && m2X != 0 && m2Y != 0;
+  }
+
+  /** Only valid if {@link #hasCorrelation()}. */
+  public double getCorrelation() {
+    return cXY / (Math.sqrt(m2X) * Math.sqrt(m2Y));
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.expr.fn.moments;
+
+import static org.apache.calcite.sql.type.OperandTypes.family;
+
+import org.apache.calcite.sql.SqlAggFunction;
+import org.apache.calcite.sql.SqlFunction;
+import org.apache.calcite.sql.SqlFunctionCategory;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.OperandTypes;
+import org.apache.calcite.sql.type.ReturnTypes;
+import org.apache.calcite.sql.type.SqlTypeFamily;
+import org.apache.calcite.sql.type.SqlTypeName;
+
+/**
+ * Operators COVAR_POP, COVAR_SAMP and CORR are rewritten to: a MOMENTS aggregate of the pair of
+ * columns, merged with MOMENTS_MERGE in two phase aggregations, and a scalar function deriving the
+ * result from the {@link CoMoments} state.
+ */
+public class Moments {
+
+  public static class SqlMomentsAggFunction extends SqlAggFunction {
+    public SqlMomentsAggFunction() {
+      super(
+          "MOMENTS",
+          null,
+          SqlKind.OTHER_FUNCTION,
+          ReturnTypes.explicit(SqlTypeName.VARBINARY, CoMoments.SIZE),
+          null,
+          family(SqlTypeFamily.NUMERIC, SqlTypeFamily.NUMERIC),
+          SqlFunctionCategory.USER_DEFINED_FUNCTION,
+          false,
+          false);
+    }
+  }
+
+  public static class SqlMomentsMergeAggFunction extends SqlAggFunction {
+    public SqlMomentsMergeAggFunction() {
+      super(
+          "MOMENTS_MERGE",
+          null,
+          SqlKind.OTHER_FUNCTION,
+          ReturnTypes.explicit(SqlTypeName.VARBINARY, CoMoments.SIZE),
+          null,
+          OperandTypes.BINARY,
+          SqlFunctionCategory.USER_DEFINED_FUNCTION,
+          false,
+          false);
+    }
+  }
+
+  /** MOMENTS_COVAR_POP, MOMENTS_COVAR_SAMP and MOMENTS_CORR. */
+  public static class SqlMomentsResultFunction extends SqlFunction {
+    public SqlMomentsResultFunction(String name) {
+      super(
+          name,
+          SqlKind.OTHER_FUNCTION,
+          ReturnTypes.DOUBLE_NULLABLE,
+          null,
+          OperandTypes.BINARY,
+          SqlFunctionCategory.USER_DEFINED_FUNCTION);
+    }
+  }
+}
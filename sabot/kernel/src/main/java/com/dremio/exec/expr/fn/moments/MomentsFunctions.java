@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.expr.fn.moments;
+
+import com.dremio.exec.expr.AggrFunction;
+import com.dremio.exec.expr.SimpleFunction;
+import com.dremio.exec.expr.annotations.FunctionTemplate;
+import com.dremio.exec.expr.annotations.Output;
+import com.dremio.exec.expr.annotations.Param;
+import com.dremio.exec.expr.annotations.Workspace;
+import javax.inject.Inject;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.holders.NullableFloat8Holder;
+import org.apache.arrow.vector.holders.NullableVarBinaryHolder;
+import org.apache.arrow.vector.holders.ObjectHolder;
+
+/**
+ * Row-wise implementations of the moments functions, see {@link Moments}. The planner casts the
+ * columns to DOUBLE, so only that type is implemented.
+ */
+public class MomentsFunctions {
+
+  /** Accumulates the co-moments of the pairs where neither value is null. */
+  @FunctionTemplate(name = "moments", scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class NullableFloat8Moments implements AggrFunction {
+    @Param private NullableFloat8Holder x;
+    @Param private NullableFloat8Holder y;
+    @Workspace private ObjectHolder moments;
+    @Output private NullableVarBinaryHolder out;
+    @Inject private ArrowBuf buffer;
+
+    @Override
+    public void setup() {
+      moments = new ObjectHolder();
+      moments.obj = new com.dremio.exec.expr.fn.moments.CoMoments();
+    }
+
+    @Override
+    public void add() {
+      if (x.isSet == 1 && y.isSet == 1) {
+        ((com.dremio.exec.expr.fn.moments.CoMoments) moments.obj).add(x.value, y.value);
+      }
+    }
+
+    @Override
+    public void output() {
+      buffer = buffer.reallocIfNeeded(com.dremio.exec.expr.fn.moments.CoMoments.SIZE);
+      ((com.dremio.exec.expr.fn.moments.CoMoments) moments.obj).write(buffer, 0);
+      out.isSet = 1;
+      out.start = 0;
+      out.buffer = buffer;
+      out.end = com.dremio.exec.expr.fn.moments.CoMoments.SIZE;
+    }
+
+    @Override
+    public void reset() {
+      moments.obj = new com.dremio.exec.expr.fn.moments.CoMoments();
+    }
+  }
+
+  /** Merges the states produced by the moments function. */
+  @FunctionTemplate(name = "moments_merge", scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class NullableVarBinaryMomentsMerge implements AggrFunction {
+    @Param private NullableVarBinaryHolder in;
+    @Workspace private ObjectHolder moments;
+    @Output private NullableVarBinaryHolder out;
+    @Inject private ArrowBuf buffer;
+
+    @Override
+    public void setup() {
+      moments = new ObjectHolder();
+      moments.obj = new com.dremio.exec.expr.fn.moments.CoMoments();
+    }
+
+    @Override
+    public void add() {
+      if (in.isSet == 1) {
+        ((com.dremio.exec.expr.fn.moments.CoMoments) moments.obj).merge(in.buffer, in.start);
+      }
+    }
+
+    @Override
+    public void output() {
+      buffer = buffer.reallocIfNeeded(com.dremio.exec.expr.fn.moments.CoMoments.SIZE);
+      ((com.dremio.exec.expr.fn.moments.CoMoments) moments.obj).write(buffer, 0);
+      out.isSet = 1;
+      out.start = 0;
+      out.buffer = buffer;
+      out.end = com.dremio.exec.expr.fn.moments.CoMoments.SIZE;
+    }
+
+    @Override
+    public void reset() {
+      moments.obj = new com.dremio.exec.expr.fn.moments.CoMoments();
+    }
+  }
+
+  /** Population covariance, null if there is no value. */
+  @FunctionTemplate(
+      name = "moments_covar_pop",
+      scope = FunctionTemplate.FunctionScope.SIMPLE,
+      nulls = FunctionTemplate.NullHandling.INTERNAL)
+  public static class MomentsCovarPop implements SimpleFunction {
+    @Param NullableVarBinaryHolder in;
+    @Workspace ObjectHolder moments;
+    @Output NullableFloat8Holder out;
+
+    @Override
+    public void setup() {
+      moments = new ObjectHolder();
+      moments.obj = new com.dremio.exec.expr.fn.moments.CoMoments();
+    }
+
+    @Override
+    public void eval() {
+      out.isSet = 0;
+      if (in.isSet == 1) {
+        com.dremio.exec.expr.fn.moments.CoMoments state =
+            (com.dremio.exec.expr.fn.moments.CoMoments) moments.obj;
+        state.read(in.buffer, in.start);
+        if (state.getCount() > 0) {
+          out.isSet = 1;
+          out.value = state.getCovarPop();
+        }
+      }
+    }
+  }
+
+  /** Sample covariance, null if there are less than two values. */
+  @FunctionTemplate(
+      name = "moments_covar_samp",
+      scope = FunctionTemplate.FunctionScope.SIMPLE,
+      nulls = FunctionTemplate.NullHandling.INTERNAL)
+  public static class MomentsCovarSamp implements SimpleFunction {
+    @Param NullableVarBinaryHolder in;
+    @Workspace ObjectHolder moments;
+    @Output NullableFloat8Holder out;
+
+    @Override
+    public void setup() {
+      moments = new ObjectHolder();
+      moments.obj = new com.dremio.exec.expr.fn.moments.CoMoments();
+    }
+
+    @Override
+    public void eval() {
+      out.isSet = 0;
+      if (in.isSet == 1) {
+        com.dremio.exec.expr.fn.moments.CoMoments state =
+            (com.dremio.exec.expr.fn.moments.CoMoments) moments.obj;
+        state.read(in.buffer, in.start);
+        if (state.getCount() > 1) {
+          out.isSet = 1;
+          out.value = state.getCovarSamp();
+        }
+      }
+    }
+  }
+
+  /** Pearson correlation, null if there is no value or one of the columns is constant. */
+  @FunctionTemplate(
+      name = "moments_corr",
+      scope = FunctionTemplate.FunctionScope.SIMPLE,
+      nulls = FunctionTemplate.NullHandling.INTERNAL)
+  public static class MomentsCorr implements SimpleFunction {
+    @Param NullableVarBinaryHolder in;
+    @Workspace ObjectHolder moments;
+    @Output NullableFloat8Holder out;
+
+    @Override
+    public void setup() {
+      moments = new ObjectHolder();
+      moments.obj = new com.dremio.exec.expr.fn.moments.CoMoments();
+    }
+
+    @Override
+    public void eval() {
+      out.isSet = 0;
+      if (in.isSet == 1) {
+        com.dremio.exec.expr.fn.moments.CoMoments state =
+            (com.dremio.exec.expr.fn.moments.CoMoments) moments.obj;
+        state.read(in.buffer, in.start);
+        if (state.hasCorrelation()) {
+          out.isSet = 1;
+          out.value = state.getCorrelation();
+        }
+      }
+    }
+  }
+}
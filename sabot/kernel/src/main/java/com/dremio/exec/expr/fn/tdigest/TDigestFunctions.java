@@ -27,8 +27,10 @@ import javax.inject.Inject;
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.vector.holders.Float8Holder;
 import org.apache.arrow.vector.holders.IntHolder;
+import org.apache.arrow.vector.holders.NullableBigIntHolder;
 import org.apache.arrow.vector.holders.NullableBitHolder;
 import org.apache.arrow.vector.holders.NullableDateMilliHolder;
+import org.apache.arrow.vector.holders.NullableFloat4Holder;
 import org.apache.arrow.vector.holders.NullableFloat8Holder;
 import org.apache.arrow.vector.holders.NullableIntHolder;
 import org.apache.arrow.vector.holders.NullableTimeMilliHolder;
@@ -82,6 +84,90 @@ public class TDigestFunctions {
     }
   }
 
+  @FunctionTemplate(name = "tdigest", scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class NullableBigIntTDigestFunction implements AggrFunction {
+    @Param private NullableBigIntHolder in;
+    @Workspace private ObjectHolder digest;
+    @Output private NullableVarBinaryHolder out;
+    @Inject private ArrowBuf buffer;
+    @Workspace IntHolder compression;
+    @Inject OptionResolver options;
+
+    @Override
+    public void setup() {
+      digest = new ObjectHolder();
+      compression.value =
+          (int) options.getOption(com.dremio.exec.ExecConstants.TDIGEST_COMPRESSION);
+      digest.obj = new com.tdunning.math.stats.MergingDigest(compression.value);
+    }
+
+    @Override
+    public void add() {
+      if (in.isSet == 1) {
+        ((com.tdunning.math.stats.TDigest) digest.obj).add(in.value);
+      }
+    }
+
+    @Override
+    public void output() {
+      com.tdunning.math.stats.TDigest tdigest = ((com.tdunning.math.stats.TDigest) digest.obj);
+      int size = tdigest.smallByteSize();
+      buffer = buffer.reallocIfNeeded(size);
+      tdigest.asSmallBytes(buffer.nioBuffer(0, size));
+      out.isSet = 1;
+      out.start = 0;
+      out.buffer = buffer;
+      out.end = size;
+    }
+
+    @Override
+    public void reset() {
+      digest.obj = com.tdunning.math.stats.TDigest.createMergingDigest(compression.value);
+    }
+  }
+
+  @FunctionTemplate(name = "tdigest", scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
+  public static class NullableFloat4TDigestFunction implements AggrFunction {
+    @Param private NullableFloat4Holder in;
+    @Workspace private ObjectHolder digest;
+    @Output private NullableVarBinaryHolder out;
+    @Inject private ArrowBuf buffer;
+    @Workspace IntHolder compression;
+    @Inject OptionResolver options;
+
+    @Override
+    public void setup() {
+      digest = new ObjectHolder();
+      compression.value =
+          (int) options.getOption(com.dremio.exec.ExecConstants.TDIGEST_COMPRESSION);
+      digest.obj = new com.tdunning.math.stats.MergingDigest(compression.value);
+    }
+
+    @Override
+    public void add() {
+      if (in.isSet == 1) {
+        ((com.tdunning.math.stats.TDigest) digest.obj).add(in.value);
+      }
+    }
+
+    @Override
+    public void output() {
+      com.tdunning.math.stats.TDigest tdigest = ((com.tdunning.math.stats.TDigest) digest.obj);
+      int size = tdigest.smallByteSize();
+      buffer = buffer.reallocIfNeeded(size);
+      tdigest.asSmallBytes(buffer.nioBuffer(0, size));
+      out.isSet = 1;
+      out.start = 0;
+      out.buffer = buffer;
+      out.end = size;
+    }
+
+    @Override
+    public void reset() {
+      digest.obj = com.tdunning.math.stats.TDigest.createMergingDigest(compression.value);
+    }
+  }
+
   @FunctionTemplate(name = "tdigest", scope = FunctionTemplate.FunctionScope.POINT_AGGREGATE)
   public static class NullableFloat8TDigestFunction implements AggrFunction {
     @Param private NullableFloat8Holder in;
@@ -30,6 +30,7 @@ import java.util.List;
 
 @JsonTypeName("hash-aggregate")
 public class HashAggregate extends AbstractSingle {
+  private static final int DEFAULT_HASH_TABLE_BATCH_SIZE = 3968;
 
   private final List<NamedExpression> groupByExprs;
   private final List<NamedExpression> aggrExprs;
@@ -37,6 +38,7 @@ public class HashAggregate extends AbstractSingle {
   private final boolean useSpill;
   private final float cardinality;
   private final int hashTableBatchSize;
+  private final boolean partialAggregation;
 
   /* testing related parameters */
   private VectorizedHashAggSpillStats spillStats;
@@ -50,7 +52,8 @@ public class HashAggregate extends AbstractSingle {
       @JsonProperty("vectorize") boolean vectorize,
       @JsonProperty("useSpill") boolean useSpill,
       @JsonProperty("cardinality") float cardinality,
-      @JsonProperty("hashTableBatchSize") int hashTableBatchSize) {
+      @JsonProperty("hashTableBatchSize") int hashTableBatchSize,
+      @JsonProperty("partialAggregation") boolean partialAggregation) {
     super(props, child);
     this.groupByExprs = groupByExprs;
     this.aggrExprs = aggrExprs;
@@ -58,6 +61,28 @@ public class HashAggregate extends AbstractSingle {
     this.useSpill = useSpill;
     this.cardinality = cardinality;
     this.hashTableBatchSize = hashTableBatchSize;
+    this.partialAggregation = partialAggregation;
+  }
+
+  public HashAggregate(
+      OpProps props,
+      PhysicalOperator child,
+      List<NamedExpression> groupByExprs,
+      List<NamedExpression> aggrExprs,
+      boolean vectorize,
+      boolean useSpill,
+      float cardinality,
+      int hashTableBatchSize) {
+    this(
+        props,
+        child,
+        groupByExprs,
+        aggrExprs,
+        vectorize,
+        useSpill,
+        cardinality,
+        hashTableBatchSize,
+        false);
   }
 
   // for testing only
@@ -69,7 +94,15 @@ public class HashAggregate extends AbstractSingle {
       boolean vectorize,
       boolean useSpill,
       float cardinality) {
-    this(props, child, groupByExprs, aggrExprs, vectorize, useSpill, cardinality, 3968);
+    this(
+        props,
+        child,
+        groupByExprs,
+        aggrExprs,
+        vectorize,
+        useSpill,
+        cardinality,
+        DEFAULT_HASH_TABLE_BATCH_SIZE);
   }
 
   public boolean isVectorize() {
@@ -92,6 +125,14 @@ public class HashAggregate extends AbstractSingle {
     return cardinality;
   }
 
+  /**
+   * @return true if this is the first phase of a two phase aggregation, whose groups are merged
+   *     again by the second phase
+   */
+  public boolean isPartialAggregation() {
+    return partialAggregation;
+  }
+
   @Override
   public <T, X, E extends Throwable> T accept(PhysicalVisitor<T, X, E> physicalVisitor, X value)
       throws E {
@@ -101,7 +142,15 @@ public class HashAggregate extends AbstractSingle {
   @Override
   protected PhysicalOperator getNewWithChild(PhysicalOperator child) {
     return new HashAggregate(
-        props, child, groupByExprs, aggrExprs, vectorize, useSpill, cardinality);
+        props,
+        child,
+        groupByExprs,
+        aggrExprs,
+        vectorize,
+        useSpill,
+        cardinality,
+        DEFAULT_HASH_TABLE_BATCH_SIZE,
+        partialAggregation);
   }
 
   @Override
@@ -25,22 +25,37 @@ public class CachedPlan {
   private AtomicInteger useCount;
   private final long creationTime;
   private AccelerationProfile accelerationProfile;
+  private final boolean parameterized;
 
-  private CachedPlan(Prel prel, int useCount, int estimatedSize) {
+  private CachedPlan(Prel prel, int useCount, int estimatedSize, boolean parameterized) {
     this.prel = prel;
+    this.parameterized = parameterized;
     this.useCount = new AtomicInteger(useCount);
     this.estimatedSize = estimatedSize;
     this.creationTime = System.currentTimeMillis();
   }
 
   public static CachedPlan createCachedPlan(Prel prel, int estimatedSize) {
-    return new CachedPlan(prel, 0, estimatedSize);
+    return new CachedPlan(prel, 0, estimatedSize, false);
+  }
+
+  /**
+   * Creates a cached plan whose parameterized literals are {@link
+   * org.apache.calcite.rex.RexDynamicParam} slots, to be bound with {@link
+   * LiteralParameterizer#bind} before use.
+   */
+  public static CachedPlan createParameterizedCachedPlan(Prel template, int estimatedSize) {
+    return new CachedPlan(template, 0, estimatedSize, true);
   }
 
   public Prel getPrel() {
     return prel;
   }
 
+  public boolean isParameterized() {
+    return parameterized;
+  }
+
   public AccelerationProfile getAccelerationProfile() {
     return accelerationProfile;
   }
@@ -0,0 +1,501 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import static com.dremio.exec.store.parquet.ParquetFormatDatasetAccessor.ACCELERATOR_STORAGEPLUGIN_NAME;
+
+import com.dremio.exec.catalog.DremioTable;
+import com.dremio.exec.physical.config.ManifestScanFilters;
+import com.dremio.exec.physical.config.ManifestScanTableFunctionContext;
+import com.dremio.exec.physical.config.TableFunctionContext;
+import com.dremio.exec.planner.common.ScanRelBase;
+import com.dremio.exec.planner.common.TableMetadataConsumer;
+import com.dremio.exec.planner.physical.Prel;
+import com.dremio.exec.planner.physical.TableFunctionPrel;
+import com.dremio.exec.store.TableMetadata;
+import com.dremio.exec.store.dfs.FilterableScan;
+import com.dremio.exec.store.iceberg.IcebergManifestListPrel;
+import com.dremio.exec.store.parquet.ParquetScanPrel;
+import com.dremio.service.namespace.DatasetHelper;
+import com.dremio.service.namespace.NamespaceException;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.dremio.service.namespace.dataset.proto.ReadDefinition;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.metadata.RelColumnOrigin;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexDynamicParam;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.sql.SqlDynamicParam;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.SqlLiteral;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.dialect.CalciteSqlDialect;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.sql.util.SqlShuttle;
+import org.apache.calcite.util.NlsString;
+
+/**
+ * Turns the literals a query filters on into parameters, so that queries only differing by the
+ * values they filter on share a plan cache entry.
+ *
+ * <p>Only literals compared to a column are parameterized. Literals compared to a partition column,
+ * to any column of a dataset pruned on column min/max, or to a column whose origin is unknown, stay
+ * in the cache key as pruning depends on their value, as do literals whose value appears more than
+ * once in the query.
+ *
+ * <p>Plans are still built with the actual values. The cached template is derived from the
+ * physical plan by replacing each parameter value with a {@link RexDynamicParam} slot, and is only
+ * created when every value replaced exactly one literal of the plan expressions and no literal of
+ * that value is left in the template. Plans holding conditions outside of their expressions, such
+ * as filters pushed into scans or pruned splits and manifests, and plans reading reflections are
+ * never templated, as they depend on the actual values.
+ */
+public final class LiteralParameterizer {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(LiteralParameterizer.class);
+
+  private static final Set<SqlKind> COMPARISONS =
+      ImmutableSet.of(
+          SqlKind.EQUALS,
+          SqlKind.NOT_EQUALS,
+          SqlKind.LESS_THAN,
+          SqlKind.LESS_THAN_OR_EQUAL,
+          SqlKind.GREATER_THAN,
+          SqlKind.GREATER_THAN_OR_EQUAL);
+
+  private LiteralParameterizer() {}
+
+  /** A query whose filter literals have been replaced with parameters. */
+  public static final class ParameterizedQuery {
+    private final String normalizedSql;
+    private final RelNode normalizedRel;
+    private final List<RexLiteral> parameters;
+
+    private ParameterizedQuery(
+        String normalizedSql, RelNode normalizedRel, List<RexLiteral> parameters) {
+      this.normalizedSql = normalizedSql;
+      this.normalizedRel = normalizedRel;
+      this.parameters = parameters;
+    }
+
+    /** The query text, with all its literals replaced by '?'. */
+    public String getNormalizedSql() {
+      return normalizedSql;
+    }
+
+    /** The converted query, with the parameterized literals replaced by dynamic params. */
+    public RelNode getNormalizedRel() {
+      return normalizedRel;
+    }
+
+    /** The values of the parameters, indexed by the dynamic params of the normalized query. */
+    public List<RexLiteral> getParameters() {
+      return parameters;
+    }
+  }
+
+  /**
+   * Parameterizes the literals of the query.
+   *
+   * @return the parameterized query, or null if none of its literals can be parameterized
+   */
+  public static ParameterizedQuery parameterize(SqlNode sqlNode, RelNode relNode) {
+    try {
+      final Map<Object, Integer> valueCounts = new HashMap<>();
+      forEachNode(relNode, node -> node.accept(new LiteralCounter(valueCounts)));
+
+      final List<RexLiteral> parameters = new ArrayList<>();
+      final RelNode normalizedRel =
+          forEachNode(
+              relNode,
+              node -> {
+                if (!(node instanceof Filter)) {
+                  return node;
+                }
+                final Filter filter = (Filter) node;
+                final RexNode condition =
+                    filter
+                        .getCondition()
+                        .accept(new FilterParameterizer(filter, valueCounts, parameters));
+                return condition == filter.getCondition()
+                    ? filter
+                    : filter.copy(filter.getTraitSet(), filter.getInput(), condition);
+              });
+      if (parameters.isEmpty()) {
+        return null;
+      }
+
+      return new ParameterizedQuery(
+          normalizeSql(sqlNode), normalizedRel, ImmutableList.copyOf(parameters));
+    } catch (RuntimeException e) {
+      logger.debug("Unable to parameterize query literals", e);
+      return null;
+    }
+  }
+
+  /**
+   * Derives the template cached for a plan built with the given parameter values.
+   *
+   * @return the template, or null if the parameter values can't be safely located in the plan
+   */
+  public static <T extends RelNode> T createTemplate(T plan, List<RexLiteral> parameters) {
+    try {
+      if (holdsScanCondition(plan)) {
+        logger.debug("Plan not templated: plan holds pushed down or pruning conditions.");
+        return null;
+      }
+      if (readsReflection(plan)) {
+        logger.debug("Plan not templated: plan is accelerated.");
+        return null;
+      }
+
+      final SlotReplacer toSlots = new SlotReplacer(parameters);
+      @SuppressWarnings("unchecked")
+      final T template = (T) forEachNode(plan, node -> node.accept(toSlots));
+      for (int slot = 0; slot < parameters.size(); slot++) {
+        if (toSlots.getReplacements(slot) != 1) {
+          logger.debug(
+              "Plan not templated: parameter value {} is not used exactly once.",
+              parameters.get(slot));
+          return null;
+        }
+      }
+
+      // a node may visit its expressions without rewriting them, keeping the values in the plan
+      final Map<Object, Integer> leftovers = new HashMap<>();
+      forEachNode(template, node -> node.accept(new LiteralCounter(leftovers)));
+      for (RexLiteral parameter : parameters) {
+        if (leftovers.containsKey(valueKey(parameter))) {
+          logger.debug("Plan not templated: parameter value {} is held by the plan.", parameter);
+          return null;
+        }
+      }
+      return template;
+    } catch (RuntimeException e) {
+      logger.debug("Unable to template plan", e);
+      return null;
+    }
+  }
+
+  /**
+   * Binds the parameter values into a template.
+   *
+   * @return the plan, or null if the values can't be bound
+   */
+  public static <T extends RelNode> T bind(T template, List<RexLiteral> parameters) {
+    final RexBuilder rexBuilder = template.getCluster().getRexBuilder();
+    final RexShuttle toLiterals =
+        new RexShuttle() {
+          @Override
+          public RexNode visitDynamicParam(RexDynamicParam param) {
+            return rexBuilder.makeLiteral(
+                parameters.get(param.getIndex()).getValue(), param.getType(), false);
+          }
+        };
+    try {
+      @SuppressWarnings("unchecked")
+      final T plan = (T) forEachNode(template, node -> node.accept(toLiterals));
+      return plan;
+    } catch (RuntimeException e) {
+      logger.debug("Unable to bind parameters {} into cached plan", parameters, e);
+      return null;
+    }
+  }
+
+  private static boolean readsReflection(RelNode node) {
+    if (node instanceof TableScan
+        && ACCELERATOR_STORAGEPLUGIN_NAME.equals(
+            ((TableScan) node).getTable().getQualifiedName().get(0))) {
+      return true;
+    }
+    return node.getInputs().stream().anyMatch(LiteralParameterizer::readsReflection);
+  }
+
+  /**
+   * Checks whether the plan holds conditions outside of its expressions: filters pushed into a
+   * scan, splits or manifests pruned on a condition, or scans whose spec is plugin specific.
+   */
+  private static boolean holdsScanCondition(RelNode node) {
+    if (node instanceof FilterableScan) {
+      final FilterableScan scan = (FilterableScan) node;
+      if (scan.getFilter() != null
+          || scan.getPartitionFilter() != null
+          || scan.getRowGroupFilter() != null) {
+        return true;
+      }
+    }
+    if (node instanceof ParquetScanPrel) {
+      final ParquetScanPrel scan = (ParquetScanPrel) node;
+      if (scan.hasFilter() || scan.getRowGroupFilter() != null) {
+        return true;
+      }
+    }
+    if (node instanceof TableFunctionPrel) {
+      final TableFunctionContext context =
+          ((TableFunctionPrel) node).getTableFunctionConfig().getFunctionContext();
+      if (context != null
+          && (context.getScanFilter() != null || context.getRowGroupFilter() != null)) {
+        return true;
+      }
+      if (context instanceof ManifestScanTableFunctionContext) {
+        final ManifestScanFilters filters =
+            ((ManifestScanTableFunctionContext) context).getManifestScanFilters();
+        if (filters != null
+            && (filters.doesIcebergAnyColExpressionExists()
+                || filters.doesSkipDataFileSizeRangeExist())) {
+          return true;
+        }
+      }
+    }
+    if (node instanceof IcebergManifestListPrel
+        && ((IcebergManifestListPrel) node).getIcebergExpression() != null) {
+      return true;
+    }
+    final TableMetadata tableMetadata;
+    if (node instanceof ScanRelBase) {
+      tableMetadata = ((ScanRelBase) node).getTableMetadata();
+    } else if (node instanceof TableFunctionPrel) {
+      tableMetadata = ((TableFunctionPrel) node).getTableMetadata();
+    } else if (node instanceof TableMetadataConsumer) {
+      tableMetadata = ((TableMetadataConsumer) node).getTableMetadata();
+    } else {
+      tableMetadata = null;
+    }
+    if (isPruned(tableMetadata)) {
+      return true;
+    }
+    if (node instanceof TableScan && node instanceof Prel && !(node instanceof ScanRelBase)) {
+      return true;
+    }
+    return node.getInputs().stream().anyMatch(LiteralParameterizer::holdsScanCondition);
+  }
+
+  private static boolean isPruned(TableMetadata tableMetadata) {
+    try {
+      return tableMetadata != null && tableMetadata.getSplitRatio() < 1.0;
+    } catch (NamespaceException e) {
+      return true;
+    }
+  }
+
+  /** Rewrites the tree bottom-up, only copying the nodes which changed. */
+  private static RelNode forEachNode(RelNode node, UnaryOperator<RelNode> rewriter) {
+    final List<RelNode> inputs = new ArrayList<>(node.getInputs().size());
+    boolean changed = false;
+    for (RelNode input : node.getInputs()) {
+      final RelNode newInput = forEachNode(input, rewriter);
+      changed |= newInput != input;
+      inputs.add(newInput);
+    }
+    return rewriter.apply(changed ? node.copy(node.getTraitSet(), inputs) : node);
+  }
+
+  private static String normalizeSql(SqlNode sqlNode) {
+    final SqlNode normalized =
+        sqlNode.accept(
+            new SqlShuttle() {
+              @Override
+              public SqlNode visit(SqlLiteral literal) {
+                return isParameterizable(literal.getTypeName())
+                    ? new SqlDynamicParam(0, literal.getParserPosition())
+                    : literal;
+              }
+            });
+    return normalized.toSqlString(CalciteSqlDialect.DEFAULT).getSql();
+  }
+
+  private static boolean isParameterizable(SqlTypeName typeName) {
+    return SqlTypeName.NUMERIC_TYPES.contains(typeName)
+        || SqlTypeName.CHAR_TYPES.contains(typeName)
+        || SqlTypeName.DATETIME_TYPES.contains(typeName);
+  }
+
+  /** Literal values compare equal regardless of their type (5 and 5.0, CHAR(3) and VARCHAR). */
+  private static Object valueKey(RexLiteral literal) {
+    final Comparable<?> value = literal.getValue();
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).stripTrailingZeros();
+    }
+    if (value instanceof NlsString) {
+      return ((NlsString) value).getValue();
+    }
+    return value;
+  }
+
+  private static RexNode stripCast(RexNode node) {
+    while (node.getKind() == SqlKind.CAST) {
+      node = ((RexCall) node).getOperands().get(0);
+    }
+    return node;
+  }
+
+  private static final class LiteralCounter extends RexShuttle {
+    private final Map<Object, Integer> valueCounts;
+
+    private LiteralCounter(Map<Object, Integer> valueCounts) {
+      this.valueCounts = valueCounts;
+    }
+
+    @Override
+    public RexNode visitLiteral(RexLiteral literal) {
+      if (!literal.isNull()) {
+        valueCounts.merge(valueKey(literal), 1, Integer::sum);
+      }
+      return literal;
+    }
+  }
+
+  /**
+   * Replaces the parameter values with the dynamic param of their slot, recording how many literals
+   * each slot replaced.
+   */
+  private static final class SlotReplacer extends RexShuttle {
+    private final Map<Object, Integer> slots = new HashMap<>();
+    private final int[] replacements;
+
+    private SlotReplacer(List<RexLiteral> parameters) {
+      for (int i = 0; i < parameters.size(); i++) {
+        slots.put(valueKey(parameters.get(i)), i);
+      }
+      this.replacements = new int[parameters.size()];
+    }
+
+    private int getReplacements(int slot) {
+      return replacements[slot];
+    }
+
+    @Override
+    public RexNode visitLiteral(RexLiteral literal) {
+      final Integer slot = literal.isNull() ? null : slots.get(valueKey(literal));
+      if (slot == null) {
+        return literal;
+      }
+      replacements[slot]++;
+      return new RexDynamicParam(literal.getType(), slot);
+    }
+  }
+
+  /** Replaces the literals compared to a non-partition column with dynamic params. */
+  private static final class FilterParameterizer extends RexShuttle {
+    private final Filter filter;
+    private final Map<Object, Integer> valueCounts;
+    private final List<RexLiteral> parameters;
+
+    private FilterParameterizer(
+        Filter filter, Map<Object, Integer> valueCounts, List<RexLiteral> parameters) {
+      this.filter = filter;
+      this.valueCounts = valueCounts;
+      this.parameters = parameters;
+    }
+
+    @Override
+    public RexNode visitCall(RexCall call) {
+      if (!COMPARISONS.contains(call.getKind()) || call.getOperands().size() != 2) {
+        return super.visitCall(call);
+      }
+
+      final List<RexNode> operands = new ArrayList<>(call.getOperands());
+      for (int i = 0; i < 2; i++) {
+        final RexNode value = stripCast(operands.get(i));
+        final RexNode column = stripCast(operands.get(1 - i));
+        if (value instanceof RexLiteral
+            && column instanceof RexInputRef
+            && isParameterizable((RexLiteral) value)
+            && !isPartitionSensitive(((RexInputRef) column).getIndex())) {
+          final RexLiteral literal = (RexLiteral) value;
+          final RexDynamicParam param = new RexDynamicParam(literal.getType(), parameters.size());
+          parameters.add(literal);
+          operands.set(
+              i,
+              operands
+                  .get(i)
+                  .accept(
+                      new RexShuttle() {
+                        @Override
+                        public RexNode visitLiteral(RexLiteral other) {
+                          return other == literal ? param : other;
+                        }
+                      }));
+          return call.clone(call.getType(), operands);
+        }
+      }
+      return call;
+    }
+
+    private boolean isParameterizable(RexLiteral literal) {
+      return !literal.isNull()
+          && LiteralParameterizer.isParameterizable(literal.getType().getSqlTypeName())
+          && valueCounts.getOrDefault(valueKey(literal), 0) == 1;
+    }
+
+    private boolean isPartitionSensitive(int index) {
+      final RelNode input = filter.getInput();
+      final Set<RelColumnOrigin> origins =
+          input.getCluster().getMetadataQuery().getColumnOrigins(input, index);
+      if (origins == null || origins.isEmpty()) {
+        return true;
+      }
+
+      for (RelColumnOrigin origin : origins) {
+        final RelOptTable table = origin.getOriginTable();
+        final DremioTable dremioTable = table == null ? null : table.unwrap(DremioTable.class);
+        if (dremioTable == null) {
+          return true;
+        }
+        final DatasetConfig datasetConfig;
+        try {
+          datasetConfig = dremioTable.getDatasetConfig();
+        } catch (IllegalStateException e) {
+          return true;
+        }
+        final ReadDefinition readDefinition =
+            datasetConfig == null ? null : datasetConfig.getReadDefinition();
+        if (readDefinition == null) {
+          return true;
+        }
+        // splits and manifests of these datasets are pruned on the min/max of any column
+        if (DatasetHelper.supportsPruneFilter(datasetConfig)) {
+          return true;
+        }
+        final List<String> partitionColumns = readDefinition.getPartitionColumnsList();
+        if (partitionColumns != null) {
+          final String column =
+              table.getRowType().getFieldList().get(origin.getOriginColumnOrdinal()).getName();
+          if (partitionColumns.stream().anyMatch(column::equalsIgnoreCase)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -17,17 +17,26 @@ package com.dremio.exec.planner;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.dremio.catalog.model.dataset.TableVersionContext;
+import com.dremio.catalog.model.dataset.TableVersionType;
+import com.dremio.exec.catalog.Catalog;
 import com.dremio.exec.catalog.CatalogUtil;
 import com.dremio.exec.catalog.DremioTable;
 import com.dremio.exec.catalog.ManagedStoragePlugin;
+import com.dremio.exec.catalog.VersionedDatasetId;
 import com.dremio.exec.ops.PlannerCatalog;
 import com.dremio.exec.ops.QueryContext;
+import com.dremio.exec.planner.LiteralParameterizer.ParameterizedQuery;
 import com.dremio.exec.planner.common.PlannerMetrics;
 import com.dremio.exec.planner.physical.Prel;
 import com.dremio.exec.planner.sql.NonCacheableFunctionDetector;
 import com.dremio.exec.planner.sql.handlers.SqlHandlerConfig;
 import com.dremio.exec.store.CatalogService;
+import com.dremio.service.namespace.catalogstatusevents.CatalogStatusEvent;
+import com.dremio.service.namespace.catalogstatusevents.CatalogStatusSubscriber;
+import com.dremio.service.namespace.catalogstatusevents.events.VersionedTableUpdateCatalogStatusEvent;
 import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.dremio.service.namespace.dataset.proto.IcebergMetadata;
 import com.dremio.service.namespace.source.proto.SourceConfig;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
@@ -36,20 +45,27 @@ import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Metrics;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.dialect.CalciteSqlDialect;
 
-public class PlanCache {
+public class PlanCache implements CatalogStatusSubscriber {
   private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(PlanCache.class);
 
   private final Cache<String, CachedPlan> cachePlans;
   private static Multimap<String, String> datasetMap;
 
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder parameterizedHits = new LongAdder();
+
   public PlanCache(Cache<String, CachedPlan> cachePlans, Multimap<String, String> map) {
     this.cachePlans = cachePlans;
     this.datasetMap = map;
@@ -59,6 +75,27 @@ public class PlanCache {
             cachePlans::size)
         .description("Number of plan cache entries")
         .register(Metrics.globalRegistry);
+    Gauge.builder(
+            PlannerMetrics.createName(PlannerMetrics.PREFIX, PlannerMetrics.PLAN_CACHE_HITS),
+            hits::sum)
+        .description("Number of plan cache hits")
+        .register(Metrics.globalRegistry);
+    Gauge.builder(
+            PlannerMetrics.createName(PlannerMetrics.PREFIX, PlannerMetrics.PLAN_CACHE_MISSES),
+            misses::sum)
+        .description("Number of plan cache misses")
+        .register(Metrics.globalRegistry);
+    Gauge.builder(
+            PlannerMetrics.createName(
+                PlannerMetrics.PREFIX, PlannerMetrics.PLAN_CACHE_PARAMETERIZED_HITS),
+            parameterizedHits::sum)
+        .description("Number of plan cache hits on a parameterized plan")
+        .register(Metrics.globalRegistry);
+    Gauge.builder(
+            PlannerMetrics.createName(PlannerMetrics.PREFIX, PlannerMetrics.PLAN_CACHE_HIT_RATIO),
+            this::getHitRatio)
+        .description("Ratio of plan cache lookups which hit")
+        .register(Metrics.globalRegistry);
   }
 
   public Cache<String, CachedPlan> getCachePlans() {
@@ -72,6 +109,22 @@ public class PlanCache {
       Prel prel,
       String textPlan,
       SqlHandlerConfig config) {
+    cachePlan(
+        catalog, cachedKey, CachedPlan.createCachedPlan(prel, prel.getEstimatedSize()), config);
+  }
+
+  /** Caches a plan template created by {@link LiteralParameterizer#createTemplate}. */
+  public void createNewParameterizedCachedPlan(
+      PlannerCatalog catalog, String cachedKey, Prel template, SqlHandlerConfig config) {
+    cachePlan(
+        catalog,
+        cachedKey,
+        CachedPlan.createParameterizedCachedPlan(template, template.getEstimatedSize()),
+        config);
+  }
+
+  private void cachePlan(
+      PlannerCatalog catalog, String cachedKey, CachedPlan newCachedPlan, SqlHandlerConfig config) {
     Preconditions.checkNotNull(catalog);
     boolean addedCacheToDatasetMap = false;
     Iterable<DremioTable> datasets = catalog.getAllRequestedTables();
@@ -101,7 +154,6 @@ public class PlanCache {
       addedCacheToDatasetMap = true;
     }
     if (addedCacheToDatasetMap) {
-      CachedPlan newCachedPlan = CachedPlan.createCachedPlan(prel, prel.getEstimatedSize());
       config.getObserver().addAccelerationProfileToCachedPlan(newCachedPlan);
       cachePlans.put(cachedKey, newCachedPlan);
       config.getConverter().dispose();
@@ -124,11 +176,13 @@ public class PlanCache {
 
     for (DremioTable table : catalog.getAllRequestedTables()) {
       if (CatalogUtil.requestedPluginSupportsVersionedTables(
-          table.getPath(), config.getContext().getCatalog())) {
-        // Versioned tables don't have a mtime - they have snapshot ids.  Since we don't have a way
-        // to invalidate
-        // cache entries containing versioned datasets, don't allow these plans to enter the cache.
-        logger.debug("Physical plan not cached: Query contains a versioned table.");
+              table.getPath(), config.getContext().getCatalog())
+          && getVersionedDatasetFingerprint(table) == null) {
+        // Versioned tables don't have a mtime, cache entries containing versioned datasets are
+        // keyed by their version instead.
+        logger.debug(
+            "Physical plan not cached: Version of versioned dataset {} is unknown.",
+            table.getPath());
         return false;
       }
     }
@@ -154,15 +208,38 @@ public class PlanCache {
     return true;
   }
 
-  public static String generateCacheKey(SqlNode sqlNode, RelNode relNode, QueryContext context) {
+  public static String generateCacheKey(
+      SqlNode sqlNode, RelNode relNode, PlannerCatalog catalog, QueryContext context) {
     Hasher hasher = Hashing.sha256().newHasher();
 
     hasher
         .putString(sqlNode.toSqlString(CalciteSqlDialect.DEFAULT).getSql(), UTF_8)
-        .putString(RelOptUtil.toString(relNode), UTF_8)
+        .putString(RelOptUtil.toString(relNode), UTF_8);
+    return generateCacheKey(hasher, catalog, context);
+  }
+
+  /** Generates the key shared by all the queries only differing by their parameterized literals. */
+  public static String generateParameterizedCacheKey(
+      ParameterizedQuery query, PlannerCatalog catalog, QueryContext context) {
+    Hasher hasher = Hashing.sha256().newHasher();
+
+    hasher
+        .putString("parameterized", UTF_8)
+        .putString(query.getNormalizedSql(), UTF_8)
+        .putString(RelOptUtil.toString(query.getNormalizedRel()), UTF_8);
+    // literals are bound into slots of the type they were planned with
+    query.getParameters().forEach(p -> hasher.putString(p.getType().getFullTypeString(), UTF_8));
+    return generateCacheKey(hasher, catalog, context);
+  }
+
+  private static String generateCacheKey(
+      Hasher hasher, PlannerCatalog catalog, QueryContext context) {
+    hasher
         .putString(context.getWorkloadType().name(), UTF_8)
         .putString(context.getContextInformation().getCurrentDefaultSchema(), UTF_8);
 
+    putVersionedDatasets(hasher, catalog, context.getCatalog());
+
     if (context.getPlannerSettings().isPlanCacheEnableSecuredUserBasedCaching()) {
       hasher.putString(context.getQueryUserName(), UTF_8);
     }
@@ -201,6 +278,58 @@ public class PlanCache {
     return hasher.hash().toString();
   }
 
+  /**
+   * Versioned datasets have no mtime to validate cache entries against. Instead, the key includes
+   * the version context each versioned dataset was resolved with and the state of the dataset
+   * (metadata location and snapshot of tables, unique instance id of views), so that a commit to a
+   * table changes the key of the plans reading it, and only of those.
+   */
+  private static void putVersionedDatasets(
+      Hasher hasher, PlannerCatalog plannerCatalog, Catalog catalog) {
+    final List<String> fingerprints = new ArrayList<>();
+    for (DremioTable table : plannerCatalog.getAllRequestedTables()) {
+      if (CatalogUtil.requestedPluginSupportsVersionedTables(table.getPath(), catalog)) {
+        // plans with an unknown version are not cached, see supportPlanCache()
+        fingerprints.add(String.valueOf(getVersionedDatasetFingerprint(table)));
+      }
+    }
+    fingerprints.sort(Comparator.naturalOrder());
+    fingerprints.forEach(fingerprint -> hasher.putString(fingerprint, UTF_8));
+  }
+
+  /**
+   * @return the state of the versioned dataset, or null if it is unknown
+   */
+  private static String getVersionedDatasetFingerprint(DremioTable table) {
+    final DatasetConfig datasetConfig;
+    final TableVersionContext versionContext;
+    try {
+      datasetConfig = table.getDatasetConfig();
+      versionContext = table.getVersionContext();
+    } catch (IllegalStateException | UnsupportedOperationException e) {
+      return null;
+    }
+    if (datasetConfig == null) {
+      return null;
+    }
+
+    final String state;
+    if (datasetConfig.getPhysicalDataset() == null) {
+      state = datasetConfig.getTag();
+    } else {
+      final IcebergMetadata icebergMetadata =
+          datasetConfig.getPhysicalDataset().getIcebergMetadata();
+      state =
+          (icebergMetadata == null || icebergMetadata.getMetadataFileLocation() == null)
+              ? null
+              : icebergMetadata.getMetadataFileLocation() + "#" + icebergMetadata.getSnapshotId();
+    }
+    if (state == null) {
+      return null;
+    }
+    return String.format("%s@%s:%s", table.getPath(), versionContext, state);
+  }
+
   public CachedPlan getIfPresentAndValid(
       PlannerCatalog catalog, CatalogService catalogService, String cacheId) {
     if (cachePlans == null) {
@@ -273,6 +402,23 @@ public class PlanCache {
     return null;
   }
 
+  public void recordLookup(boolean hit, boolean parameterized) {
+    if (!hit) {
+      misses.increment();
+      return;
+    }
+    hits.increment();
+    if (parameterized) {
+      parameterizedHits.increment();
+    }
+  }
+
+  private double getHitRatio() {
+    final long hitCount = hits.sum();
+    final long lookups = hitCount + misses.sum();
+    return lookups == 0 ? 0 : (double) hitCount / lookups;
+  }
+
   public void invalidateCacheOnDataset(String datasetId) {
     List<String> affectedCaches = datasetMap.get(datasetId).stream().collect(Collectors.toList());
     for (String cacheId : affectedCaches) {
@@ -286,6 +432,33 @@ public class PlanCache {
     }
   }
 
+  /** Invalidates the cached plans reading a versioned table at the head of the updated branch. */
+  public void invalidateCacheOnVersionedTable(List<String> tableKey, String branchName) {
+    final TableVersionContext branch = new TableVersionContext(TableVersionType.BRANCH, branchName);
+    final List<String> datasetIds;
+    synchronized (datasetMap) {
+      datasetIds = new ArrayList<>(datasetMap.keySet());
+    }
+    for (String datasetId : datasetIds) {
+      final VersionedDatasetId versionedDatasetId = VersionedDatasetId.tryParse(datasetId);
+      if (versionedDatasetId != null
+          && branch.equals(versionedDatasetId.getVersionContext())
+          && tableKey.equals(versionedDatasetId.getTableKey())) {
+        invalidateCacheOnDataset(datasetId);
+      }
+    }
+  }
+
+  @Override
+  public void onCatalogStatusEvent(CatalogStatusEvent event) {
+    if (!(event instanceof VersionedTableUpdateCatalogStatusEvent)) {
+      return;
+    }
+    final VersionedTableUpdateCatalogStatusEvent updateEvent =
+        (VersionedTableUpdateCatalogStatusEvent) event;
+    invalidateCacheOnVersionedTable(updateEvent.getTableKey(), updateEvent.getBranchName());
+  }
+
   public static void clearDatasetMapOnCacheGC(String cacheId) {
     synchronized (datasetMap) {
       datasetMap.entries().removeIf(datasetMapEntry -> datasetMapEntry.getValue().equals(cacheId));
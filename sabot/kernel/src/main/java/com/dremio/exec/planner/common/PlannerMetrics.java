@@ -32,6 +32,10 @@ public class PlannerMetrics {
 
   public static final String PLAN_CACHE_SYNC = "plan_cache_sync";
   public static final String PLAN_CACHE_ENTRIES = "plan_cache_entries";
+  public static final String PLAN_CACHE_HITS = "plan_cache_hits";
+  public static final String PLAN_CACHE_MISSES = "plan_cache_misses";
+  public static final String PLAN_CACHE_PARAMETERIZED_HITS = "plan_cache_parameterized_hits";
+  public static final String PLAN_CACHE_HIT_RATIO = "plan_cache_hit_ratio";
 
   // Metric tags
   private static final String TAG_OUTCOME = "outcome";
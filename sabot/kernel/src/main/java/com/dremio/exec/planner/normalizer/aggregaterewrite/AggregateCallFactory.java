@@ -16,6 +16,7 @@
 package com.dremio.exec.planner.normalizer.aggregaterewrite;
 
 import com.dremio.exec.expr.fn.hll.HyperLogLog;
+import com.dremio.exec.expr.fn.moments.CoMoments;
 import com.dremio.exec.expr.fn.tdigest.TDigest;
 import com.dremio.exec.planner.sql.DremioSqlOperatorTable;
 import com.dremio.exec.planner.types.JavaTypeFactoryImpl;
@@ -85,4 +86,14 @@ public final class AggregateCallFactory {
             SqlTypeName.VARBINARY, HyperLogLog.HLL_VARBINARY_SIZE),
         name);
   }
+
+  public static AggregateCall moments(int argX, int argY, String name) {
+    return AggregateCall.create(
+        DremioSqlOperatorTable.MOMENTS,
+        false,
+        ImmutableList.of(argX, argY),
+        -1,
+        JavaTypeFactoryImpl.INSTANCE.createSqlType(SqlTypeName.VARBINARY, CoMoments.SIZE),
+        name);
+  }
 }
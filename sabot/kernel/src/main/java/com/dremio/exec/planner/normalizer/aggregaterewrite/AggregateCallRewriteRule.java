@@ -48,6 +48,7 @@ public final class AggregateCallRewriteRule extends RelRule<RelRule.Config> {
           ApproxPercentileConvertlet.INSTANCE,
           CountDistinctConvertlet.INSTANCE,
           MedianConvertlet.INSTANCE,
+          MomentsConvertlet.INSTANCE,
           NDVConvertlet.INSTANCE);
 
   public AggregateCallRewriteRule() {
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner.normalizer.aggregaterewrite;
+
+import com.dremio.exec.planner.sql.DremioSqlOperatorTable;
+import com.google.common.collect.ImmutableMap;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.SqlFunction;
+import org.apache.calcite.sql.type.SqlTypeName;
+
+/**
+ * Rewrites COVAR_POP, COVAR_SAMP and CORR (and their COVARIANCE and CORRELATION aliases) of
+ * integer or floating point columns to a MOMENTS aggregate, which the vectorized hash agg
+ * accumulates and spills, and a scalar function computing the result from the moments.
+ *
+ * <p>For a query like:
+ *
+ * <p>SELECT corr(a, b) FROM t
+ *
+ * <p>The query plan is rewritten to:
+ *
+ * <p>LogicalProject(EXPR$0=[MOMENTS_CORR($0)]) LogicalAggregate(group=[{}],
+ * EXPR$0=[MOMENTS($2, $3)]) LogicalProject(a=[$0], b=[$1], $f2=[CAST($0):DOUBLE],
+ * $f3=[CAST($1):DOUBLE])
+ */
+public final class MomentsConvertlet extends AggregateCallConvertlet {
+  public static final MomentsConvertlet INSTANCE = new MomentsConvertlet();
+
+  private static final ImmutableMap<String, SqlFunction> RESULT_FUNCTIONS =
+      ImmutableMap.<String, SqlFunction>builder()
+          .put("COVAR_POP", DremioSqlOperatorTable.MOMENTS_COVAR_POP)
+          .put("COVAR_SAMP", DremioSqlOperatorTable.MOMENTS_COVAR_SAMP)
+          .put("COVARIANCE", DremioSqlOperatorTable.MOMENTS_COVAR_SAMP)
+          .put("CORR", DremioSqlOperatorTable.MOMENTS_CORR)
+          .put("CORRELATION", DremioSqlOperatorTable.MOMENTS_CORR)
+          .build();
+
+  private MomentsConvertlet() {}
+
+  @Override
+  public boolean matches(ConvertletContext context) {
+    final AggregateCall call = context.getOldCall();
+    if (!matches(call)) {
+      return false;
+    }
+    final RelDataType inputType = context.getOldAggRel().getInput().getRowType();
+    return call.getArgList().stream()
+        .allMatch(arg -> isSupported(inputType.getFieldList().get(arg).getType()));
+  }
+
+  @Override
+  protected boolean matches(AggregateCall call) {
+    return RESULT_FUNCTIONS.containsKey(call.getAggregation().getName().toUpperCase())
+        && call.getArgList().size() == 2
+        && !call.isDistinct()
+        && !call.hasFilter();
+  }
+
+  @Override
+  public RexNode convertCall(ConvertletContext convertletContext) {
+    final AggregateCall oldCall = convertletContext.getOldCall();
+    final RexBuilder rexBuilder = convertletContext.getRexBuilder();
+
+    final AggregateCall momentsCall =
+        AggregateCallFactory.moments(
+            toDouble(convertletContext, convertletContext.getArg(0)),
+            toDouble(convertletContext, convertletContext.getArg(1)),
+            oldCall.getName());
+    final RexNode momentsRef = convertletContext.addAggregate(momentsCall);
+
+    final RexNode result =
+        rexBuilder.makeCall(
+            RESULT_FUNCTIONS.get(oldCall.getAggregation().getName().toUpperCase()), momentsRef);
+    return rexBuilder.ensureType(oldCall.getType(), result, false);
+  }
+
+  /** The moments are computed on the columns cast to DOUBLE, DECIMAL keeps its exact path. */
+  private static boolean isSupported(RelDataType type) {
+    switch (type.getSqlTypeName()) {
+      case TINYINT:
+      case SMALLINT:
+      case INTEGER:
+      case BIGINT:
+      case FLOAT:
+      case REAL:
+      case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static int toDouble(ConvertletContext convertletContext, int arg) {
+    final RexNode input = convertletContext.getInputExprs().get(arg);
+    if (input.getType().getSqlTypeName() == SqlTypeName.DOUBLE) {
+      return arg;
+    }
+    final RelDataTypeFactory typeFactory = convertletContext.getRexBuilder().getTypeFactory();
+    final RelDataType doubleType =
+        typeFactory.createTypeWithNullability(
+            typeFactory.createSqlType(SqlTypeName.DOUBLE), input.getType().isNullable());
+    return convertletContext.addExpression(
+        convertletContext.getRexBuilder().makeCast(doubleType, input));
+  }
+}
@@ -86,6 +86,7 @@ public abstract class AggPruleBase extends Prule {
           "HLL_MERGE",
           "HLL",
           "TDIGEST",
+          "MOMENTS",
           "LISTAGG",
           ItemsSketchFunctions.FUNCTION_NAME);
 
@@ -140,6 +140,21 @@ public abstract class AggregatePrel extends AggregateRelBase implements Prel {
                   aggCall.e.getType(),
                   aggCall.e.getName());
           phase2AggCallList.add(Pair.of(newAggCall, null));
+        } else if (aggCall
+            .e
+            .getAggregation()
+            .getName()
+            .equals(DremioSqlOperatorTable.MOMENTS.getName())) {
+          AggregateCall newAggCall =
+              AggregateCall.create(
+                  DremioSqlOperatorTable.MOMENTS_MERGE,
+                  aggCall.e.isDistinct(),
+                  false,
+                  Collections.singletonList(aggExprOrdinal),
+                  -1,
+                  aggCall.e.getType(),
+                  aggCall.e.getName());
+          phase2AggCallList.add(Pair.of(newAggCall, null));
         } else if (aggCall
             .e
             .getAggregation()
@@ -24,12 +24,14 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.ExpressionTreeMaterializer;
 import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.expr.fn.FunctionLookupContext;
+import com.dremio.exec.expr.fn.moments.CoMoments;
 import com.dremio.exec.record.BatchSchema;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.op.aggregate.vectorized.AccumulatorBuilder;
 import com.dremio.sabot.op.aggregate.vectorized.AccumulatorBuilder.MaterializedAggExpressionsResult;
+import com.dremio.sabot.op.aggregate.vectorized.BaseTDigestAccumulator;
 import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
 import com.dremio.sabot.op.common.ht2.FixedBlockVector;
 import com.dremio.sabot.op.common.ht2.LBlockHashTable;
@@ -295,6 +297,32 @@ public class HashAggMemoryEstimator {
                 / numPartitions;
         validitySize += 2 * BitVectorHelper.getValidityBufferSize(hashTableBatchSize);
         continue;
+      } else if (accumType == AccumulatorBuilder.AccumulatorType.TDIGEST.ordinal()
+          || accumType == AccumulatorBuilder.AccumulatorType.TDIGEST_MERGE.ordinal()) {
+        /* One fixed size slot per group, the operator caps the batch size to fit the slots. */
+        final int compression = (int) optionManager.getOption(ExecConstants.TDIGEST_COMPRESSION);
+        final int accumulatorSize = BaseTDigestAccumulator.getAccumulatorSize(compression);
+        final int batchSize =
+            Math.min(
+                hashTableBatchSize,
+                (int)
+                        optionManager.getOption(
+                            VectorizedHashAggOperator.VECTORIZED_HASHAGG_MAX_BATCHSIZE_BYTES)
+                    / accumulatorSize);
+        dataSize += accumulatorSize * batchSize;
+        /* Add space for temporary buffer as well */
+        dataSize +=
+            BaseTDigestAccumulator.getMaxSerializedSize(compression) * batchSize / numPartitions;
+        validitySize += 2 * BitVectorHelper.getValidityBufferSize(hashTableBatchSize);
+        continue;
+      } else if (accumType == AccumulatorBuilder.AccumulatorType.MOMENTS.ordinal()
+          || accumType == AccumulatorBuilder.AccumulatorType.MOMENTS_MERGE.ordinal()) {
+        /* One fixed size slot per group */
+        dataSize += CoMoments.SIZE * hashTableBatchSize;
+        /* Add space for temporary buffer as well */
+        dataSize += CoMoments.SIZE * hashTableBatchSize / numPartitions;
+        validitySize += 2 * BitVectorHelper.getValidityBufferSize(hashTableBatchSize);
+        continue;
       } else if (accumType == AccumulatorBuilder.AccumulatorType.LISTAGG.ordinal()
           || accumType == AccumulatorBuilder.AccumulatorType.LOCAL_LISTAGG.ordinal()
           || accumType == AccumulatorBuilder.AccumulatorType.LISTAGG_MERGE.ordinal()) {
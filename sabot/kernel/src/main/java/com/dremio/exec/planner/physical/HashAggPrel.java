@@ -35,6 +35,7 @@ import com.dremio.options.TypeValidators.DoubleValidator;
 import com.dremio.options.TypeValidators.LongValidator;
 import com.dremio.options.TypeValidators.PositiveLongValidator;
 import com.dremio.options.TypeValidators.RangeDoubleValidator;
+import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -275,6 +276,23 @@ public class HashAggPrel extends AggregatePrel implements Prel {
             .getContext()
             .getOptions()
             .getOption(ExecConstants.ENABLE_VECTORIZED_SPILL_VARCHAR_ACCUMULATOR);
+    final boolean enabledSpillTDigest =
+        creator
+            .getContext()
+            .getOptions()
+            .getOption(ExecConstants.ENABLE_VECTORIZED_SPILL_TDIGEST_ACCUMULATOR);
+    final boolean enabledSpillMoments =
+        creator
+            .getContext()
+            .getOptions()
+            .getOption(ExecConstants.ENABLE_VECTORIZED_SPILL_MOMENTS_ACCUMULATOR);
+    /* TDIGEST and MOMENTS are only implemented by the spilling operator, see initialUseSpill() */
+    boolean needsSpill = false;
+    boolean disablesSpill =
+        !creator
+            .getContext()
+            .getOptions()
+            .getOption(VectorizedHashAggOperator.VECTORIZED_HASHAGG_USE_SPILLING_OPERATOR);
 
     for (NamedExpression ne : aggExprs) {
       final LogicalExpression expr =
@@ -301,6 +319,21 @@ public class HashAggPrel extends AggregatePrel implements Prel {
         continue;
       }
 
+      // MOMENTS(x, y), the planner casts both columns to DOUBLE
+      if (func.getName().equals("moments")) {
+        if (!enabledSpillMoments
+            || exprs.size() != 2
+            || !exprs.stream()
+                .allMatch(
+                    e ->
+                        e instanceof ValueVectorReadExpression
+                            && CompleteType.DOUBLE.equals(e.getCompleteType()))) {
+          return false;
+        }
+        needsSpill = true;
+        continue;
+      }
+
       if (exprs.size() != 1 || !(exprs.get(0) instanceof ValueVectorReadExpression)) {
         return false;
       }
@@ -330,6 +363,7 @@ public class HashAggPrel extends AggregatePrel implements Prel {
               if (!enabledSpillVarchar && !enabledVarcharNdv) {
                 return false;
               }
+              disablesSpill |= !enabledSpillVarchar;
               // fall through
             case BIGINT:
             case FLOAT4:
@@ -353,6 +387,41 @@ public class HashAggPrel extends AggregatePrel implements Prel {
           if (!enabledVarcharNdv && !enabledSpillNdv) {
             return false;
           }
+          disablesSpill |= !enabledSpillNdv;
+          continue;
+
+        case "tdigest":
+          if (!enabledSpillTDigest) {
+            return false;
+          }
+          switch (inputType.toMinorType()) {
+            case INT:
+            case BIGINT:
+            case FLOAT4:
+            case FLOAT8:
+            case DATE:
+            case TIME:
+            case TIMESTAMP:
+            case BIT:
+              needsSpill = true;
+              continue;
+            default:
+              break;
+          }
+          return false;
+
+        case "tdigest_merge":
+          if (!enabledSpillTDigest) {
+            return false;
+          }
+          needsSpill = true;
+          continue;
+
+        case "moments_merge":
+          if (!enabledSpillMoments) {
+            return false;
+          }
+          needsSpill = true;
           continue;
 
         default:
@@ -360,7 +429,7 @@ public class HashAggPrel extends AggregatePrel implements Prel {
       }
     }
 
-    return true;
+    return !(needsSpill && disablesSpill);
   }
 
   @Override
@@ -412,7 +481,8 @@ public class HashAggPrel extends AggregatePrel implements Prel {
         canVectorize,
         canSpill,
         1.0f,
-        hashTableBatchSize);
+        hashTableBatchSize,
+        getOperatorPhase() == OperatorPhase.PHASE_1of2);
   }
 
   // options.getOption(AGG_BOUNDED) &&
@@ -665,6 +665,13 @@ public class PlannerSettings implements Context {
   public static final BooleanValidator QUERY_PLAN_CACHE_ENABLED_SECURED_USER_BASED_CACHING =
       new BooleanValidator("planner.query_plan_cache_enabled_secured_user_based_caching", true);
 
+  /**
+   * Caches plans of queries only differing by the literals they filter non-partition columns on
+   * under a single entry, the literals being bound into the cached plan on a hit.
+   */
+  public static final BooleanValidator QUERY_PLAN_CACHE_PARAMETERIZED =
+      new BooleanValidator("planner.query_plan_cache_parameterized", false);
+
   public static final BooleanValidator REFLECTION_ROUTING_INHERITANCE_ENABLED =
       new BooleanValidator("planner.reflection_routing_inheritance_enabled", false);
   private final SabotConfig sabotConfig;
@@ -918,6 +925,10 @@ public class PlannerSettings implements Context {
     return options.getOption(QUERY_PLAN_CACHE_ENABLED_SECURED_USER_BASED_CACHING);
   }
 
+  public boolean isPlanCacheParameterized() {
+    return options.getOption(QUERY_PLAN_CACHE_PARAMETERIZED);
+  }
+
   public boolean isEnforceValidJsonFormatEnabled() {
     return options.getOption(ENFORCE_VALID_JSON_DATE_FORMAT_ENABLED);
   }
@@ -20,6 +20,7 @@ import com.dremio.exec.expr.fn.arrayagg.ArrayAggInternalOperators;
 import com.dremio.exec.expr.fn.hll.HyperLogLog;
 import com.dremio.exec.expr.fn.impl.MapFunctions;
 import com.dremio.exec.expr.fn.listagg.ListAgg;
+import com.dremio.exec.expr.fn.moments.Moments;
 import com.dremio.exec.expr.fn.tdigest.TDigest;
 import com.dremio.exec.planner.sql.parser.SqlContains;
 import com.dremio.exec.planner.types.JavaTypeFactoryImpl;
@@ -1230,6 +1231,19 @@ public class DremioSqlOperatorTable extends ReflectiveSqlOperatorTable {
       new TDigest.SqlApproximatePercentileFunction();
   public static final SqlFunction TDIGEST_QUANTILE = new TDigest.SqlTDigestQuantileFunction();
 
+  // ---------------------
+  // Moments Functions
+  // ---------------------
+
+  public static final SqlAggFunction MOMENTS = new Moments.SqlMomentsAggFunction();
+  public static final SqlAggFunction MOMENTS_MERGE = new Moments.SqlMomentsMergeAggFunction();
+  public static final SqlFunction MOMENTS_COVAR_POP =
+      new Moments.SqlMomentsResultFunction("MOMENTS_COVAR_POP");
+  public static final SqlFunction MOMENTS_COVAR_SAMP =
+      new Moments.SqlMomentsResultFunction("MOMENTS_COVAR_SAMP");
+  public static final SqlFunction MOMENTS_CORR =
+      new Moments.SqlMomentsResultFunction("MOMENTS_CORR");
+
   // ---------------------
   // OVERRIDE Behavior
   // ---------------------
@@ -22,6 +22,8 @@ import com.dremio.exec.ops.PlannerCatalog;
 import com.dremio.exec.physical.PhysicalPlan;
 import com.dremio.exec.physical.base.PhysicalOperator;
 import com.dremio.exec.planner.CachedPlan;
+import com.dremio.exec.planner.LiteralParameterizer;
+import com.dremio.exec.planner.LiteralParameterizer.ParameterizedQuery;
 import com.dremio.exec.planner.PlanCache;
 import com.dremio.exec.planner.logical.Rel;
 import com.dremio.exec.planner.physical.PlannerSettings;
@@ -81,21 +83,50 @@ public class NormalHandler implements SqlToPlanHandler {
       final RelNode queryRelNode = convertedRelNode.getConvertedNode();
       final PlannerCatalog catalog = config.getConverter().getPlannerCatalog();
 
-      final String cachedKey =
-          PlanCache.generateCacheKey(sqlNode, queryRelNode, config.getContext());
-      config.getObserver().setCacheKey(cachedKey);
-      CachedPlan cachedPlan =
-          (planCache != null)
-              ? planCache.getIfPresentAndValid(catalog, catalogService, cachedKey)
+      final String exactKey =
+          PlanCache.generateCacheKey(sqlNode, queryRelNode, catalog, config.getContext());
+      final ParameterizedQuery parameterizedQuery =
+          (planCache != null && plannerSettings.isPlanCacheParameterized())
+              ? LiteralParameterizer.parameterize(sqlNode, queryRelNode)
+              : null;
+      final String parameterizedKey =
+          (parameterizedQuery != null)
+              ? PlanCache.generateParameterizedCacheKey(
+                  parameterizedQuery, catalog, config.getContext())
               : null;
+
+      String cachedKey = exactKey;
+      CachedPlan cachedPlan = null;
+      Prel cachedPrel = null;
+      if (parameterizedKey != null) {
+        cachedPlan = planCache.getIfPresentAndValid(catalog, catalogService, parameterizedKey);
+        if (cachedPlan != null) {
+          cachedPrel =
+              LiteralParameterizer.bind(cachedPlan.getPrel(), parameterizedQuery.getParameters());
+          cachedKey = parameterizedKey;
+        }
+      }
+      if (cachedPrel == null) {
+        cachedPlan =
+            (planCache != null)
+                ? planCache.getIfPresentAndValid(catalog, catalogService, exactKey)
+                : null;
+        cachedPrel = (cachedPlan != null) ? cachedPlan.getPrel() : null;
+        cachedKey = exactKey;
+      }
+      if (planCache != null) {
+        planCache.recordLookup(
+            cachedPrel != null, cachedPrel != null && cachedPlan.isParameterized());
+      }
+      config.getObserver().setCacheKey(cachedKey);
       Prel prel;
 
       Span.current()
           .setAttribute("dremio.planner.cache.enabled", plannerSettings.isPlanCacheEnabled());
       Span.current()
-          .setAttribute("dremio.planner.cache.plan_cache_present_and_valid", (cachedPlan != null));
+          .setAttribute("dremio.planner.cache.plan_cache_present_and_valid", (cachedPrel != null));
 
-      if (!plannerSettings.isPlanCacheEnabled() || cachedPlan == null) {
+      if (!plannerSettings.isPlanCacheEnabled() || cachedPrel == null) {
         drel = DrelTransformer.convertToDrel(config, queryRelNode, validatedRowType);
         drel = postConvertToDrel(drel);
 
@@ -120,10 +151,19 @@ public class NormalHandler implements SqlToPlanHandler {
             sqlNode,
             catalog,
             convertedRelNode.getNonCacheableFunctionResult())) {
-          planCache.createNewCachedPlan(catalog, cachedKey, sql, prel, textPlan, config);
+          final Prel template =
+              (parameterizedQuery != null)
+                  ? LiteralParameterizer.createTemplate(prel, parameterizedQuery.getParameters())
+                  : null;
+          if (template != null) {
+            planCache.createNewParameterizedCachedPlan(
+                catalog, parameterizedKey, template, config);
+          } else {
+            planCache.createNewCachedPlan(catalog, exactKey, sql, prel, textPlan, config);
+          }
         }
       } else {
-        prel = cachedPlan.getPrel();
+        prel = cachedPrel;
         prel = postCachedPlan(prel);
 
         // After the plan has been cached during planning, the job could be canceled during
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record.compression;
+
+import static org.apache.arrow.vector.compression.CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH;
+
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.util.MemoryUtil;
+import org.apache.arrow.vector.compression.AbstractCompressionCodec;
+
+/**
+ * Arrow body compression codec for the batches sent over exchanges.
+ *
+ * <p>On top of the buffer to buffer operations of {@link AbstractCompressionCodec}, codecs can
+ * compress and decompress between regions of existing buffers so that receivers can decompress a
+ * whole batch into a single body.
+ */
+public abstract class ExchangeCompressionCodec extends AbstractCompressionCodec {
+
+  /** Returns the maximum compressed length of {@code length} bytes. */
+  public abstract long maxCompressedLength(long length);
+
+  /**
+   * Compresses {@code srcLength} bytes of {@code src} at {@code srcIndex} into {@code dst} at
+   * {@code dstIndex}.
+   *
+   * @return the compressed length
+   */
+  public abstract long compress(
+      ArrowBuf src, long srcIndex, long srcLength, ArrowBuf dst, long dstIndex, long maxLength);
+
+  /**
+   * Decompresses {@code srcLength} bytes of {@code src} at {@code srcIndex} into exactly {@code
+   * dstLength} bytes of {@code dst} at {@code dstIndex}.
+   */
+  public abstract void decompress(
+      ArrowBuf src, long srcIndex, long srcLength, ArrowBuf dst, long dstIndex, long dstLength);
+
+  @Override
+  protected ArrowBuf doCompress(BufferAllocator allocator, ArrowBuf uncompressedBuffer) {
+    final long length = uncompressedBuffer.writerIndex();
+    final long maxLength = maxCompressedLength(length);
+    final ArrowBuf compressedBuffer = allocator.buffer(SIZE_OF_UNCOMPRESSED_LENGTH + maxLength);
+    try {
+      final long compressedLength =
+          compress(
+              uncompressedBuffer,
+              0,
+              length,
+              compressedBuffer,
+              SIZE_OF_UNCOMPRESSED_LENGTH,
+              maxLength);
+      compressedBuffer.writerIndex(SIZE_OF_UNCOMPRESSED_LENGTH + compressedLength);
+      return compressedBuffer;
+    } catch (RuntimeException e) {
+      compressedBuffer.close();
+      throw e;
+    }
+  }
+
+  @Override
+  protected ArrowBuf doDecompress(BufferAllocator allocator, ArrowBuf compressedBuffer) {
+    final long length = readUncompressedLength(compressedBuffer);
+    final ArrowBuf uncompressedBuffer = allocator.buffer(length);
+    try {
+      decompress(
+          compressedBuffer,
+          SIZE_OF_UNCOMPRESSED_LENGTH,
+          compressedBuffer.writerIndex() - SIZE_OF_UNCOMPRESSED_LENGTH,
+          uncompressedBuffer,
+          0,
+          length);
+      uncompressedBuffer.writerIndex(length);
+      return uncompressedBuffer;
+    } catch (RuntimeException e) {
+      uncompressedBuffer.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the uncompressed length prefix of the compressed buffer at {@code index} of {@code buf}.
+   */
+  public static long uncompressedLength(ArrowBuf buf, long index) {
+    final long length = buf.getLong(index);
+    return MemoryUtil.LITTLE_ENDIAN ? length : Long.reverseBytes(length);
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record.compression;
+
+import java.util.Locale;
+import org.apache.arrow.vector.compression.CompressionUtil.CodecType;
+
+/** Lookup of the codecs used to compress exchange batches. Codecs are stateless singletons. */
+public final class ExchangeCompressionCodecs {
+
+  private ExchangeCompressionCodecs() {}
+
+  /**
+   * Returns the codec of the {@code exec.exchange.compression.codec} option value, or null when
+   * compression is disabled.
+   */
+  public static ExchangeCompressionCodec fromOption(String codec) {
+    switch (codec.toLowerCase(Locale.ROOT)) {
+      case "none":
+        return null;
+      case "lz4":
+        return Lz4CompressionCodec.INSTANCE;
+      case "zstd":
+        return ZstdCompressionCodec.INSTANCE;
+      default:
+        throw new IllegalArgumentException("Unknown exchange compression codec: " + codec);
+    }
+  }
+
+  /** Returns the codec of the compression type of a received batch. */
+  public static ExchangeCompressionCodec fromType(CodecType type) {
+    switch (type) {
+      case LZ4_FRAME:
+        return Lz4CompressionCodec.INSTANCE;
+      case ZSTD:
+        return ZstdCompressionCodec.INSTANCE;
+      default:
+        throw new IllegalArgumentException("Unsupported exchange compression codec: " + type);
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record.compression;
+
+import static org.apache.arrow.memory.util.LargeMemoryUtil.checkedCastToInt;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import net.jpountz.xxhash.XXHashFactory;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.util.MemoryUtil;
+import org.apache.arrow.vector.compression.CompressionUtil.CodecType;
+
+/**
+ * LZ4 codec working directly on the off-heap buffers.
+ *
+ * <p>Buffers are written in the LZ4 frame format, as the Arrow IPC {@link CodecType#LZ4_FRAME} type
+ * requires, so that compressed batches stay readable by any Arrow implementation. Frames are
+ * written with independent 4MB blocks and without checksums; any frame is accepted on
+ * decompression, with the checksums it declares skipped.
+ */
+final class Lz4CompressionCodec extends ExchangeCompressionCodec {
+  static final Lz4CompressionCodec INSTANCE = new Lz4CompressionCodec();
+
+  private static final int MAGIC = 0x184D2204;
+  private static final int VERSION = 0x40;
+  private static final int FLAG_BLOCK_INDEPENDENCE = 0x20;
+  private static final int FLAG_BLOCK_CHECKSUM = 0x10;
+  private static final int FLAG_CONTENT_SIZE = 0x08;
+  private static final int FLAG_CONTENT_CHECKSUM = 0x04;
+  private static final int FLAG_DICTIONARY_ID = 0x01;
+  /** Block maximum size id 7: blocks of up to 4MB. */
+  private static final int BLOCK_DESCRIPTOR = 7 << 4;
+
+  private static final int MAX_BLOCK_SIZE = 4 * 1024 * 1024;
+  private static final int HEADER_SIZE = 7;
+  private static final int END_MARK_SIZE = 4;
+  private static final int UNCOMPRESSED_BLOCK = 0x80000000;
+
+  private final LZ4Compressor compressor;
+  private final LZ4SafeDecompressor decompressor;
+  private final byte headerChecksum;
+
+  private Lz4CompressionCodec() {
+    final LZ4Factory factory = LZ4Factory.fastestInstance();
+    this.compressor = factory.fastCompressor();
+    this.decompressor = factory.safeDecompressor();
+    final byte[] descriptor = {(byte) (VERSION | FLAG_BLOCK_INDEPENDENCE), BLOCK_DESCRIPTOR};
+    this.headerChecksum =
+        (byte)
+            (XXHashFactory.fastestInstance().hash32().hash(descriptor, 0, descriptor.length, 0)
+                >> 8);
+  }
+
+  @Override
+  public CodecType getCodecType() {
+    return CodecType.LZ4_FRAME;
+  }
+
+  @Override
+  public long maxCompressedLength(long length) {
+    final long blocks = Math.max(1, (length + MAX_BLOCK_SIZE - 1) / MAX_BLOCK_SIZE);
+    final int blockLength = checkedCastToInt(Math.min(length, MAX_BLOCK_SIZE));
+    return HEADER_SIZE
+        + blocks * (Integer.BYTES + compressor.maxCompressedLength(blockLength))
+        + END_MARK_SIZE;
+  }
+
+  @Override
+  public long compress(
+      ArrowBuf src, long srcIndex, long srcLength, ArrowBuf dst, long dstIndex, long maxLength) {
+    final long start = dstIndex;
+    dst.setInt(dstIndex, littleEndian(MAGIC));
+    dst.setByte(dstIndex + 4, VERSION | FLAG_BLOCK_INDEPENDENCE);
+    dst.setByte(dstIndex + 5, BLOCK_DESCRIPTOR);
+    dst.setByte(dstIndex + 6, headerChecksum);
+    dstIndex += HEADER_SIZE;
+
+    long remaining = srcLength;
+    while (remaining > 0) {
+      final int length = (int) Math.min(remaining, MAX_BLOCK_SIZE);
+      final int maxDstLength = compressor.maxCompressedLength(length);
+      final int compressed =
+          compressor.compress(
+              src.nioBuffer(srcIndex, length),
+              0,
+              length,
+              dst.nioBuffer(dstIndex + Integer.BYTES, maxDstLength),
+              0,
+              maxDstLength);
+      if (compressed < length) {
+        dst.setInt(dstIndex, littleEndian(compressed));
+        dstIndex += Integer.BYTES + compressed;
+      } else {
+        // blocks that do not shrink are stored as is
+        dst.setInt(dstIndex, littleEndian(length | UNCOMPRESSED_BLOCK));
+        dst.setBytes(dstIndex + Integer.BYTES, src, srcIndex, length);
+        dstIndex += Integer.BYTES + length;
+      }
+      srcIndex += length;
+      remaining -= length;
+    }
+    dst.setInt(dstIndex, 0);
+    dstIndex += END_MARK_SIZE;
+    return dstIndex - start;
+  }
+
+  @Override
+  public void decompress(
+      ArrowBuf src, long srcIndex, long srcLength, ArrowBuf dst, long dstIndex, long dstLength) {
+    final long srcEnd = srcIndex + srcLength;
+    if (srcLength < HEADER_SIZE || littleEndian(src.getInt(srcIndex)) != MAGIC) {
+      throw new IllegalStateException("Not an LZ4 frame");
+    }
+    final int flags = src.getByte(srcIndex + 4);
+    if ((flags & 0xC0) != VERSION || (flags & FLAG_DICTIONARY_ID) != 0) {
+      throw new IllegalStateException(
+          String.format("Unsupported LZ4 frame descriptor 0x%02x", flags & 0xFF));
+    }
+    // magic, descriptor flags, block descriptor, optional content size and header checksum
+    srcIndex += 6 + ((flags & FLAG_CONTENT_SIZE) != 0 ? Long.BYTES : 0) + 1;
+    final int blockChecksumSize = (flags & FLAG_BLOCK_CHECKSUM) != 0 ? Integer.BYTES : 0;
+
+    final long dstEnd = dstIndex + dstLength;
+    while (true) {
+      if (srcIndex + Integer.BYTES > srcEnd) {
+        throw new IllegalStateException("Truncated LZ4 frame");
+      }
+      final int blockSize = littleEndian(src.getInt(srcIndex));
+      srcIndex += Integer.BYTES;
+      if (blockSize == 0) {
+        break;
+      }
+      final int length = blockSize & ~UNCOMPRESSED_BLOCK;
+      final int maxDstLength = checkedCastToInt(dstEnd - dstIndex);
+      if (srcIndex + length > srcEnd) {
+        throw new IllegalStateException("Truncated LZ4 frame");
+      }
+      if ((blockSize & UNCOMPRESSED_BLOCK) != 0) {
+        if (length > maxDstLength) {
+          throw new IllegalStateException(
+              String.format("Expected %d bytes after LZ4 decompression, got more", dstLength));
+        }
+        dst.setBytes(dstIndex, src, srcIndex, length);
+        dstIndex += length;
+      } else {
+        dstIndex +=
+            decompressor.decompress(
+                src.nioBuffer(srcIndex, length),
+                0,
+                length,
+                dst.nioBuffer(dstIndex, maxDstLength),
+                0,
+                maxDstLength);
+      }
+      srcIndex += length + blockChecksumSize;
+    }
+    if (dstIndex != dstEnd) {
+      throw new IllegalStateException(
+          String.format(
+              "Expected %d bytes after LZ4 decompression, got %d",
+              dstLength, dstLength - (dstEnd - dstIndex)));
+    }
+  }
+
+  private static int littleEndian(int value) {
+    return MemoryUtil.LITTLE_ENDIAN ? value : Integer.reverseBytes(value);
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.record.compression;
+
+import static org.apache.arrow.memory.util.LargeMemoryUtil.checkedCastToInt;
+
+import com.github.luben.zstd.Zstd;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.compression.CompressionUtil.CodecType;
+
+/** ZSTD codec working directly on the off-heap buffers. */
+final class ZstdCompressionCodec extends ExchangeCompressionCodec {
+  /** Exchanges trade ratio for speed: level 1 is the fastest regular ZSTD level. */
+  private static final int LEVEL = 1;
+
+  static final ZstdCompressionCodec INSTANCE = new ZstdCompressionCodec();
+
+  private ZstdCompressionCodec() {}
+
+  @Override
+  public CodecType getCodecType() {
+    return CodecType.ZSTD;
+  }
+
+  @Override
+  public long maxCompressedLength(long length) {
+    return Zstd.compressBound(length);
+  }
+
+  @Override
+  public long compress(
+      ArrowBuf src, long srcIndex, long srcLength, ArrowBuf dst, long dstIndex, long maxLength) {
+    final int length = checkedCastToInt(srcLength);
+    final int maxDstLength = checkedCastToInt(maxLength);
+    final long compressed =
+        Zstd.compressDirectByteBuffer(
+            dst.nioBuffer(dstIndex, maxDstLength),
+            0,
+            maxDstLength,
+            src.nioBuffer(srcIndex, length),
+            0,
+            length,
+            LEVEL);
+    if (Zstd.isError(compressed)) {
+      throw new IllegalStateException("ZSTD compression failed: " + Zstd.getErrorName(compressed));
+    }
+    return compressed;
+  }
+
+  @Override
+  public void decompress(
+      ArrowBuf src, long srcIndex, long srcLength, ArrowBuf dst, long dstIndex, long dstLength) {
+    final int length = checkedCastToInt(srcLength);
+    final int dstLen = checkedCastToInt(dstLength);
+    final long decompressed =
+        Zstd.decompressDirectByteBuffer(
+            dst.nioBuffer(dstIndex, dstLen), 0, dstLen, src.nioBuffer(srcIndex, length), 0, length);
+    if (Zstd.isError(decompressed)) {
+      throw new IllegalStateException(
+          "ZSTD decompression failed: " + Zstd.getErrorName(decompressed));
+    }
+    if (decompressed != dstLen) {
+      throw new IllegalStateException(
+          String.format(
+              "Expected %d bytes after ZSTD decompression, got %d", dstLen, decompressed));
+    }
+  }
+}
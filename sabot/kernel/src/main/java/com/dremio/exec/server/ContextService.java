@@ -37,6 +37,7 @@ import com.dremio.exec.planner.observer.QueryObserverFactory;
 import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.server.options.SystemOptionManager;
 import com.dremio.exec.store.CatalogService;
+import com.dremio.exec.store.dfs.CachingFileSystemWrapper;
 import com.dremio.exec.store.dfs.FileSystemWrapper;
 import com.dremio.exec.store.dfs.LoggedFileSystemWrapper;
 import com.dremio.exec.store.sys.accel.AccelerationListManager;
@@ -300,15 +301,18 @@ public class ContextService implements Service, Provider<SabotContext> {
     CodeCompiler compiler = new CodeCompiler(sConfig, optionManager);
     FileSystemWrapper fileSystemWrapper =
         new LoggedFileSystemWrapper(
-            sConfig.getInstance(
-                FileSystemWrapper.FILE_SYSTEM_WRAPPER_CLASS,
-                FileSystemWrapper.class,
-                (fs, storageId, conf, operatorContext, enableAsync, isMetadataEnabled) -> fs,
+            new CachingFileSystemWrapper(
+                sConfig.getInstance(
+                    FileSystemWrapper.FILE_SYSTEM_WRAPPER_CLASS,
+                    FileSystemWrapper.class,
+                    (fs, storageId, conf, operatorContext, enableAsync, isMetadataEnabled) -> fs,
+                    dremioConfig,
+                    optionManager,
+                    allocator,
+                    new ServiceSetDecorator(coordinator.getServiceSet(Role.EXECUTOR)),
+                    identity),
                 dremioConfig,
-                optionManager,
-                allocator,
-                new ServiceSetDecorator(coordinator.getServiceSet(Role.EXECUTOR)),
-                identity),
+                optionManager),
             optionManager);
 
     return new SabotContext(
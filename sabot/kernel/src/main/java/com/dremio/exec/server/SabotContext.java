@@ -40,6 +40,7 @@ import com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 import com.dremio.exec.server.options.SystemOptionManager;
 import com.dremio.exec.store.CatalogService;
 import com.dremio.exec.store.dfs.FileSystemWrapper;
+import com.dremio.exec.store.iceberg.deletes.RowLevelDeleteCaches;
 import com.dremio.exec.store.sys.accel.AccelerationListManager;
 import com.dremio.exec.store.sys.accel.AccelerationManager;
 import com.dremio.exec.store.sys.accesscontrol.AccessControlListingManager;
@@ -101,6 +102,7 @@ public class SabotContext implements AutoCloseable, SabotQueryContext {
   private final Provider<WorkStats> workStatsProvider;
   private final CodeCompiler compiler;
   private final ExpressionSplitCache expressionSplitCache;
+  private final RowLevelDeleteCaches rowLevelDeleteCaches;
   private final ScanResult classpathScan;
   private final LogicalPlanPersistence lpPersistence;
   private final Provider<MaterializationDescriptorProvider> materializationProvider;
@@ -273,6 +275,7 @@ public class SabotContext implements AutoCloseable, SabotQueryContext {
     this.sourceVerifierProvider = sourceVerifierProvider;
     this.secretsCreator = secretsCreatorProvider;
     expressionSplitCache = new ExpressionSplitCache(optionManager, config);
+    rowLevelDeleteCaches = new RowLevelDeleteCaches(allocator, optionManager);
   }
 
   private void checkIfCoordinator() {
@@ -509,7 +512,7 @@ public class SabotContext implements AutoCloseable, SabotQueryContext {
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(fileSystemWrapper);
+    AutoCloseables.close(fileSystemWrapper, rowLevelDeleteCaches);
   }
 
   @Override
@@ -623,6 +626,10 @@ public class SabotContext implements AutoCloseable, SabotQueryContext {
     return expressionSplitCache;
   }
 
+  public RowLevelDeleteCaches getRowLevelDeleteCaches() {
+    return rowLevelDeleteCaches;
+  }
+
   @Override
   public QueryContextCreator getQueryContextCreator() {
     return new QueryContextCreatorImpl(this);
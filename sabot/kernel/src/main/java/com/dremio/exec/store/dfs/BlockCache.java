@@ -0,0 +1,596 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import com.dremio.common.concurrent.NamedThreadFactory;
+import com.dremio.config.DremioConfig;
+import com.dremio.io.AsyncByteReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A node-local cache of fixed size blocks of remote files, stored on the local disks configured
+ * with {@code services.executor.cache.path.fs}.
+ *
+ * <p>Blocks are identified by the {@link AsyncByteReader.FileKey} of the file (plugin UID, path and
+ * version) and the index of the block in the file. Each block is stored in its own file, written by
+ * a small pool of writer threads so that reads never wait for the cache to be populated. Blocks are
+ * evicted in least recently used order, when the cache or the directory of the block runs out of
+ * space as well as when a source exceeds its share of the cache given by {@link
+ * CacheProperties#cacheMaxSpaceLimitPct()}.
+ *
+ * <p>The index is kept in memory only, the cache directories are emptied when the cache is created.
+ */
+public class BlockCache implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(BlockCache.class);
+
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  private static final String CACHE_DIRECTORY = "blockcache";
+  private static final int MAX_CACHED_FILE_LENGTHS = 100_000;
+  // blocks waiting to be written are dropped beyond that, caching is best-effort
+  private static final int MAX_PENDING_WRITES = 64;
+
+  private final List<CacheDirectory> directories;
+  private final long capacity;
+  private final int blockSize;
+  private final AtomicLong nextBlockId = new AtomicLong();
+  private final Cache<FileId, Long> fileLengths =
+      Caffeine.newBuilder().maximumSize(MAX_CACHED_FILE_LENGTHS).build();
+  private final Executor writeExecutor;
+
+  // all blocks, per source and per directory blocks, in access order. Guarded by this.
+  private final LinkedHashMap<BlockKey, Block> blocks = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, Source> sources = new HashMap<>();
+  // blocks being written, their space is already reserved. Guarded by this.
+  private final Set<BlockKey> pendingBlocks = new HashSet<>();
+  private long usedBytes;
+  private boolean closed;
+
+  @VisibleForTesting
+  BlockCache(
+      List<Path> roots,
+      List<Long> capacities,
+      List<Integer> minFreeSpacePcts,
+      int blockSize,
+      Executor writeExecutor)
+      throws IOException {
+    Preconditions.checkArgument(!roots.isEmpty(), "at least one cache directory is required");
+    Preconditions.checkArgument(blockSize > 0, "block size must be positive");
+    this.blockSize = blockSize;
+    this.writeExecutor = writeExecutor;
+    this.directories = new ArrayList<>(roots.size());
+    long totalCapacity = 0;
+    for (int i = 0; i < roots.size(); i++) {
+      final Path directory = roots.get(i).resolve(CACHE_DIRECTORY);
+      deleteRecursively(directory);
+      Files.createDirectories(directory);
+      directories.add(
+          new CacheDirectory(directory, getOrLast(minFreeSpacePcts, i, 0), capacities.get(i)));
+      totalCapacity += capacities.get(i);
+    }
+    this.capacity = totalCapacity;
+    logger.info("Block cache of {} bytes created in {}", capacity, roots);
+  }
+
+  /** Creates a block cache using the executor cache settings of the given config. */
+  public static BlockCache create(DremioConfig config) throws IOException {
+    final List<String> paths = config.getStringList(DremioConfig.CACHE_FS_PATH_LIST);
+    final List<Integer> quotaPcts = config.getIntList(DremioConfig.CACHE_FS_QUOTA_LIST);
+    final List<Integer> minFreeSpacePcts =
+        config.getIntList(DremioConfig.CACHE_FS_ENSURE_FREE_SPACE_LIST);
+
+    final List<Path> roots = new ArrayList<>(paths.size());
+    final List<Long> capacities = new ArrayList<>(paths.size());
+    for (int i = 0; i < paths.size(); i++) {
+      final Path root = Paths.get(paths.get(i));
+      Files.createDirectories(root);
+      final long totalSpace = Files.getFileStore(root).getTotalSpace();
+      roots.add(root);
+      capacities.add(totalSpace * getOrLast(quotaPcts, i, 100) / 100);
+    }
+    // one writer per directory, blocks are spread over the directories
+    final ExecutorService writeExecutor =
+        new ThreadPoolExecutor(
+            roots.size(),
+            roots.size(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_PENDING_WRITES),
+            new NamedThreadFactory("block-cache-writer-"));
+    return new BlockCache(roots, capacities, minFreeSpacePcts, DEFAULT_BLOCK_SIZE, writeExecutor);
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /** Returns the length of the file, if it is known to the cache. */
+  Long getFileLength(FileId file) {
+    return fileLengths.getIfPresent(file);
+  }
+
+  void putFileLength(FileId file, long length) {
+    fileLengths.put(file, length);
+  }
+
+  /**
+   * Looks up a block. The returned block stays readable until it is passed to {@link
+   * #release(Block)}, even if it is evicted in the meantime.
+   *
+   * @return the block or null if it is not cached.
+   */
+  Block acquire(BlockKey key) {
+    synchronized (this) {
+      final Block block = blocks.get(key);
+      if (block == null) {
+        return null;
+      }
+      // touch the block in the source and directory orders as well
+      block.source.blocks.get(key);
+      block.directory.blocks.get(key);
+      block.refs++;
+      return block;
+    }
+  }
+
+  void release(Block block) {
+    synchronized (this) {
+      Preconditions.checkState(block.refs > 0, "Block %s is not acquired", block.key);
+      block.refs--;
+      if (!block.evicted || block.refs > 0) {
+        return;
+      }
+    }
+    deleteQuietly(block.file);
+  }
+
+  /** Copies {@code length} bytes of an acquired block, starting at {@code offset}, to dst. */
+  void read(Block block, int offset, ByteBuf dst, int dstOffset, int length) throws IOException {
+    Preconditions.checkArgument(offset + length <= block.length, "Read past the end of the block");
+    try (FileChannel channel = FileChannel.open(block.file, StandardOpenOption.READ)) {
+      int read = 0;
+      while (read < length) {
+        final int n = dst.setBytes(dstOffset + read, channel, offset + read, length - read);
+        if (n < 0) {
+          throw new IOException(String.format("Cached block %s was truncated", block.key));
+        }
+        read += n;
+      }
+    }
+  }
+
+  /**
+   * Adds the consecutive blocks of a file held by data, in the background. The caller gives up its
+   * reference to data, which is released once the blocks are written or dropped.
+   *
+   * @param sourceId the source the blocks belong to
+   * @param sourceLimitPct the maximum share of the cache the source can use
+   * @param firstBlock the index of the first block in the file
+   * @param data the blocks, the last one may be shorter than the block size
+   * @param length the number of bytes of data
+   * @param evictedBytes incremented by the number of bytes evicted to make space for the blocks
+   */
+  void putAsync(
+      String sourceId,
+      int sourceLimitPct,
+      FileId file,
+      long firstBlock,
+      ByteBuf data,
+      int length,
+      AtomicLong evictedBytes) {
+    final BlockWriter writer =
+        new BlockWriter(sourceId, sourceLimitPct, file, firstBlock, data, length, evictedBytes);
+    try {
+      writeExecutor.execute(writer);
+    } catch (RejectedExecutionException e) {
+      logger.debug("Too many pending writes, not caching {}", file);
+      data.release();
+    }
+  }
+
+  /**
+   * Adds a block, evicting the least recently used blocks of the source, of the directory of the
+   * block or of the whole cache as needed. Space is reserved before the block is written, so the
+   * capacities are never exceeded. Caching is best-effort, the block is not added if it cannot be
+   * written.
+   *
+   * @param sourceId the source the block belongs to
+   * @param sourceLimitPct the maximum share of the cache the source can use
+   * @return the number of bytes evicted to make space for the block
+   */
+  long put(String sourceId, int sourceLimitPct, BlockKey key, ByteBuf data, int index, int length) {
+    final long sourceCapacity = capacity * Math.max(0, Math.min(100, sourceLimitPct)) / 100;
+    final CacheDirectory directory =
+        directories.get(Math.floorMod(key.hashCode(), directories.size()));
+    if (length == 0 || length > sourceCapacity || length > directory.capacity) {
+      return 0;
+    }
+    if (!directory.hasFreeSpace(length)) {
+      return 0;
+    }
+
+    final List<Block> evicted = new ArrayList<>();
+    long evictedBytes = 0;
+    final Source source;
+    final boolean reserved;
+    synchronized (this) {
+      if (closed || blocks.containsKey(key) || pendingBlocks.contains(key)) {
+        return 0;
+      }
+      source = sources.computeIfAbsent(sourceId, id -> new Source());
+      while (source.usedBytes + length > sourceCapacity && !source.blocks.isEmpty()) {
+        evictedBytes += evictEldest(source.blocks, evicted);
+      }
+      while (directory.usedBytes + length > directory.capacity && !directory.blocks.isEmpty()) {
+        evictedBytes += evictEldest(directory.blocks, evicted);
+      }
+      while (usedBytes + length > capacity && !blocks.isEmpty()) {
+        evictedBytes += evictEldest(blocks, evicted);
+      }
+      // the remaining space is reserved by blocks being written
+      reserved =
+          source.usedBytes + length <= sourceCapacity
+              && directory.usedBytes + length <= directory.capacity
+              && usedBytes + length <= capacity;
+      if (reserved) {
+        pendingBlocks.add(key);
+        reserve(source, directory, length);
+      }
+    }
+    deleteAll(evicted);
+    if (!reserved) {
+      return evictedBytes;
+    }
+
+    final Path file = directory.path.resolve(Long.toHexString(nextBlockId.getAndIncrement()));
+    boolean written = false;
+    try (FileChannel channel =
+        FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      final ByteBuffer buffer = data.nioBuffer(index, length);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      written = true;
+    } catch (IOException e) {
+      logger.debug("Failed to write block {} to {}", key, file, e);
+    }
+
+    boolean added = false;
+    synchronized (this) {
+      pendingBlocks.remove(key);
+      if (written && !closed) {
+        final Block block = new Block(key, source, directory, file, length);
+        blocks.put(key, block);
+        source.blocks.put(key, block);
+        directory.blocks.put(key, block);
+        added = true;
+      } else if (!closed) {
+        reserve(source, directory, -length);
+      }
+    }
+    if (!added) {
+      deleteQuietly(file);
+    }
+    return evictedBytes;
+  }
+
+  // guarded by this
+  private void reserve(Source source, CacheDirectory directory, long length) {
+    source.usedBytes += length;
+    directory.usedBytes += length;
+    usedBytes += length;
+  }
+
+  /** Evicts the eldest block of the map, adding it to toDelete if no one is reading it. */
+  private long evictEldest(LinkedHashMap<BlockKey, Block> map, List<Block> toDelete) {
+    final Iterator<Block> iterator = map.values().iterator();
+    final Block block = iterator.next();
+    blocks.remove(block.key);
+    block.source.blocks.remove(block.key);
+    block.directory.blocks.remove(block.key);
+    reserve(block.source, block.directory, -block.length);
+    block.evicted = true;
+    if (block.refs == 0) {
+      toDelete.add(block);
+    }
+    return block.length;
+  }
+
+  private static void deleteAll(List<Block> blocks) {
+    for (Block block : blocks) {
+      deleteQuietly(block.file);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+      for (Block block : blocks.values()) {
+        block.evicted = true;
+      }
+      blocks.clear();
+      sources.clear();
+      for (CacheDirectory directory : directories) {
+        directory.blocks.clear();
+        directory.usedBytes = 0;
+      }
+      usedBytes = 0;
+    }
+    if (writeExecutor instanceof ExecutorService) {
+      // blocks which are being written are deleted once written
+      for (Runnable pending : ((ExecutorService) writeExecutor).shutdownNow()) {
+        if (pending instanceof BlockWriter) {
+          ((BlockWriter) pending).data.release();
+        }
+      }
+    }
+    fileLengths.invalidateAll();
+    for (CacheDirectory directory : directories) {
+      // blocks which are still being read are deleted on release
+      try (Stream<Path> files = Files.list(directory.path)) {
+        files.forEach(BlockCache::deleteQuietly);
+      }
+    }
+  }
+
+  private static int getOrLast(List<Integer> values, int index, int defaultValue) {
+    if (values.isEmpty()) {
+      return defaultValue;
+    }
+    return values.get(Math.min(index, values.size() - 1));
+  }
+
+  private static void deleteRecursively(Path directory) throws IOException {
+    if (!Files.exists(directory)) {
+      return;
+    }
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.debug("Failed to delete cached block {}", file, e);
+    }
+  }
+
+  private static final class CacheDirectory {
+    private final Path path;
+    private final int minFreeSpacePct;
+    private final long capacity;
+    private final FileStore store;
+    // guarded by the cache
+    private final LinkedHashMap<BlockKey, Block> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    private CacheDirectory(Path path, int minFreeSpacePct, long capacity) throws IOException {
+      this.path = path;
+      this.minFreeSpacePct = minFreeSpacePct;
+      this.capacity = capacity;
+      this.store = Files.getFileStore(path);
+    }
+
+    private boolean hasFreeSpace(long length) {
+      if (capacity == 0) {
+        return false;
+      }
+      if (minFreeSpacePct <= 0) {
+        return true;
+      }
+      try {
+        return store.getUsableSpace() - length >= store.getTotalSpace() * minFreeSpacePct / 100;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+
+  private static final class Source {
+    private final LinkedHashMap<BlockKey, Block> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+  }
+
+  /** Writes the blocks read from a file to the cache. */
+  private final class BlockWriter implements Runnable {
+    private final String sourceId;
+    private final int sourceLimitPct;
+    private final FileId file;
+    private final long firstBlock;
+    private final ByteBuf data;
+    private final int length;
+    private final AtomicLong evictedBytes;
+
+    private BlockWriter(
+        String sourceId,
+        int sourceLimitPct,
+        FileId file,
+        long firstBlock,
+        ByteBuf data,
+        int length,
+        AtomicLong evictedBytes) {
+      this.sourceId = sourceId;
+      this.sourceLimitPct = sourceLimitPct;
+      this.file = file;
+      this.firstBlock = firstBlock;
+      this.data = data;
+      this.length = length;
+      this.evictedBytes = evictedBytes;
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (int offset = 0, block = 0; offset < length; offset += blockSize, block++) {
+          evictedBytes.addAndGet(
+              put(
+                  sourceId,
+                  sourceLimitPct,
+                  new BlockKey(file, firstBlock + block),
+                  data,
+                  offset,
+                  Math.min(blockSize, length - offset)));
+        }
+      } finally {
+        data.release();
+      }
+    }
+  }
+
+  /** A cached block. */
+  static final class Block {
+    private final BlockKey key;
+    private final Source source;
+    private final CacheDirectory directory;
+    private final Path file;
+    private final int length;
+    // guarded by the cache
+    private int refs;
+    private boolean evicted;
+
+    private Block(BlockKey key, Source source, CacheDirectory directory, Path file, int length) {
+      this.key = key;
+      this.source = source;
+      this.directory = directory;
+      this.file = file;
+      this.length = length;
+    }
+
+    int getLength() {
+      return length;
+    }
+  }
+
+  /** Identifies a version of a file of a source. */
+  static final class FileId {
+    private final String pluginUid;
+    private final String path;
+    private final String version;
+
+    FileId(String pluginUid, String path, String version) {
+      this.pluginUid = pluginUid;
+      this.path = path;
+      this.version = version;
+    }
+
+    static FileId of(AsyncByteReader.FileKey fileKey) {
+      return new FileId(
+          fileKey.getPluginUID().orElse(""), fileKey.getPath().toString(), fileKey.getVersion());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      FileId that = (FileId) o;
+      return pluginUid.equals(that.pluginUid)
+          && path.equals(that.path)
+          && version.equals(that.version);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pluginUid, path, version);
+    }
+
+    @Override
+    public String toString() {
+      return path + "@" + version;
+    }
+  }
+
+  /** Identifies a block of a file. */
+  static final class BlockKey {
+    private final FileId file;
+    private final long index;
+
+    BlockKey(FileId file, long index) {
+      this.file = file;
+      this.index = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      BlockKey that = (BlockKey) o;
+      return index == that.index && file.equals(that.file);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * file.hashCode() + Long.hashCode(index);
+    }
+
+    @Override
+    public String toString() {
+      return file + "#" + index;
+    }
+  }
+}
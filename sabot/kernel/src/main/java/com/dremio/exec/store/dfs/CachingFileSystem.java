@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import com.dremio.exec.store.dfs.BlockCache.Block;
+import com.dremio.exec.store.dfs.BlockCache.BlockKey;
+import com.dremio.exec.store.dfs.BlockCache.FileId;
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.FilterFileSystem;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.base.Strings;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link FileSystem} which serves async reads from the node-local {@link BlockCache}.
+ *
+ * <p>Reads which are not fully cached are extended to block boundaries and read from the wrapped
+ * FileSystem, and the blocks are added to the cache. Files without a version are not cached as
+ * changes to them could not be detected.
+ */
+public class CachingFileSystem extends FilterFileSystem {
+  private static final Logger logger = LoggerFactory.getLogger(CachingFileSystem.class);
+
+  private final BlockCache cache;
+  private final String sourceId;
+  private final int sourceLimitPct;
+  private final OperatorStats operatorStats;
+
+  public CachingFileSystem(
+      FileSystem fs,
+      BlockCache cache,
+      String sourceId,
+      int sourceLimitPct,
+      OperatorStats operatorStats) {
+    super(fs);
+    this.cache = cache;
+    this.sourceId = sourceId;
+    this.sourceLimitPct = sourceLimitPct;
+    this.operatorStats = operatorStats;
+  }
+
+  @Override
+  public AsyncByteReader getAsyncByteReader(
+      AsyncByteReader.FileKey fileKey, Map<String, String> options) throws IOException {
+    final AsyncByteReader reader = super.getAsyncByteReader(fileKey, options);
+    if (Strings.isNullOrEmpty(fileKey.getVersion())) {
+      return reader;
+    }
+    return new CachingAsyncByteReader(reader, fileKey);
+  }
+
+  private final class CachingAsyncByteReader implements AsyncByteReader {
+    private final AsyncByteReader reader;
+    private final AsyncByteReader.FileKey fileKey;
+    private final FileId fileId;
+    private final int blockSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong hitBytes = new AtomicLong();
+    private final AtomicLong missBytes = new AtomicLong();
+    private final AtomicLong evictedBytes = new AtomicLong();
+
+    private CachingAsyncByteReader(AsyncByteReader reader, AsyncByteReader.FileKey fileKey) {
+      this.reader = reader;
+      this.fileKey = fileKey;
+      this.fileId = FileId.of(fileKey);
+      this.blockSize = cache.getBlockSize();
+    }
+
+    @Override
+    public CompletableFuture<Void> readFully(long offset, ByteBuf dst, int dstOffset, int len) {
+      if (len == 0) {
+        return completedFuture;
+      }
+      final long firstBlock = offset / blockSize;
+      final long lastBlock = (offset + len - 1) / blockSize;
+      if (readFromCache(offset, dst, dstOffset, len, firstBlock, lastBlock)) {
+        hits.incrementAndGet();
+        hitBytes.addAndGet(len);
+        return completedFuture;
+      }
+      misses.incrementAndGet();
+      missBytes.addAndGet(len);
+
+      final long start = firstBlock * blockSize;
+      final long end;
+      try {
+        end = Math.min((lastBlock + 1) * blockSize, getFileLength());
+      } catch (IOException e) {
+        logger.debug("Unable to get the length of {}, not caching it", fileKey.getPath(), e);
+        return reader.readFully(offset, dst, dstOffset, len);
+      }
+      if (end < offset + len) {
+        // reading past the end of the file, let the wrapped reader fail
+        return reader.readFully(offset, dst, dstOffset, len);
+      }
+
+      final int length = (int) (end - start);
+      final ByteBuf buf = Unpooled.directBuffer(length);
+      final CompletableFuture<Void> future = new CompletableFuture<>();
+      reader
+          .readFully(start, buf, 0, length)
+          .whenComplete(
+              (v, e) -> {
+                Throwable failure = e;
+                if (failure == null) {
+                  try {
+                    dst.setBytes(dstOffset, buf, (int) (offset - start), len);
+                  } catch (Throwable t) {
+                    failure = t;
+                  }
+                }
+                if (failure != null) {
+                  buf.release();
+                  future.completeExceptionally(failure);
+                  return;
+                }
+                // complete the read first, the blocks are written by the cache writer threads
+                future.complete(null);
+                cache.putAsync(
+                    sourceId, sourceLimitPct, fileId, firstBlock, buf, length, evictedBytes);
+              });
+      return future;
+    }
+
+    /** Copies the range from the cache if all its blocks are cached. */
+    private boolean readFromCache(
+        long offset, ByteBuf dst, int dstOffset, int len, long firstBlock, long lastBlock) {
+      final List<Block> blocks = new ArrayList<>((int) (lastBlock - firstBlock + 1));
+      try {
+        for (long index = firstBlock; index <= lastBlock; index++) {
+          final Block block = cache.acquire(new BlockKey(fileId, index));
+          if (block == null) {
+            return false;
+          }
+          blocks.add(block);
+        }
+
+        long position = offset;
+        int remaining = len;
+        for (Block block : blocks) {
+          final int blockOffset = (int) (position % blockSize);
+          final int length = Math.min(remaining, block.getLength() - blockOffset);
+          if (length <= 0) {
+            // the cached file is shorter than the read
+            return false;
+          }
+          cache.read(block, blockOffset, dst, dstOffset + len - remaining, length);
+          position += length;
+          remaining -= length;
+        }
+        return remaining == 0;
+      } catch (IOException e) {
+        logger.debug("Failed to read {} from the block cache", fileKey.getPath(), e);
+        return false;
+      } finally {
+        blocks.forEach(cache::release);
+      }
+    }
+
+    private long getFileLength() throws IOException {
+      final Long cached = cache.getFileLength(fileId);
+      if (cached != null) {
+        return cached;
+      }
+      final long length = getFileAttributes(fileKey.getPath()).size();
+      cache.putFileLength(fileId, length);
+      return length;
+    }
+
+    @Override
+    public CompletableFuture<Void> checkVersion(String version) {
+      return reader.checkVersion(version);
+    }
+
+    @Override
+    public List<ReaderStat> getStats() {
+      final List<ReaderStat> stats = new ArrayList<>(reader.getStats());
+      stats.add(new ReaderStat("blockCacheHits", hits.get()));
+      stats.add(new ReaderStat("blockCacheMisses", misses.get()));
+      stats.add(new ReaderStat("blockCacheHitBytes", hitBytes.get()));
+      stats.add(new ReaderStat("blockCacheMissBytes", missBytes.get()));
+      stats.add(new ReaderStat("blockCacheEvictedBytes", evictedBytes.get()));
+      return stats;
+    }
+
+    @Override
+    public void close() throws Exception {
+      if (operatorStats != null) {
+        operatorStats.addLongStat(Metric.BLOCK_CACHE_HITS, hits.getAndSet(0));
+        operatorStats.addLongStat(Metric.BLOCK_CACHE_MISSES, misses.getAndSet(0));
+        operatorStats.addLongStat(Metric.BLOCK_CACHE_HIT_BYTES, hitBytes.getAndSet(0));
+        operatorStats.addLongStat(Metric.BLOCK_CACHE_MISS_BYTES, missBytes.getAndSet(0));
+        operatorStats.addLongStat(Metric.BLOCK_CACHE_EVICTED_BYTES, evictedBytes.getAndSet(0));
+      }
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.io.file.FileSystem;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.context.OperatorContext;
+import java.io.IOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link FileSystemWrapper} implementation which wraps the FileSystems used for async reads of
+ * sources requesting caching in a {@link CachingFileSystem}. The node-local {@link BlockCache} is
+ * created on first use, and only if {@code services.executor.cache.enabled} is set.
+ */
+public class CachingFileSystemWrapper implements FileSystemWrapper {
+  private static final Logger logger = LoggerFactory.getLogger(CachingFileSystemWrapper.class);
+
+  private final FileSystemWrapper defaultWrapper;
+  private final DremioConfig config;
+  private final OptionManager globalOptions;
+
+  private BlockCache cache;
+  private boolean cacheCreated;
+
+  public CachingFileSystemWrapper(
+      FileSystemWrapper defaultWrapper, DremioConfig config, OptionManager globalOptions) {
+    this.defaultWrapper = defaultWrapper;
+    this.config = config;
+    this.globalOptions = globalOptions;
+  }
+
+  @Override
+  public FileSystem wrap(
+      FileSystem fs,
+      String storageId,
+      AsyncStreamConf conf,
+      OperatorContext context,
+      boolean enableAsync,
+      boolean isMetadataRefresh)
+      throws IOException {
+    final FileSystem wrappedFs =
+        defaultWrapper.wrap(fs, storageId, conf, context, enableAsync, isMetadataRefresh);
+    if (conf == null || !enableAsync || isMetadataRefresh || !conf.isAsyncEnabled()) {
+      return wrappedFs;
+    }
+
+    // use options from the OperatorContext if available, otherwise fall back to global options
+    final OptionManager options =
+        context != null && context.getOptions() != null ? context.getOptions() : globalOptions;
+    final CacheProperties cacheProperties = conf.getCacheProperties();
+    if (!options.getOption(ExecConstants.ASYNC_READ_BLOCK_CACHE_ENABLED)
+        || !cacheProperties.isCachingEnabled(options)) {
+      return wrappedFs;
+    }
+
+    final BlockCache blockCache = getCache();
+    if (blockCache == null) {
+      return wrappedFs;
+    }
+    return new CachingFileSystem(
+        wrappedFs,
+        blockCache,
+        storageId,
+        cacheProperties.cacheMaxSpaceLimitPct(),
+        context != null ? context.getStats() : null);
+  }
+
+  private synchronized BlockCache getCache() {
+    if (!cacheCreated) {
+      cacheCreated = true;
+      if (config.getBoolean(DremioConfig.CACHE_ENABLED)) {
+        try {
+          cache = BlockCache.create(config);
+        } catch (IOException | RuntimeException e) {
+          logger.warn("Unable to create the block cache, async reads will not be cached", e);
+        }
+      }
+    }
+    return cache;
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> clazz) {
+    if (clazz.isInstance(this)) {
+      return clazz.cast(this);
+    }
+
+    return defaultWrapper.unwrap(clazz);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> clazz) {
+    return clazz.isInstance(this) || defaultWrapper.isWrapperFor(clazz);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      synchronized (this) {
+        if (cache != null) {
+          cache.close();
+          cache = null;
+        }
+      }
+    } finally {
+      defaultWrapper.close();
+    }
+  }
+}
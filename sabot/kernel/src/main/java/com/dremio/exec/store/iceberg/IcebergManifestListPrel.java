@@ -188,6 +188,10 @@ public class IcebergManifestListPrel extends AbstractRelNode
     return pw;
   }
 
+  public Expression getIcebergExpression() {
+    return icebergExpression;
+  }
+
   @Override
   public TableMetadata getTableMetadata() {
     return tableMetadata;
@@ -31,6 +31,8 @@ import javax.annotation.concurrent.NotThreadSafe;
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.pojo.Field;
 
 /**
  * This class allows for creation of an {@link EqualityDeleteHashTable} from a {@link RecordReader}
@@ -72,7 +74,25 @@ public class EqualityDeleteFileReader implements AutoCloseable {
     return equalityFields;
   }
 
+  /** Returns the path of the delete file being read, or an empty string if it is not known. */
+  public String getFilePath() {
+    return reader.getFilePath();
+  }
+
+  /** Returns the materialized Arrow fields for the equality columns read from the delete file. */
+  public List<Field> getEqualityVectorFields() {
+    return mutator.getVectors().stream().map(ValueVector::getField).collect(Collectors.toList());
+  }
+
   public EqualityDeleteHashTable buildHashTable() {
+    return buildHashTable(context.getAllocator());
+  }
+
+  /**
+   * Builds a hash table from the delete file, with the memory for the table charged to the given
+   * allocator. Batches read from the file are still allocated from the operator's allocator.
+   */
+  public EqualityDeleteHashTable buildHashTable(BufferAllocator tableAllocator) {
     try {
       reader.allocate(mutator.getFieldVectorMap());
 
@@ -81,7 +101,7 @@ public class EqualityDeleteFileReader implements AutoCloseable {
 
       try (EqualityDeleteHashTable.Builder builder =
               new EqualityDeleteHashTable.Builder(
-                  context.getAllocator(),
+                  tableAllocator,
                   equalityFields,
                   equalityVectors,
                   tableSize,
@@ -97,6 +117,8 @@ public class EqualityDeleteFileReader implements AutoCloseable {
 
         return builder.build();
       }
+    } catch (RuntimeException ex) {
+      throw ex;
     } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
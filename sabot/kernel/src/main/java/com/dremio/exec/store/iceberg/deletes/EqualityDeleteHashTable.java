@@ -47,12 +47,32 @@ public class EqualityDeleteHashTable implements AutoCloseable {
   private final List<SchemaPath> equalityFields;
 
   private LBlockHashTable table;
+  private AutoCloseable resource;
 
   public EqualityDeleteHashTable(
       BufferAllocator allocator, LBlockHashTable table, List<SchemaPath> equalityFields) {
+    this(allocator, table, equalityFields, table);
+  }
+
+  private EqualityDeleteHashTable(
+      BufferAllocator allocator,
+      LBlockHashTable table,
+      List<SchemaPath> equalityFields,
+      AutoCloseable resource) {
     this.allocator = allocator;
     this.table = Preconditions.checkNotNull(table);
     this.equalityFields = Preconditions.checkNotNull(equalityFields);
+    this.resource = resource;
+  }
+
+  /**
+   * Creates another handle on the same underlying hash table. The handle allocates probe buffers
+   * from the given allocator, and closing it runs onClose rather than releasing the hash table. The
+   * underlying table is only read once built, so handles may be used from different threads.
+   */
+  EqualityDeleteHashTable share(BufferAllocator allocator, AutoCloseable onClose) {
+    Preconditions.checkState(table != null, "Hash table has been closed");
+    return new EqualityDeleteHashTable(allocator, table, equalityFields, onClose);
   }
 
   public List<SchemaPath> getEqualityFields() {
@@ -73,7 +93,8 @@ public class EqualityDeleteHashTable implements AutoCloseable {
 
   @Override
   public void close() throws Exception {
-    AutoCloseables.close(table);
+    AutoCloseables.close(resource);
+    resource = null;
     table = null;
   }
 
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.iceberg.deletes;
+
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.EQ_DELETE_TABLE_BUILD_TIME_NS;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_EQ_DELETE_TABLE_CACHE_HITS;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_EQ_DELETE_TABLE_CACHE_MISSES;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.sabot.exec.context.MetricDef;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.GuardedBy;
+import org.apache.arrow.memory.AllocationListener;
+import org.apache.arrow.memory.AllocationOutcome;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor-wide cache of built {@link EqualityDeleteHashTable} instances, shared across fragments
+ * and queries. Scans of a table where many splits reference the same equality delete files then
+ * only read and hash each delete file once per executor.
+ *
+ * <p>Tables are keyed by the delete file path and the materialized equality fields, so a change in
+ * the type of an equality column due to schema evolution results in a separate entry. Iceberg never
+ * rewrites a file in place, so no snapshot information is needed in the key.
+ *
+ * <p>Memory for cached tables is charged to a dedicated child allocator of the executor's root
+ * allocator, limited to the configured maximum. Entries are reference counted: each {@link
+ * #getOrBuild} call returns a handle that must be closed by the caller. When an allocation for a
+ * new table fails, least recently used entries with no open handles are closed to make room.
+ * Entries in use are never evicted, so a table that doesn't fit next to them is not cached, and the
+ * caller builds it with its own allocator instead.
+ *
+ * <p>The cache is owned by the node's {@link RowLevelDeleteCaches}.
+ */
+public class EqualityDeleteHashTableCache implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(EqualityDeleteHashTableCache.class);
+
+  private final BufferAllocator allocator;
+
+  // access-ordered, so iteration visits least recently used entries first
+  @GuardedBy("this")
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  EqualityDeleteHashTableCache(BufferAllocator parentAllocator, long maxBytes) {
+    this.allocator =
+        parentAllocator.newChildAllocator(
+            "iceberg-equality-delete-cache", new EvictingAllocationListener(), 0, maxBytes);
+  }
+
+  /**
+   * Returns a handle on the hash table for the delete file read by the given reader, building and
+   * caching the table if needed. The reader is not closed. The returned handle allocates probe
+   * buffers from probeAllocator and must be closed by the caller.
+   *
+   * @return the table handle, or null if the delete file can't be cached
+   * @throws OutOfMemoryException if the table doesn't fit in the cache next to the tables in use.
+   *     The reader may have been partly read.
+   */
+  public EqualityDeleteHashTable getOrBuild(
+      EqualityDeleteFileReader reader, BufferAllocator probeAllocator, OperatorStats stats) {
+    if (reader.getFilePath().isEmpty()) {
+      return null;
+    }
+
+    Key key = new Key(reader.getFilePath(), reader.getEqualityVectorFields());
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        addLongStat(stats, NUM_EQ_DELETE_TABLE_CACHE_HITS, 1);
+        return entry.share(probeAllocator);
+      }
+    }
+
+    // Build outside of the lock so that other fragments aren't blocked reading their own delete
+    // files. If another fragment raced us for the same key, keep its table and drop ours.
+    addLongStat(stats, NUM_EQ_DELETE_TABLE_CACHE_MISSES, 1);
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    EqualityDeleteHashTable table = reader.buildHashTable(allocator);
+    addLongStat(stats, EQ_DELETE_TABLE_BUILD_TIME_NS, stopwatch.elapsed(TimeUnit.NANOSECONDS));
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        entry = new Entry(key, table);
+        entries.put(key, entry);
+      } else {
+        AutoCloseables.close(RuntimeException.class, table);
+      }
+      return entry.share(probeAllocator);
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int size() {
+    return entries.size();
+  }
+
+  @VisibleForTesting
+  long getAllocatedMemory() {
+    return allocator.getAllocatedMemory();
+  }
+
+  @VisibleForTesting
+  long getPeakMemoryAllocation() {
+    return allocator.getPeakMemoryAllocation();
+  }
+
+  @Override
+  public void close() throws Exception {
+    List<Entry> toClose;
+    synchronized (this) {
+      toClose = new ArrayList<>(entries.values());
+      entries.clear();
+      for (Entry entry : toClose) {
+        if (entry.refCount > 0) {
+          logger.warn("Closing cached equality delete table with open handles: {}", entry.key.path);
+        }
+      }
+    }
+
+    AutoCloseables.close(toClose, AutoCloseables.iter(allocator));
+  }
+
+  /**
+   * Closes least recently used entries with no open handles until the allocator has room for the
+   * given number of bytes.
+   *
+   * @return true if any entry was closed
+   */
+  private synchronized boolean evictIdleEntries(long bytes) {
+    boolean evicted = false;
+    Iterator<Entry> iterator = entries.values().iterator();
+    while (allocator.getHeadroom() < bytes && iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entry.refCount == 0) {
+        iterator.remove();
+        AutoCloseables.close(RuntimeException.class, entry);
+        evicted = true;
+      }
+    }
+    return evicted;
+  }
+
+  private static void addLongStat(OperatorStats stats, MetricDef metric, long value) {
+    if (stats != null) {
+      stats.addLongStat(metric, value);
+    }
+  }
+
+  private synchronized void release(Entry entry) {
+    Preconditions.checkState(entry.refCount > 0, "Cached equality delete table already released");
+    entry.refCount--;
+  }
+
+  /** Makes room for the tables being built by evicting idle entries when an allocation fails. */
+  private final class EvictingAllocationListener implements AllocationListener {
+
+    @Override
+    public boolean onFailedAllocation(long size, AllocationOutcome outcome) {
+      return evictIdleEntries(size);
+    }
+  }
+
+  private final class Entry implements AutoCloseable {
+
+    private final Key key;
+    private final EqualityDeleteHashTable table;
+
+    @GuardedBy("EqualityDeleteHashTableCache.this")
+    private int refCount;
+
+    private Entry(Key key, EqualityDeleteHashTable table) {
+      this.key = key;
+      this.table = table;
+    }
+
+    @GuardedBy("EqualityDeleteHashTableCache.this")
+    private EqualityDeleteHashTable share(BufferAllocator probeAllocator) {
+      refCount++;
+      return table.share(probeAllocator, () -> EqualityDeleteHashTableCache.this.release(this));
+    }
+
+    @Override
+    public void close() throws Exception {
+      table.close();
+    }
+  }
+
+  private static final class Key {
+
+    private final String path;
+    private final List<Field> equalityFields;
+
+    private Key(String path, List<Field> equalityFields) {
+      this.path = path;
+      this.equalityFields = equalityFields;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return path.equals(key.path) && equalityFields.equals(key.equalityFields);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, equalityFields);
+    }
+  }
+}
@@ -17,27 +17,59 @@ package com.dremio.exec.store.iceberg.deletes;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.expression.SchemaPath;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.google.common.base.Preconditions;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
 
 /**
  * A closeable Supplier of {@link EqualityDeleteHashTable EqualityDeleteHashTable(s)} sourced from
  * one or more {@link EqualityDeleteFileReader} instances. Hash tables will not be built until get()
- * is called.
+ * is called. If an {@link EqualityDeleteHashTableCache} is provided, tables are shared through it
+ * rather than being built for this supplier alone. A table that doesn't fit in the cache is built
+ * for this supplier from a new reader of the delete file, as the original reader may have been
+ * partly read by then.
  */
 @NotThreadSafe
 public class LazyEqualityDeleteTableSupplier
     implements Supplier<List<EqualityDeleteHashTable>>, AutoCloseable {
 
   private final List<SchemaPath> allEqualityFields;
+  private final EqualityDeleteHashTableCache cache;
+  private final IntFunction<EqualityDeleteFileReader> readerFactory;
+  private final BufferAllocator allocator;
+  private final OperatorStats stats;
   private List<EqualityDeleteFileReader> readers;
   private List<EqualityDeleteHashTable> tables;
 
   public LazyEqualityDeleteTableSupplier(List<EqualityDeleteFileReader> readers) {
+    this(readers, null, null, null, null);
+  }
+
+  /**
+   * @param readerFactory creates a new reader for the delete file of the reader at the given index,
+   *     used when a table doesn't fit in the cache
+   */
+  public LazyEqualityDeleteTableSupplier(
+      List<EqualityDeleteFileReader> readers,
+      EqualityDeleteHashTableCache cache,
+      IntFunction<EqualityDeleteFileReader> readerFactory,
+      BufferAllocator allocator,
+      OperatorStats stats) {
+    Preconditions.checkArgument(
+        cache == null || (readerFactory != null && allocator != null),
+        "readerFactory and allocator are required");
     this.readers = Preconditions.checkNotNull(readers);
+    this.cache = cache;
+    this.readerFactory = readerFactory;
+    this.allocator = allocator;
+    this.stats = stats;
     this.tables = null;
     this.allEqualityFields =
         readers.stream()
@@ -50,23 +82,50 @@ public class LazyEqualityDeleteTableSupplier
   public List<EqualityDeleteHashTable> get() {
     Preconditions.checkState(readers != null || tables != null, "Instance has been closed");
     if (tables == null) {
-      tables =
-          readers.stream()
-              .map(
-                  reader -> {
-                    try {
-                      return reader.buildHashTable();
-                    } finally {
-                      AutoCloseables.close(RuntimeException.class, reader);
-                    }
-                  })
-              .collect(Collectors.toList());
+      List<EqualityDeleteHashTable> built = new ArrayList<>(readers.size());
+      for (int i = 0; i < readers.size(); i++) {
+        EqualityDeleteFileReader reader = readers.get(i);
+        try {
+          built.add(getTable(i));
+        } catch (RuntimeException e) {
+          // release the tables built so far and the readers which won't be read anymore
+          List<AutoCloseable> toClose = new ArrayList<>(built);
+          toClose.addAll(readers.subList(i + 1, readers.size()));
+          AutoCloseables.close(e, toClose);
+          readers = null;
+          throw e;
+        } finally {
+          AutoCloseables.close(RuntimeException.class, reader);
+        }
+      }
+      tables = built;
       readers = null;
     }
 
     return tables;
   }
 
+  private EqualityDeleteHashTable getTable(int index) {
+    EqualityDeleteFileReader reader = readers.get(index);
+    if (cache != null) {
+      try {
+        EqualityDeleteHashTable table = cache.getOrBuild(reader, allocator, stats);
+        if (table != null) {
+          return table;
+        }
+      } catch (OutOfMemoryException e) {
+        // the cache is full of tables in use, and the reader may have been partly read
+        EqualityDeleteFileReader uncachedReader = readerFactory.apply(index);
+        try {
+          return uncachedReader.buildHashTable();
+        } finally {
+          AutoCloseables.close(RuntimeException.class, uncachedReader);
+        }
+      }
+    }
+    return reader.buildHashTable();
+  }
+
   public List<SchemaPath> getAllEqualityFields() {
     return allEqualityFields;
   }
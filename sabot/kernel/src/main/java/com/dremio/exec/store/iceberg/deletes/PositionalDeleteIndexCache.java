@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.iceberg.deletes;
+
+import com.dremio.exec.store.iceberg.deletes.RowLevelDeleteFilterFactory.DeleteFileInfo;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+/**
+ * Executor-wide cache of the merged positional deletes for a data file, stored as a compressed
+ * {@link Roaring64Bitmap}. Scans of a table that re-read the same data files - repeated queries, or
+ * several splits of a data file landing in different batches - can then skip re-opening and
+ * re-merging the positional delete files for those data files.
+ *
+ * <p>Entries are keyed by the data file path and the sorted set of positional delete file paths
+ * that apply to it. Iceberg never rewrites a file in place, so a change to the deletes applicable
+ * to a data file in a later snapshot always shows up as a different set of delete file paths, and
+ * the snapshot id does not need to be part of the key.
+ *
+ * <p>Cached bitmaps are immutable once published and may be iterated concurrently by any number of
+ * {@link PositionalDeleteFilter} instances. The cache is bounded by the compressed size of the
+ * bitmaps it holds, and is owned by the node's {@link RowLevelDeleteCaches}.
+ */
+public class PositionalDeleteIndexCache {
+
+  private final Cache<Key, Roaring64Bitmap> cache;
+
+  PositionalDeleteIndexCache(long maxBytes, long expireAfterAccessMinutes) {
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher(
+                (Weigher<Key, Roaring64Bitmap>)
+                    (key, bitmap) -> (int) Math.min(Integer.MAX_VALUE, bitmap.getLongSizeInBytes()))
+            .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+            .build();
+  }
+
+  /** Returns the cached positional deletes for the data file, or null if none are cached. */
+  public Roaring64Bitmap get(String dataFilePath, List<DeleteFileInfo> deleteFiles) {
+    return cache.getIfPresent(new Key(dataFilePath, deleteFiles));
+  }
+
+  /**
+   * Drains the provided iterator into a bitmap and publishes it to the cache. The iterator is
+   * closed once it has been fully consumed.
+   *
+   * @return the bitmap holding all positions returned by the iterator
+   */
+  public Roaring64Bitmap build(
+      String dataFilePath, List<DeleteFileInfo> deleteFiles, PositionalDeleteIterator iterator)
+      throws Exception {
+    Roaring64Bitmap bitmap = new Roaring64Bitmap();
+    try (PositionalDeleteIterator toClose = iterator) {
+      while (iterator.hasNext()) {
+        bitmap.addLong(iterator.next());
+      }
+    }
+    bitmap.runOptimize();
+    cache.put(new Key(dataFilePath, deleteFiles), bitmap);
+    return bitmap;
+  }
+
+  @VisibleForTesting
+  long size() {
+    return cache.size();
+  }
+
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** Creates a {@link PositionalDeleteIterator} over the positions held in a cached bitmap. */
+  public static PositionalDeleteIterator iterator(Roaring64Bitmap bitmap) {
+    return new BitmapPositionalDeleteIterator(Preconditions.checkNotNull(bitmap));
+  }
+
+  private static final class BitmapPositionalDeleteIterator implements PositionalDeleteIterator {
+
+    private final PeekableLongIterator iterator;
+
+    private BitmapPositionalDeleteIterator(Roaring64Bitmap bitmap) {
+      this.iterator = bitmap.getLongIterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public Long next() {
+      if (!iterator.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return iterator.next();
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  private static final class Key {
+
+    private final String dataFilePath;
+    private final List<String> deleteFilePaths;
+
+    private Key(String dataFilePath, List<DeleteFileInfo> deleteFiles) {
+      this.dataFilePath = Preconditions.checkNotNull(dataFilePath);
+      this.deleteFilePaths =
+          deleteFiles.stream().map(DeleteFileInfo::getPath).sorted().collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return dataFilePath.equals(key.dataFilePath) && deleteFilePaths.equals(key.deleteFilePaths);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(dataFilePath, deleteFilePaths);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.iceberg.deletes;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.ExecConstants;
+import com.dremio.options.OptionManager;
+import com.google.common.base.Preconditions;
+import javax.annotation.concurrent.GuardedBy;
+import org.apache.arrow.memory.BufferAllocator;
+
+/**
+ * Node-level owner of the executor-wide caches used by {@link RowLevelDeleteFilterFactory}. Held by
+ * the SabotContext and closed with it.
+ *
+ * <p>Caches are created on first use from the system options, so changes to their size or expiry
+ * take effect after a restart.
+ */
+public class RowLevelDeleteCaches implements AutoCloseable {
+
+  private final BufferAllocator rootAllocator;
+  private final OptionManager optionManager;
+
+  @GuardedBy("this")
+  private PositionalDeleteIndexCache positionalDeleteIndexCache;
+
+  @GuardedBy("this")
+  private EqualityDeleteHashTableCache equalityDeleteTableCache;
+
+  public RowLevelDeleteCaches(BufferAllocator rootAllocator, OptionManager optionManager) {
+    this.rootAllocator = Preconditions.checkNotNull(rootAllocator);
+    this.optionManager = Preconditions.checkNotNull(optionManager);
+  }
+
+  public synchronized PositionalDeleteIndexCache getPositionalDeleteIndexCache() {
+    if (positionalDeleteIndexCache == null) {
+      positionalDeleteIndexCache =
+          new PositionalDeleteIndexCache(
+              optionManager.getOption(
+                  ExecConstants.ICEBERG_POSITIONAL_DELETE_INDEX_CACHE_MAX_BYTES),
+              optionManager.getOption(
+                  ExecConstants.ICEBERG_POSITIONAL_DELETE_INDEX_CACHE_EXPIRE_MINUTES));
+    }
+    return positionalDeleteIndexCache;
+  }
+
+  /** Returns the equality delete table cache, whose memory is a child of the root allocator. */
+  public synchronized EqualityDeleteHashTableCache getEqualityDeleteTableCache() {
+    if (equalityDeleteTableCache == null) {
+      equalityDeleteTableCache =
+          new EqualityDeleteHashTableCache(
+              rootAllocator,
+              optionManager.getOption(ExecConstants.ICEBERG_EQUALITY_DELETE_TABLE_CACHE_MAX_BYTES));
+    }
+    return equalityDeleteTableCache;
+  }
+
+  @Override
+  public synchronized void close() throws Exception {
+    if (positionalDeleteIndexCache != null) {
+      positionalDeleteIndexCache.invalidateAll();
+      positionalDeleteIndexCache = null;
+    }
+    try {
+      AutoCloseables.close(equalityDeleteTableCache);
+    } finally {
+      equalityDeleteTableCache = null;
+    }
+  }
+}
@@ -17,23 +17,31 @@ package com.dremio.exec.store.iceberg.deletes;
 
 import static com.dremio.sabot.op.scan.ScanOperator.Metric.PARQUET_BYTES_READ;
 import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_DELETE_FILE_READERS;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_POS_DELETE_INDEX_CACHE_HITS;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_POS_DELETE_INDEX_CACHE_MISSES;
 import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.PARQUET_DELETE_FILE_BYTES_READ;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.POS_DELETE_INDEX_BUILD_TIME_NS;
 
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.exec.ExecConstants;
 import com.dremio.io.file.Path;
 import com.dremio.sabot.exec.context.DelegatingOperatorContext;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.store.iceberg.proto.IcebergProtobuf;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.apache.iceberg.FileContent;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 
 /**
  * Factory for creating {@link PositionalDeleteFilter} and {@link EqualityDeleteFilter} instances.
@@ -66,6 +74,11 @@ import org.apache.iceberg.FileContent;
  *       is closed.
  * </ul>
  *
+ * <p>When {@link ExecConstants#ENABLE_ICEBERG_POSITIONAL_DELETE_INDEX_CACHE} is set, the merged
+ * positions for each data file are also materialized into a {@link PositionalDeleteIndexCache}.
+ * Data files with a cached index in later batches or queries do not open any delete file readers,
+ * and are excluded from the reader reference counts above.
+ *
  * <p>
  *
  * <h3>Equality delete handling</h3>
@@ -76,7 +89,10 @@ import org.apache.iceberg.FileContent;
  *
  * <p>For equality deletes, neither filters nor the {@link EqualityDeleteHashTable} instances they
  * wrap are shared across data files. This is currently done to minimize memory use, as well as to
- * keep the implementation simple.
+ * keep the implementation simple. The exception is when {@link
+ * ExecConstants#ENABLE_ICEBERG_EQUALITY_DELETE_TABLE_CACHE} is set, in which case the hash tables
+ * are shared across data files, fragments and queries through an {@link
+ * EqualityDeleteHashTableCache}.
  *
  * <p>
  *
@@ -113,11 +129,27 @@ public class RowLevelDeleteFilterFactory implements AutoCloseable {
       new HashMap<>();
   private final Map<String, PositionalDeleteFilter> positionalDeleteFilters = new HashMap<>();
   private final Map<String, EqualityDeleteFilter> equalityDeleteFilters = new HashMap<>();
+  private final PositionalDeleteIndexCache positionalDeleteIndexCache;
+  private final Map<String, Roaring64Bitmap> cachedPositionalDeletes = new HashMap<>();
+  private final EqualityDeleteHashTableCache equalityDeleteTableCache;
 
   private Map<String, DataFileInfo> dataFileInfo;
 
   public RowLevelDeleteFilterFactory(
       OperatorContext context, RowLevelDeleteFileReaderFactory readerFactory) {
+    this(
+        context,
+        readerFactory,
+        getPositionalDeleteIndexCache(context),
+        getEqualityDeleteTableCache(context));
+  }
+
+  @VisibleForTesting
+  RowLevelDeleteFilterFactory(
+      OperatorContext context,
+      RowLevelDeleteFileReaderFactory readerFactory,
+      PositionalDeleteIndexCache positionalDeleteIndexCache,
+      EqualityDeleteHashTableCache equalityDeleteTableCache) {
     // Create an OperatorContext which has an independent OperatorStats instance, and delegates all
     // other calls to
     // the context that was provided.  This allows for isolating metrics recorded by Parquet readers
@@ -128,6 +160,30 @@ public class RowLevelDeleteFilterFactory implements AutoCloseable {
     this.context = createDeleteFileStatsContext(context);
     this.baseStats = context.getStats();
     this.readerFactory = Preconditions.checkNotNull(readerFactory);
+    this.positionalDeleteIndexCache = positionalDeleteIndexCache;
+    this.equalityDeleteTableCache = equalityDeleteTableCache;
+  }
+
+  private static PositionalDeleteIndexCache getPositionalDeleteIndexCache(OperatorContext context) {
+    RowLevelDeleteCaches caches = context.getRowLevelDeleteCaches();
+    if (caches == null
+        || !context
+            .getOptions()
+            .getOption(ExecConstants.ENABLE_ICEBERG_POSITIONAL_DELETE_INDEX_CACHE)) {
+      return null;
+    }
+    return caches.getPositionalDeleteIndexCache();
+  }
+
+  private static EqualityDeleteHashTableCache getEqualityDeleteTableCache(OperatorContext context) {
+    RowLevelDeleteCaches caches = context.getRowLevelDeleteCaches();
+    if (caches == null
+        || !context
+            .getOptions()
+            .getOption(ExecConstants.ENABLE_ICEBERG_EQUALITY_DELETE_TABLE_CACHE)) {
+      return null;
+    }
+    return caches.getEqualityDeleteTableCache();
   }
 
   public PositionalDeleteFilter createPositionalDeleteFilter(String dataFilePath) {
@@ -187,8 +243,11 @@ public class RowLevelDeleteFilterFactory implements AutoCloseable {
       // refcounts on associated positional delete files, and then remove the data file from all
       // maps
       if (info.getNumRowGroups() == 0) {
+        // data files served from the index cache never took a reference on the delete file readers
+        boolean cached = cachedPositionalDeletes.remove(dataFilePath) != null;
         for (DeleteFileInfo deleteFile : info.getDeleteFiles()) {
-          if (deleteFile.getContent() == FileContent.POSITION_DELETES
+          if (!cached
+              && deleteFile.getContent() == FileContent.POSITION_DELETES
               && positionalDeleteFileReaders.containsKey(deleteFile.getPath())) {
             PositionalDeleteFileReader reader =
                 positionalDeleteFileReaders.get(deleteFile.getPath());
@@ -220,15 +279,37 @@ public class RowLevelDeleteFilterFactory implements AutoCloseable {
     positionalDeleteFilters.clear();
     equalityDeleteFilters.clear();
 
+    // Look up the data files with a cached positional delete index up front, holding on to the
+    // bitmaps for the rest of the batch so they can't be evicted before the filters are created.
+    cachedPositionalDeletes.clear();
+    if (positionalDeleteIndexCache != null) {
+      dataFileInfo.forEach(
+          (dataFile, info) -> {
+            List<DeleteFileInfo> positionalDeleteFiles = info.getPositionalDeleteFiles();
+            if (!positionalDeleteFiles.isEmpty()) {
+              Roaring64Bitmap bitmap =
+                  positionalDeleteIndexCache.get(dataFile, positionalDeleteFiles);
+              if (bitmap != null) {
+                cachedPositionalDeletes.put(dataFile, bitmap);
+                baseStats.addLongStat(NUM_POS_DELETE_INDEX_CACHE_HITS, 1);
+              } else {
+                baseStats.addLongStat(NUM_POS_DELETE_INDEX_CACHE_MISSES, 1);
+              }
+            }
+          });
+    }
+
     // build an inverse mapping from delete file path to a sorted list of data file paths
     dataFilesByDeleteFile.clear();
     dataFileInfo.keySet().stream()
         .sorted()
         .forEachOrdered(
             dataFile ->
-                dataFileInfo
-                    .get(dataFile)
-                    .getDeleteFiles()
+                dataFileInfo.get(dataFile).getDeleteFiles().stream()
+                    .filter(
+                        deleteFile ->
+                            deleteFile.getContent() != FileContent.POSITION_DELETES
+                                || !cachedPositionalDeletes.containsKey(dataFile))
                     .forEach(
                         deleteFile ->
                             dataFilesByDeleteFile
@@ -282,6 +363,15 @@ public class RowLevelDeleteFilterFactory implements AutoCloseable {
     return positionalDeleteFilters.computeIfAbsent(
         dataFilePath,
         path -> {
+          int initialRefCount = dataFileInfo.get(path).getNumRowGroups();
+          Roaring64Bitmap cachedBitmap = cachedPositionalDeletes.get(path);
+          if (cachedBitmap != null) {
+            return new PositionalDeleteFilter(
+                () -> PositionalDeleteIndexCache.iterator(cachedBitmap),
+                initialRefCount,
+                baseStats);
+          }
+
           // Fetch the iterator creators for each delete file outside of the supplier... this serves
           // two purposes:
           //  - it will start prefetching of the delete files, and
@@ -302,16 +392,31 @@ public class RowLevelDeleteFilterFactory implements AutoCloseable {
           // supplier for the last data
           // file from the previous batch may be called after internal state has been reset to
           // handle the next batch.
+          final PositionalDeleteIndexCache indexCache = positionalDeleteIndexCache;
+          final OperatorStats stats = baseStats;
           Supplier<PositionalDeleteIterator> supplier =
               () -> {
                 List<PositionalDeleteIterator> iterators =
                     readers.stream()
                         .map(r -> r.createIteratorForDataFile(path))
                         .collect(Collectors.toList());
-                return MergingPositionalDeleteIterator.merge(iterators);
+                PositionalDeleteIterator merged = MergingPositionalDeleteIterator.merge(iterators);
+                if (indexCache == null) {
+                  return merged;
+                }
+
+                Stopwatch stopwatch = Stopwatch.createStarted();
+                try {
+                  Roaring64Bitmap bitmap = indexCache.build(path, deleteFiles, merged);
+                  return PositionalDeleteIndexCache.iterator(bitmap);
+                } catch (Exception e) {
+                  throw new RuntimeException(e);
+                } finally {
+                  stats.addLongStat(
+                      POS_DELETE_INDEX_BUILD_TIME_NS, stopwatch.elapsed(TimeUnit.NANOSECONDS));
+                }
               };
 
-          int initialRefCount = dataFileInfo.get(path).getNumRowGroups();
           return new PositionalDeleteFilter(supplier, initialRefCount, baseStats);
         });
   }
@@ -358,7 +463,12 @@ public class RowLevelDeleteFilterFactory implements AutoCloseable {
           int initialRefCount = dataFileInfo.get(path).getNumRowGroups();
           return new EqualityDeleteFilter(
               context.getAllocator(),
-              new LazyEqualityDeleteTableSupplier(readers),
+              new LazyEqualityDeleteTableSupplier(
+                  readers,
+                  equalityDeleteTableCache,
+                  i -> getOrCreateEqualityDeleteReader(deleteFiles.get(i), icebergColumnIds),
+                  context.getAllocator(),
+                  baseStats),
               initialRefCount,
               baseStats);
         });
@@ -24,8 +24,10 @@ import java.util.List;
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.arrow.vector.ValueVector;
 import org.apache.parquet.compression.CompressionCodecFactory;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.schema.Type;
 
 public interface ParquetReaderFactory {
   enum ManagedSchemaType {
@@ -35,6 +37,25 @@ public interface ParquetReaderFactory {
 
   boolean isSupported(ColumnChunkMetaData chunk, OperatorContext context);
 
+  /**
+   * Checks whether readers of this factory can populate the given output vector from the parquet
+   * field. Only consulted for fields whose column chunks are all supported.
+   *
+   * @param vector output vector of the field, null if the output does not have it yet
+   */
+  default boolean isSupportedTarget(Type parquetField, ValueVector vector) {
+    return true;
+  }
+
+  /**
+   * Whether readers of this factory evaluate the pushdown filters of {@link ParquetFilters}. If
+   * not, the filters are evaluated on the output of the reader, which is then only used when it
+   * can read all the projected columns.
+   */
+  default boolean supportsPushdownFilters() {
+    return true;
+  }
+
   RecordReader newReader(
       OperatorContext context,
       ParquetScanProjectedColumns projectedColumns,
@@ -33,6 +33,7 @@ import com.dremio.exec.store.RuntimeFilter;
 import com.dremio.exec.store.dfs.implicit.AdditionalColumnsRecordReader;
 import com.dremio.exec.store.dfs.implicit.ConstantColumnPopulators;
 import com.dremio.exec.store.iceberg.deletes.PositionalDeleteFilter;
+import com.dremio.exec.store.parquet.columnar.ColumnarParquetReaderFactory;
 import com.dremio.exec.store.parquet2.LogicalListL1Converter;
 import com.dremio.exec.store.parquet2.ParquetRowiseReader;
 import com.dremio.exec.util.BitSetHelper;
@@ -684,7 +685,11 @@ public class UnifiedParquetReader implements RecordReader {
       Map<String, ColumnChunkMetaData> fields, Type parquetField, boolean isArrowSchemaPresent) {
     return ((parquetField.isPrimitive()
             && isNotInt96(parquetField)
-            && checkIfDecimalIsVectorizable(parquetField, fields.get(parquetField.getName())))
+            && checkIfDecimalIsVectorizable(parquetField, fields.get(parquetField.getName()))
+            && readerFactory.isSupportedTarget(
+                parquetField,
+                outputMutator.getVector(
+                    columnResolver.getBatchSchemaColumnName(parquetField.getName()))))
         || (context.getOptions().getOption(ExecConstants.ENABLE_PARQUET_VECTORIZED_COMPLEX_READERS)
             && isComplexFieldVectorizable(parquetField, isArrowSchemaPresent)));
   }
@@ -896,7 +901,12 @@ public class UnifiedParquetReader implements RecordReader {
                   unifiedReader.tableSchema,
                   unifiedReader.ignoreSchemaLearning);
 
-          returnList.add(getWrappedReader(reader, unifiedReader));
+          // readers that don't evaluate the pushdown filters are the only delegate here, see
+          // getExecutionPath()
+          returnList.add(
+              unifiedReader.readerFactory.supportsPushdownFilters()
+                  ? getWrappedReader(reader, unifiedReader)
+                  : unifiedReader.addFilterIfNecessary(getWrappedReader(reader, unifiedReader)));
         }
         if (!unifiedReader.nonVectorizableReaderColumns.isEmpty()) {
           RecordReader reader =
@@ -1054,7 +1064,11 @@ public class UnifiedParquetReader implements RecordReader {
   }
 
   private ExecutionPath getExecutionPath() {
-    if (!vectorize || !determineFilterConditions(nonVectorizableReaderColumns)) {
+    if (!vectorize
+        || !determineFilterConditions(nonVectorizableReaderColumns)
+        || (filters.hasPushdownFilters()
+            && !readerFactory.supportsPushdownFilters()
+            && !nonVectorizableReaderColumns.isEmpty())) {
       return ExecutionPath.ROWWISE;
     }
 
@@ -1078,7 +1092,9 @@ public class UnifiedParquetReader implements RecordReader {
 
   public static ParquetReaderFactory getReaderFactory(SabotConfig config) {
     return config.getInstance(
-        "dremio.plugins.parquet.factory", ParquetReaderFactory.class, ParquetReaderFactory.NONE);
+        "dremio.plugins.parquet.factory",
+        ParquetReaderFactory.class,
+        new ColumnarParquetReaderFactory());
   }
 
   @Override
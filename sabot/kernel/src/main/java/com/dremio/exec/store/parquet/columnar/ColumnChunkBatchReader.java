@@ -0,0 +1,560 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import com.dremio.exec.store.parquet.ParquetDictionaryConvertor;
+import com.dremio.exec.store.parquet.ParquetReaderStats;
+import com.dremio.exec.store.parquet.ParquetReaderUtility;
+import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
+import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.BitVectorHelper;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeMilliVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.parquet.bytes.BytesUtils;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.DataPage;
+import org.apache.parquet.column.page.DataPageV1;
+import org.apache.parquet.column.page.DataPageV2;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.page.PageReader;
+import org.apache.parquet.hadoop.ColumnChunkIncReadStore.ColumnChunkIncPageReader;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.io.ParquetDecodingException;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.joda.time.DateTimeConstants;
+
+/**
+ * Reads one flat (non-nested, non-repeated) column chunk page by page, decoding runs of values
+ * straight into the target arrow vector.
+ */
+final class ColumnChunkBatchReader implements AutoCloseable {
+
+  private final ColumnDescriptor descriptor;
+  private final PageReader pageReader;
+  private final OffsetIndex offsetIndex;
+  private final ValueVector vector;
+  private final ColumnWriter writer;
+  private final BufferAllocator allocator;
+  private final ParquetDictionaryConvertor dictionaryConvertor;
+  private final ParquetReaderStats stats;
+  private final int maxDefinitionLevel;
+
+  private boolean dictionaryLoaded;
+  private ColumnDictionary dictionary;
+  private int pageIndex;
+  private RleBitPackedDecoder definitionLevels;
+  private ValuesDecoder values;
+  private int pageValuesRemaining;
+  private int[] levels = new int[0];
+
+  ColumnChunkBatchReader(
+      ColumnDescriptor descriptor,
+      PageReader pageReader,
+      OffsetIndex offsetIndex,
+      ValueVector vector,
+      BufferAllocator allocator,
+      ParquetDictionaryConvertor dictionaryConvertor,
+      DateCorruptionStatus dateCorruptionStatus,
+      int varValueSizeLimit,
+      ParquetReaderStats stats) {
+    Preconditions.checkArgument(
+        descriptor.getMaxRepetitionLevel() == 0 && descriptor.getMaxDefinitionLevel() <= 1,
+        "Column %s is not a flat column",
+        descriptor);
+    this.descriptor = descriptor;
+    this.pageReader = pageReader;
+    this.offsetIndex = offsetIndex;
+    this.vector = vector;
+    this.allocator = allocator;
+    this.dictionaryConvertor = dictionaryConvertor;
+    this.stats = stats;
+    this.maxDefinitionLevel = descriptor.getMaxDefinitionLevel();
+    this.writer =
+        newWriter(descriptor.getPrimitiveType(), vector, dateCorruptionStatus, varValueSizeLimit);
+  }
+
+  /**
+   * Checks whether a column chunk can be decoded by this reader: a top level, non-repeated column
+   * of a primitive type that maps to a single arrow vector without decimal/int96 conversion.
+   */
+  static boolean isSupported(ColumnChunkMetaData chunk) {
+    if (chunk.getPath().size() != 1) {
+      return false;
+    }
+    final PrimitiveType type = chunk.getPrimitiveType();
+    if (type.getRepetition() == Type.Repetition.REPEATED
+        || type.getOriginalType() == OriginalType.DECIMAL
+        || type.getOriginalType() == OriginalType.INTERVAL
+        || type.getPrimitiveTypeName() == PrimitiveType.PrimitiveTypeName.INT96) {
+      return false;
+    }
+    for (Encoding encoding : chunk.getEncodings()) {
+      if (!isSupportedEncoding(encoding, type.getPrimitiveTypeName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the values decoders handle {@code encoding} for the physical type. The chunk
+   * encodings also list the level encodings, BIT_PACKED is the deprecated level encoding and is not
+   * decoded here.
+   */
+  private static boolean isSupportedEncoding(
+      Encoding encoding, PrimitiveType.PrimitiveTypeName type) {
+    switch (encoding) {
+      case PLAIN:
+      case RLE:
+        return true;
+      case PLAIN_DICTIONARY:
+      case RLE_DICTIONARY:
+        return type != PrimitiveType.PrimitiveTypeName.BOOLEAN;
+      case DELTA_BINARY_PACKED:
+        return type == PrimitiveType.PrimitiveTypeName.INT32
+            || type == PrimitiveType.PrimitiveTypeName.INT64;
+      case DELTA_LENGTH_BYTE_ARRAY:
+      case DELTA_BYTE_ARRAY:
+        return type == PrimitiveType.PrimitiveTypeName.BINARY
+            || type == PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+      case BYTE_STREAM_SPLIT:
+        return type == PrimitiveType.PrimitiveTypeName.FLOAT
+            || type == PrimitiveType.PrimitiveTypeName.DOUBLE;
+      default:
+        return false;
+    }
+  }
+
+  /** Checks whether the output vector has the type this reader produces for the parquet field. */
+  static boolean isSupportedTarget(Type parquetField, ValueVector vector) {
+    if (vector == null || !parquetField.isPrimitive()) {
+      return false;
+    }
+    final PrimitiveType type = parquetField.asPrimitiveType();
+    final OriginalType originalType = type.getOriginalType();
+    switch (type.getPrimitiveTypeName()) {
+      case BOOLEAN:
+        return vector instanceof BitVector;
+      case INT32:
+        if (originalType == OriginalType.DATE) {
+          return vector instanceof DateMilliVector;
+        }
+        if (originalType == OriginalType.TIME_MILLIS) {
+          return vector instanceof TimeMilliVector;
+        }
+        return vector instanceof IntVector;
+      case INT64:
+        if (originalType == OriginalType.TIMESTAMP_MILLIS
+            || originalType == OriginalType.TIMESTAMP_MICROS) {
+          return vector instanceof TimeStampMilliVector;
+        }
+        if (originalType == OriginalType.TIME_MICROS) {
+          return vector instanceof TimeMilliVector;
+        }
+        return vector instanceof BigIntVector;
+      case FLOAT:
+        return vector instanceof Float4Vector;
+      case DOUBLE:
+        return vector instanceof Float8Vector;
+      case BINARY:
+      case FIXED_LEN_BYTE_ARRAY:
+        return vector instanceof VarCharVector || vector instanceof VarBinaryVector;
+      default:
+        return false;
+    }
+  }
+
+  ValueVector getVector() {
+    return vector;
+  }
+
+  /** Reads the next {@code count} rows into the vector starting at {@code index}. */
+  void read(int index, int count) throws IOException {
+    while (count > 0) {
+      if (pageValuesRemaining == 0) {
+        readNextPage();
+      }
+      int n = Math.min(count, pageValuesRemaining);
+      if (definitionLevels == null) {
+        writer.write(values, index, n);
+      } else {
+        int[] defs = levels(n);
+        definitionLevels.readInts(defs, 0, n);
+        int i = 0;
+        while (i < n) {
+          boolean present = defs[i] == maxDefinitionLevel;
+          int j = i + 1;
+          while (j < n && (defs[j] == maxDefinitionLevel) == present) {
+            j++;
+          }
+          // nulls need no work, the validity buffer of a freshly allocated vector is cleared
+          if (present) {
+            writer.write(values, index + i, j - i);
+          }
+          i = j;
+        }
+      }
+      pageValuesRemaining -= n;
+      index += n;
+      count -= n;
+    }
+  }
+
+  /**
+   * Skips the next {@code count} rows. When the offset index of the column chunk is known, pages
+   * that only hold skipped rows are passed over without being decompressed or decoded.
+   */
+  void skip(int count) throws IOException {
+    while (count > 0) {
+      if (pageValuesRemaining == 0) {
+        final int pageRows = nextPageRowCount();
+        if (pageRows > 0 && pageRows <= count) {
+          skipNextPage(pageRows);
+          count -= pageRows;
+          continue;
+        }
+        readNextPage();
+      }
+      int n = Math.min(count, pageValuesRemaining);
+      int nonNulls = n;
+      if (definitionLevels != null) {
+        int[] defs = levels(n);
+        definitionLevels.readInts(defs, 0, n);
+        nonNulls = 0;
+        for (int i = 0; i < n; i++) {
+          if (defs[i] == maxDefinitionLevel) {
+            nonNulls++;
+          }
+        }
+      }
+      values.skip(nonNulls);
+      pageValuesRemaining -= n;
+      count -= n;
+    }
+  }
+
+  /** Records the pages that were not reached as skipped, used once no more rows will be read. */
+  void skipRemainingPages() {
+    if (offsetIndex == null) {
+      return;
+    }
+    for (; pageIndex < offsetIndex.getPageCount(); pageIndex++) {
+      stats.numPagesSkipped++;
+      stats.totalSkippedPageBytes += offsetIndex.getCompressedPageSize(pageIndex);
+    }
+  }
+
+  /** Number of rows of the next page, or -1 if it is not known without reading the page. */
+  private int nextPageRowCount() {
+    if (offsetIndex == null || pageIndex >= offsetIndex.getPageCount()) {
+      return -1;
+    }
+    return Math.toIntExact(
+        offsetIndex.getLastRowIndex(pageIndex, pageReader.getTotalValueCount())
+            - offsetIndex.getFirstRowIndex(pageIndex)
+            + 1);
+  }
+
+  private void skipNextPage(int pageRows) {
+    final int skipped;
+    if (pageReader instanceof ColumnChunkIncPageReader) {
+      skipped = ((ColumnChunkIncPageReader) pageReader).skipPage();
+    } else {
+      // the page still has to be read, but it is not decoded
+      final DataPage page = pageReader.readPage();
+      skipped = page == null ? 0 : page.getValueCount();
+    }
+    if (skipped != pageRows) {
+      throw new ParquetDecodingException(
+          String.format(
+              "Page %d of column %s has %d values, the offset index expects %d",
+              pageIndex, descriptor, skipped, pageRows));
+    }
+    stats.numPagesSkipped++;
+    stats.totalSkippedPageBytes += offsetIndex.getCompressedPageSize(pageIndex);
+    pageIndex++;
+  }
+
+  private int[] levels(int count) {
+    if (levels.length < count) {
+      levels = new int[count];
+    }
+    return levels;
+  }
+
+  private void readNextPage() throws IOException {
+    if (!dictionaryLoaded) {
+      dictionaryLoaded = true;
+      DictionaryPage dictionaryPage = pageReader.readDictionaryPage();
+      if (dictionaryPage != null) {
+        dictionary =
+            ColumnDictionary.create(
+                dictionaryPage, descriptor.getPrimitiveType(), allocator, dictionaryConvertor);
+        stats.numDictPageLoads++;
+        stats.totalDictDecompressedBytes += dictionaryPage.getUncompressedSize();
+      }
+    }
+
+    final DataPage page = pageReader.readPage();
+    if (page == null) {
+      throw new ParquetDecodingException(
+          "Reached the end of column chunk " + descriptor + " before reading all rows");
+    }
+    stats.numPageLoads++;
+    stats.totalDecompressedBytes += page.getUncompressedSize();
+    pageIndex++;
+    pageValuesRemaining = page.getValueCount();
+
+    if (page instanceof DataPageV1) {
+      DataPageV1 pageV1 = (DataPageV1) page;
+      ByteBuffer data = pageV1.getBytes().toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+      int pos = data.position();
+      definitionLevels = null;
+      if (maxDefinitionLevel > 0) {
+        if (pageV1.getDlEncoding() != Encoding.RLE) {
+          throw new ParquetDecodingException(
+              "Unsupported definition level encoding " + pageV1.getDlEncoding());
+        }
+        int length = data.getInt(pos);
+        pos += Integer.BYTES;
+        definitionLevels = newLevelsDecoder(data, pos, pos + length);
+        pos += length;
+      }
+      values = newValuesDecoder(pageV1.getValueEncoding(), data, pos, page.getValueCount());
+    } else {
+      DataPageV2 pageV2 = (DataPageV2) page;
+      definitionLevels = null;
+      if (maxDefinitionLevel > 0) {
+        ByteBuffer levelBytes = pageV2.getDefinitionLevels().toByteBuffer();
+        definitionLevels =
+            newLevelsDecoder(levelBytes, levelBytes.position(), levelBytes.limit());
+      }
+      ByteBuffer data = pageV2.getData().toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+      values =
+          newValuesDecoder(
+              pageV2.getDataEncoding(), data, data.position(), page.getValueCount());
+    }
+  }
+
+  private RleBitPackedDecoder newLevelsDecoder(ByteBuffer data, int start, int end) {
+    return new RleBitPackedDecoder(
+        data, start, end, BytesUtils.getWidthFromMaxInt(maxDefinitionLevel));
+  }
+
+  private ValuesDecoder newValuesDecoder(
+      Encoding encoding, ByteBuffer data, int start, int valueCount) throws IOException {
+    if (encoding.usesDictionary()) {
+      if (dictionary == null) {
+        throw new ParquetDecodingException(
+            "Dictionary encoded page without a dictionary in column " + descriptor);
+      }
+      return new DictionaryValuesDecoder(data, start, data.limit(), dictionary);
+    }
+    if (encoding == Encoding.PLAIN) {
+      return new PlainValuesDecoder(data, start, descriptor.getPrimitiveType());
+    }
+    return new ParquetMrValuesDecoder(descriptor, encoding, data, start, valueCount);
+  }
+
+  @Override
+  public void close() {
+    if (dictionary != null) {
+      dictionary.close();
+      dictionary = null;
+    }
+  }
+
+  private static ColumnWriter newWriter(
+      PrimitiveType type,
+      ValueVector vector,
+      DateCorruptionStatus dateCorruptionStatus,
+      int varValueSizeLimit) {
+    Preconditions.checkArgument(
+        isSupportedTarget(type, vector),
+        "Column %s can not be read into vector %s",
+        type,
+        vector.getField());
+    final OriginalType originalType = type.getOriginalType();
+    switch (type.getPrimitiveTypeName()) {
+      case BOOLEAN:
+        return new BitWriter((BitVector) vector);
+      case INT32:
+        if (originalType == OriginalType.DATE) {
+          return new DateWriter((DateMilliVector) vector, dateCorruptionStatus);
+        }
+        return new FixedWidthWriter((BaseFixedWidthVector) vector, Integer.BYTES);
+      case INT64:
+        if (originalType == OriginalType.TIMESTAMP_MICROS) {
+          return new TimeStampMicrosWriter((TimeStampMilliVector) vector);
+        }
+        if (originalType == OriginalType.TIME_MICROS) {
+          return new TimeMicrosWriter((TimeMilliVector) vector);
+        }
+        return new FixedWidthWriter((BaseFixedWidthVector) vector, Long.BYTES);
+      case FLOAT:
+        return new FixedWidthWriter((BaseFixedWidthVector) vector, Integer.BYTES);
+      case DOUBLE:
+        return new FixedWidthWriter((BaseFixedWidthVector) vector, Long.BYTES);
+      default:
+        return new VariableWidthWriter((BaseVariableWidthVector) vector, varValueSizeLimit);
+    }
+  }
+
+  /** Writes a run of non-null values from a page into the target vector. */
+  private abstract static class ColumnWriter {
+    abstract void write(ValuesDecoder values, int index, int count);
+  }
+
+  /**
+   * Copies values whose parquet physical representation matches the arrow one: int, time
+   * (millis), bigint, timestamp (millis), float and double.
+   */
+  private static final class FixedWidthWriter extends ColumnWriter {
+    private final BaseFixedWidthVector vector;
+    private final int width;
+
+    private FixedWidthWriter(BaseFixedWidthVector vector, int width) {
+      this.vector = vector;
+      this.width = width;
+    }
+
+    @Override
+    void write(ValuesDecoder values, int index, int count) {
+      while (vector.getValueCapacity() < index + count) {
+        vector.reAlloc();
+      }
+      values.readFixed(vector.getDataBuffer(), (long) index * width, count);
+      for (int i = index; i < index + count; i++) {
+        BitVectorHelper.setBit(vector.getValidityBuffer(), i);
+      }
+    }
+  }
+
+  private static final class BitWriter extends ColumnWriter {
+    private final BitVector vector;
+
+    private BitWriter(BitVector vector) {
+      this.vector = vector;
+    }
+
+    @Override
+    void write(ValuesDecoder values, int index, int count) {
+      for (int i = index; i < index + count; i++) {
+        vector.setSafe(i, values.readBoolean() ? 1 : 0);
+      }
+    }
+  }
+
+  private static final class DateWriter extends ColumnWriter {
+    private final DateMilliVector vector;
+    private final DateCorruptionStatus corruptionStatus;
+
+    private DateWriter(DateMilliVector vector, DateCorruptionStatus corruptionStatus) {
+      this.vector = vector;
+      this.corruptionStatus = corruptionStatus;
+    }
+
+    @Override
+    void write(ValuesDecoder values, int index, int count) {
+      for (int i = index; i < index + count; i++) {
+        vector.setSafe(i, toMillis(values.readInt()));
+      }
+    }
+
+    // See DRILL-4203
+    private long toMillis(int days) {
+      switch (corruptionStatus) {
+        case META_SHOWS_CORRUPTION:
+          return (days - ParquetReaderUtility.CORRECT_CORRUPT_DATE_SHIFT)
+              * DateTimeConstants.MILLIS_PER_DAY;
+        case META_UNCLEAR_TEST_VALUES:
+          if (days > ParquetReaderUtility.DATE_CORRUPTION_THRESHOLD) {
+            return (days - ParquetReaderUtility.CORRECT_CORRUPT_DATE_SHIFT)
+                * DateTimeConstants.MILLIS_PER_DAY;
+          }
+          return days * (long) DateTimeConstants.MILLIS_PER_DAY;
+        default:
+          return days * (long) DateTimeConstants.MILLIS_PER_DAY;
+      }
+    }
+  }
+
+  private static final class TimeStampMicrosWriter extends ColumnWriter {
+    private final TimeStampMilliVector vector;
+
+    private TimeStampMicrosWriter(TimeStampMilliVector vector) {
+      this.vector = vector;
+    }
+
+    @Override
+    void write(ValuesDecoder values, int index, int count) {
+      for (int i = index; i < index + count; i++) {
+        vector.setSafe(i, values.readLong() / 1000);
+      }
+    }
+  }
+
+  private static final class TimeMicrosWriter extends ColumnWriter {
+    private final TimeMilliVector vector;
+
+    private TimeMicrosWriter(TimeMilliVector vector) {
+      this.vector = vector;
+    }
+
+    @Override
+    void write(ValuesDecoder values, int index, int count) {
+      for (int i = index; i < index + count; i++) {
+        vector.setSafe(i, (int) (values.readLong() / 1000));
+      }
+    }
+  }
+
+  private static final class VariableWidthWriter extends ColumnWriter {
+    private final BaseVariableWidthVector vector;
+    private final int sizeLimit;
+
+    private VariableWidthWriter(BaseVariableWidthVector vector, int sizeLimit) {
+      this.vector = vector;
+      this.sizeLimit = sizeLimit;
+    }
+
+    @Override
+    void write(ValuesDecoder values, int index, int count) {
+      for (int i = index; i < index + count; i++) {
+        values.readBinary(vector, i, sizeLimit);
+      }
+    }
+  }
+}
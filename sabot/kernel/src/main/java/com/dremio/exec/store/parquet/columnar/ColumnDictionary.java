@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import static com.dremio.common.exceptions.FieldSizeLimitExceptionHelper.createFieldSizeLimitException;
+
+import com.dremio.exec.store.parquet.ParquetDictionaryConvertor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Optional;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.io.ParquetDecodingException;
+import org.apache.parquet.schema.PrimitiveType;
+
+/**
+ * Decoded dictionary of a column chunk. Fixed width entries are kept in direct memory so that they
+ * can go through the {@link ParquetDictionaryConvertor}, binary entries are kept on heap.
+ */
+final class ColumnDictionary implements AutoCloseable {
+
+  private final int size;
+  private final int width;
+  private final ArrowBuf fixed;
+  private final byte[] binary;
+  private final int[] offsets;
+
+  private ColumnDictionary(int size, int width, ArrowBuf fixed, byte[] binary, int[] offsets) {
+    this.size = size;
+    this.width = width;
+    this.fixed = fixed;
+    this.binary = binary;
+    this.offsets = offsets;
+  }
+
+  static ColumnDictionary create(
+      DictionaryPage page,
+      PrimitiveType type,
+      BufferAllocator allocator,
+      ParquetDictionaryConvertor convertor)
+      throws IOException {
+    if (!page.getEncoding().usesDictionary() && page.getEncoding() != Encoding.PLAIN) {
+      throw new ParquetDecodingException(
+          "Unsupported dictionary page encoding " + page.getEncoding());
+    }
+    final int size = page.getDictionarySize();
+    final ByteBuffer in = page.getBytes().toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    final int start = in.position();
+    final int width = PlainValuesDecoder.physicalWidth(type.getPrimitiveTypeName());
+    switch (type.getPrimitiveTypeName()) {
+      case INT32:
+      case INT64:
+      case FLOAT:
+      case DOUBLE:
+        {
+          ArrowBuf buf = allocator.buffer((long) size * width);
+          try {
+            buf.setBytes(0, in, start, size * width);
+            convertor.convertDictionaryBuffer(buf, size, Optional.of(type.getName()));
+          } catch (RuntimeException e) {
+            buf.close();
+            throw e;
+          }
+          return new ColumnDictionary(size, width, buf, null, null);
+        }
+      case BINARY:
+        {
+          int[] offsets = new int[size + 1];
+          int pos = start;
+          int dataLength = 0;
+          for (int i = 0; i < size; i++) {
+            int length = in.getInt(pos);
+            pos += Integer.BYTES + length;
+            dataLength += length;
+            offsets[i + 1] = dataLength;
+          }
+          byte[] data = new byte[dataLength];
+          pos = start;
+          for (int i = 0; i < size; i++) {
+            int length = offsets[i + 1] - offsets[i];
+            ByteBuffer value = in.duplicate();
+            value.position(pos + Integer.BYTES);
+            value.get(data, offsets[i], length);
+            pos += Integer.BYTES + length;
+          }
+          return new ColumnDictionary(size, -1, null, data, offsets);
+        }
+      case FIXED_LEN_BYTE_ARRAY:
+        {
+          int length = type.getTypeLength();
+          int[] offsets = new int[size + 1];
+          for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + length;
+          }
+          byte[] data = new byte[size * length];
+          ByteBuffer value = in.duplicate();
+          value.position(start);
+          value.get(data);
+          return new ColumnDictionary(size, -1, null, data, offsets);
+        }
+      default:
+        throw new ParquetDecodingException(
+            "Dictionary encoding is not supported for type " + type.getPrimitiveTypeName());
+    }
+  }
+
+  int getWidth() {
+    return width;
+  }
+
+  int getInt(int id) {
+    return fixed.getInt((long) checkId(id) * Integer.BYTES);
+  }
+
+  long getLong(int id) {
+    return fixed.getLong((long) checkId(id) * Long.BYTES);
+  }
+
+  void setBinary(BaseVariableWidthVector vector, int index, int id, int sizeLimit) {
+    checkId(id);
+    int start = offsets[id];
+    int length = offsets[id + 1] - start;
+    if (length > sizeLimit) {
+      throw createFieldSizeLimitException(length, sizeLimit);
+    }
+    vector.setSafe(index, binary, start, length);
+  }
+
+  private int checkId(int id) {
+    if (id < 0 || id >= size) {
+      throw new ParquetDecodingException(
+          String.format("Dictionary id %d out of range, dictionary size is %d", id, size));
+    }
+    return id;
+  }
+
+  @Override
+  public void close() {
+    if (fixed != null) {
+      fixed.close();
+    }
+  }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.ExecutionSetupException;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.store.iceberg.deletes.PositionalDeleteFilter;
+import com.dremio.exec.store.parquet.AbstractParquetReader;
+import com.dremio.exec.store.parquet.BigIntAutoIncrementer;
+import com.dremio.exec.store.parquet.ColumnIndexProvider;
+import com.dremio.exec.store.parquet.InputStreamProvider;
+import com.dremio.exec.store.parquet.MutableParquetMetadata;
+import com.dremio.exec.store.parquet.OffsetIndexProvider;
+import com.dremio.exec.store.parquet.ParquetColumnResolver;
+import com.dremio.exec.store.parquet.ParquetDictionaryConvertor;
+import com.dremio.exec.store.parquet.ParquetFilterCreator;
+import com.dremio.exec.store.parquet.ParquetFilters;
+import com.dremio.exec.store.parquet.ParquetReaderStats;
+import com.dremio.exec.store.parquet.ParquetScanProjectedColumns;
+import com.dremio.exec.store.parquet.SchemaDerivationHelper;
+import com.dremio.exec.util.ColumnUtils;
+import com.dremio.io.file.Path;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.scan.OutputMutator;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.compression.CompressionCodecFactory;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.hadoop.ColumnChunkIncReadStore;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.filter2.columnindex.RowRanges;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
+
+/**
+ * Vectorized reader for flat parquet columns. Pages are decoded straight into the output vectors a
+ * run of values at a time, without going through the parquet-mr record assembly used by {@link
+ * com.dremio.exec.store.parquet2.ParquetRowiseReader}.
+ *
+ * <p>When a delta vector is given the reader is the first delegate of the unified reader and owns
+ * it: positional deletes are applied here and the resulting deltas are consumed by the row-wise
+ * reader reading the remaining columns.
+ *
+ * <p>With pushdown filters and page indexes in the file, only the rows of the pages that may match
+ * the filters are read. The other rows are skipped through the delta vector as well, so that all
+ * columns stay aligned, and their pages are passed over without being decompressed. The filters
+ * themselves are evaluated on top of this reader.
+ */
+public class ColumnarParquetReader extends AbstractParquetReader {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(ColumnarParquetReader.class);
+
+  private final ParquetScanProjectedColumns projectedColumns;
+  private final String path;
+  private final CompressionCodecFactory codecFactory;
+  private final ParquetFilters filters;
+  private final ParquetFilterCreator filterCreator;
+  private final ParquetDictionaryConvertor dictionaryConvertor;
+  private final MutableParquetMetadata footer;
+  private final int rowGroupIndex;
+  private final SchemaDerivationHelper schemaHelper;
+  private final InputStreamProvider inputStreamProvider;
+  private final BigIntAutoIncrementer rowIndexGenerator;
+  private final ParquetReaderStats readerStats = new ParquetReaderStats();
+  private final List<ColumnChunkBatchReader> columnReaders = new ArrayList<>();
+
+  private ColumnChunkIncReadStore pageReadStore;
+  private PositionalDeleteFilter positionalDeleteFilter;
+  // rows selected with the page indexes, null if all rows are read
+  private List<RowRanges.Range> selectedRanges;
+  private int rangeIndex;
+  // next row of the row group the positional delete filter evaluates
+  private long deleteFilterPos;
+  private long recordCount;
+  private long endRowPos;
+  private long totalRead;
+
+  public ColumnarParquetReader(
+      OperatorContext context,
+      ParquetScanProjectedColumns projectedColumns,
+      String path,
+      CompressionCodecFactory codecFactory,
+      ParquetFilters filters,
+      ParquetFilterCreator filterCreator,
+      ParquetDictionaryConvertor dictionaryConvertor,
+      MutableParquetMetadata footer,
+      int rowGroupIndex,
+      SimpleIntVector deltas,
+      SchemaDerivationHelper schemaHelper,
+      InputStreamProvider inputStreamProvider,
+      BatchSchema tableSchema) {
+    super(context, projectedColumns.getBatchSchemaProjectedColumns(), deltas);
+    this.projectedColumns = projectedColumns;
+    this.path = path;
+    this.codecFactory = codecFactory;
+    this.filters = filters;
+    this.filterCreator = filterCreator;
+    this.dictionaryConvertor = dictionaryConvertor;
+    this.footer = footer;
+    this.rowGroupIndex = rowGroupIndex;
+    this.schemaHelper = schemaHelper;
+    this.inputStreamProvider = inputStreamProvider;
+    this.rowIndexGenerator =
+        tableSchema != null
+                && tableSchema.findFieldIgnoreCase(ColumnUtils.ROW_INDEX_COLUMN_NAME).isPresent()
+            ? new BigIntAutoIncrementer(
+                ColumnUtils.ROW_INDEX_COLUMN_NAME, context.getTargetBatchSize(), deltas)
+            : null;
+  }
+
+  @Override
+  public void setup(OutputMutator output) throws ExecutionSetupException {
+    try {
+      final BlockMetaData block = footer.getBlocks().get(rowGroupIndex);
+      Preconditions.checkArgument(
+          block != null,
+          "Parquet file '%s' footer does not have information about row group %s",
+          path,
+          rowGroupIndex);
+
+      if (deltas != null) {
+        deltas.allocateNew(numRowsPerBatch);
+      }
+      if (filters.hasPositionalDeleteFilter()) {
+        positionalDeleteFilter = filters.getPositionalDeleteFilter();
+        positionalDeleteFilter.seek(footer.getAccumulatedRowCount(rowGroupIndex));
+        Preconditions.checkState(deltas != null, "Positional deletes require a delta vector");
+      }
+      endRowPos = footer.getEndRowPos(rowGroupIndex);
+      if (rowIndexGenerator != null) {
+        rowIndexGenerator.setRowIndexBase(footer.getAccumulatedRowCount(rowGroupIndex));
+        rowIndexGenerator.setup(output);
+      }
+
+      if (!inputStreamProvider.isRowGroupFilteredForReading()) {
+        recordCount = 0;
+        return;
+      }
+      recordCount = block.getRowCount();
+
+      final MessageType schema = footer.getFileMetaData().getSchema();
+      final ParquetColumnResolver columnResolver = projectedColumns.getColumnResolver(schema);
+      final Map<ColumnPath, ColumnChunkMetaData> chunks = new HashMap<>();
+      for (ColumnChunkMetaData chunk : block.getColumns()) {
+        chunks.put(chunk.getPath(), chunk);
+      }
+
+      final Map<ColumnChunkMetaData, OffsetIndex> offsetIndexes = new HashMap<>();
+      try (ColumnIndexProvider columnIndexProvider =
+              inputStreamProvider.getColumnIndexProvider(block.getColumns());
+          OffsetIndexProvider offsetIndexProvider =
+              inputStreamProvider.getOffsetIndexProvider(block.getColumns())) {
+        if (offsetIndexProvider != null) {
+          for (ColumnChunkMetaData chunk : block.getColumns()) {
+            offsetIndexes.put(chunk, offsetIndexProvider.getOffsetIndex(chunk));
+          }
+        }
+        selectRows(block, schema, columnResolver, columnIndexProvider, offsetIndexProvider);
+      }
+
+      pageReadStore =
+          new ColumnChunkIncReadStore(
+              recordCount,
+              codecFactory,
+              context.getAllocator(),
+              Path.of(path),
+              inputStreamProvider);
+      for (Type field : getProjectedFields(schema, columnResolver)) {
+        final String[] columnPath = new String[] {field.getName()};
+        final ColumnDescriptor descriptor = schema.getColumnDescription(columnPath);
+        final ColumnChunkMetaData chunk = chunks.get(ColumnPath.get(columnPath));
+        final ValueVector vector =
+            output.getVector(columnResolver.getBatchSchemaColumnName(field.getName()));
+        Preconditions.checkState(
+            chunk != null && vector != null,
+            "Column %s is not present in both the row group and the output",
+            field.getName());
+        pageReadStore.addColumn(descriptor, chunk);
+        columnReaders.add(
+            new ColumnChunkBatchReader(
+                descriptor,
+                pageReadStore.getPageReader(descriptor),
+                offsetIndexes.get(chunk),
+                vector,
+                context.getAllocator(),
+                dictionaryConvertor,
+                schemaHelper.getDateCorruptionStatus(),
+                varValueSizeLimit,
+                readerStats));
+      }
+    } catch (Exception e) {
+      close();
+      throw new ExecutionSetupException(
+          String.format(
+              "Failure setting up columnar parquet reader for file %s, row group %d",
+              path, rowGroupIndex),
+          e);
+    }
+  }
+
+  /**
+   * Uses the page indexes to pick the rows that may match the pushdown filters. Rows are skipped
+   * through the delta vector, so nothing is selected without one.
+   */
+  private void selectRows(
+      BlockMetaData block,
+      MessageType schema,
+      ParquetColumnResolver columnResolver,
+      ColumnIndexProvider columnIndexProvider,
+      OffsetIndexProvider offsetIndexProvider) {
+    // filters that may be rewritten are evaluated on the coerced values, not the file values
+    if (deltas == null || !filters.hasPushdownFilters() || filterCreator.filterMayChange()) {
+      return;
+    }
+    final FilterPredicate predicate =
+        PageIndexFilter.toPredicate(
+            filters.getPushdownFilters(),
+            schema,
+            columnResolver,
+            schemaHelper.getDateCorruptionStatus());
+    if (predicate == null) {
+      return;
+    }
+    final RowRanges rowRanges =
+        PageIndexFilter.calculateRowRanges(
+            predicate, block, columnIndexProvider, offsetIndexProvider);
+    if (rowRanges == null || rowRanges.rowCount() == recordCount) {
+      return;
+    }
+    logger.debug(
+        "Page indexes select {} of {} rows of row group {} in {}",
+        rowRanges.rowCount(),
+        recordCount,
+        rowGroupIndex,
+        path);
+    selectedRanges = rowRanges.getRanges();
+  }
+
+  private List<Type> getProjectedFields(MessageType schema, ParquetColumnResolver columnResolver) {
+    final List<Type> fields = new ArrayList<>();
+    if (isStarQuery()) {
+      for (Type field : schema.getFields()) {
+        if (field.isPrimitive()) {
+          fields.add(field);
+        }
+      }
+      return fields;
+    }
+    for (SchemaPath column : columnResolver.getProjectedParquetColumns()) {
+      final String name = column.getRootSegment().getNameSegment().getPath();
+      for (Type field : schema.getFields()) {
+        if (field.getName().equalsIgnoreCase(name)) {
+          if (!fields.contains(field)) {
+            fields.add(field);
+          }
+          break;
+        }
+      }
+    }
+    return fields;
+  }
+
+  @Override
+  public int next() {
+    int count = 0;
+    try {
+      if (selectedRanges != null) {
+        count = fillSelectedDeltas();
+        readWithDeltas(count);
+      } else if (positionalDeleteFilter != null) {
+        count =
+            recordCount == 0
+                ? 0
+                : positionalDeleteFilter.applyToDeltas(endRowPos, numRowsPerBatch, deltas);
+        readWithDeltas(count);
+      } else {
+        count = (int) Math.min(numRowsPerBatch, recordCount - totalRead);
+        if (deltas != null) {
+          // deltas are shared with the row-wise reader of the remaining columns, which expects
+          // them to be populated for every batch
+          deltas.setZero(0, count);
+          deltas.setValueCount(count);
+        }
+        for (ColumnChunkBatchReader reader : columnReaders) {
+          reader.read(0, count);
+        }
+        totalRead += count;
+      }
+
+      for (ColumnChunkBatchReader reader : columnReaders) {
+        reader.getVector().setValueCount(count);
+      }
+      if (rowIndexGenerator != null) {
+        rowIndexGenerator.populate(count);
+      }
+      return count;
+    } catch (Throwable t) {
+      throw UserException.dataReadError(t)
+          .message("Failed to read data from parquet file")
+          .addContext("File path", path)
+          .addContext("Rowgroup index", rowGroupIndex)
+          .addContext("No. of rows read so far in current rowgroup", totalRead)
+          .addContext("Max no. rows in current rowgroup", recordCount)
+          .build(logger);
+    }
+  }
+
+  /**
+   * Fills the delta vector with the next batch of rows that are both in the selected ranges and not
+   * deleted. Deltas are relative to the current position of the column readers.
+   *
+   * @return number of rows in the batch, 0 once no selected row is left
+   */
+  private int fillSelectedDeltas() {
+    if (recordCount == 0) {
+      return 0;
+    }
+    int count = 0;
+    long readerPos = totalRead;
+    if (positionalDeleteFilter == null) {
+      while (count < numRowsPerBatch && rangeIndex < selectedRanges.size()) {
+        final RowRanges.Range range = selectedRanges.get(rangeIndex);
+        final long row = Math.max(range.from, readerPos);
+        if (row > range.to) {
+          rangeIndex++;
+          continue;
+        }
+        final int n = (int) Math.min(numRowsPerBatch - count, range.to - row + 1);
+        deltas.set(count, Math.toIntExact(row - readerPos));
+        deltas.setZero(count + 1, n - 1);
+        count += n;
+        readerPos = row + n;
+      }
+    } else {
+      // positional deletes pick the surviving rows first, the rows outside the selected ranges are
+      // then dropped from the batch; the deltas are rewritten in place
+      while (count == 0 && rangeIndex < selectedRanges.size()) {
+        final int evaluated =
+            positionalDeleteFilter.applyToDeltas(endRowPos, numRowsPerBatch, deltas);
+        if (evaluated == 0) {
+          break;
+        }
+        for (int i = 0; i < evaluated; i++) {
+          final long row = deleteFilterPos + deltas.get(i);
+          deleteFilterPos = row + 1;
+          if (isSelected(row)) {
+            deltas.set(count++, Math.toIntExact(row - readerPos));
+            readerPos = row + 1;
+          }
+        }
+      }
+    }
+    deltas.setValueCount(count);
+    if (count == 0) {
+      for (ColumnChunkBatchReader reader : columnReaders) {
+        reader.skipRemainingPages();
+      }
+    }
+    return count;
+  }
+
+  private boolean isSelected(long row) {
+    while (rangeIndex < selectedRanges.size() && selectedRanges.get(rangeIndex).to < row) {
+      rangeIndex++;
+    }
+    return rangeIndex < selectedRanges.size() && selectedRanges.get(rangeIndex).from <= row;
+  }
+
+  /**
+   * Reads {@code count} rows, skipping the deleted rows encoded in the delta vector. Runs of
+   * consecutive surviving rows are read with a single call per column.
+   */
+  private void readWithDeltas(int count) throws Exception {
+    int index = 0;
+    while (index < count) {
+      final int skip = deltas.get(index);
+      int end = index + 1;
+      while (end < count && deltas.get(end) == 0) {
+        end++;
+      }
+      for (ColumnChunkBatchReader reader : columnReaders) {
+        if (skip > 0) {
+          reader.skip(skip);
+        }
+        reader.read(index, end - index);
+      }
+      totalRead += skip + end - index;
+      index = end;
+    }
+  }
+
+  @Override
+  public void close() {
+    if (context.getStats() != null) {
+      context.getStats().addLongStat(Metric.NUM_PAGES_READ, readerStats.numPageLoads);
+      context.getStats().addLongStat(Metric.NUM_PAGES_PRUNED, readerStats.numPagesSkipped);
+      context.getStats().addLongStat(Metric.PAGE_BYTES_PRUNED, readerStats.totalSkippedPageBytes);
+      readerStats.numPageLoads = 0;
+      readerStats.numPagesSkipped = 0;
+      readerStats.totalSkippedPageBytes = 0;
+    }
+    final List<AutoCloseable> closeables = new ArrayList<>(columnReaders);
+    closeables.add(pageReadStore == null ? null : pageReadStore::close);
+    closeables.add(deltas);
+    columnReaders.clear();
+    pageReadStore = null;
+    try {
+      AutoCloseables.close(closeables);
+    } catch (Exception e) {
+      logger.warn("Failure while closing columnar parquet reader", e);
+    }
+  }
+}
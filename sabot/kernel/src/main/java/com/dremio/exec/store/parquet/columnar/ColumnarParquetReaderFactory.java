@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.store.RecordReader;
+import com.dremio.exec.store.RuntimeFilter;
+import com.dremio.exec.store.iceberg.deletes.ParquetDeleteFileFilterCreator;
+import com.dremio.exec.store.parquet.InputStreamProvider;
+import com.dremio.exec.store.parquet.ManagedSchema;
+import com.dremio.exec.store.parquet.MutableParquetMetadata;
+import com.dremio.exec.store.parquet.ParquetDictionaryConvertor;
+import com.dremio.exec.store.parquet.ParquetFilterCreator;
+import com.dremio.exec.store.parquet.ParquetFilters;
+import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.ParquetScanProjectedColumns;
+import com.dremio.exec.store.parquet.SchemaDerivationHelper;
+import com.dremio.sabot.exec.context.OperatorContext;
+import java.util.List;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.SimpleIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.parquet.compression.CompressionCodecFactory;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.schema.Type;
+
+/**
+ * {@link ParquetReaderFactory} backed by {@link ColumnarParquetReader}. Flat columns of the common
+ * primitive types are decoded directly into arrow vectors, everything else (nested and repeated
+ * columns, decimals, int96) keeps going through the row-wise reader. Pushdown filters are only used
+ * to skip pages with the page indexes, they are evaluated on the output of the reader.
+ */
+public class ColumnarParquetReaderFactory implements ParquetReaderFactory {
+
+  @Override
+  public boolean isSupported(ColumnChunkMetaData chunk, OperatorContext context) {
+    return context.getOptions().getOption(ExecConstants.PARQUET_COLUMNAR_READER_ENABLED)
+        && ColumnChunkBatchReader.isSupported(chunk);
+  }
+
+  @Override
+  public boolean isSupportedTarget(Type parquetField, ValueVector vector) {
+    return ColumnChunkBatchReader.isSupportedTarget(parquetField, vector);
+  }
+
+  @Override
+  public boolean supportsPushdownFilters() {
+    return false;
+  }
+
+  @Override
+  public RecordReader newReader(
+      OperatorContext context,
+      ParquetScanProjectedColumns projectedColumns,
+      String path,
+      CompressionCodecFactory codecFactory,
+      ParquetFilters filters,
+      ParquetFilterCreator filterCreator,
+      ParquetDictionaryConvertor dictionaryConvertor,
+      boolean enableDetailedTracing,
+      MutableParquetMetadata footer,
+      int rowGroupIndex,
+      SimpleIntVector deltas,
+      SchemaDerivationHelper schemaHelper,
+      InputStreamProvider inputStreamProvider,
+      List<RuntimeFilter> runtimeFilters,
+      ArrowBuf validityBuf,
+      BatchSchema tableSchema,
+      boolean ignoreSchemaLearning) {
+    return new ColumnarParquetReader(
+        context,
+        projectedColumns,
+        path,
+        codecFactory,
+        filters,
+        filterCreator,
+        dictionaryConvertor,
+        footer,
+        rowGroupIndex,
+        deltas,
+        schemaHelper,
+        inputStreamProvider,
+        tableSchema);
+  }
+
+  @Override
+  public ParquetFilterCreator newFilterCreator(
+      OperatorContext operatorContext,
+      ManagedSchemaType type,
+      ManagedSchema schema,
+      BufferAllocator allocator) {
+    return ParquetFilterCreator.DEFAULT;
+  }
+
+  @Override
+  public ParquetDeleteFileFilterCreator newDeleteFileFilterCreator() {
+    return ParquetDeleteFileFilterCreator.DEFAULT;
+  }
+
+  @Override
+  public ParquetDictionaryConvertor newDictionaryConvertor(
+      ManagedSchemaType type, ManagedSchema schema) {
+    return ParquetDictionaryConvertor.DEFAULT;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.nio.ByteBuffer;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.parquet.io.ParquetDecodingException;
+
+/**
+ * Decoder for RLE_DICTIONARY/PLAIN_DICTIONARY encoded pages. Dictionary ids are decoded in bulk
+ * and looked up in the column chunk's {@link ColumnDictionary}.
+ */
+final class DictionaryValuesDecoder extends ValuesDecoder {
+
+  private static final int ID_BATCH_SIZE = 1024;
+
+  private final ColumnDictionary dictionary;
+  private final RleBitPackedDecoder ids;
+  private int[] idBuffer;
+
+  DictionaryValuesDecoder(ByteBuffer in, int start, int end, ColumnDictionary dictionary) {
+    super(dictionary.getWidth());
+    this.dictionary = dictionary;
+    // the first byte holds the bit width of the ids, the RLE/bit-packed ids follow. An empty
+    // page of all nulls may have no data at all.
+    int bitWidth = start < end ? in.get(start) & 0xFF : 0;
+    this.ids = new RleBitPackedDecoder(in, start + 1, end, bitWidth);
+  }
+
+  @Override
+  int readInt() {
+    return dictionary.getInt(ids.readInt());
+  }
+
+  @Override
+  long readLong() {
+    return dictionary.getLong(ids.readInt());
+  }
+
+  @Override
+  boolean readBoolean() {
+    // the parquet format has no dictionary encoding for booleans, such chunks are not supported
+    throw new ParquetDecodingException("Dictionary encoded boolean values are not supported");
+  }
+
+  @Override
+  void readBinary(BaseVariableWidthVector vector, int index, int sizeLimit) {
+    dictionary.setBinary(vector, index, ids.readInt(), sizeLimit);
+  }
+
+  @Override
+  void readFixed(ArrowBuf dst, long dstIndex, int count) {
+    if (idBuffer == null) {
+      idBuffer = new int[ID_BATCH_SIZE];
+    }
+    while (count > 0) {
+      int n = Math.min(count, ID_BATCH_SIZE);
+      ids.readInts(idBuffer, 0, n);
+      if (width == Integer.BYTES) {
+        for (int i = 0; i < n; i++) {
+          dst.setInt(dstIndex + (long) i * Integer.BYTES, dictionary.getInt(idBuffer[i]));
+        }
+      } else {
+        for (int i = 0; i < n; i++) {
+          dst.setLong(dstIndex + (long) i * Long.BYTES, dictionary.getLong(idBuffer[i]));
+        }
+      }
+      dstIndex += (long) n * width;
+      count -= n;
+    }
+  }
+
+  @Override
+  void skip(int count) {
+    ids.skip(count);
+  }
+}
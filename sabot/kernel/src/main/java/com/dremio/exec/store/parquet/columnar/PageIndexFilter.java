@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import com.dremio.common.expression.BooleanOperator;
+import com.dremio.common.expression.FunctionCall;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions.BooleanExpression;
+import com.dremio.common.expression.ValueExpressions.DateExpression;
+import com.dremio.common.expression.ValueExpressions.DoubleExpression;
+import com.dremio.common.expression.ValueExpressions.FloatExpression;
+import com.dremio.common.expression.ValueExpressions.IntExpression;
+import com.dremio.common.expression.ValueExpressions.LongExpression;
+import com.dremio.common.expression.ValueExpressions.QuotedString;
+import com.dremio.common.expression.ValueExpressions.TimeStampExpression;
+import com.dremio.exec.store.parquet.ColumnIndexProvider;
+import com.dremio.exec.store.parquet.OffsetIndexProvider;
+import com.dremio.exec.store.parquet.ParquetColumnResolver;
+import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetReaderUtility.DateCorruptionStatus;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexFilter;
+import org.apache.parquet.internal.filter2.columnindex.ColumnIndexStore;
+import org.apache.parquet.internal.filter2.columnindex.RowRanges;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.joda.time.DateTimeConstants;
+
+/**
+ * Narrows down the rows of a row group that can match the pushdown filters of a scan, using the
+ * page min/max values and null counts of the parquet column indexes.
+ *
+ * <p>Conditions that can't be translated into a parquet {@link FilterPredicate} are treated as
+ * matching every row, so the selected rows are a superset of the matching rows and the filters
+ * still have to be evaluated on the rows that are read.
+ */
+final class PageIndexFilter {
+
+  private static final Map<String, String> MIRRORED_COMPARISONS =
+      ImmutableMap.<String, String>builder()
+          .put("equal", "equal")
+          .put("not_equal", "not_equal")
+          .put("less_than", "greater_than")
+          .put("less_than_or_equal_to", "greater_than_or_equal_to")
+          .put("greater_than", "less_than")
+          .put("greater_than_or_equal_to", "less_than_or_equal_to")
+          .build();
+
+  private final MessageType schema;
+  private final ParquetColumnResolver columnResolver;
+  private final DateCorruptionStatus dateCorruptionStatus;
+
+  private PageIndexFilter(
+      MessageType schema,
+      ParquetColumnResolver columnResolver,
+      DateCorruptionStatus dateCorruptionStatus) {
+    this.schema = schema;
+    this.columnResolver = columnResolver;
+    this.dateCorruptionStatus = dateCorruptionStatus;
+  }
+
+  /**
+   * Builds the parquet predicate for the given filter conditions, which are joined by AND.
+   *
+   * @return the predicate, or null if none of the conditions can be evaluated on page indexes
+   */
+  static FilterPredicate toPredicate(
+      List<ParquetFilterCondition> conditions,
+      MessageType schema,
+      ParquetColumnResolver columnResolver,
+      DateCorruptionStatus dateCorruptionStatus) {
+    final PageIndexFilter filter =
+        new PageIndexFilter(schema, columnResolver, dateCorruptionStatus);
+    FilterPredicate predicate = null;
+    for (ParquetFilterCondition condition : conditions) {
+      if (condition.getExpr() == null) {
+        continue;
+      }
+      final FilterPredicate converted = filter.convert(condition.getExpr());
+      if (converted != null) {
+        predicate = predicate == null ? converted : FilterApi.and(predicate, converted);
+      }
+    }
+    return predicate;
+  }
+
+  /**
+   * Computes the row ranges of the row group that may match the predicate.
+   *
+   * @return the row ranges, or null if the page indexes of the row group are not available
+   */
+  static RowRanges calculateRowRanges(
+      FilterPredicate predicate,
+      BlockMetaData block,
+      ColumnIndexProvider columnIndexProvider,
+      OffsetIndexProvider offsetIndexProvider) {
+    if (columnIndexProvider == null || offsetIndexProvider == null) {
+      return null;
+    }
+    final Map<ColumnPath, ColumnChunkMetaData> chunks = new HashMap<>();
+    for (ColumnChunkMetaData chunk : block.getColumns()) {
+      chunks.put(chunk.getPath(), chunk);
+    }
+    final ColumnIndexStore store =
+        new ColumnIndexStore() {
+          @Override
+          public ColumnIndex getColumnIndex(ColumnPath column) {
+            final ColumnChunkMetaData chunk = chunks.get(column);
+            return chunk == null ? null : columnIndexProvider.getColumnIndex(chunk);
+          }
+
+          @Override
+          public OffsetIndex getOffsetIndex(ColumnPath column) {
+            final ColumnChunkMetaData chunk = chunks.get(column);
+            final OffsetIndex offsetIndex =
+                chunk == null ? null : offsetIndexProvider.getOffsetIndex(chunk);
+            if (offsetIndex == null) {
+              throw new MissingOffsetIndexException(column);
+            }
+            return offsetIndex;
+          }
+        };
+    return ColumnIndexFilter.calculateRowRanges(
+        FilterCompat.get(predicate), store, chunks.keySet(), block.getRowCount());
+  }
+
+  private FilterPredicate convert(LogicalExpression expr) {
+    if (expr instanceof BooleanOperator) {
+      final BooleanOperator operator = (BooleanOperator) expr;
+      if (operator.isAnd()) {
+        // an AND stays a superset of its matches when some of its arguments are dropped
+        FilterPredicate predicate = null;
+        for (LogicalExpression arg : operator.args) {
+          final FilterPredicate converted = convert(arg);
+          if (converted != null) {
+            predicate = predicate == null ? converted : FilterApi.and(predicate, converted);
+          }
+        }
+        return predicate;
+      }
+      if (operator.isOr()) {
+        FilterPredicate predicate = null;
+        for (LogicalExpression arg : operator.args) {
+          final FilterPredicate converted = convert(arg);
+          if (converted == null) {
+            return null;
+          }
+          predicate = predicate == null ? converted : FilterApi.or(predicate, converted);
+        }
+        return predicate;
+      }
+      return null;
+    }
+    if (!(expr instanceof FunctionCall)) {
+      return null;
+    }
+
+    final FunctionCall call = (FunctionCall) expr;
+    final List<LogicalExpression> args = call.args;
+    switch (call.getName()) {
+      case "isnull":
+      case "isnotnull":
+        if (args.size() == 1 && args.get(0) instanceof SchemaPath) {
+          final PrimitiveType column = findColumn((SchemaPath) args.get(0));
+          return column == null ? null : nullCheck(column, call.getName().equals("isnull"));
+        }
+        return null;
+      default:
+        if (args.size() != 2 || !MIRRORED_COMPARISONS.containsKey(call.getName())) {
+          return null;
+        }
+        if (args.get(0) instanceof SchemaPath) {
+          return comparison(call.getName(), (SchemaPath) args.get(0), args.get(1));
+        }
+        if (args.get(1) instanceof SchemaPath) {
+          return comparison(
+              MIRRORED_COMPARISONS.get(call.getName()), (SchemaPath) args.get(1), args.get(0));
+        }
+        return null;
+    }
+  }
+
+  /** Resolves a top level, non-repeated primitive column of the file. */
+  private PrimitiveType findColumn(SchemaPath path) {
+    if (!path.isSimplePath()) {
+      return null;
+    }
+    final String name = columnResolver.getParquetColumnName(path.getRootSegment().getPath());
+    if (name == null || name.contains(".")) {
+      return null;
+    }
+    for (Type field : schema.getFields()) {
+      if (field.getName().equalsIgnoreCase(name)) {
+        return field.isPrimitive() && field.getRepetition() != Type.Repetition.REPEATED
+            ? field.asPrimitiveType()
+            : null;
+      }
+    }
+    return null;
+  }
+
+  private FilterPredicate nullCheck(PrimitiveType column, boolean isNull) {
+    final String name = column.getName();
+    switch (column.getPrimitiveTypeName()) {
+      case INT32:
+        return nullCheck(FilterApi.intColumn(name), isNull);
+      case INT64:
+        return nullCheck(FilterApi.longColumn(name), isNull);
+      case FLOAT:
+        return nullCheck(FilterApi.floatColumn(name), isNull);
+      case DOUBLE:
+        return nullCheck(FilterApi.doubleColumn(name), isNull);
+      case BOOLEAN:
+        return nullCheck(FilterApi.booleanColumn(name), isNull);
+      case BINARY:
+      case FIXED_LEN_BYTE_ARRAY:
+        return nullCheck(FilterApi.binaryColumn(name), isNull);
+      default:
+        return null;
+    }
+  }
+
+  private static <
+          T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsEqNotEq>
+      FilterPredicate nullCheck(C column, boolean isNull) {
+    return isNull ? FilterApi.eq(column, null) : FilterApi.notEq(column, null);
+  }
+
+  private FilterPredicate comparison(String function, SchemaPath path, LogicalExpression literal) {
+    final PrimitiveType column = findColumn(path);
+    if (column == null) {
+      return null;
+    }
+    final String name = column.getName();
+    final OriginalType originalType = column.getOriginalType();
+    switch (column.getPrimitiveTypeName()) {
+      case INT32:
+        {
+          final Integer value;
+          if (originalType == null
+              || originalType == OriginalType.INT_8
+              || originalType == OriginalType.INT_16
+              || originalType == OriginalType.INT_32) {
+            value = toInt(literal);
+          } else if (originalType == OriginalType.DATE) {
+            value = toDays(literal);
+          } else {
+            value = null;
+          }
+          return value == null ? null : compare(function, FilterApi.intColumn(name), value);
+        }
+      case INT64:
+        {
+          final Long value;
+          if (originalType == null || originalType == OriginalType.INT_64) {
+            value = toLong(literal);
+          } else if (originalType == OriginalType.TIMESTAMP_MILLIS
+              && literal instanceof TimeStampExpression) {
+            value = ((TimeStampExpression) literal).getTimeStamp();
+          } else {
+            value = null;
+          }
+          return value == null ? null : compare(function, FilterApi.longColumn(name), value);
+        }
+      case FLOAT:
+        {
+          final Float value = toFloat(literal);
+          return value == null ? null : compare(function, FilterApi.floatColumn(name), value);
+        }
+      case DOUBLE:
+        {
+          final Double value = toDouble(literal);
+          return value == null ? null : compare(function, FilterApi.doubleColumn(name), value);
+        }
+      case BOOLEAN:
+        if (!(literal instanceof BooleanExpression)) {
+          return null;
+        }
+        final Boolean value = ((BooleanExpression) literal).getBoolean();
+        switch (function) {
+          case "equal":
+            return FilterApi.eq(FilterApi.booleanColumn(name), value);
+          case "not_equal":
+            return FilterApi.notEq(FilterApi.booleanColumn(name), value);
+          default:
+            return null;
+        }
+      case BINARY:
+        if ((originalType == null || originalType == OriginalType.UTF8)
+            && literal instanceof QuotedString) {
+          return compare(
+              function,
+              FilterApi.binaryColumn(name),
+              Binary.fromString(((QuotedString) literal).getString()));
+        }
+        return null;
+      default:
+        return null;
+    }
+  }
+
+  private static <
+          T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+      FilterPredicate compare(String function, C column, T value) {
+    switch (function) {
+      case "equal":
+        return FilterApi.eq(column, value);
+      case "not_equal":
+        return FilterApi.notEq(column, value);
+      case "less_than":
+        return FilterApi.lt(column, value);
+      case "less_than_or_equal_to":
+        return FilterApi.ltEq(column, value);
+      case "greater_than":
+        return FilterApi.gt(column, value);
+      case "greater_than_or_equal_to":
+        return FilterApi.gtEq(column, value);
+      default:
+        throw new IllegalArgumentException("Unexpected comparison " + function);
+    }
+  }
+
+  private static Integer toInt(LogicalExpression literal) {
+    if (literal instanceof IntExpression) {
+      return ((IntExpression) literal).getInt();
+    }
+    if (literal instanceof LongExpression) {
+      final long value = ((LongExpression) literal).getLong();
+      return value == (int) value ? (int) value : null;
+    }
+    return null;
+  }
+
+  private Integer toDays(LogicalExpression literal) {
+    // corrupt dates are only fixed up after decoding, the page indexes hold the shifted values
+    if (dateCorruptionStatus != DateCorruptionStatus.META_SHOWS_NO_CORRUPTION
+        || !(literal instanceof DateExpression)) {
+      return null;
+    }
+    final long millis = ((DateExpression) literal).getDate();
+    if (millis % DateTimeConstants.MILLIS_PER_DAY != 0) {
+      return null;
+    }
+    final long days = millis / DateTimeConstants.MILLIS_PER_DAY;
+    return days == (int) days ? (int) days : null;
+  }
+
+  private static Long toLong(LogicalExpression literal) {
+    if (literal instanceof IntExpression) {
+      return (long) ((IntExpression) literal).getInt();
+    }
+    if (literal instanceof LongExpression) {
+      return ((LongExpression) literal).getLong();
+    }
+    return null;
+  }
+
+  // Zeros are left out: -0.0 and 0.0 are equal for the filter but ordered in the page indexes.
+  private static Float toFloat(LogicalExpression literal) {
+    final float value;
+    if (literal instanceof FloatExpression) {
+      value = ((FloatExpression) literal).getFloat();
+    } else if (literal instanceof IntExpression
+        && ((IntExpression) literal).getInt() == (int) (float) ((IntExpression) literal).getInt()) {
+      value = ((IntExpression) literal).getInt();
+    } else {
+      return null;
+    }
+    return Float.isNaN(value) || value == 0 ? null : value;
+  }
+
+  private static Double toDouble(LogicalExpression literal) {
+    final double value;
+    if (literal instanceof DoubleExpression) {
+      value = ((DoubleExpression) literal).getDouble();
+    } else if (literal instanceof FloatExpression) {
+      value = ((FloatExpression) literal).getFloat();
+    } else if (literal instanceof IntExpression) {
+      value = ((IntExpression) literal).getInt();
+    } else if (literal instanceof LongExpression
+        && ((LongExpression) literal).getLong()
+            == (long) (double) ((LongExpression) literal).getLong()) {
+      value = ((LongExpression) literal).getLong();
+    } else {
+      return null;
+    }
+    return Double.isNaN(value) || value == 0 ? null : value;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.parquet.bytes.ByteBufferInputStream;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ValuesType;
+import org.apache.parquet.column.values.ValuesReader;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+/**
+ * Decoder for the less common encodings (DELTA_BINARY_PACKED, DELTA_LENGTH_BYTE_ARRAY,
+ * DELTA_BYTE_ARRAY, BYTE_STREAM_SPLIT, RLE booleans). Delegates to the parquet-mr values readers
+ * but still writes directly into the target vectors.
+ */
+final class ParquetMrValuesDecoder extends ValuesDecoder {
+
+  private final PrimitiveTypeName type;
+  private final ValuesReader reader;
+
+  ParquetMrValuesDecoder(
+      ColumnDescriptor descriptor, Encoding encoding, ByteBuffer in, int start, int valueCount)
+      throws IOException {
+    super(PlainValuesDecoder.physicalWidth(descriptor.getPrimitiveType().getPrimitiveTypeName()));
+    this.type = descriptor.getPrimitiveType().getPrimitiveTypeName();
+    ByteBuffer data = in.duplicate();
+    data.position(start);
+    this.reader = encoding.getValuesReader(descriptor, ValuesType.VALUES);
+    this.reader.initFromPage(valueCount, ByteBufferInputStream.wrap(data.slice()));
+  }
+
+  @Override
+  int readInt() {
+    return type == PrimitiveTypeName.FLOAT
+        ? Float.floatToRawIntBits(reader.readFloat())
+        : reader.readInteger();
+  }
+
+  @Override
+  long readLong() {
+    return type == PrimitiveTypeName.DOUBLE
+        ? Double.doubleToRawLongBits(reader.readDouble())
+        : reader.readLong();
+  }
+
+  @Override
+  boolean readBoolean() {
+    return reader.readBoolean();
+  }
+
+  @Override
+  void readBinary(BaseVariableWidthVector vector, int index, int sizeLimit) {
+    Binary value = reader.readBytes();
+    ByteBuffer buffer = value.toByteBuffer();
+    setBinary(vector, index, buffer, buffer.position(), buffer.remaining(), sizeLimit);
+  }
+
+  @Override
+  void skip(int count) {
+    reader.skip(count);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.parquet.schema.PrimitiveType;
+
+/**
+ * Decoder for PLAIN encoded pages. Fixed width values are copied to the target buffer in one
+ * memory copy per run.
+ */
+final class PlainValuesDecoder extends ValuesDecoder {
+
+  private final ByteBuffer in;
+  private final PrimitiveType.PrimitiveTypeName type;
+  private final int fixedLength;
+
+  private int pos;
+  private int bitIndex;
+
+  PlainValuesDecoder(ByteBuffer in, int start, PrimitiveType primitiveType) {
+    super(physicalWidth(primitiveType.getPrimitiveTypeName()));
+    this.in = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    this.pos = start;
+    this.type = primitiveType.getPrimitiveTypeName();
+    this.fixedLength = primitiveType.getTypeLength();
+  }
+
+  static int physicalWidth(PrimitiveType.PrimitiveTypeName type) {
+    switch (type) {
+      case INT32:
+      case FLOAT:
+        return Integer.BYTES;
+      case INT64:
+      case DOUBLE:
+        return Long.BYTES;
+      default:
+        return -1;
+    }
+  }
+
+  @Override
+  int readInt() {
+    int value = in.getInt(pos);
+    pos += Integer.BYTES;
+    return value;
+  }
+
+  @Override
+  long readLong() {
+    long value = in.getLong(pos);
+    pos += Long.BYTES;
+    return value;
+  }
+
+  @Override
+  boolean readBoolean() {
+    boolean value = ((in.get(pos + (bitIndex >>> 3)) >>> (bitIndex & 7)) & 1) != 0;
+    bitIndex++;
+    return value;
+  }
+
+  @Override
+  void readBinary(BaseVariableWidthVector vector, int index, int sizeLimit) {
+    int length;
+    if (type == PrimitiveType.PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY) {
+      length = fixedLength;
+    } else {
+      length = in.getInt(pos);
+      pos += Integer.BYTES;
+    }
+    setBinary(vector, index, in, pos, length, sizeLimit);
+    pos += length;
+  }
+
+  @Override
+  void readFixed(ArrowBuf dst, long dstIndex, int count) {
+    int length = count * width;
+    dst.setBytes(dstIndex, in, pos, length);
+    pos += length;
+  }
+
+  @Override
+  void skip(int count) {
+    switch (type) {
+      case BOOLEAN:
+        bitIndex += count;
+        break;
+      case FIXED_LEN_BYTE_ARRAY:
+        pos += count * fixedLength;
+        break;
+      case BINARY:
+        for (int i = 0; i < count; i++) {
+          pos += Integer.BYTES + in.getInt(pos);
+        }
+        break;
+      default:
+        pos += count * width;
+    }
+  }
+}
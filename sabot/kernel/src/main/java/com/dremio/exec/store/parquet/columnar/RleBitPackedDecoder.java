@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.apache.parquet.io.ParquetDecodingException;
+
+/**
+ * Decoder for the parquet RLE/bit-packing hybrid encoding, used for definition levels and
+ * dictionary ids. Values are decoded in bulk so that callers can work on runs rather than single
+ * values.
+ */
+final class RleBitPackedDecoder {
+
+  private static final int PACKED_GROUP_SIZE = 8;
+
+  private final ByteBuffer in;
+  private final int end;
+  private final int bitWidth;
+  private final int bytesWidth;
+  private final long mask;
+  private final int[] packed = new int[PACKED_GROUP_SIZE];
+
+  private int pos;
+  private boolean rle;
+  private int runRemaining;
+  private int rleValue;
+  private int packedIndex = PACKED_GROUP_SIZE;
+
+  /**
+   * @param in buffer holding the encoded data, accessed with absolute indexes only
+   * @param start offset of the first run header
+   * @param end offset after the last encoded byte
+   * @param bitWidth width in bits of each value, between 0 and 32
+   */
+  RleBitPackedDecoder(ByteBuffer in, int start, int end, int bitWidth) {
+    if (bitWidth < 0 || bitWidth > 32) {
+      throw new ParquetDecodingException("Invalid bit width " + bitWidth);
+    }
+    this.in = in;
+    this.pos = start;
+    this.end = end;
+    this.bitWidth = bitWidth;
+    this.bytesWidth = (bitWidth + 7) / 8;
+    this.mask = bitWidth == 32 ? 0xFFFFFFFFL : (1L << bitWidth) - 1;
+  }
+
+  int readInt() {
+    if (runRemaining == 0) {
+      readNextRun();
+    }
+    runRemaining--;
+    if (rle) {
+      return rleValue;
+    }
+    if (packedIndex == PACKED_GROUP_SIZE) {
+      unpackGroup();
+    }
+    return packed[packedIndex++];
+  }
+
+  /** Decodes the next {@code count} values into {@code dst} starting at {@code offset}. */
+  void readInts(int[] dst, int offset, int count) {
+    while (count > 0) {
+      if (runRemaining == 0) {
+        readNextRun();
+      }
+      int n = Math.min(count, runRemaining);
+      if (rle) {
+        Arrays.fill(dst, offset, offset + n, rleValue);
+      } else {
+        for (int i = 0; i < n; i++) {
+          if (packedIndex == PACKED_GROUP_SIZE) {
+            unpackGroup();
+          }
+          dst[offset + i] = packed[packedIndex++];
+        }
+      }
+      runRemaining -= n;
+      offset += n;
+      count -= n;
+    }
+  }
+
+  void skip(int count) {
+    while (count > 0) {
+      if (runRemaining == 0) {
+        readNextRun();
+      }
+      int n = Math.min(count, runRemaining);
+      if (!rle) {
+        int left = n;
+        // drain the current group, then jump over whole groups without unpacking them
+        while (left > 0 && packedIndex < PACKED_GROUP_SIZE) {
+          packedIndex++;
+          left--;
+        }
+        int groups = left / PACKED_GROUP_SIZE;
+        pos += groups * bitWidth;
+        left -= groups * PACKED_GROUP_SIZE;
+        if (left > 0) {
+          unpackGroup();
+          packedIndex = left;
+        }
+      }
+      runRemaining -= n;
+      count -= n;
+    }
+  }
+
+  private void readNextRun() {
+    if (pos >= end) {
+      throw new ParquetDecodingException("Unexpected end of RLE/bit-packed encoded data");
+    }
+    int header = readUnsignedVarInt();
+    rle = (header & 1) == 0;
+    if (rle) {
+      runRemaining = header >>> 1;
+      int value = 0;
+      for (int i = 0; i < bytesWidth; i++) {
+        value |= (in.get(pos++) & 0xFF) << (i * 8);
+      }
+      rleValue = value;
+    } else {
+      runRemaining = (header >>> 1) * PACKED_GROUP_SIZE;
+      packedIndex = PACKED_GROUP_SIZE;
+    }
+  }
+
+  /**
+   * Unpacks the next group of eight values. A group always takes exactly {@code bitWidth} bytes;
+   * writers may truncate the last group, in which case the missing bytes read as zero.
+   */
+  private void unpackGroup() {
+    long buffer = 0;
+    int bits = 0;
+    for (int i = 0; i < PACKED_GROUP_SIZE; i++) {
+      while (bits < bitWidth) {
+        long b = pos < end ? in.get(pos) & 0xFF : 0;
+        pos++;
+        buffer |= b << bits;
+        bits += 8;
+      }
+      packed[i] = (int) (buffer & mask);
+      buffer >>>= bitWidth;
+      bits -= bitWidth;
+    }
+    packedIndex = 0;
+  }
+
+  private int readUnsignedVarInt() {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      if (pos >= end) {
+        throw new ParquetDecodingException("Unexpected end of RLE/bit-packed run header");
+      }
+      b = in.get(pos++) & 0xFF;
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import static com.dremio.common.exceptions.FieldSizeLimitExceptionHelper.createFieldSizeLimitException;
+
+import java.nio.ByteBuffer;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+
+/**
+ * Decodes the values section of a single data page. Only non-null values are stored in a page, so
+ * callers are expected to consult the definition levels before pulling values. Every decoder has to
+ * handle all physical types, {@link ColumnChunkBatchReader#isSupported} keeps the encoding/type
+ * combinations a decoder cannot produce on the row-wise reader.
+ */
+abstract class ValuesDecoder {
+
+  /** Physical width in bytes of fixed width values, or -1 for variable width values. */
+  protected final int width;
+
+  ValuesDecoder(int width) {
+    this.width = width;
+  }
+
+  /** Reads the next INT32 or FLOAT value, floats are returned as their raw bits. */
+  abstract int readInt();
+
+  /** Reads the next INT64 or DOUBLE value, doubles are returned as their raw bits. */
+  abstract long readLong();
+
+  abstract boolean readBoolean();
+
+  /** Writes the next value into {@code vector} at {@code index}. */
+  abstract void readBinary(BaseVariableWidthVector vector, int index, int sizeLimit);
+
+  /**
+   * Copies the raw little endian bytes of the next {@code count} fixed width values to {@code dst}
+   * starting at {@code dstIndex}. Float and double values are copied bit for bit.
+   */
+  void readFixed(ArrowBuf dst, long dstIndex, int count) {
+    if (width == Integer.BYTES) {
+      for (int i = 0; i < count; i++) {
+        dst.setInt(dstIndex + (long) i * Integer.BYTES, readInt());
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        dst.setLong(dstIndex + (long) i * Long.BYTES, readLong());
+      }
+    }
+  }
+
+  abstract void skip(int count);
+
+  protected static void setBinary(
+      BaseVariableWidthVector vector,
+      int index,
+      ByteBuffer value,
+      int start,
+      int length,
+      int sizeLimit) {
+    if (length > sizeLimit) {
+      throw createFieldSizeLimitException(length, sizeLimit);
+    }
+    vector.setSafe(index, value, start, length);
+  }
+}
@@ -73,6 +73,7 @@ import com.dremio.service.Service;
 import com.dremio.service.commandpool.CommandPool;
 import com.dremio.service.jobresults.JobResultsRequest;
 import com.dremio.service.jobtelemetry.JobTelemetryClient;
+import com.dremio.service.namespace.catalogstatusevents.events.VersionedTableUpdateCatalogStatusEvent;
 import com.dremio.services.fabric.api.FabricRunnerFactory;
 import com.dremio.services.fabric.api.FabricService;
 import com.dremio.services.jobresults.common.JobResultsRequestWrapper;
@@ -265,6 +266,10 @@ public class ForemenWorkManager implements Service, SafeExit {
 
     planCache =
         new PlanCache(cachedPlans, Multimaps.synchronizedListMultimap(ArrayListMultimap.create()));
+    dbContext
+        .get()
+        .getCatalogService()
+        .subscribe(VersionedTableUpdateCatalogStatusEvent.getEventTopic(), planCache);
 
     partitionStatsCache =
         new PartitionStatsCache(
@@ -376,6 +376,7 @@ public class FragmentWorkManager implements Service, SafeExit {
             jobResultsClientFactoryProvider,
             identity,
             bitContext.getExpressionSplitCache(),
+            bitContext.getRowLevelDeleteCaches(),
             heapLowMemController);
 
     executorService = new ExecutorServiceImpl(fragmentExecutors, bitContext, builder);
@@ -30,6 +30,7 @@ import com.dremio.exec.proto.UserBitShared;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.server.NodeDebugContextProvider;
+import com.dremio.exec.store.iceberg.deletes.RowLevelDeleteCaches;
 import com.dremio.exec.testing.ExecutionControls;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.heap.HeapLowMemController;
@@ -218,6 +219,11 @@ public class DelegatingOperatorContext extends OperatorContext {
     return delegate.getExpressionSplitCache();
   }
 
+  @Override
+  public RowLevelDeleteCaches getRowLevelDeleteCaches() {
+    return delegate.getRowLevelDeleteCaches();
+  }
+
   @Override
   public Provider<CoordinationProtos.NodeEndpoint> getNodeEndpointProvider() {
     return delegate.getNodeEndpointProvider();
@@ -32,6 +32,7 @@ import com.dremio.exec.proto.UserBitShared.QueryId;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.server.NodeDebugContextProvider;
+import com.dremio.exec.store.iceberg.deletes.RowLevelDeleteCaches;
 import com.dremio.exec.testing.ExecutionControls;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.heap.HeapLowMemController;
@@ -133,6 +134,9 @@ public abstract class OperatorContext {
 
   public abstract ExpressionSplitCache getExpressionSplitCache();
 
+  /** Returns the node's row level delete caches, or null if the context has no node services. */
+  public abstract RowLevelDeleteCaches getRowLevelDeleteCaches();
+
   public static int getChildCount(PhysicalOperator popConfig) {
     Iterator<PhysicalOperator> iter = popConfig.iterator();
     int i = 0;
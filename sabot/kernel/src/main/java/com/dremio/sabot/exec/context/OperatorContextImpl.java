@@ -37,6 +37,7 @@ import com.dremio.exec.proto.UserBitShared.QueryId;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.server.NodeDebugContextProvider;
+import com.dremio.exec.store.iceberg.deletes.RowLevelDeleteCaches;
 import com.dremio.exec.testing.ExecutionControls;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.exec.fragment.FragmentExecutorBuilder;
@@ -281,6 +282,14 @@ public class OperatorContextImpl extends OperatorContext implements AutoCloseabl
     return fragmentExecutorBuilder.getPlanReader().getLpPersistance();
   }
 
+  @Override
+  public RowLevelDeleteCaches getRowLevelDeleteCaches() {
+    if (fragmentExecutorBuilder == null) {
+      return null;
+    }
+    return fragmentExecutorBuilder.getRowLevelDeleteCaches();
+  }
+
   @Override
   public CoordinationProtos.NodeEndpoint getNodeEndPoint() {
     Preconditions.checkNotNull(
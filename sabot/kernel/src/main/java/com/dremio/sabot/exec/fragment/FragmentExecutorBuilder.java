@@ -38,6 +38,7 @@ import com.dremio.exec.proto.ExecProtos.FragmentHandle;
 import com.dremio.exec.server.NodeDebugContextProvider;
 import com.dremio.exec.server.options.FragmentOptionManager;
 import com.dremio.exec.store.CatalogService;
+import com.dremio.exec.store.iceberg.deletes.RowLevelDeleteCaches;
 import com.dremio.exec.testing.ControlsInjector;
 import com.dremio.exec.testing.ControlsInjectorFactory;
 import com.dremio.exec.testing.ExecutionControls;
@@ -112,6 +113,7 @@ public class FragmentExecutorBuilder {
   private final FunctionImplementationRegistry decimalFuncRegistry;
   private final CodeCompiler compiler;
   private final ExpressionSplitCache expressionSplitCache;
+  private final RowLevelDeleteCaches rowLevelDeleteCaches;
   private final PhysicalPlanReader planReader;
   private final Set<ClusterCoordinator.Role> roles;
   private final CatalogService sources;
@@ -147,6 +149,7 @@ public class FragmentExecutorBuilder {
       Provider<JobResultsClientFactory> jobResultsClientFactoryProvider,
       Provider<CoordinationProtos.NodeEndpoint> nodeEndpointProvider,
       ExpressionSplitCache expressionSplitCache,
+      RowLevelDeleteCaches rowLevelDeleteCaches,
       HeapLowMemController heapLowMemController) {
     this.clerk = clerk;
     this.fragmentExecutors = fragmentExecutors;
@@ -159,6 +162,7 @@ public class FragmentExecutorBuilder {
     this.optionManager = optionManager;
     this.dataCreator = dataCreator;
     this.expressionSplitCache = expressionSplitCache;
+    this.rowLevelDeleteCaches = rowLevelDeleteCaches;
     this.namespace = namespace;
     this.planReader = planReader;
     this.opCreator = operatorCreatorRegistry;
@@ -187,6 +191,10 @@ public class FragmentExecutorBuilder {
     return planReader;
   }
 
+  public RowLevelDeleteCaches getRowLevelDeleteCaches() {
+    return rowLevelDeleteCaches;
+  }
+
   public QueriesClerk getClerk() {
     return clerk;
   }
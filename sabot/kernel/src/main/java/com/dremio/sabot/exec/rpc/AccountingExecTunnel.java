@@ -57,6 +57,10 @@ public class AccountingExecTunnel {
         batch);
   }
 
+  public boolean isInProcess() {
+    return tunnel.isInProcess();
+  }
+
   public void informReceiverFinished(FinishedReceiver finishedReceiver) {
     monitor.increment();
     tunnel.informReceiverFinished(statusHandler, finishedReceiver);
@@ -39,6 +39,11 @@ public interface ExecTunnel {
       RpcOutcomeListener<GeneralRPCProtos.Ack> outcomeListener,
       ExecRPC.FinishedReceiver finishedReceiver);
 
+  /** Whether batches are handed over to the receiver in process, rather than over the network. */
+  default boolean isInProcess() {
+    return false;
+  }
+
   static void checkFragmentHandle(ExecProtos.FragmentHandle handle) {
     Preconditions.checkState(handle.hasQueryId(), "must set query id");
     Preconditions.checkState(handle.hasMajorFragmentId(), "must set major fragment id");
@@ -48,6 +48,11 @@ public class InProcessExecTunnel implements ExecTunnel {
     this.allocator = allocator;
   }
 
+  @Override
+  public boolean isInProcess() {
+    return true;
+  }
+
   @Override
   public void sendStreamComplete(
       RpcOutcomeListener<GeneralRPCProtos.Ack> outcomeListener,
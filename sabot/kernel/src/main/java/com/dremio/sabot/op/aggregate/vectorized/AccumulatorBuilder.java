@@ -86,6 +86,7 @@ public class AccumulatorBuilder {
     final byte[] accumulatorTypes = new byte[aggregateExpressions.size()];
     final List<Field> outputVectorFields = new ArrayList<>(aggregateExpressions.size());
     final List<FieldVector> inputVectors = new ArrayList<>(aggregateExpressions.size());
+    final List<FieldVector> secondInputVectors = new ArrayList<>(aggregateExpressions.size());
     final List<LogicalExpression> exprs = new ArrayList<>(aggregateExpressions.size());
 
     for (int i = 0; i < aggregateExpressions.size(); i++) {
@@ -116,28 +117,36 @@ public class AccumulatorBuilder {
         accumulatorTypes[i] = (byte) AccumulatorType.COUNT1.ordinal();
         /* count1 doesn't need an input accumulator vector */
         inputVectors.add(null);
+        secondInputVectors.add(null);
         continue;
       }
 
       accumulatorTypes[i] = getAccumulatorTypeFromName(funcName);
 
-      if ((exprCopy.size() != 1 && !(expr instanceof ListAggExpression))
-          || !(exprCopy.get(0) instanceof ValueVectorReadExpression)) {
+      /* MOMENTS is the only accumulator of a pair of columns */
+      final int numArgs = accumulatorTypes[i] == AccumulatorType.MOMENTS.ordinal() ? 2 : 1;
+      if ((exprCopy.size() != numArgs && !(expr instanceof ListAggExpression))
+          || !(exprCopy.get(0) instanceof ValueVectorReadExpression)
+          || (numArgs == 2 && !(exprCopy.get(1) instanceof ValueVectorReadExpression))) {
         throw unsup(
             "Accumulation expression has an unexpected number of type of arguments: " + exprCopy);
       }
 
-      /* SUM, MIN, MAX, $SUM0, COUNT, HLL, HLL_MERGE, LISTAGG, LOCAL_LISTAGG & LISTAGG_MERGE */
-      final ValueVectorReadExpression vvread = (ValueVectorReadExpression) exprCopy.get(0);
-      final FieldVector inputVector =
-          incoming
-              .getValueAccessorById(FieldVector.class, vvread.getFieldId().getFieldIds())
-              .getValueVector();
-      inputVectors.add(inputVector);
+      /* SUM, MIN, MAX, $SUM0, COUNT, HLL, HLL_MERGE, LISTAGG, LOCAL_LISTAGG, LISTAGG_MERGE,
+       * TDIGEST, TDIGEST_MERGE, MOMENTS & MOMENTS_MERGE */
+      inputVectors.add(getInputVector(incoming, exprCopy.get(0)));
+      secondInputVectors.add(numArgs == 2 ? getInputVector(incoming, exprCopy.get(1)) : null);
     }
 
     return new MaterializedAggExpressionsResult(
-        accumulatorTypes, inputVectors, outputVectorFields, exprs);
+        accumulatorTypes, inputVectors, secondInputVectors, outputVectorFields, exprs);
+  }
+
+  private static FieldVector getInputVector(VectorAccessible incoming, LogicalExpression expr) {
+    final ValueVectorReadExpression vvread = (ValueVectorReadExpression) expr;
+    return incoming
+        .getValueAccessorById(FieldVector.class, vvread.getFieldId().getFieldIds())
+        .getValueVector();
   }
 
   public static MaterializedAggExpressionsResult getAccumulatorTypesFromExpressions(
@@ -236,6 +245,7 @@ public class AccumulatorBuilder {
    * @param tempAccumulatorHolder Temporary accumulator to copy the variable records from Mutable
    *     varchar vector, where the records were not stored in record order. These temporary
    *     accumulator buffers hold the data to be spilled.
+   * @param tdigestCompression compression of the digests of TDIGEST and TDIGEST_MERGE
    * @return A Nested accumulator that holds individual sub-accumulators.
    *     <p>With partitioning in VectorizedHashAgg operator, accumulators are handled on a
    *     per-partition basis. However, we want to add the target accumulation vector that stores the
@@ -255,9 +265,12 @@ public class AccumulatorBuilder {
       VarLenAccumParams varLenAccumParams,
       int maxListAggSize,
       BaseValueVector[] tempAccumulatorHolder,
-      int maxFieldSizeBytes) {
+      int maxFieldSizeBytes,
+      int tdigestCompression) {
     final byte[] accumulatorTypes = materializedAggExpressions.getAccumulatorTypes();
     final List<FieldVector> inputVectors = materializedAggExpressions.getInputVectors();
+    final List<FieldVector> secondInputVectors =
+        materializedAggExpressions.getSecondInputVectors();
     final List<Field> outputVectorFields = materializedAggExpressions.getOutputVectorFields();
     final List<LogicalExpression> expressions = materializedAggExpressions.getExpressions();
 
@@ -282,6 +295,7 @@ public class AccumulatorBuilder {
           getAccumulator(
               accumulatorType,
               inputVector,
+              secondInputVectors.get(i),
               outputVector,
               transferVector,
               maxValuesPerBatch,
@@ -290,7 +304,8 @@ public class AccumulatorBuilder {
               varLenAccumParams,
               listAggParams,
               tempAccumulatorHolder[i],
-              maxFieldSizeBytes);
+              maxFieldSizeBytes,
+              tdigestCompression);
       if (accums[i] == null) {
         throw new IllegalStateException("ERROR: invalid accumulator state");
       }
@@ -303,6 +318,7 @@ public class AccumulatorBuilder {
   private static Accumulator getAccumulator(
       byte accumulatorType,
       FieldVector incomingValues,
+      FieldVector secondIncomingValues,
       FieldVector outputVector,
       FieldVector transferVector,
       final int maxValuesPerBatch,
@@ -311,7 +327,8 @@ public class AccumulatorBuilder {
       VarLenAccumParams varLenAccumParams,
       ListAggParams listAggParams,
       BaseValueVector tempAccumulatorHolder,
-      int maxFieldSizeBytes) {
+      int maxFieldSizeBytes,
+      int tdigestCompression) {
     if (accumulatorType == AccumulatorType.COUNT1.ordinal()) {
       return new CountOneAccumulator(
           incomingValues,
@@ -934,6 +951,88 @@ public class AccumulatorBuilder {
                   .buildSilently();
           }
         }
+
+      case 14 /* TDIGEST */:
+        {
+          switch (type) {
+            case INT:
+            case TIME:
+              return new TDigestAccumulators.IntTDigestAccumulator(
+                  incomingValues,
+                  transferVector,
+                  maxValuesPerBatch,
+                  computationVectorAllocator,
+                  tempAccumulatorHolder,
+                  tdigestCompression);
+            case BIGINT:
+            case DATE:
+            case TIMESTAMP:
+              return new TDigestAccumulators.BigIntTDigestAccumulator(
+                  incomingValues,
+                  transferVector,
+                  maxValuesPerBatch,
+                  computationVectorAllocator,
+                  tempAccumulatorHolder,
+                  tdigestCompression);
+            case FLOAT4:
+              return new TDigestAccumulators.FloatTDigestAccumulator(
+                  incomingValues,
+                  transferVector,
+                  maxValuesPerBatch,
+                  computationVectorAllocator,
+                  tempAccumulatorHolder,
+                  tdigestCompression);
+            case FLOAT8:
+              return new TDigestAccumulators.DoubleTDigestAccumulator(
+                  incomingValues,
+                  transferVector,
+                  maxValuesPerBatch,
+                  computationVectorAllocator,
+                  tempAccumulatorHolder,
+                  tdigestCompression);
+            case BIT:
+              return new TDigestAccumulators.BitTDigestAccumulator(
+                  incomingValues,
+                  transferVector,
+                  maxValuesPerBatch,
+                  computationVectorAllocator,
+                  tempAccumulatorHolder,
+                  tdigestCompression);
+          }
+          break;
+        }
+
+      case 15 /* TDIGEST_MERGE */:
+        {
+          return new TDigestAccumulators.TDigestMergeAccumulator(
+              incomingValues,
+              transferVector,
+              maxValuesPerBatch,
+              computationVectorAllocator,
+              tempAccumulatorHolder,
+              tdigestCompression);
+        }
+
+      case 16 /* MOMENTS */:
+        {
+          if (type == MinorType.FLOAT8
+              && CompleteType.fromField(secondIncomingValues.getField()).toMinorType()
+                  == MinorType.FLOAT8) {
+            return new MomentsAccumulators.MomentsAccumulator(
+                incomingValues,
+                secondIncomingValues,
+                transferVector,
+                maxValuesPerBatch,
+                tempAccumulatorHolder);
+          }
+          break;
+        }
+
+      case 17 /* MOMENTS_MERGE */:
+        {
+          return new MomentsAccumulators.MomentsMergeAccumulator(
+              incomingValues, transferVector, maxValuesPerBatch, tempAccumulatorHolder);
+        }
     }
     return null;
   }
@@ -947,16 +1046,19 @@ public class AccumulatorBuilder {
   public static class MaterializedAggExpressionsResult {
     private final byte[] accumulatorTypes;
     private final List<FieldVector> inputVectors;
+    private final List<FieldVector> secondInputVectors;
     private final List<Field> outputVectorFields;
     private final List<LogicalExpression> expressions;
 
     public MaterializedAggExpressionsResult(
         final byte[] accumulatorTypes,
         final List<FieldVector> inputVectors,
+        final List<FieldVector> secondInputVectors,
         final List<Field> outputVectorFields,
         final List<LogicalExpression> expressions) {
       this.accumulatorTypes = accumulatorTypes;
       this.inputVectors = inputVectors;
+      this.secondInputVectors = secondInputVectors;
       this.outputVectorFields = outputVectorFields;
       this.expressions = expressions;
     }
@@ -973,6 +1075,11 @@ public class AccumulatorBuilder {
       return inputVectors;
     }
 
+    /** The second column of the accumulators of a pair of columns (MOMENTS), null otherwise. */
+    public List<FieldVector> getSecondInputVectors() {
+      return secondInputVectors;
+    }
+
     public List<LogicalExpression> getExpressions() {
       return expressions;
     }
@@ -993,6 +1100,10 @@ public class AccumulatorBuilder {
     ARRAY_AGG, /* 11 */
     PHASE1_ARRAY_AGG, /* 12 */
     PHASE2_ARRAY_AGG, /* 13 */
+    TDIGEST, /* 14 */
+    TDIGEST_MERGE, /* 15 */
+    MOMENTS, /* 16 */
+    MOMENTS_MERGE, /* 17 */
   }
 
   private static byte getAccumulatorTypeFromName(String name) {
@@ -1042,6 +1153,28 @@ public class AccumulatorBuilder {
         }
       case "LISTAGG":
         return (byte) AccumulatorType.LISTAGG.ordinal();
+      case "tdigest":
+        switch (name) {
+          case "tdigest_merge":
+            return (byte) AccumulatorType.TDIGEST_MERGE.ordinal();
+          case "tdigest":
+            return (byte) AccumulatorType.TDIGEST.ordinal();
+          default:
+            throw UserException.unsupportedError()
+                .message("Unable to handle accumulator function %s", name)
+                .build(logger);
+        }
+      case "moments":
+        switch (name) {
+          case "moments_merge":
+            return (byte) AccumulatorType.MOMENTS_MERGE.ordinal();
+          case "moments":
+            return (byte) AccumulatorType.MOMENTS.ordinal();
+          default:
+            throw UserException.unsupportedError()
+                .message("Unable to handle accumulator function %s", name)
+                .build(logger);
+        }
       case "ARRAY":
         if ("ARRAY_AGG".equals(name)) {
           return (byte) AccumulatorType.ARRAY_AGG.ordinal();
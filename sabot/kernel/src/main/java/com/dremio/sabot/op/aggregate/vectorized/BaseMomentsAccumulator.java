@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.expr.fn.moments.CoMoments;
+import com.dremio.exec.proto.UserBitShared;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import java.util.List;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BaseValueVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.FieldVector;
+
+/**
+ * A base accumulator for the MOMENTS/MOMENTS_MERGE operators (COVAR_POP, COVAR_SAMP and CORR).
+ *
+ * <p>Every hash table ordinal owns a {@link CoMoments#SIZE} bytes slot in the direct memory buffer
+ * handed over by the hash table, holding the serialized {@link CoMoments} of the group. A zeroed
+ * slot is an empty state, so groups without any value need no validity bit.
+ *
+ * <p>Slots are output and spilled as is, so a spilled batch is merged back by {@link
+ * MomentsAccumulators.MomentsMergeAccumulator}.
+ */
+public abstract class BaseMomentsAccumulator implements Accumulator {
+  private final int maxValuesPerBatch;
+  private FieldVector input;
+  private final FieldVector transferVector;
+  private final BaseVariableWidthVector tempAccumulatorHolder;
+  private final CoMoments moments = new CoMoments();
+  private int batches;
+  private MomentsAccumHolder[] accumBatches;
+  private boolean resizeInProgress;
+  private boolean isAccumulatorAtMinimum;
+
+  private static final class MomentsAccumHolder {
+    private final int maxValuesPerBatch;
+    private final ArrowBuf dataBuf;
+
+    private MomentsAccumHolder(final int maxValuesPerBatch, final ArrowBuf dataBuf) {
+      this.maxValuesPerBatch = maxValuesPerBatch;
+      this.dataBuf = dataBuf;
+      Preconditions.checkArgument(dataBuf.capacity() >= (long) maxValuesPerBatch * CoMoments.SIZE);
+      dataBuf.getReferenceManager().retain();
+      reset();
+    }
+
+    private void close() {
+      dataBuf.getReferenceManager().release();
+    }
+
+    private void reset(final int startIndex, final int numRecords) {
+      Preconditions.checkArgument(startIndex + numRecords <= maxValuesPerBatch);
+      dataBuf.setZero((long) startIndex * CoMoments.SIZE, (long) numRecords * CoMoments.SIZE);
+    }
+
+    private void reset() {
+      reset(0, maxValuesPerBatch);
+    }
+  }
+
+  protected BaseMomentsAccumulator(
+      FieldVector input,
+      FieldVector transferVector,
+      int maxValuesPerBatch,
+      BaseValueVector tempAccumulatorHolder,
+      ArrowBuf dataBuf) {
+    this.input = input;
+    this.transferVector = transferVector;
+    this.maxValuesPerBatch = maxValuesPerBatch;
+    this.tempAccumulatorHolder = (BaseVariableWidthVector) tempAccumulatorHolder;
+    Preconditions.checkArgument(
+        this.tempAccumulatorHolder.getByteCapacity() >= maxValuesPerBatch * CoMoments.SIZE);
+    if (dataBuf == null) {
+      this.accumBatches = new MomentsAccumHolder[0];
+      this.batches = 0;
+    } else {
+      this.accumBatches = new MomentsAccumHolder[1];
+      this.accumBatches[0] = new MomentsAccumHolder(maxValuesPerBatch, dataBuf);
+      this.batches = 1;
+    }
+    this.resizeInProgress = false;
+  }
+
+  private static long getSlotOffset(final int accumIndex) {
+    return (long) accumIndex * CoMoments.SIZE;
+  }
+
+  public void update(final int batchIndex, final int accumIndex, final double x, final double y) {
+    final ArrowBuf dataBuf = accumBatches[batchIndex].dataBuf;
+    final long slotOffset = getSlotOffset(accumIndex);
+    moments.read(dataBuf, slotOffset);
+    moments.add(x, y);
+    moments.write(dataBuf, slotOffset);
+  }
+
+  /** Merge the serialized moments at the given offset of a buffer into a slot. */
+  public void update(
+      final int batchIndex, final int accumIndex, final ArrowBuf buf, final long offset) {
+    final ArrowBuf dataBuf = accumBatches[batchIndex].dataBuf;
+    final long slotOffset = getSlotOffset(accumIndex);
+    moments.read(dataBuf, slotOffset);
+    moments.merge(buf, offset);
+    moments.write(dataBuf, slotOffset);
+  }
+
+  @Override
+  public FieldVector getInput() {
+    return input;
+  }
+
+  @Override
+  public void setInput(FieldVector input) {
+    this.input = input;
+  }
+
+  @Override
+  public FieldVector getOutput() {
+    return transferVector;
+  }
+
+  @Override
+  public int getValidityBufferSize() {
+    return 0;
+  }
+
+  @Override
+  public int getDataBufferSize() {
+    return maxValuesPerBatch * CoMoments.SIZE;
+  }
+
+  @Override
+  public void verifyBatchCount(final int batches) {
+    Preconditions.checkArgument(
+        batches == this.batches, "Error: Detected incorrect batch count in accumulator");
+  }
+
+  /**
+   * Used to get the size of the buffers holding the moments.
+   *
+   * <p>We use this method when computing the size of {@link VectorizedHashAggPartition} as part of
+   * choosing a victim partition.
+   *
+   * @return size (in bytes)
+   */
+  @Override
+  public long getSizeInBytes() {
+    if (isAccumulatorAtMinimum) {
+      return 0;
+    }
+    return (long) batches * maxValuesPerBatch * CoMoments.SIZE;
+  }
+
+  @Override
+  public void addBatch(final ArrowBuf dataBuffer, final ArrowBuf validityBuffer) {
+    try {
+      if (batches == accumBatches.length) {
+        /* provision more to avoid copy in the next call to addBatch */
+        final MomentsAccumHolder[] oldAccumBatches = accumBatches;
+        accumBatches = new MomentsAccumHolder[(batches == 0) ? 1 : batches * 2];
+        System.arraycopy(oldAccumBatches, 0, accumBatches, 0, batches);
+      }
+      accumBatches[batches] = new MomentsAccumHolder(maxValuesPerBatch, dataBuffer);
+      ++batches;
+      resizeInProgress = true;
+      isAccumulatorAtMinimum = false;
+    } catch (Exception e) {
+      /* caught by LBlockHashTable and subsequently handled by VectorizedHashAggOperator */
+      Throwables.throwIfUnchecked(e);
+    }
+  }
+
+  @Override
+  public int getBatchCount() {
+    return batches;
+  }
+
+  private void prepareTransferVector(
+      BaseVariableWidthVector vector,
+      final int batchIndex,
+      final int numRecords,
+      final int targetIndex) {
+    final ArrowBuf dataBuf = accumBatches[batchIndex].dataBuf;
+    for (int i = 0; i < numRecords; ++i) {
+      vector.setSafe(targetIndex + i, (int) getSlotOffset(i), CoMoments.SIZE, dataBuf);
+    }
+    vector.setValueCount(targetIndex + numRecords);
+  }
+
+  @Override
+  public List<ArrowBuf> getBuffers(final int batchIndex, final int numRecordsInChunk) {
+    tempAccumulatorHolder.reset();
+    prepareTransferVector(tempAccumulatorHolder, batchIndex, numRecordsInChunk, 0);
+    return tempAccumulatorHolder.getFieldBuffers();
+  }
+
+  @Override
+  public void compact(final int batchIndex, final int nextRecSize) {}
+
+  /**
+   * Copy the moments of the requested batches into the vector in outgoing container. The batches
+   * are released once output.
+   */
+  @Override
+  public void output(int startBatchIndex, int[] recordsInBatches) {
+    int numRecords = 0;
+    for (int recordsInBatch : recordsInBatches) {
+      numRecords += recordsInBatch;
+    }
+
+    final BaseVariableWidthVector outputVector = (BaseVariableWidthVector) transferVector;
+    outputVector.allocateNew((long) numRecords * CoMoments.SIZE, numRecords);
+    outputVector.reset();
+
+    numRecords = 0;
+    for (int i = 0; i < recordsInBatches.length; ++i) {
+      prepareTransferVector(outputVector, startBatchIndex + i, recordsInBatches[i], numRecords);
+      numRecords += recordsInBatches[i];
+      releaseBatch(startBatchIndex + i);
+    }
+  }
+
+  @Override
+  public void resetToMinimumSize() throws Exception {
+    assert accumBatches.length >= 1;
+
+    accumBatches[0].reset();
+    for (int i = 1; i < batches; ++i) {
+      if (accumBatches[i] != null) {
+        accumBatches[i].close();
+        accumBatches[i] = null;
+      }
+    }
+    batches = 1;
+    isAccumulatorAtMinimum = true;
+  }
+
+  @Override
+  public void commitResize() {
+    resizeInProgress = false;
+  }
+
+  @Override
+  public void revertResize() {
+    if (!resizeInProgress) {
+      /*
+       * Because this is invoked for all accumulators under NestedAccumulator,
+       * it will be a NO-OP for some accumulators if we failed in the middle
+       * of NestedAccumulator.
+       */
+      return;
+    }
+
+    accumBatches[batches - 1].close();
+    accumBatches[batches - 1] = null;
+    --batches;
+    resizeInProgress = false;
+  }
+
+  @Override
+  public void releaseBatch(int batchIndex) {
+    if (batchIndex == 0) {
+      accumBatches[batchIndex].reset();
+    } else {
+      accumBatches[batchIndex].close();
+      accumBatches[batchIndex] = null;
+    }
+  }
+
+  @Override
+  public UserBitShared.SerializedField getSerializedField(int batchIndex, int recordCount) {
+    /*
+     * HashAggPartitionWritableBatch.java:getNextWritableBatch() will call getBuffers()
+     * followed by getSerializedField(), so the tempAccumulatorHolder already has the data.
+     */
+    Preconditions.checkArgument(tempAccumulatorHolder.getValueCount() == recordCount);
+    return TypeHelper.getMetadata(tempAccumulatorHolder);
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (int i = 0; i < batches; i++) {
+      if (accumBatches[i] != null) {
+        accumBatches[i].close();
+        accumBatches[i] = null;
+      }
+    }
+  }
+
+  @Override
+  public void moveValuesAndFreeSpace(
+      int srcBatchIndex, int dstBatchIndex, int srcStartIndex, int dstStartIndex, int numRecords) {
+    Preconditions.checkArgument(srcStartIndex + numRecords <= maxValuesPerBatch);
+    /* setBytes take absolute byte address */
+    accumBatches[dstBatchIndex].dataBuf.setBytes(
+        getSlotOffset(dstStartIndex),
+        accumBatches[srcBatchIndex].dataBuf,
+        getSlotOffset(srcStartIndex),
+        (long) numRecords * CoMoments.SIZE);
+
+    /* Reset the original moments */
+    accumBatches[srcBatchIndex].reset(srcStartIndex, numRecords);
+  }
+
+  public ArrowBuf getDataBuffer() {
+    Preconditions.checkArgument(batches == 1);
+    final ArrowBuf dataBuf = accumBatches[0].dataBuf;
+
+    return dataBuf.slice(0, dataBuf.capacity());
+  }
+
+  public BaseVariableWidthVector getTempAccumulatorHolder() {
+    return tempAccumulatorHolder;
+  }
+}
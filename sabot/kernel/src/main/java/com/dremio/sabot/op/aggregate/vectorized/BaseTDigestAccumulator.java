@@ -0,0 +1,452 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.proto.UserBitShared;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BaseValueVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.FieldVector;
+
+/**
+ * A base accumulator for the TDIGEST/TDIGEST_MERGE operators (APPROX_PERCENTILE).
+ *
+ * <p>Like the HLL accumulators, every hash table ordinal owns a fixed size slot in the direct
+ * memory buffer handed over by the hash table, so the digests are accounted for by the operator
+ * allocator and spilled like any other accumulator. A slot holds the digest in the tdigest small
+ * encoding, preceded by a few raw values that are merged into it once the slot is full, so that
+ * the digest is not deserialized for every incoming value.
+ *
+ * <p>Digests are output and spilled in the same serialized form as the tdigest aggregate
+ * functions, so a spilled batch is merged back by {@link
+ * TDigestAccumulators.TDigestMergeAccumulator}.
+ */
+public abstract class BaseTDigestAccumulator implements Accumulator {
+  /*
+   * MergingDigest small encoding: a 30 bytes header and two floats per centroid. A digest never
+   * has more than 2 * compression + 10 centroids.
+   */
+  private static final int SERIALIZED_HEADER_SIZE = 30;
+  private static final int SERIALIZED_CENTROID_SIZE = 8;
+
+  /*
+   * Slot layout: number of buffered values (int), length of the serialized digest (int, 0 while
+   * the group has no digest yet), the buffered values (double) and the serialized digest.
+   */
+  private static final int BUFFERED_VALUES = 32;
+  private static final int BUFFERED_COUNT_OFFSET = 0;
+  private static final int DIGEST_LENGTH_OFFSET = 4;
+  private static final int BUFFERED_VALUES_OFFSET = 8;
+  private static final int DIGEST_OFFSET = BUFFERED_VALUES_OFFSET + 8 * BUFFERED_VALUES;
+
+  private final int maxValuesPerBatch;
+  private final int compression;
+  private final int maxSerializedSize;
+  private final int accumulatorSize;
+  private final byte[] emptyDigest;
+  private FieldVector input;
+  private final FieldVector transferVector;
+  private final BaseVariableWidthVector tempAccumulatorHolder;
+  private int batches;
+  private TDigestAccumHolder[] accumBatches;
+  private boolean resizeInProgress;
+  private boolean isAccumulatorAtMinimum;
+
+  private static final class TDigestAccumHolder {
+    private final int maxValuesPerBatch;
+    private final int compression;
+    private final int maxSerializedSize;
+    private final int accumulatorSize;
+    private final ArrowBuf dataBuf;
+
+    private TDigestAccumHolder(
+        final int maxValuesPerBatch, final int compression, final ArrowBuf dataBuf) {
+      this.maxValuesPerBatch = maxValuesPerBatch;
+      this.compression = compression;
+      this.maxSerializedSize = getMaxSerializedSize(compression);
+      this.accumulatorSize = getAccumulatorSize(compression);
+      this.dataBuf = dataBuf;
+      Preconditions.checkArgument(dataBuf.capacity() >= (long) maxValuesPerBatch * accumulatorSize);
+      dataBuf.getReferenceManager().retain();
+      reset();
+    }
+
+    private long getSlotOffset(final int accumIndex) {
+      Preconditions.checkArgument(accumIndex < maxValuesPerBatch);
+      return (long) accumIndex * accumulatorSize;
+    }
+
+    private void add(final int accumIndex, final double newVal) {
+      final long slotOffset = getSlotOffset(accumIndex);
+      final int count = dataBuf.getInt(slotOffset + BUFFERED_COUNT_OFFSET);
+      dataBuf.setDouble(slotOffset + BUFFERED_VALUES_OFFSET + 8L * count, newVal);
+      dataBuf.setInt(slotOffset + BUFFERED_COUNT_OFFSET, count + 1);
+      if (count + 1 == BUFFERED_VALUES) {
+        writeDigest(accumIndex, readDigest(accumIndex));
+      }
+    }
+
+    private void add(final int accumIndex, final TDigest newVal) {
+      final TDigest digest = readDigest(accumIndex);
+      digest.add(newVal);
+      writeDigest(accumIndex, digest);
+    }
+
+    private boolean isEmpty(final int accumIndex) {
+      final long slotOffset = getSlotOffset(accumIndex);
+      return dataBuf.getInt(slotOffset + BUFFERED_COUNT_OFFSET) == 0
+          && dataBuf.getInt(slotOffset + DIGEST_LENGTH_OFFSET) == 0;
+    }
+
+    /** Deserialize the digest of a slot, with its buffered values merged in. */
+    private TDigest readDigest(final int accumIndex) {
+      final long slotOffset = getSlotOffset(accumIndex);
+      final int length = dataBuf.getInt(slotOffset + DIGEST_LENGTH_OFFSET);
+      final TDigest digest =
+          length == 0
+              ? new MergingDigest(compression)
+              : MergingDigest.fromBytes(dataBuf.nioBuffer(slotOffset + DIGEST_OFFSET, length));
+      final int count = dataBuf.getInt(slotOffset + BUFFERED_COUNT_OFFSET);
+      for (int i = 0; i < count; ++i) {
+        digest.add(dataBuf.getDouble(slotOffset + BUFFERED_VALUES_OFFSET + 8L * i));
+      }
+      return digest;
+    }
+
+    /** Serialize a digest back into its slot, the buffered values are part of it. */
+    private void writeDigest(final int accumIndex, final TDigest digest) {
+      final long slotOffset = getSlotOffset(accumIndex);
+      final ByteBuffer buffer = dataBuf.nioBuffer(slotOffset + DIGEST_OFFSET, maxSerializedSize);
+      digest.asSmallBytes(buffer);
+      dataBuf.setInt(slotOffset + DIGEST_LENGTH_OFFSET, buffer.position());
+      dataBuf.setInt(slotOffset + BUFFERED_COUNT_OFFSET, 0);
+    }
+
+    /** Get the serialized digest of a slot, null if the group has no value. */
+    private byte[] getSerializedDigest(final int accumIndex) {
+      if (isEmpty(accumIndex)) {
+        return null;
+      }
+      final long slotOffset = getSlotOffset(accumIndex);
+      if (dataBuf.getInt(slotOffset + BUFFERED_COUNT_OFFSET) != 0) {
+        return serialize(readDigest(accumIndex));
+      }
+      final byte[] bytes = new byte[dataBuf.getInt(slotOffset + DIGEST_LENGTH_OFFSET)];
+      dataBuf.getBytes(slotOffset + DIGEST_OFFSET, bytes);
+      return bytes;
+    }
+
+    private void close() {
+      dataBuf.getReferenceManager().release();
+    }
+
+    private void reset(final int startIndex, final int numRecords) {
+      Preconditions.checkArgument(startIndex + numRecords <= maxValuesPerBatch);
+      dataBuf.setZero((long) startIndex * accumulatorSize, (long) numRecords * accumulatorSize);
+    }
+
+    private void reset() {
+      reset(0, maxValuesPerBatch);
+    }
+  }
+
+  protected BaseTDigestAccumulator(
+      FieldVector input,
+      FieldVector transferVector,
+      int maxValuesPerBatch,
+      BaseValueVector tempAccumulatorHolder,
+      int compression,
+      ArrowBuf dataBuf) {
+    this.input = input;
+    this.transferVector = transferVector;
+    this.maxValuesPerBatch = maxValuesPerBatch;
+    this.tempAccumulatorHolder = (BaseVariableWidthVector) tempAccumulatorHolder;
+    this.compression = compression;
+    this.maxSerializedSize = getMaxSerializedSize(compression);
+    this.accumulatorSize = getAccumulatorSize(compression);
+    this.emptyDigest = serialize(new MergingDigest(compression));
+    Preconditions.checkArgument(
+        this.tempAccumulatorHolder.getByteCapacity() >= maxValuesPerBatch * maxSerializedSize);
+    if (dataBuf == null) {
+      this.accumBatches = new TDigestAccumHolder[0];
+      this.batches = 0;
+    } else {
+      this.accumBatches = new TDigestAccumHolder[1];
+      this.accumBatches[0] = new TDigestAccumHolder(maxValuesPerBatch, compression, dataBuf);
+      this.batches = 1;
+    }
+    this.resizeInProgress = false;
+  }
+
+  /**
+   * Get the maximum size of a serialized digest, used to size the vectors holding them.
+   *
+   * @param compression digest compression
+   * @return size (in bytes)
+   */
+  public static int getMaxSerializedSize(int compression) {
+    return SERIALIZED_HEADER_SIZE + SERIALIZED_CENTROID_SIZE * (2 * compression + 10);
+  }
+
+  /**
+   * Get the size of the slot holding the digest of a single group in the accumulator buffer.
+   *
+   * @param compression digest compression
+   * @return size (in bytes)
+   */
+  public static int getAccumulatorSize(int compression) {
+    return DIGEST_OFFSET + getMaxSerializedSize(compression);
+  }
+
+  private static byte[] serialize(TDigest digest) {
+    final ByteBuffer buffer = ByteBuffer.allocate(digest.smallByteSize());
+    digest.asSmallBytes(buffer);
+    return buffer.array();
+  }
+
+  public void update(final int batchIndex, final int accumIndex, final double newVal) {
+    accumBatches[batchIndex].add(accumIndex, newVal);
+  }
+
+  public void update(final int batchIndex, final int accumIndex, final TDigest newVal) {
+    accumBatches[batchIndex].add(accumIndex, newVal);
+  }
+
+  @Override
+  public FieldVector getInput() {
+    return input;
+  }
+
+  @Override
+  public void setInput(FieldVector input) {
+    this.input = input;
+  }
+
+  @Override
+  public FieldVector getOutput() {
+    return transferVector;
+  }
+
+  @Override
+  public int getValidityBufferSize() {
+    return 0;
+  }
+
+  @Override
+  public int getDataBufferSize() {
+    return maxValuesPerBatch * accumulatorSize;
+  }
+
+  @Override
+  public void verifyBatchCount(final int batches) {
+    Preconditions.checkArgument(
+        batches == this.batches, "Error: Detected incorrect batch count in accumulator");
+  }
+
+  /**
+   * Used to get the size of the buffers holding the digests.
+   *
+   * <p>We use this method when computing the size of {@link VectorizedHashAggPartition} as part of
+   * choosing a victim partition.
+   *
+   * @return size (in bytes)
+   */
+  @Override
+  public long getSizeInBytes() {
+    if (isAccumulatorAtMinimum) {
+      return 0;
+    }
+    return (long) batches * maxValuesPerBatch * accumulatorSize;
+  }
+
+  @Override
+  public void addBatch(final ArrowBuf dataBuffer, final ArrowBuf validityBuffer) {
+    try {
+      if (batches == accumBatches.length) {
+        /* provision more to avoid copy in the next call to addBatch */
+        final TDigestAccumHolder[] oldAccumBatches = accumBatches;
+        accumBatches = new TDigestAccumHolder[(batches == 0) ? 1 : batches * 2];
+        System.arraycopy(oldAccumBatches, 0, accumBatches, 0, batches);
+      }
+      accumBatches[batches] = new TDigestAccumHolder(maxValuesPerBatch, compression, dataBuffer);
+      ++batches;
+      resizeInProgress = true;
+      isAccumulatorAtMinimum = false;
+    } catch (Exception e) {
+      /* caught by LBlockHashTable and subsequently handled by VectorizedHashAggOperator */
+      Throwables.throwIfUnchecked(e);
+    }
+  }
+
+  @Override
+  public int getBatchCount() {
+    return batches;
+  }
+
+  private int prepareTransferVector(
+      BaseVariableWidthVector vector,
+      final int batchIndex,
+      final int numRecords,
+      final int targetIndex) {
+    final TDigestAccumHolder holder = accumBatches[batchIndex];
+    int size = 0;
+    for (int i = 0; i < numRecords; ++i) {
+      final byte[] digest = holder.getSerializedDigest(i);
+      final byte[] bytes = digest == null ? emptyDigest : digest;
+      vector.setSafe(targetIndex + i, bytes);
+      size += bytes.length;
+    }
+    vector.setValueCount(targetIndex + numRecords);
+    return size;
+  }
+
+  @Override
+  public List<ArrowBuf> getBuffers(final int batchIndex, final int numRecordsInChunk) {
+    tempAccumulatorHolder.reset();
+    prepareTransferVector(tempAccumulatorHolder, batchIndex, numRecordsInChunk, 0);
+    return tempAccumulatorHolder.getFieldBuffers();
+  }
+
+  @Override
+  public void compact(final int batchIndex, final int nextRecSize) {}
+
+  /**
+   * Serialize the digests of the requested batches into the vector in outgoing container. The
+   * batches are released once output.
+   */
+  @Override
+  public void output(int startBatchIndex, int[] recordsInBatches) {
+    int numRecords = 0;
+    for (int recordsInBatch : recordsInBatches) {
+      numRecords += recordsInBatch;
+    }
+
+    final BaseVariableWidthVector outputVector = (BaseVariableWidthVector) transferVector;
+    outputVector.allocateNew((long) numRecords * emptyDigest.length, numRecords);
+    outputVector.reset();
+
+    numRecords = 0;
+    for (int i = 0; i < recordsInBatches.length; ++i) {
+      prepareTransferVector(outputVector, startBatchIndex + i, recordsInBatches[i], numRecords);
+      numRecords += recordsInBatches[i];
+      releaseBatch(startBatchIndex + i);
+    }
+  }
+
+  @Override
+  public void resetToMinimumSize() throws Exception {
+    assert accumBatches.length >= 1;
+
+    accumBatches[0].reset();
+    for (int i = 1; i < batches; ++i) {
+      if (accumBatches[i] != null) {
+        accumBatches[i].close();
+        accumBatches[i] = null;
+      }
+    }
+    batches = 1;
+    isAccumulatorAtMinimum = true;
+  }
+
+  @Override
+  public void commitResize() {
+    resizeInProgress = false;
+  }
+
+  @Override
+  public void revertResize() {
+    if (!resizeInProgress) {
+      /*
+       * Because this is invoked for all accumulators under NestedAccumulator,
+       * it will be a NO-OP for some accumulators if we failed in the middle
+       * of NestedAccumulator.
+       */
+      return;
+    }
+
+    accumBatches[batches - 1].close();
+    accumBatches[batches - 1] = null;
+    --batches;
+    resizeInProgress = false;
+  }
+
+  @Override
+  public void releaseBatch(int batchIndex) {
+    if (batchIndex == 0) {
+      accumBatches[batchIndex].reset();
+    } else {
+      accumBatches[batchIndex].close();
+      accumBatches[batchIndex] = null;
+    }
+  }
+
+  @Override
+  public UserBitShared.SerializedField getSerializedField(int batchIndex, int recordCount) {
+    /*
+     * HashAggPartitionWritableBatch.java:getNextWritableBatch() will call getBuffers()
+     * followed by getSerializedField(), so the tempAccumulatorHolder already has the data.
+     */
+    Preconditions.checkArgument(tempAccumulatorHolder.getValueCount() == recordCount);
+    return TypeHelper.getMetadata(tempAccumulatorHolder);
+  }
+
+  @Override
+  public void close() throws Exception {
+    for (int i = 0; i < batches; i++) {
+      if (accumBatches[i] != null) {
+        accumBatches[i].close();
+        accumBatches[i] = null;
+      }
+    }
+  }
+
+  @Override
+  public void moveValuesAndFreeSpace(
+      int srcBatchIndex, int dstBatchIndex, int srcStartIndex, int dstStartIndex, int numRecords) {
+    Preconditions.checkArgument(srcStartIndex + numRecords <= maxValuesPerBatch);
+    /* setBytes take absolute byte address */
+    accumBatches[dstBatchIndex].dataBuf.setBytes(
+        (long) dstStartIndex * accumulatorSize,
+        accumBatches[srcBatchIndex].dataBuf,
+        (long) srcStartIndex * accumulatorSize,
+        (long) numRecords * accumulatorSize);
+
+    /* Reset the original digests */
+    accumBatches[srcBatchIndex].reset(srcStartIndex, numRecords);
+  }
+
+  public ArrowBuf getDataBuffer() {
+    Preconditions.checkArgument(batches == 1);
+    final ArrowBuf dataBuf = accumBatches[0].dataBuf;
+
+    return dataBuf.slice(0, dataBuf.capacity());
+  }
+
+  public BaseVariableWidthVector getTempAccumulatorHolder() {
+    return tempAccumulatorHolder;
+  }
+
+  public int getCompression() {
+    return compression;
+  }
+}
@@ -109,7 +109,19 @@ public class HashAggStats {
     // minimal.
     OOB_SPILL, // Spill was done due to oob.
     OOB_DROP_ALREADY_SPILLING, // Number of times operator dropped spilling notification as it was
-  // already spilling
+    // already spilling
+
+    // Adaptive partial aggregation metrics
+    PASS_THROUGH(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Number of partial aggregations passing records through"), /* 1 if switched to pass-through */
+    PASS_THROUGH_RECORDS(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Number of records passed through"), /* records streamed through without being aggregated */
+    PASS_THROUGH_SAMPLED_RECORDS, /* Number of records consumed before deciding to pass through */
+    PASS_THROUGH_TIME, /* Time spent copying the records streamed through */
   ;
 
     private final DisplayType displayType;
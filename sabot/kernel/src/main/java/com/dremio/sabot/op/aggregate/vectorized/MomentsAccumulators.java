@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.HTORDINAL_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.KEYINDEX_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.PARTITIONINDEX_HTORDINAL_WIDTH;
+
+import io.netty.util.internal.PlatformDependent;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.vector.BaseValueVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.FieldVector;
+
+public final class MomentsAccumulators {
+
+  private MomentsAccumulators() {}
+
+  /** Accumulates the co-moments of a pair of DOUBLE columns, skipping pairs with a null value. */
+  public static class MomentsAccumulator extends BaseMomentsAccumulator {
+    private static final int WIDTH_INPUT = 8;
+
+    private final FieldVector secondInput;
+
+    public MomentsAccumulator(
+        FieldVector input,
+        FieldVector secondInput,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        BaseValueVector tempAccumulatorHolder) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, null);
+      this.secondInput = secondInput;
+    }
+
+    @Override
+    public void accumulate(
+        final long memoryAddr, final int count, final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBitX = getInput().getValidityBufferAddress();
+      final long incomingValueX = getInput().getDataBufferAddress();
+      final long incomingBitY = secondInput.getValidityBufferAddress();
+      final long incomingValueY = secondInput.getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr;
+          partitionAndOrdinalAddr < maxAddr;
+          partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        /* get the index of data in input vectors */
+        final int incomingIndex =
+            PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        /* get the corresponding data from input vectors -- source data for accumulation */
+        final int bitVal =
+            ((PlatformDependent.getByte(incomingBitX + (incomingIndex >>> 3))
+                        & PlatformDependent.getByte(incomingBitY + (incomingIndex >>> 3)))
+                    >>> (incomingIndex & 7))
+                & 1;
+        // one of the values of the pair is null, skip it
+        if (bitVal == 0) {
+          continue;
+        }
+
+        /* get the hash table ordinal */
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        /* get the hash table batch index */
+        final int chunkIndex = tableIndex >>> bitsInChunk;
+        final int chunkOffset = tableIndex & chunkOffsetMask;
+
+        final long valueOffset = (long) incomingIndex * WIDTH_INPUT;
+        update(
+            chunkIndex,
+            chunkOffset,
+            Double.longBitsToDouble(PlatformDependent.getLong(incomingValueX + valueOffset)),
+            Double.longBitsToDouble(PlatformDependent.getLong(incomingValueY + valueOffset)));
+      }
+    }
+
+    @Override
+    public AccumulatorBuilder.AccumulatorType getType() {
+      return AccumulatorBuilder.AccumulatorType.MOMENTS;
+    }
+  }
+
+  /** Merges serialized moments, either from a MOMENTS phase or from spilled batches. */
+  public static class MomentsMergeAccumulator extends BaseMomentsAccumulator {
+    public MomentsMergeAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        BaseValueVector tempAccumulatorHolder) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, null);
+    }
+
+    /**
+     * Used after a spill to merge the spilled moments of a MOMENTS accumulator. The partition has
+     * been reset to its minimum size, so its single buffer is carried over.
+     */
+    public MomentsMergeAccumulator(
+        BaseMomentsAccumulator momentsAccum, FieldVector input, final int maxValuesPerBatch) {
+      super(
+          input,
+          momentsAccum.getOutput(),
+          maxValuesPerBatch,
+          momentsAccum.getTempAccumulatorHolder(),
+          momentsAccum.getDataBuffer());
+    }
+
+    @Override
+    public void accumulate(
+        final long memoryAddr, final int count, final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final ArrowBuf inputOffsetBuf = getInput().getOffsetBuffer();
+      final ArrowBuf inputBuf = getInput().getDataBuffer();
+
+      for (long partitionAndOrdinalAddr = memoryAddr;
+          partitionAndOrdinalAddr < maxAddr;
+          partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        /* get the index of data in input vector */
+        final int incomingIndex =
+            PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        /* get the corresponding data from input vector -- source data for accumulation */
+        final int bitVal =
+            (PlatformDependent.getByte(incomingBit + (incomingIndex >>> 3)) >>> (incomingIndex & 7))
+                & 1;
+        // incoming record is null, skip it
+        if (bitVal == 0) {
+          continue;
+        }
+
+        /* get the hash table ordinal */
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        /* get the hash table batch index */
+        final int chunkIndex = tableIndex >>> bitsInChunk;
+        final int chunkOffset = tableIndex & chunkOffsetMask;
+
+        final int startOffset =
+            inputOffsetBuf.getInt((long) incomingIndex * BaseVariableWidthVector.OFFSET_WIDTH);
+        update(chunkIndex, chunkOffset, inputBuf, startOffset);
+      }
+    }
+
+    @Override
+    public AccumulatorBuilder.AccumulatorType getType() {
+      return AccumulatorBuilder.AccumulatorType.MOMENTS_MERGE;
+    }
+  }
+}
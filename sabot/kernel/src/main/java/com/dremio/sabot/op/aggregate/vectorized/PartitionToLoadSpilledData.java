@@ -21,6 +21,7 @@ import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator
 import com.dremio.common.AutoCloseables;
 import com.dremio.common.util.Numbers;
 import com.dremio.exec.expr.TypeHelper;
+import com.dremio.exec.expr.fn.moments.CoMoments;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import java.util.List;
@@ -82,6 +83,7 @@ public class PartitionToLoadSpilledData implements AutoCloseable {
   private int recordsInBatch;
   private final byte[] accumulatorTypes;
   private final int varLenAccumulatorCapacity;
+  private final int maxTDigestSize;
 
   public PartitionToLoadSpilledData(
       final BufferAllocator allocator,
@@ -90,12 +92,14 @@ public class PartitionToLoadSpilledData implements AutoCloseable {
       final List<Field> postSpillAccumulatorVectorFields,
       final byte[] accumulatorTypes,
       final int batchSize,
-      final int varLenAccumulatorCapacity)
+      final int varLenAccumulatorCapacity,
+      final int maxTDigestSize)
       throws Exception {
     Preconditions.checkArgument(
         allocator != null, "Error: need a valid allocator to pre-allocate memory");
     this.allocator = allocator;
     this.varLenAccumulatorCapacity = varLenAccumulatorCapacity;
+    this.maxTDigestSize = maxTDigestSize;
     /* we use Numbers.nextPowerOfTwo because that is how memory allocation happens
      * inside FixedBlockVector and VariableBlockVector when inserting into hashtable.
      * if we don't use nextPowerOfTwo for actual allocation size, we might run into
@@ -145,8 +149,8 @@ public class PartitionToLoadSpilledData implements AutoCloseable {
       rollbackCloseable.add(vector);
       /* we have aggregation on INT, BIGINT, FLOAT, FLOAT4 and DECIMAL types of
        * columns which are all fixed width as well as (for min/max) on VARCHAR/VARBINARY
-       * with variable width. Also the aggregation of HLL and HLL_MERGE are also output
-       * as variable width.
+       * with variable width. Also the aggregation of HLL, HLL_MERGE, TDIGEST,
+       * TDIGEST_MERGE, MOMENTS and MOMENTS_MERGE are also output as variable width.
        */
       final Types.MinorType type =
           org.apache.arrow.vector.types.Types.getMinorTypeForArrowType(field.getType());
@@ -164,6 +168,14 @@ public class PartitionToLoadSpilledData implements AutoCloseable {
         } else if (accumulatorTypes[count]
             == AccumulatorBuilder.AccumulatorType.ARRAY_AGG.ordinal()) {
           vector.allocateNew();
+        } else if (accumulatorTypes[count] == AccumulatorBuilder.AccumulatorType.TDIGEST.ordinal()
+            || accumulatorTypes[count]
+                == AccumulatorBuilder.AccumulatorType.TDIGEST_MERGE.ordinal()) {
+          ((BaseVariableWidthVector) vector).allocateNew(maxTDigestSize * batchSize, batchSize);
+        } else if (accumulatorTypes[count] == AccumulatorBuilder.AccumulatorType.MOMENTS.ordinal()
+            || accumulatorTypes[count]
+                == AccumulatorBuilder.AccumulatorType.MOMENTS_MERGE.ordinal()) {
+          ((BaseVariableWidthVector) vector).allocateNew(CoMoments.SIZE * batchSize, batchSize);
         } else {
           Preconditions.checkArgument(
               accumulatorTypes[count] == AccumulatorBuilder.AccumulatorType.HLL.ordinal()
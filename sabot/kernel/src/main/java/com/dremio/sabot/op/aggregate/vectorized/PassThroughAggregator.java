@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import com.dremio.sabot.op.aggregate.vectorized.AccumulatorBuilder.AccumulatorType;
+import com.dremio.sabot.op.aggregate.vectorized.AccumulatorBuilder.MaterializedAggExpressionsResult;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.dremio.sabot.op.common.ht2.VectorPivotDef;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.FloatingPointVector;
+import org.apache.arrow.vector.IntVector;
+
+/**
+ * Streams the incoming records of a partial (phase 1) aggregation to the outgoing container
+ * without aggregating them: every record becomes a group of its own. The group by keys are copied
+ * as is and every measure is converted to the value its accumulator would hold after accumulating
+ * that single record, so that the final aggregation merges these records like it merges the
+ * groups output from the hash table.
+ *
+ * <p>Only SUM, $SUM0, MIN, MAX and COUNT measures can be converted, see {@link #create}.
+ */
+final class PassThroughAggregator {
+
+  /** Writes the partial aggregate of a single incoming record. */
+  private interface Measure {
+    void set(int index);
+  }
+
+  private final List<VectorPivotDef> keys;
+  private final List<Measure> measures;
+  private final List<FieldVector> outputVectors;
+
+  private PassThroughAggregator(
+      List<VectorPivotDef> keys, List<Measure> measures, List<FieldVector> outputVectors) {
+    this.keys = keys;
+    this.measures = measures;
+    this.outputVectors = outputVectors;
+  }
+
+  /**
+   * @param pivot pivot definition of the group by keys
+   * @param aggs materialized aggregate expressions
+   * @param accumulatorOutputVectors outgoing vector of each aggregate expression
+   * @return the pass-through aggregator, or null if one of the measures can't be converted
+   */
+  static PassThroughAggregator create(
+      PivotDef pivot,
+      MaterializedAggExpressionsResult aggs,
+      List<FieldVector> accumulatorOutputVectors) {
+    final byte[] accumulatorTypes = aggs.getAccumulatorTypes();
+    final List<Measure> measures = new ArrayList<>(accumulatorTypes.length);
+    for (int i = 0; i < accumulatorTypes.length; i++) {
+      final Measure measure =
+          createMeasure(
+              AccumulatorType.values()[accumulatorTypes[i]],
+              aggs.getInputVectors().get(i),
+              accumulatorOutputVectors.get(i));
+      if (measure == null) {
+        return null;
+      }
+      measures.add(measure);
+    }
+
+    final List<FieldVector> outputVectors = new ArrayList<>(pivot.getOutputVectors());
+    outputVectors.addAll(accumulatorOutputVectors);
+    return new PassThroughAggregator(pivot.getVectorPivots(), measures, outputVectors);
+  }
+
+  private static Measure createMeasure(
+      AccumulatorType type, FieldVector input, FieldVector output) {
+    switch (type) {
+      case COUNT1:
+        if (output instanceof BigIntVector) {
+          final BigIntVector count = (BigIntVector) output;
+          return index -> count.set(index, 1);
+        }
+        return null;
+      case COUNT:
+        if (output instanceof BigIntVector) {
+          final BigIntVector count = (BigIntVector) output;
+          return index -> count.set(index, input.isNull(index) ? 0 : 1);
+        }
+        return null;
+      case SUM:
+        return createSum(input, output, false);
+      case SUM0:
+        return createSum(input, output, true);
+      case MIN:
+      case MAX:
+        if (input.getField().getType().equals(output.getField().getType())) {
+          return index -> output.copyFromSafe(index, index, input);
+        }
+        return null;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * SUM and $SUM0 accumulate integers as bigint and floating points as double. A null value leaves
+   * the sum null, but counts as zero for $SUM0.
+   */
+  private static Measure createSum(FieldVector input, FieldVector output, boolean nullAsZero) {
+    if (output instanceof BigIntVector
+        && (input instanceof IntVector || input instanceof BigIntVector)) {
+      final BaseIntVector value = (BaseIntVector) input;
+      final BigIntVector sum = (BigIntVector) output;
+      return index -> {
+        if (!input.isNull(index)) {
+          sum.set(index, value.getValueAsLong(index));
+        } else if (nullAsZero) {
+          sum.set(index, 0);
+        }
+      };
+    }
+    if (output instanceof Float8Vector
+        && (input instanceof Float4Vector || input instanceof Float8Vector)) {
+      final FloatingPointVector value = (FloatingPointVector) input;
+      final Float8Vector sum = (Float8Vector) output;
+      return index -> {
+        if (!input.isNull(index)) {
+          sum.set(index, value.getValueAsDouble(index));
+        } else if (nullAsZero) {
+          sum.set(index, 0);
+        }
+      };
+    }
+    return null;
+  }
+
+  /**
+   * Copies the incoming records to the outgoing vectors.
+   *
+   * @param records number of incoming records
+   */
+  void output(int records) {
+    for (FieldVector vector : outputVectors) {
+      vector.setInitialCapacity(records);
+      vector.allocateNew();
+    }
+    for (VectorPivotDef key : keys) {
+      final FieldVector input = key.getIncomingVector();
+      final FieldVector output = key.getOutgoingVector();
+      for (int i = 0; i < records; i++) {
+        output.copyFromSafe(i, i, input);
+      }
+    }
+    for (Measure measure : measures) {
+      for (int i = 0; i < records; i++) {
+        measure.set(i);
+      }
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.HTORDINAL_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.KEYINDEX_OFFSET;
+import static com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator.PARTITIONINDEX_HTORDINAL_WIDTH;
+
+import com.tdunning.math.stats.MergingDigest;
+import io.netty.util.internal.PlatformDependent;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseValueVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.FieldVector;
+
+public final class TDigestAccumulators {
+
+  private TDigestAccumulators() {}
+
+  /** Accumulates a digest of the values of a column. */
+  private abstract static class TDigestAccumulator extends BaseTDigestAccumulator {
+    TDigestAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        BaseValueVector tempAccumulatorHolder,
+        final int compression) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, compression, null);
+    }
+
+    /** Read the value of the input vector at the given index. */
+    abstract double getValue(long incomingValue, int incomingIndex);
+
+    @Override
+    public void accumulate(
+        final long memoryAddr, final int count, final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final long incomingValue = getInput().getDataBufferAddress();
+
+      for (long partitionAndOrdinalAddr = memoryAddr;
+          partitionAndOrdinalAddr < maxAddr;
+          partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        /* get the index of data in input vector */
+        final int incomingIndex =
+            PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        /* get the corresponding data from input vector -- source data for accumulation */
+        final int bitVal =
+            (PlatformDependent.getByte(incomingBit + ((incomingIndex >>> 3)))
+                    >>> (incomingIndex & 7))
+                & 1;
+        // incoming record is null, skip it
+        if (bitVal == 0) {
+          continue;
+        }
+
+        /* get the hash table ordinal */
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        /* get the hash table batch index */
+        final int chunkIndex = tableIndex >>> bitsInChunk;
+        final int chunkOffset = tableIndex & chunkOffsetMask;
+
+        update(chunkIndex, chunkOffset, getValue(incomingValue, incomingIndex));
+      }
+    }
+
+    @Override
+    public AccumulatorBuilder.AccumulatorType getType() {
+      return AccumulatorBuilder.AccumulatorType.TDIGEST;
+    }
+  }
+
+  /** INT and TIME (milliseconds of the day) inputs. */
+  public static class IntTDigestAccumulator extends TDigestAccumulator {
+    private static final int WIDTH_INPUT = 4;
+
+    public IntTDigestAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        final BufferAllocator computationVectorAllocator,
+        BaseValueVector tempAccumulatorHolder,
+        final int compression) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, compression);
+    }
+
+    @Override
+    double getValue(long incomingValue, int incomingIndex) {
+      return PlatformDependent.getInt(incomingValue + ((long) incomingIndex * WIDTH_INPUT));
+    }
+  }
+
+  /** BIGINT, DATE and TIMESTAMP (milliseconds since epoch) inputs. */
+  public static class BigIntTDigestAccumulator extends TDigestAccumulator {
+    private static final int WIDTH_INPUT = 8;
+
+    public BigIntTDigestAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        final BufferAllocator computationVectorAllocator,
+        BaseValueVector tempAccumulatorHolder,
+        final int compression) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, compression);
+    }
+
+    @Override
+    double getValue(long incomingValue, int incomingIndex) {
+      return PlatformDependent.getLong(incomingValue + ((long) incomingIndex * WIDTH_INPUT));
+    }
+  }
+
+  public static class FloatTDigestAccumulator extends TDigestAccumulator {
+    private static final int WIDTH_INPUT = 4;
+
+    public FloatTDigestAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        final BufferAllocator computationVectorAllocator,
+        BaseValueVector tempAccumulatorHolder,
+        final int compression) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, compression);
+    }
+
+    @Override
+    double getValue(long incomingValue, int incomingIndex) {
+      return Float.intBitsToFloat(
+          PlatformDependent.getInt(incomingValue + ((long) incomingIndex * WIDTH_INPUT)));
+    }
+  }
+
+  public static class DoubleTDigestAccumulator extends TDigestAccumulator {
+    private static final int WIDTH_INPUT = 8;
+
+    public DoubleTDigestAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        final BufferAllocator computationVectorAllocator,
+        BaseValueVector tempAccumulatorHolder,
+        final int compression) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, compression);
+    }
+
+    @Override
+    double getValue(long incomingValue, int incomingIndex) {
+      return Double.longBitsToDouble(
+          PlatformDependent.getLong(incomingValue + ((long) incomingIndex * WIDTH_INPUT)));
+    }
+  }
+
+  public static class BitTDigestAccumulator extends TDigestAccumulator {
+    public BitTDigestAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        final BufferAllocator computationVectorAllocator,
+        BaseValueVector tempAccumulatorHolder,
+        final int compression) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, compression);
+    }
+
+    @Override
+    double getValue(long incomingValue, int incomingIndex) {
+      return (PlatformDependent.getByte(incomingValue + (incomingIndex >>> 3))
+              >>> (incomingIndex & 7))
+          & 1;
+    }
+  }
+
+  /** Merges serialized digests, either from a TDIGEST phase or from spilled batches. */
+  public static class TDigestMergeAccumulator extends BaseTDigestAccumulator {
+    public TDigestMergeAccumulator(
+        FieldVector input,
+        FieldVector transferVector,
+        final int maxValuesPerBatch,
+        final BufferAllocator computationVectorAllocator,
+        BaseValueVector tempAccumulatorHolder,
+        final int compression) {
+      super(input, transferVector, maxValuesPerBatch, tempAccumulatorHolder, compression, null);
+    }
+
+    /**
+     * Used after a spill to merge the spilled digests of a TDIGEST accumulator. The partition has
+     * been reset to its minimum size, so its single buffer is carried over.
+     */
+    public TDigestMergeAccumulator(
+        BaseTDigestAccumulator tdigestAccum,
+        FieldVector input,
+        final int maxValuesPerBatch,
+        final BufferAllocator computationVectorAllocator) {
+      super(
+          input,
+          tdigestAccum.getOutput(),
+          maxValuesPerBatch,
+          tdigestAccum.getTempAccumulatorHolder(),
+          tdigestAccum.getCompression(),
+          tdigestAccum.getDataBuffer());
+    }
+
+    @Override
+    public void accumulate(
+        final long memoryAddr, final int count, final int bitsInChunk, final int chunkOffsetMask) {
+      final long maxAddr = memoryAddr + count * PARTITIONINDEX_HTORDINAL_WIDTH;
+      final long incomingBit = getInput().getValidityBufferAddress();
+      final ArrowBuf inputOffsetBuf = getInput().getOffsetBuffer();
+      final ArrowBuf inputBuf = getInput().getDataBuffer();
+
+      for (long partitionAndOrdinalAddr = memoryAddr;
+          partitionAndOrdinalAddr < maxAddr;
+          partitionAndOrdinalAddr += PARTITIONINDEX_HTORDINAL_WIDTH) {
+        /* get the index of data in input vector */
+        final int incomingIndex =
+            PlatformDependent.getInt(partitionAndOrdinalAddr + KEYINDEX_OFFSET);
+        /* get the corresponding data from input vector -- source data for accumulation */
+        final int bitVal =
+            (PlatformDependent.getByte(incomingBit + (incomingIndex >>> 3)) >>> (incomingIndex & 7))
+                & 1;
+        // incoming record is null, skip it
+        if (bitVal == 0) {
+          continue;
+        }
+
+        /* get the hash table ordinal */
+        final int tableIndex = PlatformDependent.getInt(partitionAndOrdinalAddr + HTORDINAL_OFFSET);
+        /* get the hash table batch index */
+        final int chunkIndex = tableIndex >>> bitsInChunk;
+        final int chunkOffset = tableIndex & chunkOffsetMask;
+
+        final int startOffset =
+            inputOffsetBuf.getInt((long) incomingIndex * BaseVariableWidthVector.OFFSET_WIDTH);
+        final int endOffset =
+            inputOffsetBuf.getInt(
+                (long) (incomingIndex + 1) * BaseVariableWidthVector.OFFSET_WIDTH);
+        update(
+            chunkIndex,
+            chunkOffset,
+            MergingDigest.fromBytes(inputBuf.nioBuffer(startOffset, endOffset - startOffset)));
+      }
+    }
+
+    @Override
+    public AccumulatorBuilder.AccumulatorType getType() {
+      return AccumulatorBuilder.AccumulatorType.TDIGEST_MERGE;
+    }
+  }
+}
@@ -29,6 +29,7 @@ import com.dremio.exec.ExecConstants;
 import com.dremio.exec.expr.TypeHelper;
 import com.dremio.exec.expr.ValueVectorReadExpression;
 import com.dremio.exec.expr.fn.hll.StatisticsAggrFunctions;
+import com.dremio.exec.expr.fn.moments.CoMoments;
 import com.dremio.exec.physical.config.HashAggregate;
 import com.dremio.exec.planner.physical.HashAggMemoryEstimator;
 import com.dremio.exec.planner.physical.PlannerSettings;
@@ -193,6 +194,12 @@ import org.apache.datasketches.hll.TgtHllType;
  * are entirely on disk and thus a "force-spill" is needed to flush out
  * in-memory portion of each spilled partition.
  *
+ * PASS_THROUGH -- a partial aggregation that barely reduces its input has
+ * switched to streaming it through: consumeData() moves to this state and
+ * outputData() copies the incoming batch to outgoing, one group per record, before
+ * moving back to (CAN_CONSUME, NONE). The groups aggregated before the switch are
+ * output as usual once the input is over.
+ *
  * DONE -- finished processing. at this time external state should also be DONE.
  *
  * When we are done with consuming all the incoming data from source, we
@@ -405,6 +412,20 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
   /* XXX: We may remove this option as it seems not needed anymore */
   public static final PositiveLongValidator VECTORIZED_HASHAGG_MAX_LISTAGG_SIZE =
       new PositiveLongValidator("exec.operator.aggregate.listagg.size", 32 * 1024, 32 * 1024);
+  /*
+   * A partial (phase 1) aggregation over nearly unique keys only costs memory and spills, as the
+   * final aggregation receives about as many records. Once the sample batches have been consumed,
+   * such an aggregation streams the rest of its input through unaggregated if its hash table holds
+   * at least this many groups per consumed record.
+   */
+  public static final BooleanValidator VECTORIZED_HASHAGG_ADAPTIVE_PASS_THROUGH =
+      new BooleanValidator("exec.operator.aggregate.vectorize.adaptive_pass_through", true);
+  public static final PositiveLongValidator VECTORIZED_HASHAGG_PASS_THROUGH_SAMPLE_BATCHES =
+      new PositiveLongValidator(
+          "exec.operator.aggregate.vectorize.pass_through_sample_batches", 1024, 16);
+  public static final DoubleValidator VECTORIZED_HASHAGG_PASS_THROUGH_GROUP_RATIO =
+      new RangeDoubleValidator(
+          "exec.operator.aggregate.vectorize.pass_through_group_ratio", 0.0d, 1.0d, .9d);
 
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(VectorizedHashAggOperator.class);
@@ -419,6 +440,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
   private final Stopwatch unpivotWatch = Stopwatch.createUnstarted();
   private final Stopwatch spillPartitionWatch = Stopwatch.createUnstarted();
   private final Stopwatch readSpilledBatchWatch = Stopwatch.createUnstarted();
+  private final Stopwatch passThroughWatch = Stopwatch.createUnstarted();
 
   private ImmutableList<FieldVector> vectorsToValidate;
   private PivotDef pivot;
@@ -452,7 +474,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
 
   /*
    * We set memoryConsumptionCanExceed to true in either of 2 conditions:
-   * 1. When listagg or ndv is present.
+   * 1. When listagg, ndv or tdigest is present.
    * 2. When memory consumption in consumeData exceeds the maximum grant given by MemoryArbiter.
    *
    * Once the flag is set to true, we do not reset it in the lifetime of the operator.
@@ -503,6 +525,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
   private OperatorStateBeforeSpill operatorStateBeforeSpill;
   private ForceSpillState forceSpillState;
   private final int maxFieldSizeBytes;
+  private final int tdigestCompression;
 
   /**
    * This is used to read/write a spilled varlen accumulator from/to disk. Preallocate its memory
@@ -521,6 +544,19 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
   private int chunkOffsetMask;
   private long reservedPreallocation;
 
+  /*
+   * adaptive pass-through of partial aggregations: the aggregator is only set while the
+   * operator samples its reduction ratio or passes records through.
+   */
+  private final int passThroughSampleBatches;
+  private final double passThroughGroupRatio;
+  private PassThroughAggregator passThroughAggregator;
+  private boolean passingThrough;
+  private int passThroughSampledBatches;
+  private long passThroughSampledRecords;
+  private long passThroughRecords;
+  private int recordsToPassThrough;
+
   public static final String OUT_OF_MEMORY_MSG = "Vectorized Hash Agg ran out of memory";
 
   public static final String PREALLOC_FAILURE_PARTITIONS =
@@ -598,7 +634,11 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     this.forceSpillState = null;
     this.maxFieldSizeBytes =
         Math.toIntExact(context.getOptions().getOption(ExecConstants.LIMIT_FIELD_SIZE_BYTES));
+    this.tdigestCompression = (int) options.getOption(ExecConstants.TDIGEST_COMPRESSION);
     this.memoryGrant = context.getOptions().getOption(ExecConstants.MAX_MEMORY_GRANT_SIZE);
+    this.passThroughSampleBatches =
+        (int) options.getOption(VECTORIZED_HASHAGG_PASS_THROUGH_SAMPLE_BATCHES);
+    this.passThroughGroupRatio = options.getOption(VECTORIZED_HASHAGG_PASS_THROUGH_GROUP_RATIO);
     logger.debug(
         "partitions:{}, min-hashtable-size:{}, max-hashtable-batch-size:{} variable-width-key-size:{}",
         numPartitions,
@@ -705,7 +745,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     final List<Field> outputVectorFields = materializeAggExpressionsResult.getOutputVectorFields();
     final byte[] accumulatorTypes = materializeAggExpressionsResult.getAccumulatorTypes();
 
-    /* Adjust maxHashTableBatchSize, if NDV or LISTAGG is present */
+    /* Adjust maxHashTableBatchSize, if NDV, TDIGEST or LISTAGG is present */
     final int maxOutgoingBatchSize =
         (int)
             context
@@ -721,6 +761,14 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
           || accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.HLL_MERGE.ordinal()) {
         maxHashTableBatchSize = Math.min(maxHashTableBatchSize, maxOutgoingBatchSize / SKETCH_SIZE);
         this.memoryConsumptionCanExceed = true;
+      } else if (accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.TDIGEST.ordinal()
+          || accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.TDIGEST_MERGE.ordinal()) {
+        maxHashTableBatchSize =
+            Math.min(
+                maxHashTableBatchSize,
+                maxOutgoingBatchSize
+                    / BaseTDigestAccumulator.getAccumulatorSize(tdigestCompression));
+        this.memoryConsumptionCanExceed = true;
       } else if (accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.LISTAGG.ordinal()
           || accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.LOCAL_LISTAGG.ordinal()
           || accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.LISTAGG_MERGE.ordinal()) {
@@ -738,13 +786,23 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
       }
     }
 
+    final List<FieldVector> accumulatorOutputVectors = new ArrayList<>(accumulatorTypes.length);
     for (int i = 0; i < accumulatorTypes.length; ++i) {
       final FieldVector outputVector =
           TypeHelper.getNewVector(outputVectorFields.get(i), outputAllocator);
       outgoing.add(outputVector);
+      accumulatorOutputVectors.add(outputVector);
     }
     outgoing.buildSchema();
 
+    if (popConfig.isPartialAggregation()
+        && context.getOptions().getOption(VECTORIZED_HASHAGG_ADAPTIVE_PASS_THROUGH)) {
+      /* null if one of the accumulators can't be computed for a single record */
+      passThroughAggregator =
+          PassThroughAggregator.create(
+              pivot, materializeAggExpressionsResult, accumulatorOutputVectors);
+    }
+
     final HashAggMemoryEstimator estimator =
         HashAggMemoryEstimator.create(
             new PivotInfo(pivot.getBlockWidth(), pivot.getVariableCount()),
@@ -783,6 +841,20 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
           tempVector.setInitialCapacity(maxHashTableBatchSize);
           tempAccumulatorHolder[i] = tempVector;
           hasVarLenAccumAppend = true;
+        } else if (accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.TDIGEST.ordinal()
+            || accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.TDIGEST_MERGE.ordinal()) {
+          accumLen =
+              BaseTDigestAccumulator.getMaxSerializedSize(tdigestCompression)
+                  * maxHashTableBatchSize;
+          BaseVariableWidthVector tempVector = new VarBinaryVector("tdigest tmp-holder", allocator);
+          tempVector.allocateNew(accumLen, maxHashTableBatchSize);
+          tempAccumulatorHolder[i] = tempVector;
+        } else if (accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.MOMENTS.ordinal()
+            || accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.MOMENTS_MERGE.ordinal()) {
+          accumLen = CoMoments.SIZE * maxHashTableBatchSize;
+          BaseVariableWidthVector tempVector = new VarBinaryVector("moments tmp-holder", allocator);
+          tempVector.allocateNew(accumLen, maxHashTableBatchSize);
+          tempAccumulatorHolder[i] = tempVector;
         } else {
           Preconditions.checkArgument(
               accumulatorTypes[i] == AccumulatorBuilder.AccumulatorType.HLL.ordinal()
@@ -837,7 +909,8 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
                 varLenAccumParams,
                 maxListAggSize,
                 tempAccumulatorHolder,
-                maxFieldSizeBytes);
+                maxFieldSizeBytes,
+                tdigestCompression);
         /* this step allocates memory for control structure in hashtable and reverts itself if
          * allocation fails so we don't have to rely on rollback closeable
          */
@@ -930,7 +1003,8 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
               postSpillAccumulatorVectorFields,
               accumulatorTypes,
               maxHashTableBatchSize,
-              estimatedVariableWidthKeySize * maxHashTableBatchSize);
+              estimatedVariableWidthKeySize * maxHashTableBatchSize,
+              BaseTDigestAccumulator.getMaxSerializedSize(tdigestCompression));
     } catch (OutOfMemoryException e) {
       ooms++;
       throw debug.prepareAndThrowException(
@@ -1159,12 +1233,27 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     Preconditions.checkState(
         resumableInsertState == null, "Error: not expecting resumable insert state");
 
+    if (passThroughAggregator != null && !passingThrough) {
+      passingThrough = shouldPassThrough();
+    }
+    if (passingThrough) {
+      /* the records are copied to outgoing in outputData() */
+      recordsToPassThrough = records;
+      state = State.CAN_PRODUCE;
+      internalStateMachine = InternalState.PASS_THROUGH;
+      return;
+    }
+
     // ensure that none of the variable length vectors are corrupt so we can avoid doing bounds
     // checking later.
     for (FieldVector v : vectorsToValidate) {
       VariableLengthValidator.validateVariable(v, records);
     }
     consumeDataHelper(records);
+    if (passThroughAggregator != null) {
+      passThroughSampledBatches++;
+      passThroughSampledRecords += records;
+    }
 
     long memoryUsed = allocator.getAllocatedMemory() - oldMemoryUsage;
     long timeTaken = (System.nanoTime() - startTime) / 1000000;
@@ -1192,6 +1281,51 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     }
   }
 
+  /**
+   * Once the sample batches have been consumed, decides whether the partial aggregation reduces the
+   * incoming records enough to be worth it. The number of groups is the size of the hash tables
+   * plus the records already spilled, as spilled partitions have been downsized.
+   *
+   * <p>The decision is taken at the start of consumeData(), when no insertion is pending. The
+   * groups already aggregated stay in the partitions and are output once the input is over.
+   *
+   * @return true to pass the rest of the input through
+   */
+  private boolean shouldPassThrough() {
+    if (passThroughSampledBatches < passThroughSampleBatches) {
+      return false;
+    }
+    final long groups = getHashTableSize() + partitionSpillHandler.getTotalRecordsSpilled();
+    final boolean passThrough = groups >= passThroughGroupRatio * passThroughSampledRecords;
+    logger.debug(
+        "Partial aggregation of {} records into {} groups, pass-through: {}",
+        passThroughSampledRecords,
+        groups,
+        passThrough);
+    if (!passThrough) {
+      /* the aggregation is worth it, stop sampling */
+      passThroughAggregator = null;
+    }
+    return passThrough;
+  }
+
+  /**
+   * Copies the incoming batch received by the last consumeData() to outgoing, one group per
+   * record.
+   *
+   * @return number of records outputted
+   */
+  private int outputPassThrough() {
+    passThroughWatch.start();
+    passThroughAggregator.output(recordsToPassThrough);
+    passThroughWatch.stop();
+    passThroughRecords += recordsToPassThrough;
+    state = State.CAN_CONSUME;
+    internalStateMachine = InternalState.NONE;
+    updateStats();
+    return outgoing.setAllCount(recordsToPassThrough);
+  }
+
   /**
    * Helper function for consuming incoming data from pipeline. With micro spilling, this function
    * also resumes consuming data from an earlier failure (OOM) point.
@@ -2481,6 +2615,11 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     stats.setLongStat(Metric.OOB_SPILL, oobSpills);
     stats.setLongStat(Metric.OOB_DROP_ALREADY_SPILLING, oobDropSpill);
 
+    stats.setLongStat(Metric.PASS_THROUGH, passingThrough ? 1 : 0);
+    stats.setLongStat(Metric.PASS_THROUGH_RECORDS, passThroughRecords);
+    stats.setLongStat(Metric.PASS_THROUGH_SAMPLED_RECORDS, passThroughSampledRecords);
+    stats.setLongStat(Metric.PASS_THROUGH_TIME, passThroughWatch.elapsed(TimeUnit.NANOSECONDS));
+
     if (iterations == 1) {
       stats.setLongStat(Metric.ALLOCATED_FOR_FIXED_KEYS, statsHolder.allocatedForFixedBlocks);
       stats.setLongStat(Metric.UNUSED_FOR_FIXED_KEYS, statsHolder.unusedForFixedBlocks);
@@ -2680,6 +2819,9 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
         consumeSpilledData();
         records = 0;
         break;
+      case PASS_THROUGH:
+        records = outputPassThrough();
+        break;
     }
 
     return records;
@@ -2936,6 +3078,7 @@ public class VectorizedHashAggOperator implements SingleInputOperator, Shrinkabl
     SPILL_NEXT_BATCH,
     RESUME_CONSUMING,
     FORCE_SPILL_INMEMORY_DATA,
+    PASS_THROUGH,
     DONE
   }
 
@@ -314,6 +314,43 @@ public class VectorizedHashAggPartition implements SpaceCheckListener, AutoClose
         }
       } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.LISTAGG_MERGE.ordinal()) {
         partitionAccumulators[i].setInput(deserializedAccumulator);
+      } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.TDIGEST.ordinal()) {
+        /*
+         * TDIGEST results are serialized digests saved in variable width vector. In order to
+         * merge them across spilled batches, need to call TDIGEST_MERGE.
+         */
+        partitionAccumulators[i] =
+            new TDigestAccumulators.TDigestMergeAccumulator(
+                (BaseTDigestAccumulator) partitionAccumulator,
+                deserializedAccumulator,
+                hashTable.getActualValuesPerBatch(),
+                computationVectorAllocator);
+        try {
+          /* This never fail */
+          partitionAccumulator.close();
+        } catch (Exception e) {
+          logger.error("An unexpected error was thrown while closing partitionAccumulator", e);
+        }
+      } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.TDIGEST_MERGE.ordinal()) {
+        partitionAccumulators[i].setInput(deserializedAccumulator);
+      } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.MOMENTS.ordinal()) {
+        /*
+         * MOMENTS results are serialized co-moments saved in variable width vector. In order to
+         * merge them across spilled batches, need to call MOMENTS_MERGE.
+         */
+        partitionAccumulators[i] =
+            new MomentsAccumulators.MomentsMergeAccumulator(
+                (BaseMomentsAccumulator) partitionAccumulator,
+                deserializedAccumulator,
+                hashTable.getActualValuesPerBatch());
+        try {
+          /* This never fail */
+          partitionAccumulator.close();
+        } catch (Exception e) {
+          logger.error("An unexpected error was thrown while closing partitionAccumulator", e);
+        }
+      } else if (accumulatorType == AccumulatorBuilder.AccumulatorType.MOMENTS_MERGE.ordinal()) {
+        partitionAccumulators[i].setInput(deserializedAccumulator);
       } else {
         /* handle MIN, MAX */
         Preconditions.checkArgument(
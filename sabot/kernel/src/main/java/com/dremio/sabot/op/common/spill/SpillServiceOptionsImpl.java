@@ -61,4 +61,9 @@ public class SpillServiceOptionsImpl implements SpillServiceOptions {
   public long spillSweepThreshold() {
     return options().getOption(ExecConstants.SPILL_SWEEP_THRESHOLD);
   }
+
+  @Override
+  public int readAheadThreads() {
+    return (int) options().getOption(ExecConstants.SPILL_READ_AHEAD_THREADS);
+  }
 }
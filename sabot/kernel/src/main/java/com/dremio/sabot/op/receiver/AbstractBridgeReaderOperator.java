@@ -38,6 +38,7 @@ abstract class AbstractBridgeReaderOperator implements ProducerOperator {
   private final VectorContainer outgoing;
   private final BatchStreamProvider batchStreamProvider;
   private final RawFragmentBatchProvider batchProvider;
+  private final BatchDecompressor decompressor;
 
   private State state = State.NEEDS_SETUP;
 
@@ -55,6 +56,7 @@ abstract class AbstractBridgeReaderOperator implements ProducerOperator {
     this.stats = context.getStats();
     this.outgoing = context.createOutputVectorContainer(batchSchema);
     this.batchLoader = new ArrowRecordBatchLoader(outgoing);
+    this.decompressor = new BatchDecompressor(context.getAllocator());
     this.batchStreamProvider = streams;
     this.batchProvider = streams.getBuffersFromFiles(uniqueId, handle.getMajorFragmentId());
     logger.debug("uniqueId {}", uniqueId);
@@ -103,7 +105,6 @@ abstract class AbstractBridgeReaderOperator implements ProducerOperator {
       }
 
       int size = batchLoader.load(batch);
-      updateMetrics(batch.getByteCount());
 
       final int count = batchLoader.getRecordCount();
       // logger.debug("read batch {} records", count);
@@ -114,15 +115,23 @@ abstract class AbstractBridgeReaderOperator implements ProducerOperator {
   }
 
   private RawFragmentBatch getNextBatch() throws Exception {
+    final RawFragmentBatch batch;
     try (AutoCloseable ac = OperatorStats.getWaitRecorder(stats)) {
-      return batchProvider.getNext();
+      batch = batchProvider.getNext();
+    }
+    if (batch != null) {
+      updateMetrics(batch.getByteCount());
     }
+    return decompressor.decompress(batch);
   }
 
   abstract void updateMetrics(long bytesRead);
 
+  abstract void updateCompressionMetrics(long decompressionNanos, long bytesSaved);
+
   @Override
   public void close() throws Exception {
+    updateCompressionMetrics(decompressor.getDecompressionNanos(), decompressor.getBytesSaved());
     AutoCloseables.close((AutoCloseable) batchLoader, batchProvider, outgoing);
   }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.receiver;
+
+import static org.apache.arrow.vector.compression.CompressionUtil.NO_COMPRESSION_LENGTH;
+import static org.apache.arrow.vector.compression.CompressionUtil.SIZE_OF_UNCOMPRESSED_LENGTH;
+
+import com.dremio.exec.proto.ExecRPC.FragmentRecordBatch;
+import com.dremio.exec.record.compression.ExchangeCompressionCodec;
+import com.dremio.exec.record.compression.ExchangeCompressionCodecs;
+import com.google.flatbuffers.FlatBufferBuilder;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.flatbuf.BodyCompression;
+import org.apache.arrow.flatbuf.Buffer;
+import org.apache.arrow.flatbuf.FieldNode;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.util.LargeMemoryUtil;
+import org.apache.arrow.vector.compression.CompressionUtil.CodecType;
+import org.apache.arrow.vector.compression.NoCompressionCodec;
+import org.apache.arrow.vector.ipc.message.ArrowFieldNode;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+
+/**
+ * Decompresses the batches compressed by the senders before they are loaded by a receiver. Batches
+ * are decompressed into a single body, laid out like an uncompressed batch.
+ */
+public class BatchDecompressor {
+  private final BufferAllocator allocator;
+
+  private long decompressionNanos;
+  private long bytesSaved;
+
+  public BatchDecompressor(BufferAllocator allocator) {
+    this.allocator = allocator;
+  }
+
+  /**
+   * Returns the decompressed batch, or the given batch if it isn't compressed. The given batch is
+   * closed whenever a new batch is returned or decompression fails.
+   */
+  public RawFragmentBatch decompress(RawFragmentBatch batch) {
+    if (batch == null || batch.getBody() == null) {
+      return batch;
+    }
+
+    final FragmentRecordBatch header = batch.getHeader();
+    final RecordBatch recordBatch =
+        RecordBatch.getRootAsRecordBatch(header.getArrowRecordBatch().asReadOnlyByteBuffer());
+    final BodyCompression compression = recordBatch.compression();
+    if (compression == null) {
+      return batch;
+    }
+
+    final long start = System.nanoTime();
+    try (RawFragmentBatch compressedBatch = batch) {
+      final ExchangeCompressionCodec codec =
+          ExchangeCompressionCodecs.fromType(CodecType.fromCompressionType(compression.codec()));
+      final ArrowBuf compressedBody = compressedBatch.getBody();
+
+      final int buffersCount = recordBatch.buffersLength();
+      final long[] lengths = new long[buffersCount];
+      final boolean[] raw = new boolean[buffersCount];
+      long bodyLength = 0;
+      for (int i = 0; i < buffersCount; i++) {
+        final Buffer buffer = recordBatch.buffers(i);
+        final long length =
+            ExchangeCompressionCodec.uncompressedLength(compressedBody, buffer.offset());
+        raw[i] = length == NO_COMPRESSION_LENGTH;
+        lengths[i] = raw[i] ? buffer.length() - SIZE_OF_UNCOMPRESSED_LENGTH : length;
+        bodyLength += lengths[i];
+      }
+
+      final List<ArrowBuf> buffers = new ArrayList<>(buffersCount);
+      try (ArrowBuf body = allocator.buffer(bodyLength)) {
+        long offset = 0;
+        for (int i = 0; i < buffersCount; i++) {
+          final Buffer buffer = recordBatch.buffers(i);
+          final long dataOffset = buffer.offset() + SIZE_OF_UNCOMPRESSED_LENGTH;
+          final long dataLength = buffer.length() - SIZE_OF_UNCOMPRESSED_LENGTH;
+          if (raw[i]) {
+            body.setBytes(offset, compressedBody, dataOffset, dataLength);
+          } else if (lengths[i] > 0) {
+            codec.decompress(compressedBody, dataOffset, dataLength, body, offset, lengths[i]);
+          }
+          buffers.add(body.slice(offset, lengths[i]));
+          offset += lengths[i];
+        }
+        body.writerIndex(bodyLength);
+
+        final List<ArrowFieldNode> nodes = new ArrayList<>(recordBatch.nodesLength());
+        for (int i = 0; i < recordBatch.nodesLength(); i++) {
+          final FieldNode node = recordBatch.nodes(i);
+          nodes.add(
+              new ArrowFieldNode(
+                  LargeMemoryUtil.checkedCastToInt(node.length()),
+                  LargeMemoryUtil.checkedCastToInt(node.nullCount())));
+        }
+
+        final FlatBufferBuilder builder = new FlatBufferBuilder();
+        try (ArrowRecordBatch uncompressedBatch =
+            new ArrowRecordBatch(
+                LargeMemoryUtil.checkedCastToInt(recordBatch.length()),
+                nodes,
+                buffers,
+                NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
+                false)) {
+          builder.finish(uncompressedBatch.writeTo(builder));
+        }
+
+        bytesSaved += bodyLength - compressedBody.readableBytes();
+        return new RawFragmentBatch(
+            header.toBuilder()
+                .setArrowRecordBatch(ByteString.copyFrom(builder.dataBuffer()))
+                .build(),
+            body,
+            null);
+      }
+    } finally {
+      decompressionNanos += System.nanoTime() - start;
+    }
+  }
+
+  public long getDecompressionNanos() {
+    return decompressionNanos;
+  }
+
+  public long getBytesSaved() {
+    return bytesSaved;
+  }
+}
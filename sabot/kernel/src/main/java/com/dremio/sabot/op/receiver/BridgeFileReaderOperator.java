@@ -26,7 +26,9 @@ import com.dremio.sabot.op.spi.ProducerOperator;
 /** Impl for sender operator that reads from a file, instead of a socket. */
 public class BridgeFileReaderOperator extends AbstractBridgeReaderOperator {
   public enum Metric implements MetricDef {
-    BYTES_READ;
+    BYTES_READ,
+    DECOMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -47,6 +49,12 @@ public class BridgeFileReaderOperator extends AbstractBridgeReaderOperator {
     getStats().addLongStat(Metric.BYTES_READ, bytesRead);
   }
 
+  @Override
+  void updateCompressionMetrics(long decompressionNanos, long bytesSaved) {
+    getStats().setLongStat(Metric.DECOMPRESSION_NANOS, decompressionNanos);
+    getStats().setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, bytesSaved);
+  }
+
   public static class Creator implements ReceiverCreator<BridgeFileReader> {
     @Override
     public ProducerOperator create(
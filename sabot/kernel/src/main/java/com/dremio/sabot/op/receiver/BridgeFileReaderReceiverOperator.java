@@ -26,7 +26,9 @@ import com.dremio.sabot.op.spi.ProducerOperator;
 /** Impl for sender operator that reads from a file, instead of a socket. */
 public class BridgeFileReaderReceiverOperator extends AbstractBridgeReaderOperator {
   public enum Metric implements MetricDef {
-    BYTES_RECEIVED;
+    BYTES_RECEIVED,
+    DECOMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -47,6 +49,12 @@ public class BridgeFileReaderReceiverOperator extends AbstractBridgeReaderOperat
     getStats().addLongStat(Metric.BYTES_RECEIVED, bytesRead);
   }
 
+  @Override
+  void updateCompressionMetrics(long decompressionNanos, long bytesSaved) {
+    getStats().setLongStat(Metric.DECOMPRESSION_NANOS, decompressionNanos);
+    getStats().setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, bytesSaved);
+  }
+
   public static class Creator implements ReceiverCreator<BridgeFileReaderReceiver> {
     @Override
     public ProducerOperator create(
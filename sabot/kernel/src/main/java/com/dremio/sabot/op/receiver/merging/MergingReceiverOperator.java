@@ -36,6 +36,7 @@ import com.dremio.exec.vector.CopyUtil;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.receiver.BatchDecompressor;
 import com.dremio.sabot.op.receiver.RawFragmentBatch;
 import com.dremio.sabot.op.receiver.RawFragmentBatchProvider;
 import com.dremio.sabot.op.receiver.ReceiverLatencyTracker;
@@ -65,6 +66,7 @@ public class MergingReceiverOperator implements ProducerOperator {
   private final BatchStreamProvider streamProvider;
   private final OperatorStats stats;
   private final ReceiverLatencyTracker latencyTracker = new ReceiverLatencyTracker();
+  private final BatchDecompressor decompressor;
 
   private static enum OutputState {
     INIT_ON_NEXT,
@@ -86,7 +88,9 @@ public class MergingReceiverOperator implements ProducerOperator {
     SUM_TX_MILLIS,
     MAX_TX_MILLIS,
     SUM_QUEUE_MILLIS,
-    MAX_QUEUE_MILLIS;
+    MAX_QUEUE_MILLIS,
+    DECOMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -103,6 +107,7 @@ public class MergingReceiverOperator implements ProducerOperator {
     this.streamProvider = streamProvider;
     this.stats = context.getStats();
     this.config = config;
+    this.decompressor = new BatchDecompressor(context.getAllocator());
     this.outgoingContainer = context.createOutputVectorContainer(config.getSchema());
     this.stats.setLongStat(Metric.NUM_SENDERS, config.getNumSenders());
     this.nodes = new Node[config.getNumSenders()];
@@ -331,7 +336,7 @@ public class MergingReceiverOperator implements ProducerOperator {
         clear();
 
         // get next batch.
-        currentBatch = provider.getNext();
+        currentBatch = decompressor.decompress(provider.getNext());
 
         int size;
         // we didn't get a batch. this is because we're pending on a message or we're finished.
@@ -408,6 +413,8 @@ public class MergingReceiverOperator implements ProducerOperator {
 
   @Override
   public void close() throws Exception {
+    stats.setLongStat(Metric.DECOMPRESSION_NANOS, decompressor.getDecompressionNanos());
+    stats.setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, decompressor.getBytesSaved());
     List<AutoCloseable> closeables = new ArrayList<>();
     closeables.add(outgoingContainer);
     closeables.addAll(Arrays.asList(nodes));
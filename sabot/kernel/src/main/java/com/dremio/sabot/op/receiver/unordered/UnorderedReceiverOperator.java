@@ -24,6 +24,7 @@ import com.dremio.exec.record.VectorContainer;
 import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.receiver.BatchDecompressor;
 import com.dremio.sabot.op.receiver.RawFragmentBatch;
 import com.dremio.sabot.op.receiver.RawFragmentBatchProvider;
 import com.dremio.sabot.op.receiver.ReceiverLatencyTracker;
@@ -44,6 +45,7 @@ public class UnorderedReceiverOperator implements ProducerOperator {
   private final VectorContainer outgoing;
   private final BatchStreamProvider streams;
   private final ReceiverLatencyTracker latencyTracker = new ReceiverLatencyTracker();
+  private final BatchDecompressor decompressor;
 
   public enum Metric implements MetricDef {
     BYTES_RECEIVED,
@@ -52,7 +54,9 @@ public class UnorderedReceiverOperator implements ProducerOperator {
     SUM_TX_MILLIS,
     MAX_TX_MILLIS,
     SUM_QUEUE_MILLIS,
-    MAX_QUEUE_MILLIS;
+    MAX_QUEUE_MILLIS,
+    DECOMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -84,6 +88,7 @@ public class UnorderedReceiverOperator implements ProducerOperator {
     // we may need an allocator for the new offset vector. Therefore, here we pass the context's
     // allocator to batchLoader.
     this.batchLoader = new ArrowRecordBatchLoader(outgoing);
+    this.decompressor = new BatchDecompressor(context.getAllocator());
   }
 
   @Override
@@ -109,7 +114,7 @@ public class UnorderedReceiverOperator implements ProducerOperator {
 
     batchLoader.resetRecordCount();
 
-    try (final RawFragmentBatch batch = fragProvider.getNext()) {
+    try (final RawFragmentBatch batch = decompressor.decompress(fragProvider.getNext())) {
 
       if (batch == null) {
         if (fragProvider.isStreamDone()) {
@@ -143,6 +148,8 @@ public class UnorderedReceiverOperator implements ProducerOperator {
     stats.setLongStat(Metric.MAX_TX_MILLIS, latencyTracker.getMaxTxMillis());
     stats.setLongStat(Metric.SUM_QUEUE_MILLIS, latencyTracker.getSumQueueMillis());
     stats.setLongStat(Metric.MAX_QUEUE_MILLIS, latencyTracker.getMaxQueueMillis());
+    stats.setLongStat(Metric.DECOMPRESSION_NANOS, decompressor.getDecompressionNanos());
+    stats.setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, decompressor.getBytesSaved());
     AutoCloseables.close((AutoCloseable) batchLoader, outgoing);
   }
 
@@ -215,6 +215,18 @@ public class ScanOperator implements ProducerOperator {
     NUM_ORPHAN_FILES, // Number of orphan files
     NUM_READERS_SKIPPED, // The number of readers skipped due to errors (COPY INTO 'skip_file')
     DRY_RUN_READ_TIME_NS, // The read time of the dry-run phase (COPY INTO 'skip_file')
+    PAGE_BYTES_PRUNED, // Compressed bytes of the pages skipped based on page indexes
+    BLOCK_CACHE_HITS(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Number of async reads served from the local block cache"),
+    BLOCK_CACHE_MISSES(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Number of async reads not served from the local block cache"),
+    BLOCK_CACHE_HIT_BYTES, // Bytes read from the local block cache
+    BLOCK_CACHE_MISS_BYTES, // Bytes read from the source on a block cache miss
+    BLOCK_CACHE_EVICTED_BYTES, // Bytes evicted from the block cache to make space for new blocks
     ;
 
     private final DisplayType displayType;
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.record.compression.ExchangeCompressionCodec;
+import com.dremio.exec.record.compression.ExchangeCompressionCodecs;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+
+/**
+ * Compresses the buffers of the batches sent by a sender with Arrow body compression.
+ *
+ * <p>The compression ratio of every buffer position of the batches is sampled. A position whose
+ * buffer doesn't compress below {@link ExecConstants#EXCHANGE_COMPRESSION_MAX_RATIO} (random ids,
+ * already compressed binaries...) is sent uncompressed for the next {@link #RESAMPLE_INTERVAL}
+ * batches, and a batch without any position worth compressing is sent as is.
+ *
+ * <p>Thread safe, as the partition sender shares it between its sending threads.
+ */
+public class BatchCompressor {
+  /** Buffers smaller than this are never worth compressing. */
+  @VisibleForTesting static final long MIN_COMPRESSED_BUFFER_SIZE = 512;
+
+  /** Number of batches an incompressible buffer position is sent uncompressed. */
+  @VisibleForTesting static final int RESAMPLE_INTERVAL = 64;
+
+  private final ExchangeCompressionCodec codec;
+  private final BufferAllocator allocator;
+  private final double maxRatio;
+
+  private final LongAdder compressionNanos = new LongAdder();
+  private final LongAdder bytesSaved = new LongAdder();
+
+  /** For each buffer position, the number of batches to send it uncompressed. */
+  private int[] skippedBatches = new int[0];
+
+  public BatchCompressor(OptionManager options, BufferAllocator allocator) {
+    this(
+        ExchangeCompressionCodecs.fromOption(
+            options.getOption(ExecConstants.EXCHANGE_COMPRESSION_CODEC)),
+        options.getOption(ExecConstants.EXCHANGE_COMPRESSION_MAX_RATIO),
+        allocator);
+  }
+
+  @VisibleForTesting
+  BatchCompressor(ExchangeCompressionCodec codec, double maxRatio, BufferAllocator allocator) {
+    this.codec = codec;
+    this.maxRatio = maxRatio;
+    this.allocator = allocator;
+  }
+
+  /** Compresses the batch unless it is sent in process, where compression would only cost CPU. */
+  public ArrowRecordBatch compress(ArrowRecordBatch batch, AccountingExecTunnel tunnel) {
+    return tunnel.isInProcess() ? batch : compress(batch);
+  }
+
+  /**
+   * Compresses the batch. When the returned batch is a new one, the given batch has been closed,
+   * and the buffers of the returned batch belong to this compressor's allocator.
+   */
+  public ArrowRecordBatch compress(ArrowRecordBatch batch) {
+    if (codec == null) {
+      return batch;
+    }
+
+    final List<ArrowBuf> buffers = batch.getBuffers();
+    final boolean[] compress = plan(buffers);
+    if (compress == null) {
+      return batch;
+    }
+
+    final long start = System.nanoTime();
+    final List<ArrowBuf> compressedBuffers = new ArrayList<>(buffers.size());
+    try {
+      long uncompressedSize = 0;
+      long compressedSize = 0;
+      for (int i = 0; i < buffers.size(); i++) {
+        final ArrowBuf buffer = buffers.get(i);
+        final ArrowBuf compressedBuffer;
+        if (compress[i]) {
+          compressedBuffer = compress(buffer);
+          sample(i, buffer.writerIndex(), compressedBuffer.writerIndex());
+        } else {
+          compressedBuffer = CompressionUtil.packageRawBuffer(allocator, buffer);
+        }
+        compressedBuffers.add(compressedBuffer);
+        uncompressedSize += buffer.writerIndex();
+        compressedSize += compressedBuffer.writerIndex();
+      }
+
+      final ArrowRecordBatch compressedBatch =
+          new ArrowRecordBatch(
+              batch.getLength(),
+              batch.getNodes(),
+              compressedBuffers,
+              CompressionUtil.createBodyCompression(codec),
+              false);
+      batch.close();
+      bytesSaved.add(uncompressedSize - compressedSize);
+      return compressedBatch;
+    } finally {
+      // the compressed batch holds its own references
+      compressedBuffers.forEach(ArrowBuf::close);
+      compressionNanos.add(System.nanoTime() - start);
+    }
+  }
+
+  private ArrowBuf compress(ArrowBuf buffer) {
+    // the codec releases the buffer once compressed, keep the batch's reference alive.
+    buffer.getReferenceManager().retain();
+    try {
+      return codec.compress(allocator, buffer);
+    } catch (RuntimeException e) {
+      buffer.getReferenceManager().release();
+      throw e;
+    }
+  }
+
+  /**
+   * Decides which buffers of the batch to compress.
+   *
+   * @return the buffers to compress, or null to send the batch uncompressed
+   */
+  private synchronized boolean[] plan(List<ArrowBuf> buffers) {
+    if (skippedBatches.length != buffers.size()) {
+      skippedBatches = new int[buffers.size()];
+    }
+
+    boolean[] compress = null;
+    for (int i = 0; i < buffers.size(); i++) {
+      if (buffers.get(i).writerIndex() < MIN_COMPRESSED_BUFFER_SIZE) {
+        continue;
+      }
+      if (skippedBatches[i] > 0) {
+        skippedBatches[i]--;
+        continue;
+      }
+      if (compress == null) {
+        compress = new boolean[buffers.size()];
+      }
+      compress[i] = true;
+    }
+    return compress;
+  }
+
+  private synchronized void sample(int position, long uncompressedSize, long compressedSize) {
+    if (compressedSize > uncompressedSize * maxRatio && position < skippedBatches.length) {
+      skippedBatches[position] = RESAMPLE_INTERVAL;
+    }
+  }
+
+  public long getCompressionNanos() {
+    return compressionNanos.sum();
+  }
+
+  public long getBytesSaved() {
+    return bytesSaved.sum();
+  }
+}
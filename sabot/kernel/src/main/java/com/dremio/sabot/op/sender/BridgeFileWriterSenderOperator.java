@@ -59,6 +59,7 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
   private final OptionManager options;
   private final SpillService spillService;
   private final SabotConfig sabotConfig;
+  private final BatchCompressor compressor;
 
   private State state = State.NEEDS_SETUP;
   private SpillManager spillManager;
@@ -66,7 +67,9 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
   private VectorAccessible incoming;
 
   public enum Metric implements MetricDef {
-    BYTES_SENT;
+    BYTES_SENT,
+    COMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -88,6 +91,7 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
     this.options = context.getOptions();
     this.spillService = context.getSpillService();
     this.sabotConfig = context.getConfig();
+    this.compressor = new BatchCompressor(options, allocator);
 
     logger.debug("uniqueId {}", uniqueId);
   }
@@ -137,18 +141,20 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
                 })
             .collect(Collectors.toList());
 
+    // the batches go through the disk, always worth compressing.
     FragmentWritableBatch batch =
         new FragmentWritableBatch(
             handle.getQueryId(),
             handle.getMajorFragmentId(),
             handle.getMinorFragmentId(),
             config.getReceiverMajorFragmentId(),
-            new ArrowRecordBatch(
-                arrowRecordBatch.getLength(),
-                arrowRecordBatch.getNodes(),
-                buffers,
-                NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
-                false));
+            compressor.compress(
+                new ArrowRecordBatch(
+                    arrowRecordBatch.getLength(),
+                    arrowRecordBatch.getNodes(),
+                    buffers,
+                    NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
+                    false)));
 
     // write batch to the file tunnel.
     try (AutoCloseable ac = OperatorStats.getWaitRecorder(stats)) {
@@ -200,6 +206,8 @@ public class BridgeFileWriterSenderOperator extends BaseSender {
 
   @Override
   public void close() throws Exception {
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
+    stats.setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, compressor.getBytesSaved());
     AutoCloseables.close(tunnel);
   }
 
@@ -30,12 +30,14 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Function;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.FluentIterable;
 import com.google.common.primitives.Ints;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.arrow.memory.ArrowBuf;
@@ -61,6 +63,8 @@ public class BroadcastOperator extends BaseSender {
   private final OperatorStats stats;
   private final OperatorContext context;
   private final SenderLatencyTracker latencyTracker = new SenderLatencyTracker();
+  private final BatchCompressor compressor;
+  private final boolean hasRemoteReceivers;
 
   private VectorAccessible incoming;
 
@@ -69,7 +73,9 @@ public class BroadcastOperator extends BaseSender {
     BYTES_SENT,
     BATCHES_SENT,
     SUM_ACK_MILLIS,
-    MAX_ACK_MILLIS;
+    MAX_ACK_MILLIS,
+    COMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -110,6 +116,9 @@ public class BroadcastOperator extends BaseSender {
       tunnels[i] = tunnelProvider.getExecTunnel(ep);
       i++;
     }
+    this.compressor = new BatchCompressor(context.getOptions(), context.getAllocator());
+    this.hasRemoteReceivers =
+        Arrays.stream(tunnels).anyMatch(tunnel -> !tunnel.isInProcess());
   }
 
   @Override
@@ -130,6 +139,8 @@ public class BroadcastOperator extends BaseSender {
   public void close() throws Exception {
     stats.setLongStat(Metric.SUM_ACK_MILLIS, latencyTracker.getSumAckMillis());
     stats.setLongStat(Metric.MAX_ACK_MILLIS, latencyTracker.getMaxAckMillis());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
+    stats.setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, compressor.getBytesSaved());
   }
 
   @Override
@@ -188,8 +199,21 @@ public class BroadcastOperator extends BaseSender {
                 })
             .toList();
 
+    ArrowRecordBatch batchToSend =
+        new ArrowRecordBatch(
+            arrowRecordBatch.getLength(),
+            arrowRecordBatch.getNodes(),
+            buffers,
+            NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
+            false);
+    if (hasRemoteReceivers) {
+      // compressed once for all the receivers
+      batchToSend = compressor.compress(batchToSend);
+    }
+
+    // every send releases one reference of the buffers of the batch
     if (tunnels.length > 1) {
-      for (ArrowBuf buf : buffers) {
+      for (ArrowBuf buf : batchToSend.getBuffers()) {
         buf.getReferenceManager().retain(tunnels.length - 1);
       }
     }
@@ -201,18 +225,13 @@ public class BroadcastOperator extends BaseSender {
               handle.getMajorFragmentId(),
               handle.getMinorFragmentId(),
               config.getReceiverMajorFragmentId(),
-              new ArrowRecordBatch(
-                  arrowRecordBatch.getLength(),
-                  arrowRecordBatch.getNodes(),
-                  buffers,
-                  NoCompressionCodec.DEFAULT_BODY_COMPRESSION,
-                  false),
+              batchToSend,
               receivingMinorFragments[i]);
       updateStats(batch);
       tunnels[i].sendRecordBatch(batch, latencyTracker.getLatencyObserver());
-      for (ArrowBuf buf : buffers) {
-        buf.close();
-      }
+    }
+    for (ArrowBuf buf : buffers) {
+      buf.close();
     }
   }
 
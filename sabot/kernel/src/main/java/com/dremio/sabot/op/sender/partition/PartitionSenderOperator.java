@@ -34,6 +34,7 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.sender.partition.vectorized.AdaptiveVectorizedPartitionSenderOperator;
 import com.dremio.sabot.op.sender.partition.vectorized.VectorizedPartitionSenderOperator;
@@ -76,6 +77,7 @@ public class PartitionSenderOperator extends BaseSender {
   protected final int actualPartitions;
   private long recordsConsumed = 0;
   private final SenderLatencyTracker latencyTracker = new SenderLatencyTracker();
+  private final BatchCompressor compressor;
 
   private IntArrayList terminations = new IntArrayList();
 
@@ -106,7 +108,10 @@ public class PartitionSenderOperator extends BaseSender {
     OOB_PARTITION_COUNTERS_RECEIVES, // Number of times operator received a notification of
     // partition counters from peers.
 
-    OOB_DOP; // Adjusted DOP based on oob messages
+    OOB_DOP, // Adjusted DOP based on oob messages
+
+    COMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -121,6 +126,7 @@ public class PartitionSenderOperator extends BaseSender {
     this.tunnelProvider = tunnelProvider;
     this.config = config;
     this.stats = context.getStats();
+    this.compressor = new BatchCompressor(context.getOptions(), context.getAllocator());
     outGoingBatchCount = config.getDestinations().size();
     remainingReceivers = new AtomicIntegerArray(outGoingBatchCount);
     remaingReceiverCount = new AtomicInteger(outGoingBatchCount);
@@ -203,6 +209,7 @@ public class PartitionSenderOperator extends BaseSender {
                 context,
                 tunnelProvider,
                 latencyTracker,
+                compressor,
                 actualPartitions,
                 startIndex,
                 endIndex);
@@ -301,6 +308,8 @@ public class PartitionSenderOperator extends BaseSender {
   public void close() throws Exception {
     stats.setLongStat(Metric.SUM_ACK_MILLIS, latencyTracker.getSumAckMillis());
     stats.setLongStat(Metric.MAX_ACK_MILLIS, latencyTracker.getMaxAckMillis());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
+    stats.setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, compressor.getBytesSaved());
 
     if (partitioner != null) {
       updateAggregateStats();
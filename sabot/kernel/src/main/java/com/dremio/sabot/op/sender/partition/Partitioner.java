@@ -21,6 +21,7 @@ import com.dremio.exec.record.VectorAccessible;
 import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import java.io.IOException;
 import java.util.List;
@@ -34,6 +35,7 @@ public interface Partitioner extends AutoCloseable {
       OperatorContext context,
       TunnelProvider tunnelProvider,
       SenderLatencyTracker latencyTracker,
+      BatchCompressor compressor,
       int numPartitions,
       int start,
       int end);
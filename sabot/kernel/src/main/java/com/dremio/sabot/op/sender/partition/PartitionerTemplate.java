@@ -41,6 +41,7 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
 import com.google.common.base.Throwables;
@@ -54,6 +55,7 @@ import javax.inject.Named;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.AllocationHelper;
 import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 
 public abstract class PartitionerTemplate implements Partitioner {
   private static final org.slf4j.Logger logger =
@@ -69,6 +71,7 @@ public abstract class PartitionerTemplate implements Partitioner {
 
   private int minOutgoingBatchRecordCount;
   private SenderLatencyTracker latencyTracker;
+  private BatchCompressor compressor;
 
   /** how much memory should a partition use */
   private int targetOutgoingBatchSize;
@@ -142,6 +145,7 @@ public abstract class PartitionerTemplate implements Partitioner {
       OperatorContext context,
       TunnelProvider tunnelProvider,
       SenderLatencyTracker latencyTracker,
+      BatchCompressor compressor,
       int numPartitions,
       int start,
       int end) {
@@ -151,6 +155,7 @@ public abstract class PartitionerTemplate implements Partitioner {
     this.start = start;
     this.end = end;
     this.latencyTracker = latencyTracker;
+    this.compressor = compressor;
     doSetup(context.getFunctionContext(), incoming, null);
 
     final OptionManager options = context.getOptions();
@@ -380,17 +385,20 @@ public abstract class PartitionerTemplate implements Partitioner {
         vectorContainer.buildSchema();
       }
 
+      final ArrowRecordBatch recordBatch =
+          FragmentWritableBatch.getArrowRecordBatch(vectorContainer);
+      // update the outgoing batch size if the buffer is too big
+      final long batchLength = recordBatch.computeBodyLength();
+
       FragmentWritableBatch writableBatch =
-          FragmentWritableBatch.create(
+          new FragmentWritableBatch(
               handle.getQueryId(),
               handle.getMajorFragmentId(),
               handle.getMinorFragmentId(),
               operator.getReceiverMajorFragmentId(),
-              vectorContainer,
+              compressor.compress(recordBatch, tunnel),
               oppositeMinorFragmentId);
 
-      // update the outgoing batch size if the buffer is too big
-      final long batchLength = writableBatch.getByteCount();
       if (batchLength > targetOutgoingBatchSize) {
         maxRecordCount = Math.max(minOutgoingBatchRecordCount, maxRecordCount / 2);
       } else if (batchLength * 2 <= targetOutgoingBatchSize) {
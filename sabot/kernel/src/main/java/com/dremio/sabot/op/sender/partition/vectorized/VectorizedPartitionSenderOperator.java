@@ -37,6 +37,7 @@ import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.sender.partition.PartitionSenderOperator.Metric;
 import com.dremio.sabot.op.sender.partition.vectorized.MultiDestCopier.CopyWatches;
@@ -89,6 +90,7 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
   private final Stopwatch preCopyWatch = Stopwatch.createUnstarted();
   private final Stopwatch flushWatch = Stopwatch.createUnstarted();
   private final SenderLatencyTracker latencyTracker = new SenderLatencyTracker();
+  private final BatchCompressor compressor;
 
   /**
    * number of records before we flush any outgoing batch.<br>
@@ -142,6 +144,7 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
     this.config = config;
     this.tunnelProvider = tunnelProvider;
     this.stats = context.getStats();
+    this.compressor = new BatchCompressor(context.getOptions(), context.getAllocator());
     this.numReceivers = config.getDestinations().size();
 
     remainingReceivers = new AtomicIntegerArray(numReceivers);
@@ -239,7 +242,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
               context,
               destination.getMinorFragmentId(),
               stats,
-              latencyTracker);
+              latencyTracker,
+              compressor);
       batches[batchB] =
           new OutgoingBatch(
               batchB,
@@ -252,7 +256,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
               context,
               destination.getMinorFragmentId(),
               stats,
-              latencyTracker);
+              latencyTracker,
+              compressor);
 
       if (!delayAllocSendBatches) {
         // Only allocate the primary batch. Backup batch is allocated when it is needed.
@@ -437,6 +442,8 @@ public class VectorizedPartitionSenderOperator extends BaseSender {
   public void close() throws Exception {
     stats.setLongStat(Metric.SUM_ACK_MILLIS, latencyTracker.getSumAckMillis());
     stats.setLongStat(Metric.MAX_ACK_MILLIS, latencyTracker.getMaxAckMillis());
+    stats.setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
+    stats.setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, compressor.getBytesSaved());
     AutoCloseables.close(Arrays.asList(batches), Arrays.asList(copyIndices, partitionIndices));
   }
 
@@ -29,6 +29,7 @@ import com.dremio.sabot.exec.context.OperatorContext;
 import com.dremio.sabot.exec.rpc.AccountingExecTunnel;
 import com.dremio.sabot.exec.rpc.TunnelProvider;
 import com.dremio.sabot.op.sender.BaseSender;
+import com.dremio.sabot.op.sender.BatchCompressor;
 import com.dremio.sabot.op.sender.SenderLatencyTracker;
 import com.dremio.sabot.op.spi.TerminalOperator;
 import com.google.common.base.Preconditions;
@@ -46,6 +47,7 @@ public class SingleSenderOperator extends BaseSender {
   private final FragmentHandle handle;
   private final int recMajor;
   private final SenderLatencyTracker latencyTracker;
+  private final BatchCompressor compressor;
 
   private State state = State.NEEDS_SETUP;
   private VectorAccessible incoming;
@@ -54,7 +56,9 @@ public class SingleSenderOperator extends BaseSender {
     BYTES_SENT,
     BATCHES_SENT,
     SUM_ACK_MILLIS,
-    MAX_ACK_MILLIS;
+    MAX_ACK_MILLIS,
+    COMPRESSION_NANOS,
+    BYTES_SAVED_BY_COMPRESSION;
 
     @Override
     public int metricId() {
@@ -78,18 +82,19 @@ public class SingleSenderOperator extends BaseSender {
     NodeEndpoint ep = config.getDestinations(context.getEndpointsIndex()).get(0).getEndpoint();
     this.tunnel = tunnelProvider.getExecTunnel(ep);
     this.latencyTracker = new SenderLatencyTracker();
+    this.compressor = new BatchCompressor(context.getOptions(), context.getAllocator());
   }
 
   @Override
   public void consumeData(int records) {
     Preconditions.checkArgument(records > 0);
     final FragmentWritableBatch batch =
-        FragmentWritableBatch.create(
+        new FragmentWritableBatch(
             handle.getQueryId(),
             handle.getMajorFragmentId(),
             handle.getMinorFragmentId(),
             recMajor,
-            incoming,
+            compressor.compress(FragmentWritableBatch.getArrowRecordBatch(incoming), tunnel),
             oppositeHandle.getMinorFragmentId());
     updateStats(batch);
     context.getStats().startWait();
@@ -136,6 +141,10 @@ public class SingleSenderOperator extends BaseSender {
   public void close() throws Exception {
     context.getStats().setLongStat(Metric.SUM_ACK_MILLIS, latencyTracker.getSumAckMillis());
     context.getStats().setLongStat(Metric.MAX_ACK_MILLIS, latencyTracker.getMaxAckMillis());
+    context.getStats().setLongStat(Metric.COMPRESSION_NANOS, compressor.getCompressionNanos());
+    context
+        .getStats()
+        .setLongStat(Metric.BYTES_SAVED_BY_COMPRESSION, compressor.getBytesSaved());
   }
 
   private void updateStats(FragmentWritableBatch writableBatch) {
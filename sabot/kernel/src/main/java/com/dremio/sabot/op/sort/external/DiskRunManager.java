@@ -68,6 +68,7 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.OutOfMemoryException;
@@ -130,6 +131,15 @@ public class DiskRunManager implements AutoCloseable {
   private long compressionNanos;
   private long uncompressionNanos;
 
+  // executor reading the spilled batches ahead of the merge, null if batches are not read ahead
+  private final Executor readAheadExecutor;
+  private final int readAheadBatches;
+  // number of batches read ahead per run by the current copier, 0 if memory couldn't be reserved
+  private int copierReadAheadBatches;
+  private long readAheadBatchCount;
+  private long readAheadReadNanos;
+  private long readAheadWaitNanos;
+
   private final CopierFactory copierFactory;
   private final OperatorStats operatorStats;
   private final ExecutionControls executionControls;
@@ -158,7 +168,8 @@ public class DiskRunManager implements AutoCloseable {
       ExternalSortTracer tracer,
       SpillService spillService,
       OperatorStats stats,
-      ExecutionControls executionControls)
+      ExecutionControls executionControls,
+      Executor readAheadExecutor)
       throws Exception {
     try (RollbackCloseable rollback = new RollbackCloseable()) {
       this.targetRecordCount = targetRecordCount;
@@ -181,6 +192,11 @@ public class DiskRunManager implements AutoCloseable {
       this.allocationDensity =
           optionManager.getOption(ExecConstants.EXTERNAL_SORT_SPILL_ALLOCATION_DENSITY);
       this.copierFactory = new FieldBufferCopierFactory(optionManager);
+      this.readAheadExecutor = readAheadExecutor;
+      this.readAheadBatches =
+          readAheadExecutor == null || !useArrowEncoding
+              ? 0
+              : (int) optionManager.getOption(ExecConstants.EXTERNAL_SORT_READ_AHEAD_BATCHES);
 
       if (compressSpilledBatch) {
         long reserve = VectorAccessibleSerializable.RAW_CHUNK_SIZE_TO_COMPRESS * 2;
@@ -835,22 +851,39 @@ public class DiskRunManager implements AutoCloseable {
       copierAllocator = null;
     }
 
-    long totalSizeNeeded = 0;
+    long totalBatchSize = 0;
     // for now we always read one batch from all disk runs, so we need to make sure we have enough
     // memory reserved
     // to allocate the largest batch per run
     for (DiskRun run : diskRuns) {
       long batchSize = nextPowerOfTwo(run.largestBatch);
-      totalSizeNeeded += batchSize;
+      totalBatchSize += batchSize;
     }
 
     // add the required space for the copy output. We use * 3 to manage against a really large
     // vector.
-    totalSizeNeeded += targetBatchSizeInBytes * 3;
+    final long totalSizeNeeded = totalBatchSize + targetBatchSizeInBytes * 3;
 
     // because we can't know for sure how much memory will be needed for variable length vectors we
     // don't put a limit
     // on the copy allocator. But this will still be capped by the sort allocator limit.
+    if (readAheadBatches > 0) {
+      // batches are only read ahead if the memory for them can be reserved as well
+      try {
+        final long readAheadSize = totalBatchSize * readAheadBatches;
+        copierAllocator =
+            this.parentAllocator.newChildAllocator(
+                "spill_copier", totalSizeNeeded + readAheadSize, Long.MAX_VALUE);
+        copierReadAheadBatches = readAheadBatches;
+        return;
+      } catch (OutOfMemoryException e) {
+        logger.debug(
+            "Failed to reserve memory to read ahead {} batches of {} diskruns",
+            readAheadBatches,
+            diskRuns.size());
+      }
+    }
+    copierReadAheadBatches = 0;
     copierAllocator =
         this.parentAllocator.newChildAllocator("spill_copier", totalSizeNeeded, Long.MAX_VALUE);
   }
@@ -997,9 +1030,16 @@ public class DiskRunManager implements AutoCloseable {
         BufferAllocator copierAllocator, int batchId, ExpandableHyperContainer container)
         throws Exception {
       Preconditions.checkState(iterator == null);
-      final long memCapacity = nextPowerOfTwo(largestBatch);
+      // the batch being merged, and the batches read ahead
+      final long memCapacity = (long) nextPowerOfTwo(largestBatch) * (1 + copierReadAheadBatches);
       iterator =
-          new DiskRunIterator(batchCount, spillFile, container, copierAllocator, memCapacity);
+          new DiskRunIterator(
+              batchCount,
+              spillFile,
+              container,
+              copierAllocator,
+              memCapacity,
+              copierReadAheadBatches);
 
       return iterator;
     }
@@ -1024,6 +1064,7 @@ public class DiskRunManager implements AutoCloseable {
     private int recordIndex = -1;
     private int recordIndexMax;
     private final VectorContainer container;
+    private DiskRunPrefetcher prefetcher;
 
     /*
      * DiskRunIterator opens a spill file and loads batch(es) into memory when reading spill files.
@@ -1037,7 +1078,8 @@ public class DiskRunManager implements AutoCloseable {
         SpillFile spillFile,
         ExpandableHyperContainer hyperContainer,
         BufferAllocator parentAllocator,
-        long memCapacity)
+        long memCapacity,
+        int readAheadBatches)
         throws Exception {
       try (RollbackCloseable rollback = new RollbackCloseable()) {
         this.allocator = rollback.add(parentAllocator.newChildAllocator("diskrun", 0, memCapacity));
@@ -1046,6 +1088,17 @@ public class DiskRunManager implements AutoCloseable {
         this.batchIndexMax = batchCount;
         loadNextBatch(true);
         hyperContainer.addBatch(this.container);
+        if (readAheadBatches > 0 && batchCount > 1) {
+          inputStream.setReadAhead();
+          this.prefetcher =
+              new DiskRunPrefetcher(
+                  inputStream,
+                  allocator,
+                  dataSchema,
+                  readAheadExecutor,
+                  readAheadBatches,
+                  batchCount - 1);
+        }
         rollback.commit();
       } catch (Exception e) {
         /* close spill file read stream if failure happened after stream was successfully opened */
@@ -1062,6 +1115,11 @@ public class DiskRunManager implements AutoCloseable {
           "You tried to go beyond end of available batches to read.");
       container.zeroVectors();
 
+      if (prefetcher != null) {
+        loadPrefetchedBatch();
+        return;
+      }
+
       if (useArrowEncoding) {
         inputStream.load(container, allocator);
         recordIndexMax = container.getRecordCount();
@@ -1103,9 +1161,34 @@ public class DiskRunManager implements AutoCloseable {
       recordIndex = -1;
     }
 
+    private void loadPrefetchedBatch() throws IOException {
+      final Stopwatch watch = Stopwatch.createStarted();
+      final DiskRunPrefetcher.PrefetchedBatch batch = prefetcher.next();
+      final long waitNanos = watch.elapsed(TimeUnit.NANOSECONDS);
+      readAheadBatchCount++;
+      readAheadReadNanos += batch.getReadNanos();
+      readAheadWaitNanos += waitNanos;
+      if (operatorStats != null) {
+        operatorStats.moveProcessingToWait(waitNanos);
+      }
+
+      try (VectorContainer incoming = batch.getContainer()) {
+        final Iterator<VectorWrapper<?>> wrapperIterator = incoming.iterator();
+        for (VectorWrapper<?> w : container) {
+          final ValueVector sourceVector = wrapperIterator.next().getValueVector();
+          sourceVector.makeTransferPair(w.getValueVector()).transfer();
+        }
+        recordIndexMax = incoming.getRecordCount();
+      }
+      container.setRecordCount(recordIndexMax);
+      batchIndex++;
+      recordIndex = -1;
+    }
+
     @Override
     public void close() throws Exception {
-      AutoCloseables.close(container, allocator, inputStream);
+      // the prefetcher must be done with the stream and the allocator before they are closed
+      AutoCloseables.close(prefetcher, container, allocator, inputStream);
     }
 
     public int getNextId() throws IOException {
@@ -1154,6 +1237,19 @@ public class DiskRunManager implements AutoCloseable {
     return spillManager.getIOWriteWait();
   }
 
+  public long getReadAheadBatchCount() {
+    return readAheadBatchCount;
+  }
+
+  /** Time spent reading spilled batches that the merge didn't have to wait for. */
+  public long getReadAheadSavedNanos() {
+    return Math.max(0, readAheadReadNanos - readAheadWaitNanos);
+  }
+
+  public long getReadAheadWaitNanos() {
+    return readAheadWaitNanos;
+  }
+
   public long getOOMAllocateCount() {
     return oomAllocate;
   }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.arrow.memory.BufferAllocator;
+
+/**
+ * Reads the batches of a spilled run ahead of the merge, so that the merge doesn't wait on the
+ * disk each time a run runs dry.
+ *
+ * <p>Batches are read in order on the executor, one at a time, into containers allocated from the
+ * run's allocator. Reading stops once readAheadBatches batches are waiting to be consumed, and
+ * resumes as they are taken with {@link #next()}. The stream must not be used by anyone else
+ * while the prefetcher is open.
+ */
+class DiskRunPrefetcher implements AutoCloseable {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(DiskRunPrefetcher.class);
+
+  private final SpillInputStream inputStream;
+  private final BufferAllocator allocator;
+  private final BatchSchema schema;
+  private final Executor executor;
+  private final int readAheadBatches;
+
+  // guarded by this
+  private final Deque<PrefetchedBatch> batches = new ArrayDeque<>();
+  private int batchesToRead;
+  private boolean reading;
+  private boolean closed;
+  private Throwable failure;
+
+  /** A batch read ahead, and how long it took to read it. */
+  static final class PrefetchedBatch {
+    private final VectorContainer container;
+    private final long readNanos;
+
+    private PrefetchedBatch(VectorContainer container, long readNanos) {
+      this.container = container;
+      this.readNanos = readNanos;
+    }
+
+    /** The batch, to be closed by the caller. */
+    VectorContainer getContainer() {
+      return container;
+    }
+
+    long getReadNanos() {
+      return readNanos;
+    }
+  }
+
+  /**
+   * @param inputStream stream of the spilled run, positioned at the next batch to read
+   * @param allocator allocator of the read batches
+   * @param schema schema of the spilled batches
+   * @param executor executor to read the batches on
+   * @param readAheadBatches maximum number of read batches waiting to be consumed
+   * @param batchesToRead number of batches left in the stream
+   */
+  DiskRunPrefetcher(
+      SpillInputStream inputStream,
+      BufferAllocator allocator,
+      BatchSchema schema,
+      Executor executor,
+      int readAheadBatches,
+      int batchesToRead) {
+    Preconditions.checkArgument(readAheadBatches > 0);
+    this.inputStream = inputStream;
+    this.allocator = allocator;
+    this.schema = schema;
+    this.executor = executor;
+    this.readAheadBatches = readAheadBatches;
+    synchronized (this) {
+      this.batchesToRead = batchesToRead;
+      startReadIfNeeded();
+    }
+  }
+
+  private synchronized void startReadIfNeeded() {
+    if (reading
+        || closed
+        || failure != null
+        || batchesToRead == 0
+        || batches.size() >= readAheadBatches) {
+      return;
+    }
+
+    reading = true;
+    try {
+      executor.execute(this::readBatch);
+    } catch (RejectedExecutionException e) {
+      reading = false;
+      failure = e;
+    }
+  }
+
+  private void readBatch() {
+    final Stopwatch watch = Stopwatch.createStarted();
+    VectorContainer container = null;
+    Throwable readFailure = null;
+    try {
+      container = VectorContainer.create(allocator, schema);
+      inputStream.load(container, allocator);
+    } catch (Throwable t) {
+      // the waiting consumer must always be notified
+      readFailure = t;
+      AutoCloseables.closeNoChecked(container);
+      container = null;
+    }
+
+    synchronized (this) {
+      reading = false;
+      if (readFailure != null) {
+        logger.debug(
+            "Failure while reading ahead spilled run {}", inputStream.getPath(), readFailure);
+        failure = readFailure;
+      } else if (closed) {
+        AutoCloseables.closeNoChecked(container);
+      } else {
+        batches.add(new PrefetchedBatch(container, watch.elapsed(TimeUnit.NANOSECONDS)));
+        batchesToRead--;
+        startReadIfNeeded();
+      }
+      notifyAll();
+    }
+  }
+
+  /**
+   * Get the next batch of the run, waiting for it to be read if necessary.
+   *
+   * @return the next batch
+   * @throws IOException if the batch couldn't be read
+   */
+  synchronized PrefetchedBatch next() throws IOException {
+    while (batches.isEmpty() && failure == null) {
+      Preconditions.checkState(reading, "You tried to go beyond end of available batches to read.");
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while reading spilled run");
+      }
+    }
+
+    if (failure != null) {
+      throw new IOException("Failure while reading spilled run " + inputStream.getPath(), failure);
+    }
+
+    final PrefetchedBatch batch = batches.poll();
+    startReadIfNeeded();
+    return batch;
+  }
+
+  /** Waits for the read in flight, if any, and releases the batches not consumed. */
+  @Override
+  public synchronized void close() throws Exception {
+    closed = true;
+    boolean interrupted = false;
+    while (reading) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        // the stream can't be closed while it is read
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    final Deque<VectorContainer> containers = new ArrayDeque<>();
+    for (PrefetchedBatch batch : batches) {
+      containers.add(batch.container);
+    }
+    batches.clear();
+    AutoCloseables.close(containers);
+  }
+}
@@ -123,6 +123,7 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
   private int maxBatchesInMemory = 0;
   private int batchsizeMultiplier;
   private boolean enableSplaySort;
+  private boolean enableRadixSort;
   private boolean enableMicroSpill;
   private State prevState;
   private SortState prevSortState;
@@ -189,6 +190,7 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
       final boolean compressSpilledBatch =
           options.getOption(ExecConstants.EXTERNAL_SORT_COMPRESS_SPILL_FILES);
       this.enableSplaySort = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT);
+      this.enableRadixSort = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT);
       this.unconsumedRef = null;
       this.enableMicroSpill = options.getOption(ExecConstants.EXTERNAL_SORT_ENABLE_MICRO_SPILL);
       this.consumePendingIncomingBatch = false;
@@ -204,6 +206,7 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
               tracer,
               batchsizeMultiplier,
               enableSplaySort,
+              enableRadixSort,
               targetBatchSize,
               context.getExecutionControls());
       rollback.add(this.memoryRun);
@@ -232,7 +235,8 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
               tracer,
               context.getSpillService(),
               context.getStats(),
-              context.getExecutionControls());
+              context.getExecutionControls(),
+              context.getSpillService().getReadAheadExecutor());
       rollback.add(this.diskRuns);
 
       tracer.setTargetBatchSize(targetBatchSize);
@@ -579,6 +583,12 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
           ExternalSortStats.Metric.OOM_ALLOCATE_COUNT, diskRuns.getOOMAllocateCount());
       stats.setLongStat(ExternalSortStats.Metric.OOM_COPY_COUNT, diskRuns.getOOMCopyCount());
       stats.setLongStat(ExternalSortStats.Metric.SPILL_COPY_NANOS, diskRuns.getSpillCopyNanos());
+      stats.setLongStat(
+          ExternalSortStats.Metric.READ_AHEAD_BATCHES, diskRuns.getReadAheadBatchCount());
+      stats.setLongStat(
+          ExternalSortStats.Metric.READ_AHEAD_WAIT_NANOS, diskRuns.getReadAheadWaitNanos());
+      stats.setLongStat(
+          ExternalSortStats.Metric.READ_AHEAD_SAVED_NANOS, diskRuns.getReadAheadSavedNanos());
     }
   }
 
@@ -601,6 +611,7 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
               tracer,
               batchsizeMultiplier,
               enableSplaySort,
+              enableRadixSort,
               targetBatchSize,
               context.getExecutionControls());
     } catch (Exception e) {
@@ -640,6 +651,7 @@ public class ExternalSortOperator implements SingleInputOperator, ShrinkableOper
             tracer,
             batchsizeMultiplier,
             enableSplaySort,
+            enableRadixSort,
             targetBatchSize,
             context.getExecutionControls());
 
@@ -67,6 +67,14 @@ public class ExternalSortStats {
 
     OOM_ALLOCATE_COUNT,
     OOM_COPY_COUNT,
+
+    // read ahead of spilled runs while merging
+    READ_AHEAD_BATCHES, // Number of spilled batches read ahead of the merge
+    READ_AHEAD_WAIT_NANOS, // Time the merge waited for batches being read ahead
+    READ_AHEAD_SAVED_NANOS(
+        DisplayType.DISPLAY_BY_DEFAULT,
+        AggregationType.SUM,
+        "Time spent reading spilled batches hidden by read ahead"),
     ;
 
     private final UserBitShared.MetricDef.DisplayType displayType;
@@ -43,7 +43,8 @@ import org.apache.arrow.vector.types.pojo.Schema;
 
 /**
  * Describes a set of ordered batches of data in memory. Sort each batch as it is inserted using the
- * Sorter. Sorter can be configured to use QuickSort (by default) or SplaySort.
+ * Sorter. Sorter can be configured to use QuickSort (by default), SplaySort or a radix sort of
+ * normalized keys (when the sort keys support it).
  *
  * <p>Memory Guarantees Targeted: - Ensure that spilling can be done before accepting a new batch of
  * records. We do this by pre-reserving BATCH_SIZE_MULTIPLIER times the size of the largest batch
@@ -91,6 +92,7 @@ class MemoryRun implements AutoCloseable {
       ExternalSortTracer tracer,
       int batchsizeMultiplier,
       boolean useSplaySort,
+      boolean useRadixSort,
       int targetBatchSize,
       ExecutionControls executionControls) {
     this.schema = schema;
@@ -104,6 +106,8 @@ class MemoryRun implements AutoCloseable {
     try {
       if (useSplaySort) {
         this.sorter = new SplaySorter(sortConfig, classProducer, schema, allocator);
+      } else if (useRadixSort && RadixSorter.canSort(sortConfig.getOrderings(), schema)) {
+        this.sorter = new RadixSorter(sortConfig, classProducer, schema, allocator);
       } else {
         this.sorter = new QuickSorter(sortConfig, classProducer, schema, allocator);
       }
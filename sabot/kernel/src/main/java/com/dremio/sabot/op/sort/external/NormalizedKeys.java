@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.logical.data.Order.Ordering;
+import io.netty.util.internal.PlatformDependent;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.calcite.rel.RelFieldCollation.Direction;
+
+/**
+ * Encodes the sort keys of a record into a fixed width, byte comparable key: comparing two keys
+ * with an unsigned byte comparison gives the same result as the generated row comparator.
+ *
+ * <p>Each sort key is encoded as a null byte followed by its value, big endian:
+ *
+ * <ul>
+ *   <li>integers have their sign bit flipped,
+ *   <li>floating points are ordered like {@link Double#compare(double, double)} by flipping their
+ *       sign bit, or all their bits when negative,
+ *   <li>VARCHAR and VARBINARY keep a zero padded prefix of {@link #VARLEN_PREFIX_SIZE} bytes.
+ * </ul>
+ *
+ * All the bytes of a descending key are inverted. As a truncated value doesn't order the records,
+ * the keys following a variable width key are not encoded: the normalized key is then not exact,
+ * and records with equal normalized keys must be compared again with the row comparator.
+ */
+final class NormalizedKeys {
+  static final int VARLEN_PREFIX_SIZE = 16;
+
+  private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+  private final KeyColumn[] columns;
+  private final int width;
+  private final boolean exact;
+
+  private NormalizedKeys(KeyColumn[] columns, int width, boolean exact) {
+    this.columns = columns;
+    this.width = width;
+    this.exact = exact;
+  }
+
+  /**
+   * Get the normalized keys of the given orderings.
+   *
+   * @param orderings sort orderings
+   * @param schema schema of the sorted records
+   * @return the normalized keys, or null if one of the orderings is not a reference to a column
+   *     of a supported type
+   */
+  static NormalizedKeys create(List<Ordering> orderings, Schema schema) {
+    final List<KeyColumn> columns = new ArrayList<>(orderings.size());
+    int offset = 0;
+    boolean exact = true;
+    for (int i = 0; i < orderings.size() && exact; i++) {
+      final Ordering ordering = orderings.get(i);
+      final int fieldIndex = getFieldIndex(ordering.getExpr(), schema);
+      if (fieldIndex < 0) {
+        return null;
+      }
+
+      final Field field = schema.getFields().get(fieldIndex);
+      final boolean descending = ordering.getDirection() != Direction.ASCENDING;
+      final boolean nullsHigh = ordering.nullsSortHigh();
+      final KeyColumn column;
+      switch (Types.getMinorTypeForArrowType(field.getType())) {
+        case BIT:
+          column = new BitKey(fieldIndex, offset, descending, nullsHigh);
+          break;
+        case INT:
+        case TIMEMILLI:
+          column = new IntKey(fieldIndex, offset, descending, nullsHigh);
+          break;
+        case BIGINT:
+        case DATEMILLI:
+        case TIMESTAMPMILLI:
+          column = new BigIntKey(fieldIndex, offset, descending, nullsHigh);
+          break;
+        case FLOAT4:
+          column = new Float4Key(fieldIndex, offset, descending, nullsHigh);
+          break;
+        case FLOAT8:
+          column = new Float8Key(fieldIndex, offset, descending, nullsHigh);
+          break;
+        case VARCHAR:
+        case VARBINARY:
+          column = new VarLenKey(fieldIndex, offset, descending, nullsHigh);
+          exact = false;
+          break;
+        default:
+          return null;
+      }
+      columns.add(column);
+      offset += column.width;
+    }
+    return new NormalizedKeys(columns.toArray(new KeyColumn[0]), offset, exact);
+  }
+
+  private static int getFieldIndex(LogicalExpression expr, Schema schema) {
+    if (!(expr instanceof SchemaPath)) {
+      return -1;
+    }
+    final SchemaPath path = (SchemaPath) expr;
+    if (!path.getRootSegment().isLastPath()) {
+      return -1;
+    }
+    final String name = path.getRootSegment().getPath();
+    final List<Field> fields = schema.getFields();
+    for (int i = 0; i < fields.size(); i++) {
+      if (fields.get(i).getName().equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Size (in bytes) of a normalized key. */
+  int getWidth() {
+    return width;
+  }
+
+  /** Whether two records with equal normalized keys are always equal for the sort. */
+  boolean isExact() {
+    return exact;
+  }
+
+  /**
+   * Write the normalized key of a record.
+   *
+   * @param vectors vectors of the batch, in schema order
+   * @param index index of the record in the batch
+   * @param addr memory address to write the key to
+   */
+  void write(List<ValueVector> vectors, int index, long addr) {
+    for (KeyColumn column : columns) {
+      column.write(vectors.get(column.fieldIndex), index, addr + column.offset);
+    }
+  }
+
+  private static int toBigEndian(int value) {
+    return LITTLE_ENDIAN ? Integer.reverseBytes(value) : value;
+  }
+
+  private static long toBigEndian(long value) {
+    return LITTLE_ENDIAN ? Long.reverseBytes(value) : value;
+  }
+
+  /**
+   * Compare the first bytes of two normalized keys as unsigned bytes.
+   *
+   * @return a negative integer, zero, or a positive integer as the left key is less than, equal
+   *     to, or greater than the right key
+   */
+  static int compare(long leftAddr, long rightAddr, int length) {
+    int i = 0;
+    for (; i + 8 <= length; i += 8) {
+      final long left = PlatformDependent.getLong(leftAddr + i);
+      final long right = PlatformDependent.getLong(rightAddr + i);
+      if (left != right) {
+        return Long.compareUnsigned(toBigEndian(left), toBigEndian(right));
+      }
+    }
+    for (; i < length; i++) {
+      final int left = PlatformDependent.getByte(leftAddr + i) & 0xFF;
+      final int right = PlatformDependent.getByte(rightAddr + i) & 0xFF;
+      if (left != right) {
+        return left - right;
+      }
+    }
+    return 0;
+  }
+
+  private abstract static class KeyColumn {
+    private final int fieldIndex;
+    private final int offset;
+    private final int width;
+    private final boolean descending;
+    private final boolean nullsHigh;
+
+    KeyColumn(int fieldIndex, int offset, int valueWidth, boolean descending, boolean nullsHigh) {
+      this.fieldIndex = fieldIndex;
+      this.offset = offset;
+      this.width = valueWidth + 1;
+      this.descending = descending;
+      this.nullsHigh = nullsHigh;
+    }
+
+    /** Write the value of a non null record, big endian. */
+    abstract void writeValue(ValueVector vector, int index, long addr);
+
+    final void write(ValueVector vector, int index, long addr) {
+      if (vector.isNull(index)) {
+        PlatformDependent.putByte(addr, (byte) (nullsHigh ? 1 : 0));
+        PlatformDependent.setMemory(addr + 1, width - 1, (byte) 0);
+      } else {
+        PlatformDependent.putByte(addr, (byte) (nullsHigh ? 0 : 1));
+        writeValue(vector, index, addr + 1);
+      }
+
+      if (descending) {
+        for (int i = 0; i < width; i++) {
+          PlatformDependent.putByte(addr + i, (byte) ~PlatformDependent.getByte(addr + i));
+        }
+      }
+    }
+  }
+
+  private static final class BitKey extends KeyColumn {
+    BitKey(int fieldIndex, int offset, boolean descending, boolean nullsHigh) {
+      super(fieldIndex, offset, 1, descending, nullsHigh);
+    }
+
+    @Override
+    void writeValue(ValueVector vector, int index, long addr) {
+      PlatformDependent.putByte(addr, (byte) ((BitVector) vector).get(index));
+    }
+  }
+
+  private static final class IntKey extends KeyColumn {
+    IntKey(int fieldIndex, int offset, boolean descending, boolean nullsHigh) {
+      super(fieldIndex, offset, 4, descending, nullsHigh);
+    }
+
+    @Override
+    void writeValue(ValueVector vector, int index, long addr) {
+      final int value = ((BaseFixedWidthVector) vector).getDataBuffer().getInt((long) index * 4);
+      PlatformDependent.putInt(addr, toBigEndian(value ^ Integer.MIN_VALUE));
+    }
+  }
+
+  private static final class BigIntKey extends KeyColumn {
+    BigIntKey(int fieldIndex, int offset, boolean descending, boolean nullsHigh) {
+      super(fieldIndex, offset, 8, descending, nullsHigh);
+    }
+
+    @Override
+    void writeValue(ValueVector vector, int index, long addr) {
+      final long value = ((BaseFixedWidthVector) vector).getDataBuffer().getLong((long) index * 8);
+      PlatformDependent.putLong(addr, toBigEndian(value ^ Long.MIN_VALUE));
+    }
+  }
+
+  private static final class Float4Key extends KeyColumn {
+    Float4Key(int fieldIndex, int offset, boolean descending, boolean nullsHigh) {
+      super(fieldIndex, offset, 4, descending, nullsHigh);
+    }
+
+    @Override
+    void writeValue(ValueVector vector, int index, long addr) {
+      final float value =
+          ((BaseFixedWidthVector) vector).getDataBuffer().getFloat((long) index * 4);
+      // floatToIntBits collapses all the NaNs, like Float.compare
+      final int bits = Float.floatToIntBits(value);
+      PlatformDependent.putInt(addr, toBigEndian(bits ^ ((bits >> 31) | Integer.MIN_VALUE)));
+    }
+  }
+
+  private static final class Float8Key extends KeyColumn {
+    Float8Key(int fieldIndex, int offset, boolean descending, boolean nullsHigh) {
+      super(fieldIndex, offset, 8, descending, nullsHigh);
+    }
+
+    @Override
+    void writeValue(ValueVector vector, int index, long addr) {
+      final double value =
+          ((BaseFixedWidthVector) vector).getDataBuffer().getDouble((long) index * 8);
+      // doubleToLongBits collapses all the NaNs, like Double.compare
+      final long bits = Double.doubleToLongBits(value);
+      PlatformDependent.putLong(addr, toBigEndian(bits ^ ((bits >> 63) | Long.MIN_VALUE)));
+    }
+  }
+
+  private static final class VarLenKey extends KeyColumn {
+    VarLenKey(int fieldIndex, int offset, boolean descending, boolean nullsHigh) {
+      super(fieldIndex, offset, VARLEN_PREFIX_SIZE, descending, nullsHigh);
+    }
+
+    @Override
+    void writeValue(ValueVector vector, int index, long addr) {
+      final BaseVariableWidthVector varLenVector = (BaseVariableWidthVector) vector;
+      final long offsetAddr = varLenVector.getOffsetBufferAddress();
+      final long startAddr = offsetAddr + (long) index * BaseVariableWidthVector.OFFSET_WIDTH;
+      final int start = PlatformDependent.getInt(startAddr);
+      final int end = PlatformDependent.getInt(startAddr + BaseVariableWidthVector.OFFSET_WIDTH);
+      final int length = Math.min(end - start, VARLEN_PREFIX_SIZE);
+      PlatformDependent.copyMemory(varLenVector.getDataBufferAddress() + start, addr, length);
+      PlatformDependent.setMemory(addr + length, VARLEN_PREFIX_SIZE - length, (byte) 0);
+    }
+  }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.logical.data.Order.Ordering;
+import com.dremio.exec.exception.ClassTransformationException;
+import com.dremio.exec.exception.SchemaChangeException;
+import com.dremio.exec.expr.ClassGenerator;
+import com.dremio.exec.expr.ClassProducer;
+import com.dremio.exec.expr.CodeGenerator;
+import com.dremio.exec.physical.config.ExternalSort;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.exec.record.selection.SelectionVector2;
+import com.dremio.exec.record.selection.SelectionVector4;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import io.netty.util.internal.PlatformDependent;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.hadoop.util.IndexedSortable;
+import org.apache.hadoop.util.QuickSort;
+
+/**
+ * Sorts the records with a MSD radix sort of their normalized keys (see {@link NormalizedKeys}).
+ *
+ * <p>As each batch is added, the normalized key of each record is written to an off-heap buffer,
+ * followed by the sv4 index of the record. The final sort permutes these entries in place, one
+ * key byte at a time, and insertion sorts the small ranges. The generated row comparator is only
+ * used to order records whose keys are equal and may have been truncated (long VARCHAR or
+ * VARBINARY values).
+ *
+ * <p>Only sorts on columns of fixed width numeric, date/time, boolean, VARCHAR and VARBINARY types
+ * are supported, see {@link #canSort(List, Schema)}.
+ */
+public class RadixSorter implements Sorter {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(RadixSorter.class);
+
+  private static final int INDEX_WIDTH = 4;
+  private static final int RADIX = 256;
+  // ranges up to this size are insertion sorted
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+  private static final int INITIAL_RECORD_CAPACITY = 4096;
+
+  private final ExternalSort sortConfig;
+  private final ClassProducer classProducer;
+  private final Schema schema;
+  private final BufferAllocator allocator;
+  private final NormalizedKeys keys;
+  private final int keyWidth;
+  private final int recordWidth;
+
+  private RadixSorterInterface rowComparator;
+  private ArrowBuf keyBuffer;
+  private int totalCount;
+
+  // per key byte, the end and next free position of each bucket
+  private int[][] bucketEnds;
+  private int[][] bucketNexts;
+
+  public RadixSorter(
+      ExternalSort sortConfig,
+      ClassProducer classProducer,
+      Schema schema,
+      BufferAllocator allocator) {
+    this.sortConfig = sortConfig;
+    this.classProducer = classProducer;
+    this.schema = schema;
+    this.allocator = allocator;
+    this.keys = NormalizedKeys.create(sortConfig.getOrderings(), schema);
+    Preconditions.checkArgument(keys != null, "Radix sort doesn't support the sort orderings");
+    this.keyWidth = keys.getWidth();
+    this.recordWidth = keyWidth + INDEX_WIDTH;
+    this.keyBuffer = allocator.getEmpty();
+  }
+
+  /**
+   * Whether a radix sort can be used for the given orderings.
+   *
+   * @param orderings sort orderings
+   * @param schema schema of the sorted records
+   * @return true if all the orderings are on columns whose values can be normalized
+   */
+  public static boolean canSort(List<Ordering> orderings, Schema schema) {
+    return NormalizedKeys.create(orderings, schema) != null;
+  }
+
+  @Override
+  public boolean expandMemoryIfNecessary(int newRequiredSize) {
+    try {
+      // Expand the key buffer, double size each time. One more entry is used as swap space.
+      final long requiredSize = (long) (newRequiredSize + 1) * recordWidth;
+      while (keyBuffer.capacity() < requiredSize) {
+        final ArrowBuf oldKeyBuffer = keyBuffer;
+        final long minimumSize = (long) INITIAL_RECORD_CAPACITY * recordWidth;
+        this.keyBuffer = allocator.buffer(Math.max(oldKeyBuffer.capacity() * 2, minimumSize));
+        keyBuffer.setBytes(0, oldKeyBuffer, 0, (long) totalCount * recordWidth);
+        oldKeyBuffer.close();
+      }
+    } catch (OutOfMemoryException ex) {
+      return false;
+    }
+
+    return true;
+  }
+
+  @Override
+  public void setup(VectorAccessible batch)
+      throws ClassTransformationException, SchemaChangeException, IOException {
+    // Compile the row comparator, used to break ties.
+    CodeGenerator<RadixSorterInterface> cg =
+        classProducer.createGenerator(RadixSorterInterface.TEMPLATE_DEFINITION);
+    ClassGenerator<RadixSorterInterface> g = cg.getRoot();
+    final Sv4HyperContainer container = new Sv4HyperContainer(allocator, schema);
+    ExternalSortOperator.generateComparisons(
+        g, container, sortConfig.getOrderings(), classProducer);
+    this.rowComparator = cg.getImplementationClass();
+    rowComparator.init(classProducer.getFunctionContext(), container);
+    totalCount = 0;
+  }
+
+  @Override
+  public void addBatch(RecordBatchData data, BufferAllocator copyTargetAllocator)
+      throws SchemaChangeException {
+    final Stopwatch watch = Stopwatch.createStarted();
+
+    final int batchIndex = rowComparator.add(data);
+    final List<ValueVector> vectors = data.getVectors();
+    final SelectionVector2 incomingSv2 = data.getSv2();
+    final int recordCount = data.getRecordCount();
+    assert (long) (totalCount + recordCount + 1) * recordWidth <= keyBuffer.capacity();
+
+    long recordAddr = getRecordAddress(totalCount);
+    for (int count = 0; count < recordCount; count++, recordAddr += recordWidth) {
+      final int index = incomingSv2 != null ? incomingSv2.getIndex(count) : count;
+      keys.write(vectors, index, recordAddr);
+      PlatformDependent.putInt(recordAddr + keyWidth, (batchIndex << 16) | (index & 65535));
+    }
+    totalCount += recordCount;
+
+    logger.debug(
+        "Took {} us to normalize {} records for batch number {}",
+        watch.elapsed(TimeUnit.MICROSECONDS),
+        recordCount,
+        batchIndex);
+  }
+
+  @Override
+  public ExpandableHyperContainer getHyperBatch() {
+    if (rowComparator != null) {
+      return rowComparator.getHyperBatch();
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public int getHyperBatchSize() {
+    if (rowComparator != null) {
+      return rowComparator.getHyperBatch().size();
+    } else {
+      return 0;
+    }
+  }
+
+  @Override
+  public SelectionVector4 getFinalSort(BufferAllocator copyTargetAllocator, int targetBatchSize) {
+    Stopwatch watch = Stopwatch.createStarted();
+
+    bucketEnds = new int[keyWidth][];
+    bucketNexts = new int[keyWidth][];
+    radixSort(0, totalCount, 0);
+    if (!keys.isExact()) {
+      breakTies();
+    }
+
+    SelectionVector4 finalSortedSV4 =
+        new SelectionVector4(
+            copyTargetAllocator.buffer(totalCount * 4), totalCount, targetBatchSize);
+    for (int i = 0; i < totalCount; i++) {
+      finalSortedSV4.set(i, getIndex(i));
+    }
+
+    logger.debug(
+        "Took {} us to final sort {} records in {} batches",
+        watch.elapsed(TimeUnit.MICROSECONDS),
+        totalCount,
+        getHyperBatchSize());
+
+    return finalSortedSV4;
+  }
+
+  private long getRecordAddress(int position) {
+    return keyBuffer.memoryAddress() + (long) position * recordWidth;
+  }
+
+  private int getIndex(int position) {
+    return PlatformDependent.getInt(getRecordAddress(position) + keyWidth);
+  }
+
+  private int getDigit(int position, int byteIndex) {
+    return PlatformDependent.getByte(getRecordAddress(position) + byteIndex) & 0xFF;
+  }
+
+  private void copyRecord(int from, int to) {
+    PlatformDependent.copyMemory(getRecordAddress(from), getRecordAddress(to), recordWidth);
+  }
+
+  private void swapRecords(int left, int right) {
+    // the entry after the last record is used as swap space
+    copyRecord(left, totalCount);
+    copyRecord(right, left);
+    copyRecord(totalCount, right);
+  }
+
+  /**
+   * Sort the records in [start, end), whose keys have the same first byteIndex bytes, by the
+   * remaining bytes of their keys.
+   */
+  private void radixSort(int start, int end, int byteIndex) {
+    while (true) {
+      if (end - start <= INSERTION_SORT_THRESHOLD) {
+        insertionSort(start, end, byteIndex);
+        return;
+      }
+      if (byteIndex == keyWidth) {
+        return;
+      }
+
+      if (bucketEnds[byteIndex] == null) {
+        bucketEnds[byteIndex] = new int[RADIX];
+        bucketNexts[byteIndex] = new int[RADIX];
+      }
+      final int[] ends = bucketEnds[byteIndex];
+      final int[] nexts = bucketNexts[byteIndex];
+
+      Arrays.fill(ends, 0);
+      for (int i = start; i < end; i++) {
+        ends[getDigit(i, byteIndex)]++;
+      }
+      if (ends[getDigit(start, byteIndex)] == end - start) {
+        // all the keys share this byte, move on to the next one
+        byteIndex++;
+        continue;
+      }
+
+      int position = start;
+      for (int digit = 0; digit < RADIX; digit++) {
+        nexts[digit] = position;
+        position += ends[digit];
+        ends[digit] = position;
+      }
+
+      // permute the records in place: each swap moves one record to its bucket
+      for (int digit = 0; digit < RADIX; digit++) {
+        while (nexts[digit] < ends[digit]) {
+          final int recordDigit = getDigit(nexts[digit], byteIndex);
+          if (recordDigit == digit) {
+            nexts[digit]++;
+          } else {
+            swapRecords(nexts[digit], nexts[recordDigit]++);
+          }
+        }
+      }
+
+      int bucketStart = start;
+      for (int digit = 0; digit < RADIX; digit++) {
+        final int bucketEnd = ends[digit];
+        if (bucketEnd - bucketStart > 1) {
+          radixSort(bucketStart, bucketEnd, byteIndex + 1);
+        }
+        bucketStart = bucketEnd;
+      }
+      return;
+    }
+  }
+
+  private void insertionSort(int start, int end, int byteIndex) {
+    final int length = keyWidth - byteIndex;
+    final long swapAddr = getRecordAddress(totalCount) + byteIndex;
+    for (int i = start + 1; i < end; i++) {
+      if (NormalizedKeys.compare(
+              getRecordAddress(i - 1) + byteIndex, getRecordAddress(i) + byteIndex, length)
+          <= 0) {
+        continue;
+      }
+      copyRecord(i, totalCount);
+      int j = i - 1;
+      do {
+        copyRecord(j, j + 1);
+        j--;
+      } while (j >= start
+          && NormalizedKeys.compare(getRecordAddress(j) + byteIndex, swapAddr, length) > 0);
+      copyRecord(totalCount, j + 1);
+    }
+  }
+
+  /** Sort the runs of records with equal keys with the row comparator. */
+  private void breakTies() {
+    final IndexedSortable run =
+        new IndexedSortable() {
+          @Override
+          public int compare(int left, int right) {
+            return rowComparator.compare(getIndex(left), getIndex(right));
+          }
+
+          @Override
+          public void swap(int left, int right) {
+            // keys are equal, only the indices need to be swapped
+            final int leftIndex = getIndex(left);
+            PlatformDependent.putInt(getRecordAddress(left) + keyWidth, getIndex(right));
+            PlatformDependent.putInt(getRecordAddress(right) + keyWidth, leftIndex);
+          }
+        };
+
+    final QuickSort quickSort = new QuickSort();
+    int start = 0;
+    while (start < totalCount) {
+      int end = start + 1;
+      while (end < totalCount
+          && NormalizedKeys.compare(getRecordAddress(start), getRecordAddress(end), keyWidth)
+              == 0) {
+        end++;
+      }
+      if (end - start > 1) {
+        quickSort.sort(run, start, end);
+      }
+      start = end;
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(keyBuffer);
+    keyBuffer = null;
+  }
+}
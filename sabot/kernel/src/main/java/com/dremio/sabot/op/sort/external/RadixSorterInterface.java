@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import com.dremio.exec.compile.TemplateClassDefinition;
+import com.dremio.exec.exception.SchemaChangeException;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.sabot.exec.context.FunctionContext;
+
+/**
+ * Holds the batches of a {@link RadixSorter} and compares their records with the generated row
+ * comparator, which is only used to break ties between equal normalized keys.
+ */
+public interface RadixSorterInterface extends AutoCloseable {
+  static TemplateClassDefinition<RadixSorterInterface> TEMPLATE_DEFINITION =
+      new TemplateClassDefinition<RadixSorterInterface>(
+          RadixSorterInterface.class, RadixSorterTemplate.class);
+
+  void init(FunctionContext context, ExpandableHyperContainer hyperContainer)
+      throws SchemaChangeException;
+
+  /**
+   * Add a batch to the hyper batch.
+   *
+   * @return index of the batch in the hyper batch
+   */
+  int add(final RecordBatchData batch) throws SchemaChangeException;
+
+  /** Compare two records, addressed by their sv4 index. */
+  int compare(int leftIndex, int rightIndex);
+
+  ExpandableHyperContainer getHyperBatch();
+
+  @Override
+  void close() throws Exception;
+}
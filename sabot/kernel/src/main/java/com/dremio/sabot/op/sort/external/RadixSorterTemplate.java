@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.exec.exception.SchemaChangeException;
+import com.dremio.exec.record.ExpandableHyperContainer;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.VectorAccessible;
+import com.dremio.sabot.exec.context.FunctionContext;
+import javax.inject.Named;
+
+public abstract class RadixSorterTemplate implements RadixSorterInterface {
+
+  private FunctionContext context;
+  private ExpandableHyperContainer hyperBatch;
+
+  @Override
+  public void init(FunctionContext context, ExpandableHyperContainer hyperContainer)
+      throws SchemaChangeException {
+    this.context = context;
+    this.hyperBatch = hyperContainer;
+    doSetup(context, hyperContainer, null);
+  }
+
+  @Override
+  public int add(final RecordBatchData batch) throws SchemaChangeException {
+    final int batchIndex = hyperBatch.size();
+    hyperBatch.addBatch(batch.getVectorAccessible());
+    doSetup(context, hyperBatch, null);
+    return batchIndex;
+  }
+
+  @Override
+  public int compare(int leftIndex, int rightIndex) {
+    return doEval(leftIndex, rightIndex);
+  }
+
+  @Override
+  public ExpandableHyperContainer getHyperBatch() {
+    return hyperBatch;
+  }
+
+  @Override
+  public void close() throws Exception {
+    AutoCloseables.close(hyperBatch);
+  }
+
+  public abstract void doSetup(
+      @Named("context") FunctionContext context,
+      @Named("incoming") VectorAccessible incoming,
+      @Named("outgoing") VectorAccessible outgoing);
+
+  public abstract int doEval(
+      @Named("leftIndex") int leftIndex, @Named("rightIndex") int rightIndex);
+}
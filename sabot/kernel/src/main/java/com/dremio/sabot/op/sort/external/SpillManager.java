@@ -325,6 +325,7 @@ public class SpillManager implements AutoCloseable {
     private final InputStreamWithStats base;
     private final SpillFile file;
     private boolean compressed;
+    private boolean readAhead;
     private VectorAccessibleFlatBufSerializable serializable;
 
     private SpillInputStream(
@@ -341,6 +342,14 @@ public class SpillManager implements AutoCloseable {
       return compressed;
     }
 
+    /**
+     * Marks the stream as read ahead by a background thread, its IO time is then not accounted as
+     * operator wait time.
+     */
+    public void setReadAhead() {
+      this.readAhead = true;
+    }
+
     public Path getPath() {
       return file.getPath();
     }
@@ -381,7 +390,7 @@ public class SpillManager implements AutoCloseable {
     @Override
     public void close() throws IOException {
       super.close();
-      if (stats != null) {
+      if (stats != null && !readAhead) {
         stats.moveProcessingToWait(getIOTime());
       }
       ioReadWaitNanos += getIOTime();
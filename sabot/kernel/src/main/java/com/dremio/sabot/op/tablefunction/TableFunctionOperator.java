@@ -51,7 +51,13 @@ public class TableFunctionOperator implements SingleInputOperator {
     NUM_SNAPSHOT_IDS, // Number of snapshot ids
     DELETE_ORPHAN_FILES_TIME, // Time taken to delete orphan files
     NUM_ORPHAN_FILES_DELETED, // Number of orphan files deleted
-    NUM_ORPHAN_FILES_FAIL_TO_DELETE // Number of orphan files not deleted successfully
+    NUM_ORPHAN_FILES_FAIL_TO_DELETE, // Number of orphan files not deleted successfully
+    NUM_POS_DELETE_INDEX_CACHE_HITS, // Data files whose positional deletes were cached
+    NUM_POS_DELETE_INDEX_CACHE_MISSES, // Data files whose positional deletes were read from files
+    POS_DELETE_INDEX_BUILD_TIME_NS, // Time taken to build cached positional delete indexes
+    NUM_EQ_DELETE_TABLE_CACHE_HITS, // Equality delete files served from the executor cache
+    NUM_EQ_DELETE_TABLE_CACHE_MISSES, // Equality delete files read and hashed for the cache
+    EQ_DELETE_TABLE_BUILD_TIME_NS // Time taken to build cached equality delete hash tables
   ;
 
     @Override
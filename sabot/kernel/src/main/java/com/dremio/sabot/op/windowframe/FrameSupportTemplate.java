@@ -363,6 +363,8 @@ public abstract class FrameSupportTemplate implements WindowFramer {
       if (hasPrevBatch) {
         processROWFromPrevBatch(
             row, targetStartOffset, Math.min(targetEndOffset, 0), currentBatchIndex - 1);
+        // the batches read by the recursive call may have spilled the previous batch
+        previous = getPrevBatch(currentBatchIndex);
       }
       targetStartOffset = 0;
     }
@@ -415,6 +417,8 @@ public abstract class FrameSupportTemplate implements WindowFramer {
             Math.max(targetStartOffset - lastRow, 0),
             endOffset - lastRow,
             currentBatchIndex + 1);
+        // the batches read by the recursive call may have spilled the next batch
+        next = getNextBatch(currentBatchIndex);
       }
       // targetEndOffset in this case will last row in this batch
       targetEndOffset = lastRow;
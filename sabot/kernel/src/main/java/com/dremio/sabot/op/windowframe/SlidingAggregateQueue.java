@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.windowframe;
+
+import java.util.Arrays;
+
+/**
+ * A FIFO queue of values that returns the aggregate (SUM, MIN or MAX) of the values it holds in
+ * amortized constant time.
+ *
+ * <p>Values can't be removed from a MIN or MAX aggregate, and removing them from a floating point
+ * sum would accumulate rounding errors, so the queue is made of two stacks instead: values are
+ * pushed on the back stack, which keeps the aggregate of all its values. When the front stack is
+ * empty and a value is removed, the back stack is moved to the front stack, which keeps for each
+ * value the aggregate of this value and of all the values pushed after it. Each value is moved at
+ * most once.
+ *
+ * <p>Values are longs, doubles are stored as their raw long bits. Null values are stored as the
+ * identity of the operation, and are only counted in {@link #size()}.
+ */
+final class SlidingAggregateQueue {
+  private static final int INITIAL_CAPACITY = 16;
+
+  enum Operation {
+    SUM,
+    MIN,
+    MAX
+  }
+
+  private final Operation operation;
+  private final boolean floatingPoint;
+  private final long identity;
+
+  // values pushed since the last move to the front stack, and their aggregate
+  private long[] backValues = new long[INITIAL_CAPACITY];
+  private boolean[] backNulls = new boolean[INITIAL_CAPACITY];
+  private int backSize;
+  private long backAggregate;
+
+  // aggregate of each value of the front stack and of the values above it, top of the stack is
+  // the oldest value
+  private long[] frontAggregates = new long[INITIAL_CAPACITY];
+  private boolean[] frontNulls = new boolean[INITIAL_CAPACITY];
+  private int frontSize;
+
+  private int nonNullCount;
+
+  SlidingAggregateQueue(Operation operation, boolean floatingPoint) {
+    this.operation = operation;
+    this.floatingPoint = floatingPoint;
+    this.identity = getIdentity(operation, floatingPoint);
+    this.backAggregate = identity;
+  }
+
+  private static long getIdentity(Operation operation, boolean floatingPoint) {
+    switch (operation) {
+      case SUM:
+        return floatingPoint ? Double.doubleToRawLongBits(0) : 0;
+      case MIN:
+        return floatingPoint
+            ? Double.doubleToRawLongBits(Double.POSITIVE_INFINITY)
+            : Long.MAX_VALUE;
+      case MAX:
+        return floatingPoint
+            ? Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY)
+            : Long.MIN_VALUE;
+      default:
+        throw new UnsupportedOperationException("Unsupported operation " + operation);
+    }
+  }
+
+  private long combine(long left, long right) {
+    if (floatingPoint) {
+      final double l = Double.longBitsToDouble(left);
+      final double r = Double.longBitsToDouble(right);
+      switch (operation) {
+        case SUM:
+          return Double.doubleToRawLongBits(l + r);
+        case MIN:
+          return Double.doubleToRawLongBits(Math.min(l, r));
+        default:
+          return Double.doubleToRawLongBits(Math.max(l, r));
+      }
+    }
+
+    switch (operation) {
+      case SUM:
+        return left + right;
+      case MIN:
+        return Math.min(left, right);
+      default:
+        return Math.max(left, right);
+    }
+  }
+
+  void push(long value) {
+    push(value, false);
+  }
+
+  void push(double value) {
+    push(Double.doubleToRawLongBits(value), false);
+  }
+
+  void pushNull() {
+    push(identity, true);
+  }
+
+  private void push(long value, boolean isNull) {
+    if (backSize == backValues.length) {
+      backValues = Arrays.copyOf(backValues, backSize * 2);
+      backNulls = Arrays.copyOf(backNulls, backSize * 2);
+    }
+    backValues[backSize] = value;
+    backNulls[backSize] = isNull;
+    backSize++;
+    backAggregate = combine(backAggregate, value);
+    if (!isNull) {
+      nonNullCount++;
+    }
+  }
+
+  /** Removes the oldest value. */
+  void pop() {
+    if (frontSize == 0) {
+      moveToFront();
+    }
+    frontSize--;
+    if (!frontNulls[frontSize]) {
+      nonNullCount--;
+    }
+  }
+
+  private void moveToFront() {
+    if (frontAggregates.length < backSize) {
+      frontAggregates = new long[backValues.length];
+      frontNulls = new boolean[backValues.length];
+    }
+    long aggregate = identity;
+    for (int i = backSize - 1; i >= 0; i--) {
+      aggregate = combine(backValues[i], aggregate);
+      frontAggregates[frontSize] = aggregate;
+      frontNulls[frontSize] = backNulls[i];
+      frontSize++;
+    }
+    backSize = 0;
+    backAggregate = identity;
+  }
+
+  void clear() {
+    backSize = 0;
+    frontSize = 0;
+    backAggregate = identity;
+    nonNullCount = 0;
+  }
+
+  /**
+   * @return number of values in the queue, including null values
+   */
+  int size() {
+    return frontSize + backSize;
+  }
+
+  int getNonNullCount() {
+    return nonNullCount;
+  }
+
+  /**
+   * @return aggregate of the values in the queue, the identity of the operation if there is none
+   */
+  long getLong() {
+    if (frontSize == 0) {
+      return backAggregate;
+    }
+    return combine(frontAggregates[frontSize - 1], backAggregate);
+  }
+
+  double getDouble() {
+    return Double.longBitsToDouble(getLong());
+  }
+}
@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.windowframe;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.ValueExpressions;
+import com.dremio.common.logical.data.NamedExpression;
+import com.dremio.exec.expr.ClassGenerator;
+import com.dremio.exec.expr.ClassProducer;
+import com.dremio.exec.expr.FunctionHolderExpr;
+import com.dremio.exec.expr.ValueVectorReadExpression;
+import com.dremio.exec.physical.config.WindowPOP;
+import com.dremio.exec.physical.config.WindowPOP.Bound;
+import com.dremio.exec.record.TypedFieldId;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.sabot.op.windowframe.SlidingAggregateQueue.Operation;
+import java.util.List;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+
+/**
+ * Evaluates SUM, $SUM0, COUNT, MIN, MAX and AVG of an INT, BIGINT, FLOAT or DOUBLE column over a
+ * ROWS frame with bounded offsets, e.g. ROWS BETWEEN 10 PRECEDING AND 5 FOLLOWING.
+ *
+ * <p>The generated {@link FrameSupportTemplate} aggregates the whole frame of each row, which costs
+ * O(rows x frame size). Here the frame of each row is derived from the frame of the previous row
+ * of the same partition: the rows leaving the frame are removed from a {@link
+ * SlidingAggregateQueue}, the rows entering it are added, so each row costs amortized O(1).
+ *
+ * <p>The function is evaluated by {@link WindowFrameOperator} and not by the generated framers,
+ * which are only used to compare the partition keys.
+ */
+class SlidingFrameAggregate extends WindowFunction.WindowAggregate {
+
+  private enum Kind {
+    SUM,
+    SUM0,
+    COUNT,
+    MIN,
+    MAX,
+    AVG
+  }
+
+  private enum InputType {
+    INT,
+    BIGINT,
+    FLOAT4,
+    FLOAT8
+  }
+
+  private final Kind kind;
+  // null when counting rows, e.g. COUNT(*)
+  private final InputType inputType;
+  private final int[] inputFieldIds;
+  private final ValueVector output;
+  private final int lowerOffset;
+  private final int upperOffset;
+  private final SlidingAggregateQueue queue;
+
+  private List<VectorContainer> batches;
+  private WindowFramer comparator;
+
+  private final Cursor head = new Cursor();
+  // frame of the last row, positions are relative to the first row of the current batch. The
+  // queue holds the rows from firstPosition (included) to nextPosition (excluded)
+  private int firstPosition;
+  private int nextPosition;
+  // true when the row at nextPosition is past the end of the partition
+  private boolean partitionEndReached;
+  // batch evaluated by the last call to evaluate()
+  private int lastBatchIndex = -1;
+
+  private SlidingFrameAggregate(
+      Kind kind,
+      InputType inputType,
+      int[] inputFieldIds,
+      ValueVector output,
+      int lowerOffset,
+      int upperOffset) {
+    this.kind = kind;
+    this.inputType = inputType;
+    this.inputFieldIds = inputFieldIds;
+    this.output = output;
+    this.lowerOffset = lowerOffset;
+    this.upperOffset = upperOffset;
+    final boolean floatingPoint = inputType == InputType.FLOAT4 || inputType == InputType.FLOAT8;
+    this.queue = new SlidingAggregateQueue(getOperation(kind), floatingPoint);
+  }
+
+  /**
+   * @return true if the frame of the window can be evaluated by a sliding frame aggregate
+   */
+  static boolean isSupported(WindowPOP pop) {
+    return pop.isFrameUnitsRows()
+        && !pop.getLowerBound().isUnbounded()
+        && !pop.getUpperBound().isUnbounded();
+  }
+
+  /**
+   * Materializes the window function, and adds its output vector to the outgoing container.
+   *
+   * @param ne window function
+   * @param pop window definition
+   * @param outgoing outgoing container, its first vectors are the incoming vectors
+   * @param producer class producer used to materialize the function
+   * @return the aggregate, or null if the function, its input or its frame are not supported, in
+   *     which case nothing is added to outgoing
+   */
+  static SlidingFrameAggregate create(
+      NamedExpression ne, WindowPOP pop, VectorContainer outgoing, ClassProducer producer) {
+    if (!isSupported(pop)) {
+      return null;
+    }
+
+    final LogicalExpression aggregate = producer.materialize(ne.getExpr(), outgoing);
+    if (!(aggregate instanceof FunctionHolderExpr)) {
+      return null;
+    }
+    final FunctionHolderExpr function = (FunctionHolderExpr) aggregate;
+    final Kind kind = getKind(function.getName());
+    if (kind == null) {
+      return null;
+    }
+
+    InputType inputType = null;
+    int[] inputFieldIds = null;
+    final List<LogicalExpression> args = function.args;
+    if (kind == Kind.COUNT && (args.isEmpty() || isConstant(args.get(0)))) {
+      // counts the rows of the frame
+    } else {
+      if (args.size() != 1 || !(args.get(0) instanceof ValueVectorReadExpression)) {
+        return null;
+      }
+      final TypedFieldId fieldId = ((ValueVectorReadExpression) args.get(0)).getFieldId();
+      if (fieldId.isHyperReader() || fieldId.getFieldIds().length != 1) {
+        return null;
+      }
+      inputFieldIds = fieldId.getFieldIds();
+      inputType =
+          getInputType(
+              outgoing.getValueAccessorById(FieldVector.class, inputFieldIds).getValueVector());
+      if (inputType == null) {
+        return null;
+      }
+    }
+
+    final CompleteType outputType = aggregate.getCompleteType();
+    if (!(outputType.isBigInt()
+        || outputType.isInt()
+        || outputType.isDouble()
+        || outputType.isFloat())) {
+      return null;
+    }
+
+    final ValueVector output = outgoing.addOrGet(outputType.toField(ne.getRef()));
+    return new SlidingFrameAggregate(
+        kind,
+        inputType,
+        inputFieldIds,
+        output,
+        getOffset(pop.getLowerBound()),
+        getOffset(pop.getUpperBound()));
+  }
+
+  private static Kind getKind(String name) {
+    switch (name.toLowerCase()) {
+      case "sum":
+        return Kind.SUM;
+      case "$sum0":
+        return Kind.SUM0;
+      case "count":
+        return Kind.COUNT;
+      case "min":
+        return Kind.MIN;
+      case "max":
+        return Kind.MAX;
+      case "avg":
+        return Kind.AVG;
+      default:
+        return null;
+    }
+  }
+
+  private static Operation getOperation(Kind kind) {
+    switch (kind) {
+      case MIN:
+        return Operation.MIN;
+      case MAX:
+        return Operation.MAX;
+      default:
+        return Operation.SUM;
+    }
+  }
+
+  private static boolean isConstant(LogicalExpression expr) {
+    return expr instanceof ValueExpressions.IntExpression
+        || expr instanceof ValueExpressions.LongExpression;
+  }
+
+  private static InputType getInputType(ValueVector vector) {
+    if (vector instanceof IntVector) {
+      return InputType.INT;
+    } else if (vector instanceof BigIntVector) {
+      return InputType.BIGINT;
+    } else if (vector instanceof Float4Vector) {
+      return InputType.FLOAT4;
+    } else if (vector instanceof Float8Vector) {
+      return InputType.FLOAT8;
+    }
+    return null;
+  }
+
+  /**
+   * @return offset of the bound relative to the current row
+   */
+  private static int getOffset(Bound bound) {
+    switch (bound.getType()) {
+      case PRECEDING:
+        return -bound.getOffset();
+      case FOLLOWING:
+        return bound.getOffset();
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * @param batches batches of the operator
+   * @param comparator framer used to compare the partition keys of two rows
+   */
+  void setup(List<VectorContainer> batches, WindowFramer comparator) {
+    this.batches = batches;
+    this.comparator = comparator;
+  }
+
+  /** Evaluates the aggregate for all the rows of a batch, and writes it in the output vector. */
+  void evaluate(int batchIndex) {
+    final VectorContainer current = batches.get(batchIndex);
+    final int recordCount = current.getRecordCount();
+    for (int row = 0; row < recordCount; row++) {
+      final boolean samePartition =
+          row == 0
+              ? continuesPreviousBatch(batchIndex, current)
+              : comparator.isSamePartition(row - 1, current, row, current);
+      if (samePartition) {
+        slideFrame(current, row);
+      } else {
+        startFrame(batchIndex, current, row);
+      }
+      write(row);
+    }
+    lastBatchIndex = batchIndex;
+  }
+
+  /**
+   * Checks if the first row of the batch is in the same partition as the last row of the previous
+   * batch, in which case the frame of the last row is moved to the current batch.
+   *
+   * @return true if the frame of the previous row can be reused
+   */
+  private boolean continuesPreviousBatch(int batchIndex, VectorContainer current) {
+    if (batchIndex == 0 || lastBatchIndex != batchIndex - 1) {
+      return false;
+    }
+    final VectorContainer previous = batches.get(batchIndex - 1);
+    final int previousCount = previous.getRecordCount();
+    if (previous.isNewSchema()
+        || previousCount == 0
+        || !comparator.isSamePartition(previousCount - 1, previous, 0, current)) {
+      return false;
+    }
+    firstPosition -= previousCount;
+    nextPosition -= previousCount;
+    return true;
+  }
+
+  /** Computes the frame of the first row of the batch, or of a partition, from scratch. */
+  private void startFrame(int batchIndex, VectorContainer current, int row) {
+    queue.clear();
+    partitionEndReached = false;
+
+    final int lower = row + lowerOffset;
+    head.seek(batchIndex, row);
+    int first = row;
+    if (lower < row) {
+      // the frame starts in the previous rows, stop at the start of the partition or at the
+      // first batch that was already released
+      while (first > lower && head.previous() && head.isSamePartition(row, current)) {
+        first--;
+      }
+      head.seek(batchIndex, row);
+      for (int i = row; i > first; i--) {
+        head.previous();
+      }
+    } else {
+      for (; first < lower; first++) {
+        head.next();
+      }
+    }
+
+    firstPosition = first;
+    nextPosition = first;
+    fill(current, row);
+  }
+
+  /** Computes the frame of a row from the frame of the previous row of the same partition. */
+  private void slideFrame(VectorContainer current, int row) {
+    final int lower = row + lowerOffset;
+    while (firstPosition < lower && firstPosition < nextPosition) {
+      queue.pop();
+      firstPosition++;
+    }
+    // the frame may not overlap with the frame of the previous row
+    while (nextPosition < lower) {
+      head.next();
+      nextPosition++;
+      firstPosition++;
+    }
+    fill(current, row);
+  }
+
+  /** Adds the rows up to the end of the frame of row, that are in the partition of row. */
+  private void fill(VectorContainer current, int row) {
+    final int upper = row + upperOffset;
+    while (nextPosition <= upper && !partitionEndReached) {
+      if (!head.isValid() || !head.isSamePartition(row, current)) {
+        partitionEndReached = true;
+        break;
+      }
+      head.push();
+      head.next();
+      nextPosition++;
+    }
+  }
+
+  private void write(int row) {
+    final int count = inputType == null ? queue.size() : queue.getNonNullCount();
+    switch (kind) {
+      case COUNT:
+        writeLong(row, count);
+        return;
+      case AVG:
+        if (count == 0) {
+          writeNull(row);
+        } else if (isFloatingPoint()) {
+          writeDouble(row, queue.getDouble() / count);
+        } else {
+          writeDouble(row, (double) queue.getLong() / count);
+        }
+        return;
+      case SUM0:
+        if (count == 0) {
+          writeLong(row, 0);
+          return;
+        }
+        break;
+      default:
+        if (count == 0) {
+          writeNull(row);
+          return;
+        }
+    }
+
+    if (isFloatingPoint()) {
+      writeDouble(row, queue.getDouble());
+    } else {
+      writeLong(row, queue.getLong());
+    }
+  }
+
+  private boolean isFloatingPoint() {
+    return inputType == InputType.FLOAT4 || inputType == InputType.FLOAT8;
+  }
+
+  private void writeLong(int row, long value) {
+    if (output instanceof BigIntVector) {
+      ((BigIntVector) output).setSafe(row, value);
+    } else if (output instanceof IntVector) {
+      ((IntVector) output).setSafe(row, (int) value);
+    } else if (output instanceof Float8Vector) {
+      ((Float8Vector) output).setSafe(row, value);
+    } else {
+      ((Float4Vector) output).setSafe(row, value);
+    }
+  }
+
+  private void writeDouble(int row, double value) {
+    if (output instanceof Float8Vector) {
+      ((Float8Vector) output).setSafe(row, value);
+    } else if (output instanceof Float4Vector) {
+      ((Float4Vector) output).setSafe(row, (float) value);
+    } else if (output instanceof BigIntVector) {
+      ((BigIntVector) output).setSafe(row, (long) value);
+    } else {
+      ((IntVector) output).setSafe(row, (int) value);
+    }
+  }
+
+  private void writeNull(int row) {
+    ((BaseFixedWidthVector) output).setNull(row);
+  }
+
+  /** Evaluated by the operator, the framers don't generate any code for it. */
+  @Override
+  void generateCode(ClassGenerator<WindowFramer> cg) {}
+
+  /**
+   * A position in the batches, moved one row at a time. The batch is fetched again from the
+   * batches for each access, as it may have been spilled since the last one.
+   */
+  private final class Cursor {
+    private int batchIndex;
+    private int row;
+    private FieldVector vector;
+    private int vectorBatchIndex = -1;
+
+    void seek(int batchIndex, int row) {
+      this.batchIndex = batchIndex;
+      this.row = row;
+    }
+
+    /**
+     * @return true if the cursor is on a row of a batch that is still available
+     */
+    boolean isValid() {
+      return batchIndex >= 0
+          && batchIndex < batches.size()
+          && row >= 0
+          && !batches.get(batchIndex).isNewSchema()
+          && row < batches.get(batchIndex).getRecordCount();
+    }
+
+    /** Moves to the next row, skipping empty batches. */
+    void next() {
+      row++;
+      while (batchIndex < batches.size() && row >= batches.get(batchIndex).getRecordCount()) {
+        batchIndex++;
+        row = 0;
+      }
+    }
+
+    /**
+     * Moves to the previous row, skipping empty batches.
+     *
+     * @return false if there is no previous row available
+     */
+    boolean previous() {
+      row--;
+      while (row < 0) {
+        batchIndex--;
+        if (batchIndex < 0 || batches.get(batchIndex).isNewSchema()) {
+          return false;
+        }
+        row = batches.get(batchIndex).getRecordCount() - 1;
+      }
+      return true;
+    }
+
+    boolean isSamePartition(int currentRow, VectorContainer current) {
+      return comparator.isSamePartition(currentRow, current, row, batches.get(batchIndex));
+    }
+
+    /** Adds the value of the row to the queue. */
+    void push() {
+      if (inputType == null) {
+        queue.push(1L);
+        return;
+      }
+
+      final VectorContainer batch = batches.get(batchIndex);
+      if (vectorBatchIndex != batchIndex) {
+        // spilled batches are read back in the same vectors
+        vector = batch.getValueAccessorById(FieldVector.class, inputFieldIds).getValueVector();
+        vectorBatchIndex = batchIndex;
+      }
+      if (vector.isNull(row)) {
+        queue.pushNull();
+        return;
+      }
+      switch (inputType) {
+        case INT:
+          queue.push((long) ((IntVector) vector).get(row));
+          break;
+        case BIGINT:
+          queue.push(((BigIntVector) vector).get(row));
+          break;
+        case FLOAT4:
+          queue.push((double) ((Float4Vector) vector).get(row));
+          break;
+        default:
+          queue.push(((Float8Vector) vector).get(row));
+          break;
+      }
+    }
+  }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.windowframe;
+
+import com.dremio.common.AutoCloseables;
+import com.dremio.common.exceptions.UserException;
+import com.dremio.common.utils.protos.QueryIdHelper;
+import com.dremio.exec.proto.ExecProtos.FragmentHandle;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.sort.external.SpillManager;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillFile;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillInputStream;
+import com.dremio.sabot.op.sort.external.SpillManager.SpillOutputStream;
+import com.google.common.base.Stopwatch;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.arrow.memory.BufferAllocator;
+
+/**
+ * The batches buffered by {@link WindowFrameOperator}, paged to the spill service when they don't
+ * fit in memory.
+ *
+ * <p>A spilled batch keeps its {@link VectorContainer}, only its buffers are released. It is read
+ * back in the same container the next time it is accessed, so the vectors the generated framers
+ * were set up with stay valid once the batch is back in memory. A batch is spilled only once: its
+ * spill file is kept until the batch is released, and spilling it again only releases its
+ * buffers.
+ *
+ * <p>The framers access the batches through views, see {@link #newView()}. Batches that may still
+ * be referenced by the framers or by the operator are never spilled:
+ *
+ * <ul>
+ *   <li>the batch being processed, and the batches just before and after it
+ *   <li>the last batch received
+ *   <li>the last two batches accessed through each view (e.g. the last batch of a frame that spans
+ *       several batches)
+ *   <li>while reading the batches before the one being processed, the batches after it
+ * </ul>
+ */
+class SpillableBatchList implements AutoCloseable {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(SpillableBatchList.class);
+
+  // spill when less than 20% of the memory would be available, same as the external sort
+  private static final double MIN_HEADROOM_RATIO = 0.2;
+
+  private final OperatorContext context;
+  private final BufferAllocator allocator;
+  private final int operatorId;
+  private final boolean spillEnabled;
+  private final int maxBatchesInMemory;
+
+  private final List<Entry> entries = new ArrayList<>();
+  // batches in memory, least recently accessed first
+  private final LinkedHashSet<Entry> inMemory = new LinkedHashSet<>();
+  private final List<View> views = new ArrayList<>();
+
+  private SpillManager spillManager;
+  private int currentBatchIndex;
+  private int nextFileId;
+
+  private long spillCount;
+  private long spilledBytes;
+  private long spillNanos;
+  private long reloadCount;
+  private long reloadNanos;
+
+  private static final class Entry {
+    private final int index;
+    private final VectorContainer container;
+    private SpillFile spillFile;
+    private boolean spilled;
+    private long spilledSize;
+
+    private Entry(int index, VectorContainer container) {
+      this.index = index;
+      this.container = container;
+    }
+
+    private boolean isReleased() {
+      return container.isNewSchema();
+    }
+  }
+
+  /** A read-only view of the batches, that tracks the last two batches it accessed. */
+  private final class View extends AbstractList<VectorContainer> {
+    private int lastIndex = -1;
+    private int previousIndex = -1;
+
+    @Override
+    public VectorContainer get(int index) {
+      if (index != lastIndex) {
+        previousIndex = lastIndex;
+        lastIndex = index;
+      }
+      return SpillableBatchList.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return entries.size();
+    }
+
+    private boolean isPinned(int index) {
+      return index == lastIndex || index == previousIndex;
+    }
+  }
+
+  /**
+   * @param context operator context
+   * @param operatorId local id of the operator, used to name the spill directory
+   * @param spillEnabled false to keep all the batches in memory
+   * @param maxBatchesInMemory maximum number of batches kept in memory, 0 to only spill when
+   *     running low on memory
+   */
+  SpillableBatchList(
+      OperatorContext context, int operatorId, boolean spillEnabled, int maxBatchesInMemory) {
+    this.context = context;
+    this.allocator = context.getAllocator();
+    this.operatorId = operatorId;
+    this.spillEnabled = spillEnabled;
+    this.maxBatchesInMemory = maxBatchesInMemory;
+  }
+
+  /**
+   * @return a new view of the batches, for a framer
+   */
+  List<VectorContainer> newView() {
+    final View view = new View();
+    views.add(view);
+    return view;
+  }
+
+  /** Adds a batch, and spills other batches if needed to make room for it. */
+  void add(VectorContainer batch) {
+    final Entry entry = new Entry(entries.size(), batch);
+    entries.add(entry);
+    inMemory.add(entry);
+    makeRoom(0, 0, -1);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * @return the batch at index, read back in memory if it was spilled. Released batches are
+   *     returned as is
+   */
+  VectorContainer get(int index) {
+    final Entry entry = entries.get(index);
+    if (entry.isReleased()) {
+      return entry.container;
+    }
+
+    if (entry.spilled) {
+      makeRoom(1, entry.spilledSize, index);
+      reload(entry);
+    }
+    // move the batch to the end of the access order
+    inMemory.remove(entry);
+    inMemory.add(entry);
+    return entry.container;
+  }
+
+  VectorContainer getLast() {
+    return get(entries.size() - 1);
+  }
+
+  /** Sets the index of the batch being processed. */
+  void setCurrentBatchIndex(int currentBatchIndex) {
+    this.currentBatchIndex = currentBatchIndex;
+  }
+
+  boolean isReleased(int index) {
+    return entries.get(index).isReleased();
+  }
+
+  /** Releases the batch at index, and its spill file if any. */
+  void release(int index) {
+    final Entry entry = entries.get(index);
+    inMemory.remove(entry);
+    entry.spilled = false;
+    final SpillFile spillFile = entry.spillFile;
+    entry.spillFile = null;
+    try {
+      AutoCloseables.close(entry.container, spillFile);
+    } catch (Exception e) {
+      throw UserException.dataWriteError(e)
+          .message("Failure while deleting spilled window batch")
+          .build(logger);
+    }
+  }
+
+  /**
+   * @return memory (in bytes) of the batches in memory that can be spilled
+   */
+  long getSpillableMemory() {
+    if (!spillEnabled) {
+      return 0;
+    }
+
+    long size = 0;
+    for (Entry entry : inMemory) {
+      if (!isPinned(entry.index, -1)) {
+        size += getBufferSize(entry.container);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Spills batches until the requested amount of memory is released, or no more batches can be
+   * spilled.
+   *
+   * @param size amount of memory (in bytes) to release
+   */
+  void spill(long size) {
+    if (!spillEnabled) {
+      return;
+    }
+
+    long released = 0;
+    while (released < size) {
+      final Entry victim = findVictim(-1);
+      if (victim == null) {
+        return;
+      }
+      released += spill(victim);
+    }
+  }
+
+  /**
+   * Spills batches until there is enough memory to read back a batch.
+   *
+   * @param batchesNeeded number of batches to make room for
+   * @param sizeNeeded memory (in bytes) to make room for
+   * @param requestedIndex index of the batch being read back, -1 if none
+   */
+  private void makeRoom(int batchesNeeded, long sizeNeeded, int requestedIndex) {
+    if (!spillEnabled) {
+      return;
+    }
+
+    while (isMemoryLow(sizeNeeded)
+        || (maxBatchesInMemory > 0 && inMemory.size() + batchesNeeded > maxBatchesInMemory)) {
+      final Entry victim = findVictim(requestedIndex);
+      if (victim == null) {
+        return;
+      }
+      spill(victim);
+    }
+  }
+
+  private boolean isMemoryLow(long sizeNeeded) {
+    final double headroom = allocator.getHeadroom() - sizeNeeded;
+    final double total = allocator.getAllocatedMemory() + allocator.getHeadroom();
+    return headroom / total < MIN_HEADROOM_RATIO;
+  }
+
+  /**
+   * @param requestedIndex index of the batch being read back, -1 if none
+   * @return the least recently accessed batch that can be spilled, null if there is none
+   */
+  private Entry findVictim(int requestedIndex) {
+    for (Entry entry : inMemory) {
+      if (!isPinned(entry.index, requestedIndex)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private boolean isPinned(int index, int requestedIndex) {
+    if (Math.abs(index - currentBatchIndex) <= 1
+        || index == entries.size() - 1
+        || index == requestedIndex) {
+      return true;
+    }
+    // batches before the current one are read while frames after it are still being evaluated
+    if (requestedIndex >= 0 && requestedIndex < currentBatchIndex && index > currentBatchIndex) {
+      return true;
+    }
+    for (View view : views) {
+      if (view.isPinned(index)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private long spill(Entry entry) {
+    final long size = getBufferSize(entry.container);
+    if (entry.spillFile == null) {
+      final Stopwatch watch = Stopwatch.createStarted();
+      try {
+        if (spillManager == null) {
+          spillManager = createSpillManager();
+        }
+        final SpillFile spillFile = spillManager.getSpillFile("batch-" + nextFileId++);
+        entry.spillFile = spillFile;
+        try (SpillOutputStream output = spillFile.create(false)) {
+          spilledBytes += output.writeBatch(entry.container);
+        }
+      } catch (IOException e) {
+        throw UserException.dataWriteError(e)
+            .message("Failure while spilling window batch")
+            .build(logger);
+      }
+      spillCount++;
+      spillNanos += watch.elapsed(TimeUnit.NANOSECONDS);
+      logger.debug(
+          "spilled batch {} ({} bytes) to {}", entry.index, size, entry.spillFile.getPath());
+    }
+
+    entry.container.zeroVectors();
+    entry.spilled = true;
+    entry.spilledSize = size;
+    inMemory.remove(entry);
+    return size;
+  }
+
+  private void reload(Entry entry) {
+    final Stopwatch watch = Stopwatch.createStarted();
+    try (SpillInputStream input = entry.spillFile.open(false)) {
+      input.load(entry.container, allocator);
+    } catch (IOException e) {
+      throw UserException.dataReadError(e)
+          .message("Failure while reading spilled window batch")
+          .build(logger);
+    }
+    entry.spilled = false;
+    reloadCount++;
+    reloadNanos += watch.elapsed(TimeUnit.NANOSECONDS);
+  }
+
+  private SpillManager createSpillManager() {
+    final FragmentHandle handle = context.getFragmentHandle();
+    final String id =
+        String.format(
+            "window-%s.%s.%s.%s",
+            QueryIdHelper.getQueryId(handle.getQueryId()),
+            handle.getMajorFragmentId(),
+            handle.getMinorFragmentId(),
+            operatorId);
+    return new SpillManager(
+        context.getConfig(),
+        context.getOptions(),
+        id,
+        null,
+        context.getSpillService(),
+        "window spilling",
+        context.getStats());
+  }
+
+  private static long getBufferSize(VectorContainer container) {
+    long size = 0;
+    for (VectorWrapper<?> wrapper : container) {
+      size += wrapper.getValueVector().getBufferSize();
+    }
+    return size;
+  }
+
+  long getSpillCount() {
+    return spillCount;
+  }
+
+  long getSpilledBytes() {
+    return spilledBytes;
+  }
+
+  long getSpillNanos() {
+    return spillNanos;
+  }
+
+  long getReloadCount() {
+    return reloadCount;
+  }
+
+  long getReloadNanos() {
+    return reloadNanos;
+  }
+
+  @Override
+  public void close() throws Exception {
+    final List<AutoCloseable> closeables = new ArrayList<>();
+    for (Entry entry : entries) {
+      closeables.add(entry.container);
+      closeables.add(entry.spillFile);
+    }
+    entries.clear();
+    inMemory.clear();
+    closeables.add(spillManager);
+    AutoCloseables.close(closeables);
+  }
+}
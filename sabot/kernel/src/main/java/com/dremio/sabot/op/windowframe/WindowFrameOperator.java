@@ -20,6 +20,7 @@ import com.dremio.common.exceptions.ExecutionSetupException;
 import com.dremio.common.expression.LogicalExpression;
 import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.common.logical.data.Order;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.compile.TemplateClassDefinition;
 import com.dremio.exec.compile.sig.GeneratorMapping;
 import com.dremio.exec.compile.sig.MappingSet;
@@ -34,7 +35,9 @@ import com.dremio.exec.physical.config.WindowPOP.BoundType;
 import com.dremio.exec.record.VectorAccessible;
 import com.dremio.exec.record.VectorContainer;
 import com.dremio.exec.record.VectorWrapper;
+import com.dremio.sabot.exec.context.MetricDef;
 import com.dremio.sabot.exec.context.OperatorContext;
+import com.dremio.sabot.op.spi.Operator.ShrinkableOperator;
 import com.dremio.sabot.op.spi.SingleInputOperator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -43,7 +46,6 @@ import com.sun.codemodel.JExpr;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import org.apache.arrow.memory.OutOfMemoryException;
 import org.apache.arrow.vector.ValueVector;
@@ -52,15 +54,19 @@ import org.apache.arrow.vector.util.TransferPair;
 /**
  * support for OVER(PARTITION BY expression1,expression2,... [ORDER BY expressionA,
  * expressionB,...])
+ *
+ * <p>The batches of the partitions being processed are buffered in a {@link SpillableBatchList},
+ * and paged to disk when they don't fit in memory.
  */
-public class WindowFrameOperator implements SingleInputOperator {
+public class WindowFrameOperator implements SingleInputOperator, ShrinkableOperator {
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(WindowFrameOperator.class);
 
   private final OperatorContext context;
   private final List<WindowFunction> functions = Lists.newArrayList();
+  private final List<SlidingFrameAggregate> slidingAggregates = Lists.newArrayList();
   private final WindowPOP config;
-  private final LinkedList<VectorContainer> batches = new LinkedList<>();
+  private final SpillableBatchList batches;
 
   private VectorAccessible incoming;
   private VectorContainer outgoing;
@@ -76,6 +82,26 @@ public class WindowFrameOperator implements SingleInputOperator {
       throws OutOfMemoryException {
     this.context = context;
     this.config = config;
+    this.batches =
+        new SpillableBatchList(
+            context,
+            config.getProps().getLocalOperatorId(),
+            context.getOptions().getOption(ExecConstants.WINDOW_SPILL_ENABLED),
+            (int) context.getOptions().getOption(ExecConstants.WINDOW_SPILL_MAX_BATCHES_IN_MEMORY));
+  }
+
+  /** Metrics of the window operator. */
+  public enum Metric implements MetricDef {
+    SPILL_COUNT, // number of batches spilled
+    SPILLED_BYTES, // number of bytes spilled
+    SPILL_NANOS, // time spent spilling batches
+    RELOAD_COUNT, // number of spilled batches read back
+    RELOAD_NANOS; // time spent reading back spilled batches
+
+    @Override
+    public int metricId() {
+      return ordinal();
+    }
   }
 
   @Override
@@ -103,6 +129,7 @@ public class WindowFrameOperator implements SingleInputOperator {
     if (canDoWork()) {
       state = State.CAN_PRODUCE;
     }
+    updateStats();
   }
 
   @Override
@@ -126,10 +153,20 @@ public class WindowFrameOperator implements SingleInputOperator {
     } else if (!noMoreToConsume && !canDoWork()) {
       state = State.CAN_CONSUME;
     }
+    updateStats();
     return outgoing.getRecordCount();
   }
 
+  private void updateStats() {
+    context.getStats().setLongStat(Metric.SPILL_COUNT, batches.getSpillCount());
+    context.getStats().setLongStat(Metric.SPILLED_BYTES, batches.getSpilledBytes());
+    context.getStats().setLongStat(Metric.SPILL_NANOS, batches.getSpillNanos());
+    context.getStats().setLongStat(Metric.RELOAD_COUNT, batches.getReloadCount());
+    context.getStats().setLongStat(Metric.RELOAD_NANOS, batches.getReloadNanos());
+  }
+
   private int doWork() throws Exception {
+    batches.setCurrentBatchIndex(currentBatchIndex);
     final VectorContainer current = batches.get(currentBatchIndex);
     final int recordCount = current.getRecordCount();
 
@@ -144,6 +181,9 @@ public class WindowFrameOperator implements SingleInputOperator {
     for (WindowFramer framer : framers) {
       framer.doWork(currentBatchIndex);
     }
+    for (SlidingFrameAggregate aggregate : slidingAggregates) {
+      aggregate.evaluate(currentBatchIndex);
+    }
 
     Bound lowerBound = config.getLowerBound();
     Bound upperBound = config.getUpperBound();
@@ -172,8 +212,9 @@ public class WindowFrameOperator implements SingleInputOperator {
     }
 
     // if lower bound is PRECEDING it's possible that partition could be located in several batches.
+    // UNBOUNDED PRECEDING AND CURRENT ROW is computed incrementally and doesn't read them back
     if (lowerBound.getType().equals(WindowPOP.BoundType.PRECEDING)
-        && !upperBound.getType().equals(BoundType.CURRENT_ROW)) {
+        && !(lowerBound.isUnbounded() && upperBound.getType().equals(BoundType.CURRENT_ROW))) {
       // if last row from previous batch not in same partition with last row in current, we can
       // close it
       if (isPartitionEndReachedInPrevBatch(current, recordCount)) {
@@ -187,19 +228,20 @@ public class WindowFrameOperator implements SingleInputOperator {
         closeUnneededBatches();
       }
     } else {
-      current.close();
+      batches.release(currentBatchIndex);
     }
 
     // close all batches if needed
     if (currentBatchIndex == batches.size() - 1) {
-      for (VectorContainer container : batches) {
-        if (container.isNewSchema()) {
+      for (int i = 0; i < batches.size(); i++) {
+        if (batches.isReleased(i)) {
           break;
         }
-        container.close();
+        batches.release(i);
       }
     }
     currentBatchIndex++;
+    batches.setCurrentBatchIndex(currentBatchIndex);
     logger.trace("doWork() END");
     return recordCount;
   }
@@ -207,10 +249,10 @@ public class WindowFrameOperator implements SingleInputOperator {
   private void closeUnneededBatches() {
     for (int i = currentBatchIndex - 1; i >= 0; i--) {
       // break if batch already closed
-      if (batches.get(i).isNewSchema()) {
+      if (batches.isReleased(i)) {
         break;
       }
-      batches.get(i).close();
+      batches.release(i);
     }
   }
 
@@ -295,6 +337,8 @@ public class WindowFrameOperator implements SingleInputOperator {
     this.transfers = ImmutableList.copyOf(transfers);
 
     final ClassProducer producer = context.getClassProducer();
+    final boolean slidingFrames =
+        context.getOptions().getOption(ExecConstants.WINDOW_SLIDING_FRAME_AGGREGATES_ENABLED);
     // add aggregation vectors to the container, and materialize corresponding expressions
     for (final NamedExpression ne : config.getAggregations()) {
       final WindowFunction winfun = WindowFunction.fromExpression(ne);
@@ -303,7 +347,13 @@ public class WindowFrameOperator implements SingleInputOperator {
       // resolution.
       outgoing.buildSchema();
 
-      if (winfun.materialize(ne, outgoing, producer)) {
+      final SlidingFrameAggregate slidingAggregate =
+          slidingFrames ? SlidingFrameAggregate.create(ne, config, outgoing, producer) : null;
+      if (slidingAggregate != null) {
+        functions.add(slidingAggregate);
+        slidingAggregates.add(slidingAggregate);
+        requireFullPartition |= slidingAggregate.requiresFullPartition(config);
+      } else if (winfun.materialize(ne, outgoing, producer)) {
         functions.add(winfun);
         requireFullPartition |= winfun.requiresFullPartition(config);
 
@@ -327,6 +377,11 @@ public class WindowFrameOperator implements SingleInputOperator {
       orderExprs.add(producer.materialize(oe.getExpr(), batch));
     }
 
+    // sliding frame aggregates don't need a framer, but still use one to compare partition keys
+    if (!useDefaultFrame && !useCustomFrame) {
+      useDefaultFrame = true;
+    }
+
     // count how many framers we need
     int numFramers = useDefaultFrame ? 1 : 0;
     numFramers += useCustomFrame ? 1 : 0;
@@ -337,14 +392,28 @@ public class WindowFrameOperator implements SingleInputOperator {
     if (useDefaultFrame) {
       framers[index] = generateFramer(keyExprs, orderExprs, functions, false);
       framers[index].setup(
-          batches, outgoing, context, requireFullPartition, config, context.getFunctionContext());
+          batches.newView(),
+          outgoing,
+          context,
+          requireFullPartition,
+          config,
+          context.getFunctionContext());
       index++;
     }
 
     if (useCustomFrame) {
       framers[index] = generateFramer(keyExprs, orderExprs, functions, true);
       framers[index].setup(
-          batches, outgoing, context, requireFullPartition, config, context.getFunctionContext());
+          batches.newView(),
+          outgoing,
+          context,
+          requireFullPartition,
+          config,
+          context.getFunctionContext());
+    }
+
+    for (SlidingFrameAggregate aggregate : slidingAggregates) {
+      aggregate.setup(batches.newView(), framers[0]);
     }
   }
 
@@ -436,6 +505,28 @@ public class WindowFrameOperator implements SingleInputOperator {
     return visitor.visitSingleInput(this, value);
   }
 
+  @Override
+  public int getOperatorId() {
+    return config.getProps().getLocalOperatorId();
+  }
+
+  @Override
+  public long shrinkableMemory() {
+    if (state != State.CAN_CONSUME && state != State.CAN_PRODUCE) {
+      return 0;
+    }
+    return batches.getSpillableMemory();
+  }
+
+  @Override
+  public boolean shrinkMemory(long size) throws Exception {
+    if (state == State.CAN_CONSUME || state == State.CAN_PRODUCE) {
+      batches.spill(size);
+      updateStats();
+    }
+    return true;
+  }
+
   @Override
   public void close() throws Exception {
     List<AutoCloseable> closeables = new ArrayList<>();
@@ -443,7 +534,7 @@ public class WindowFrameOperator implements SingleInputOperator {
     if (framers != null) {
       closeables.addAll(Arrays.asList(framers));
     }
-    closeables.addAll(batches);
+    closeables.add(batches);
     AutoCloseables.close(closeables);
   }
 
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.SchedulerStats;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduling stats of a single slicing thread. Counters are only updated by the owning thread, but
+ * can be read and cleared from any thread.
+ */
+final class SlicingSchedulerStats implements SchedulerStats {
+
+  private final String threadName;
+  private final SlicingThread thread;
+
+  private final AtomicLong slices = new AtomicLong();
+  private final AtomicLong runTimeNanos = new AtomicLong();
+  private final AtomicLong tasksBlocked = new AtomicLong();
+  private final AtomicLong tasksCompleted = new AtomicLong();
+  private final AtomicLong stealRequests = new AtomicLong();
+  private final AtomicLong tasksStolen = new AtomicLong();
+  private final AtomicLong idleWaits = new AtomicLong();
+
+  SlicingSchedulerStats(SlicingThread thread) {
+    this.thread = thread;
+    this.threadName = thread.getName();
+  }
+
+  void sliceEnded(long runTime) {
+    slices.incrementAndGet();
+    runTimeNanos.addAndGet(runTime);
+  }
+
+  void taskBlocked() {
+    tasksBlocked.incrementAndGet();
+  }
+
+  void taskCompleted() {
+    tasksCompleted.incrementAndGet();
+  }
+
+  void stealRequested(int numStolen) {
+    stealRequests.incrementAndGet();
+    tasksStolen.addAndGet(numStolen);
+  }
+
+  void idleWait() {
+    idleWaits.incrementAndGet();
+  }
+
+  long getSlices() {
+    return slices.get();
+  }
+
+  long getRunTimeNanos() {
+    return runTimeNanos.get();
+  }
+
+  long getStealRequests() {
+    return stealRequests.get();
+  }
+
+  long getTasksStolen() {
+    return tasksStolen.get();
+  }
+
+  @Override
+  public boolean currentlyIdleAndHasStats() {
+    return thread.getLoad() == 0 && slices.get() > 0;
+  }
+
+  @Override
+  public String getStats(boolean force) {
+    if (!force && slices.get() == 0 && stealRequests.get() == 0) {
+      return "";
+    }
+    return String.format(
+        "%s: load=%d, slices=%d, runTimeMs=%d, blocked=%d, completed=%d, steals=%d,"
+            + " stolen=%d, idleWaits=%d",
+        threadName,
+        thread.getLoad(),
+        slices.get(),
+        TimeUnit.NANOSECONDS.toMillis(runTimeNanos.get()),
+        tasksBlocked.get(),
+        tasksCompleted.get(),
+        stealRequests.get(),
+        tasksStolen.get(),
+        idleWaits.get());
+  }
+
+  @Override
+  public void clearStats() {
+    slices.set(0);
+    runTimeNanos.set(0);
+    tasksBlocked.set(0);
+    tasksCompleted.set(0);
+    stealRequests.set(0);
+    tasksStolen.set(0);
+    idleWaits.set(0);
+  }
+}
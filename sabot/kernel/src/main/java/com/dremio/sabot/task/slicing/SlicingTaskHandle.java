@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+
+/**
+ * {@link TaskHandle} used by the {@link SlicingTaskPool}. Keeps track of the task's virtual runtime
+ * and of the slicing thread it is currently assigned to.
+ *
+ * <p>A handle is owned by at most one slicing thread at any time: either it sits in that thread's
+ * run queue, or it is being run by it. Blocked handles are not owned by any thread until they are
+ * re-enqueued.
+ */
+final class SlicingTaskHandle implements TaskHandle<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+  private final AsyncTaskWrapper task;
+  private final long weight;
+
+  /** scheduling groups of the task, from the root group down to the task's own group */
+  private final WeightedSchedulingGroup[] groups;
+
+  private volatile long vruntime;
+  private volatile int thread = -1;
+
+  SlicingTaskHandle(
+      SlicingTaskPool pool, WeightedSchedulingGroup group, AsyncTaskWrapper task, long weight) {
+    this.pool = pool;
+    this.task = task;
+    this.weight = WeightedSchedulingGroup.normalizeWeight(weight);
+    this.groups = new WeightedSchedulingGroup[group.getDepth() + 1];
+    for (WeightedSchedulingGroup g = group; g != null; g = g.getParent()) {
+      groups[g.getDepth()] = g;
+    }
+    this.vruntime = group.getChildClock();
+  }
+
+  @Override
+  public AsyncTaskWrapper getTask() {
+    return task;
+  }
+
+  @Override
+  public void reEnqueue() {
+    pool.reEnqueue(this);
+  }
+
+  @Override
+  public int getThread() {
+    return thread;
+  }
+
+  @Override
+  public int getCurrentTaskLoad() {
+    final int current = thread;
+    return current < 0 ? 0 : pool.getLoad(current);
+  }
+
+  void setThread(int thread) {
+    this.thread = thread;
+  }
+
+  long getVruntime() {
+    return vruntime;
+  }
+
+  long getWeight() {
+    return weight;
+  }
+
+  WeightedSchedulingGroup getGroup() {
+    return groups[groups.length - 1];
+  }
+
+  /**
+   * Charges the time spent running the task to the task itself and to all its scheduling groups.
+   * Only called by the thread that ran the task.
+   */
+  void charge(long runTimeNanos) {
+    final long before = vruntime;
+    vruntime = before + WeightedSchedulingGroup.toVirtualTime(runTimeNanos, weight);
+    final WeightedSchedulingGroup group = getGroup();
+    group.advanceChildClock(before);
+    group.charge(runTimeNanos);
+  }
+
+  /**
+   * Called when a task becomes runnable again after being blocked. Neither the task nor its groups
+   * may accumulate credit while blocked, otherwise they would starve their siblings on wake up.
+   */
+  void catchUp() {
+    for (WeightedSchedulingGroup group : groups) {
+      group.catchUp();
+    }
+    vruntime = WeightedSchedulingGroup.maxVruntime(vruntime, getGroup().getChildClock());
+  }
+
+  /**
+   * Orders two handles by scheduling eligibility: at the first level of the hierarchy where the
+   * two handles diverge, the entity (group or task) with the smallest vruntime wins.
+   *
+   * @return a negative value if {@code a} should run before {@code b}
+   */
+  static int compareEligibility(SlicingTaskHandle a, SlicingTaskHandle b) {
+    final int common = Math.min(a.groups.length, b.groups.length);
+    for (int i = 0; i < common; i++) {
+      final WeightedSchedulingGroup ga = a.groups[i];
+      final WeightedSchedulingGroup gb = b.groups[i];
+      if (ga != gb) {
+        return WeightedSchedulingGroup.compareVruntime(ga.getVruntime(), gb.getVruntime());
+      }
+    }
+    final long va = a.groups.length > common ? a.groups[common].getVruntime() : a.vruntime;
+    final long vb = b.groups.length > common ? b.groups[common].getVruntime() : b.vruntime;
+    return WeightedSchedulingGroup.compareVruntime(va, vb);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s[thread=%d, weight=%d, vruntime=%d, state=%s]",
+        task, thread, weight, vruntime, task.getState());
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.common.VM;
+import com.dremio.config.DremioConfig;
+import com.dremio.exec.ExecConstants;
+import com.dremio.options.OptionManager;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.GroupManager;
+import com.dremio.sabot.task.SchedulerStats;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.task.TaskPoolFactory;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * A task pool that time-slices all tasks over a fixed number of slicing threads, one per core by
+ * default.<br>
+ * <br>
+ * Each slicing thread has its own run queue and picks the task with the smallest virtual runtime
+ * in it, taking the weights of the task's {@link SchedulingGroup}s into account. New tasks are
+ * assigned to the least loaded thread, unblocked tasks go back to their previous thread unless it
+ * is much busier than the others, and idle threads steal work from the busiest thread.
+ */
+public class SlicingTaskPool implements TaskPool {
+
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(SlicingTaskPool.class);
+
+  /**
+   * An unblocked task is moved away from its previous thread when that thread has this many more
+   * runnable tasks than the least loaded thread.
+   */
+  private static final int MIGRATION_LOAD_DIFFERENCE = 2;
+
+  private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+  /** Factory for {@code SlicingTaskPool} */
+  public static final class Factory implements TaskPoolFactory {
+    @Override
+    public TaskPool newInstance(OptionManager options, DremioConfig config) {
+      int numThreads = (int) options.getOption(ExecConstants.SLICING_NUM_THREADS);
+      if (numThreads == 0) {
+        numThreads = VM.availableProcessors();
+      }
+      return new SlicingTaskPool(
+          numThreads, options.getOption(ExecConstants.SLICING_IDLE_WAIT_MS));
+    }
+  }
+
+  private final SlicingThread[] threads;
+  private final WeightedSchedulingGroup rootGroup;
+  private final GroupManager<AsyncTaskWrapper> groupManager;
+  private final AtomicInteger nextThread = new AtomicInteger();
+  private volatile boolean closed;
+
+  @VisibleForTesting
+  public SlicingTaskPool(int numThreads, long idleWaitMillis) {
+    Preconditions.checkArgument(numThreads > 0, "At least one slicing thread is required");
+    this.rootGroup = new WeightedSchedulingGroup(this, null, 1);
+    this.groupManager = weight -> rootGroup.addGroup(weight, true);
+    this.threads = new SlicingThread[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      threads[i] = new SlicingThread(this, i, idleWaitMillis);
+    }
+    for (SlicingThread thread : threads) {
+      thread.start();
+    }
+    logger.info("Started slicing task pool with {} threads", numThreads);
+  }
+
+  @Override
+  public void execute(AsyncTaskWrapper task) {
+    Preconditions.checkState(!closed, "Task pool is closed");
+    SchedulingGroup<AsyncTaskWrapper> group = task.getSchedulingGroup();
+    if (!(group instanceof WeightedSchedulingGroup)) {
+      // group wasn't created by this pool's group manager
+      group = rootGroup;
+    }
+    group.addTask(task, task.getTaskWeight());
+  }
+
+  @Override
+  public GroupManager<AsyncTaskWrapper> getGroupManager() {
+    return groupManager;
+  }
+
+  @Override
+  public Iterable<ThreadInfo> getSlicingThreads() {
+    final List<ThreadInfo> infos = new ArrayList<>(threads.length);
+    for (SlicingThread thread : threads) {
+      infos.add(
+          new ThreadInfo(
+              thread.getName(),
+              thread.getThreadId(),
+              -1,
+              -1,
+              thread.getLoad(),
+              0,
+              (int) thread.getStats().getStealRequests(),
+              thread.getId()));
+    }
+    return infos;
+  }
+
+  @Override
+  public boolean areAllThreadsAlive() {
+    if (closed) {
+      return true;
+    }
+    for (SlicingThread thread : threads) {
+      if (!thread.isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return scheduling stats of the given slicing thread
+   */
+  public SchedulerStats getSchedulerStats(int thread) {
+    return threads[thread].getStats();
+  }
+
+  /**
+   * @return scheduling stats of all slicing threads, one line per thread
+   */
+  public SchedulerStats getSchedulerStats() {
+    return new SchedulerStats() {
+      @Override
+      public boolean currentlyIdleAndHasStats() {
+        for (SlicingThread thread : threads) {
+          if (!thread.getStats().currentlyIdleAndHasStats()) {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      @Override
+      public String getStats(boolean force) {
+        return Arrays.stream(threads)
+            .map(thread -> thread.getStats().getStats(force))
+            .filter(s -> !s.isEmpty())
+            .collect(Collectors.joining("\n"));
+      }
+
+      @Override
+      public void clearStats() {
+        for (SlicingThread thread : threads) {
+          thread.getStats().clearStats();
+        }
+      }
+    };
+  }
+
+  public int getNumThreads() {
+    return threads.length;
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  int getLoad(int thread) {
+    return threads[thread].getLoad();
+  }
+
+  void enqueueNewTask(SlicingTaskHandle handle) {
+    threads[leastLoadedThread()].enqueue(handle);
+  }
+
+  void reEnqueue(SlicingTaskHandle handle) {
+    handle.catchUp();
+    final int previous = handle.getThread();
+    final int leastLoaded = leastLoadedThread();
+    if (previous < 0
+        || threads[previous].getLoad()
+            > threads[leastLoaded].getLoad() + MIGRATION_LOAD_DIFFERENCE) {
+      threads[leastLoaded].enqueue(handle);
+    } else {
+      threads[previous].enqueue(handle);
+    }
+  }
+
+  /**
+   * Migrates half of the queued tasks of the busiest thread to an idle thread
+   *
+   * @param thief idle thread
+   * @return migrated tasks, possibly empty
+   */
+  List<SlicingTaskHandle> stealFor(SlicingThread thief) {
+    SlicingThread busiest = null;
+    for (SlicingThread thread : threads) {
+      if (thread != thief
+          && thread.getNumQueued() > 1
+          && (busiest == null || thread.getNumQueued() > busiest.getNumQueued())) {
+        busiest = thread;
+      }
+    }
+    return busiest == null ? Collections.emptyList() : busiest.drainHalf();
+  }
+
+  private int leastLoadedThread() {
+    // start from a rotating offset, so that ties don't always favor the first threads
+    final int start = Math.floorMod(nextThread.getAndIncrement(), threads.length);
+    int best = start;
+    int bestLoad = threads[start].getLoad();
+    for (int i = 1; i < threads.length && bestLoad > 0; i++) {
+      final int candidate = (start + i) % threads.length;
+      final int load = threads[candidate].getLoad();
+      if (load < bestLoad) {
+        best = candidate;
+        bestLoad = load;
+      }
+    }
+    return best;
+  }
+
+  @Override
+  public void close() throws Exception {
+    closed = true;
+    for (SlicingThread thread : threads) {
+      thread.interrupt();
+    }
+    for (SlicingThread thread : threads) {
+      thread.join(CLOSE_TIMEOUT_MILLIS);
+    }
+    logger.debug("Slicing task pool closed. Final stats:\n{}", getSchedulerStats().getStats(false));
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.common.perf.StatsCollectionEligibilityRegistrar;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.BlockRun;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A slicing thread owns a run queue of runnable tasks. It repeatedly picks the most eligible task
+ * of its queue (see {@link SlicingTaskHandle#compareEligibility}), runs it for one slice and puts it
+ * back in the queue if it is still runnable. Whenever its queue is empty it steals half of the
+ * tasks of the busiest slicing thread.
+ */
+final class SlicingThread extends Thread {
+
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(SlicingThread.class);
+
+  private final SlicingTaskPool pool;
+  private final int threadId;
+  private final long idleWaitMillis;
+  private final SlicingSchedulerStats stats;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition workAvailable = lock.newCondition();
+  // guarded by lock
+  private final List<SlicingTaskHandle> runQueue = new ArrayList<>();
+
+  // mirror of runQueue.size(), readable without holding the lock
+  private volatile int numQueued;
+  private volatile boolean runningTask;
+
+  SlicingThread(SlicingTaskPool pool, int threadId, long idleWaitMillis) {
+    super("e" + threadId + " - slicing");
+    this.pool = pool;
+    this.threadId = threadId;
+    this.idleWaitMillis = idleWaitMillis;
+    this.stats = new SlicingSchedulerStats(this);
+    setDaemon(true);
+  }
+
+  int getThreadId() {
+    return threadId;
+  }
+
+  SlicingSchedulerStats getStats() {
+    return stats;
+  }
+
+  int getNumQueued() {
+    return numQueued;
+  }
+
+  /**
+   * @return number of runnable tasks assigned to this thread, including the one currently running
+   */
+  int getLoad() {
+    return numQueued + (runningTask ? 1 : 0);
+  }
+
+  void enqueue(SlicingTaskHandle handle) {
+    lock.lock();
+    try {
+      handle.setThread(threadId);
+      runQueue.add(handle);
+      numQueued = runQueue.size();
+      workAvailable.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Removes and returns the most eligible task of the run queue, or null if the queue is empty */
+  private SlicingTaskHandle pollMostEligible() {
+    lock.lock();
+    try {
+      final int size = runQueue.size();
+      if (size == 0) {
+        return null;
+      }
+      int best = 0;
+      for (int i = 1; i < size; i++) {
+        if (SlicingTaskHandle.compareEligibility(runQueue.get(i), runQueue.get(best)) < 0) {
+          best = i;
+        }
+      }
+      final SlicingTaskHandle handle = runQueue.get(best);
+      runQueue.set(best, runQueue.get(size - 1));
+      runQueue.remove(size - 1);
+      numQueued = size - 1;
+      return handle;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes half of the queued tasks so they can be migrated to another thread. The running task is
+   * never part of the run queue, so it is never migrated.
+   */
+  List<SlicingTaskHandle> drainHalf() {
+    lock.lock();
+    try {
+      final int size = runQueue.size();
+      final int toMigrate = size / 2;
+      final List<SlicingTaskHandle> migrated = new ArrayList<>(toMigrate);
+      for (int i = 0; i < toMigrate; i++) {
+        migrated.add(runQueue.remove(runQueue.size() - 1));
+      }
+      numQueued = runQueue.size();
+      return migrated;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private SlicingTaskHandle stealWork() {
+    final List<SlicingTaskHandle> stolen = pool.stealFor(this);
+    if (!stolen.isEmpty()) {
+      stats.stealRequested(stolen.size());
+    }
+    for (SlicingTaskHandle handle : stolen) {
+      enqueue(handle);
+    }
+    return pollMostEligible();
+  }
+
+  /**
+   * Waits for a task to be enqueued to this thread, or until it is time to try stealing again.
+   *
+   * @return false if the pool was closed while waiting
+   */
+  private boolean awaitWork() {
+    lock.lock();
+    try {
+      if (runQueue.isEmpty()) {
+        stats.idleWait();
+        workAvailable.await(idleWaitMillis, TimeUnit.MILLISECONDS);
+      }
+      return !pool.isClosed();
+    } catch (InterruptedException e) {
+      return !pool.isClosed();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void run() {
+    StatsCollectionEligibilityRegistrar.addSelf();
+
+    while (!pool.isClosed()) {
+      SlicingTaskHandle handle = pollMostEligible();
+      if (handle == null) {
+        handle = stealWork();
+      }
+      if (handle == null) {
+        if (!awaitWork()) {
+          break;
+        }
+        continue;
+      }
+
+      // put try inside the run loop so we don't lose threads with uncaught exceptions.
+      try {
+        runSlice(handle);
+      } catch (Throwable t) {
+        logger.error("Unhandled Exception in slicing thread, dropping task {}.", handle, t);
+      }
+    }
+    logger.debug("Slicing thread {} exiting.", threadId);
+  }
+
+  private void runSlice(SlicingTaskHandle handle) throws Exception {
+    final AsyncTaskWrapper task = handle.getTask();
+    runningTask = true;
+    final String preRunName = task.getAsyncTask().preRunUpdate(getLoad());
+    final long startTime = System.nanoTime();
+    try {
+      task.run();
+    } finally {
+      final long runTime = System.nanoTime() - startTime;
+      task.getAsyncTask().postRunUpdate(runTime, preRunName);
+      handle.charge(runTime);
+      stats.sliceEnded(runTime);
+      runningTask = false;
+    }
+
+    switch (task.getState()) {
+      case BLOCKED_ON_DOWNSTREAM:
+      case BLOCKED_ON_UPSTREAM:
+      case BLOCKED_ON_SHARED_RESOURCE:
+      case BLOCKED_ON_MEMORY:
+        stats.taskBlocked();
+        // the callback may fire right away, re-enqueueing the task to some slicing thread
+        task.setAvailabilityCallback(new BlockRun(handle));
+        break;
+      case DONE:
+        stats.taskCompleted();
+        handle.setThread(-1);
+        task.getCleaner().close();
+        break;
+      case RUNNABLE:
+      default:
+        enqueue(handle);
+        break;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.TaskManager;
+import com.dremio.sabot.task.TaskManager.TaskHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A node in the scheduling hierarchy of the {@link SlicingTaskPool}.<br>
+ * <br>
+ * Every group keeps its own virtual runtime, which advances by the cpu time spent by all the tasks
+ * in its subtree divided by the group's weight. When picking the next task to run, a slicing
+ * thread first picks the sibling group with the smallest vruntime at each level of the hierarchy
+ * and only then the task with the smallest vruntime inside the chosen group. Groups with a higher
+ * weight therefore get a proportionally bigger share of the cpu.
+ */
+final class WeightedSchedulingGroup implements SchedulingGroup<AsyncTaskWrapper> {
+
+  private final SlicingTaskPool pool;
+  private final WeightedSchedulingGroup parent;
+  private final long weight;
+  private final int depth;
+  private final AtomicLong vruntime;
+
+  /**
+   * Lower bound used to initialize the vruntime of new children (and of children waking up after
+   * being blocked), so that they cannot starve the children that have been running for a while.
+   */
+  private final AtomicLong childClock = new AtomicLong();
+
+  /** Upper bound of the virtual time charged for a single slice */
+  static final long MAX_VIRTUAL_SLICE = Long.MAX_VALUE >>> 2;
+
+  WeightedSchedulingGroup(SlicingTaskPool pool, WeightedSchedulingGroup parent, long weight) {
+    this.pool = pool;
+    this.parent = parent;
+    this.weight = normalizeWeight(weight);
+    this.depth = parent == null ? 0 : parent.depth + 1;
+    this.vruntime = new AtomicLong(parent == null ? 0 : parent.childClock.get());
+  }
+
+  @Override
+  public SchedulingGroup<AsyncTaskWrapper> addGroup(long weight, boolean weightBasedScheduler) {
+    // weight based scheduling is the only scheduling mode supported by the slicing pool
+    return new WeightedSchedulingGroup(pool, this, weight);
+  }
+
+  @Override
+  public TaskHandle<AsyncTaskWrapper> addTask(AsyncTaskWrapper task, long weight) {
+    final SlicingTaskHandle handle = new SlicingTaskHandle(pool, this, task, weight);
+    task.setTaskHandle(handle);
+    pool.enqueueNewTask(handle);
+    return handle;
+  }
+
+  WeightedSchedulingGroup getParent() {
+    return parent;
+  }
+
+  int getDepth() {
+    return depth;
+  }
+
+  long getWeight() {
+    return weight;
+  }
+
+  long getVruntime() {
+    return vruntime.get();
+  }
+
+  long getChildClock() {
+    return childClock.get();
+  }
+
+  /**
+   * Charges the time spent by one of the tasks of this group (or of one of its sub-groups) to this
+   * group and all its ancestors.
+   *
+   * @param runTimeNanos time spent running the task
+   */
+  void charge(long runTimeNanos) {
+    for (WeightedSchedulingGroup group = this; group != null; group = group.parent) {
+      final long before = group.vruntime.getAndAdd(toVirtualTime(runTimeNanos, group.weight));
+      if (group.parent != null) {
+        group.parent.childClock.accumulateAndGet(before, WeightedSchedulingGroup::maxVruntime);
+      }
+    }
+  }
+
+  /** Advances the clock used to initialize the vruntime of this group's tasks */
+  void advanceChildClock(long taskVruntime) {
+    childClock.accumulateAndGet(taskVruntime, WeightedSchedulingGroup::maxVruntime);
+  }
+
+  /**
+   * Brings the vruntime of a group that had no runnable task for a while up to its siblings, so it
+   * cannot monopolize the threads once its tasks become runnable again.
+   */
+  void catchUp() {
+    if (parent != null) {
+      vruntime.accumulateAndGet(parent.childClock.get(), WeightedSchedulingGroup::maxVruntime);
+    }
+  }
+
+  static long normalizeWeight(long weight) {
+    return Math.max(1, Math.min(weight, TaskManager.MAX_WEIGHT));
+  }
+
+  /**
+   * Scales the time spent running by the inverse of the weight. Saturates at {@link
+   * #MAX_VIRTUAL_SLICE} so that a single charge can never break {@link #compareVruntime}.
+   */
+  static long toVirtualTime(long runTimeNanos, long weight) {
+    final long runTime = Math.max(0, runTimeNanos);
+    final long scaled = runTime * TaskManager.MAX_WEIGHT;
+    if (Math.multiplyHigh(runTime, TaskManager.MAX_WEIGHT) != 0 || scaled < 0) {
+      return MAX_VIRTUAL_SLICE;
+    }
+    return Math.min(scaled / weight, MAX_VIRTUAL_SLICE);
+  }
+
+  /**
+   * Compares two vruntimes. Vruntimes only ever grow and are allowed to wrap around past {@link
+   * Long#MAX_VALUE}, so they are compared by the sign of their difference, which stays correct as
+   * long as the compared values are less than 2^63 apart.
+   */
+  static int compareVruntime(long a, long b) {
+    return Long.compare(a - b, 0);
+  }
+
+  /** Wrap-safe equivalent of {@link Math#max} for vruntimes */
+  static long maxVruntime(long a, long b) {
+    return compareVruntime(a, b) >= 0 ? a : b;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("group[depth=%d, weight=%d, vruntime=%d]", depth, weight, getVruntime());
+  }
+}
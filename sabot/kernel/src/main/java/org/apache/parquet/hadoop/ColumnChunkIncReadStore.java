@@ -100,9 +100,21 @@ public class ColumnChunkIncReadStore implements PageReadStore {
         throw new RuntimeException(ioe);
       }
     }
+
+    @Override
+    public int skipPage() {
+      try {
+        in.seek(lastPosition);
+        final int valueCount = super.skipPage();
+        lastPosition = in.getPos();
+        return valueCount;
+      } catch (IOException ioe) {
+        throw new RuntimeException(ioe);
+      }
+    }
   }
 
-  class ColumnChunkIncPageReader implements PageReader {
+  public class ColumnChunkIncPageReader implements PageReader {
 
     ColumnChunkMetaData metaData;
     ColumnDescriptor columnDescriptor;
@@ -247,26 +259,68 @@ public class ColumnChunkIncReadStore implements PageReadStore {
       } catch (OutOfMemoryException e) {
         throw e; // throw as it is
       } catch (Exception e) {
-        throw new RuntimeException(
-            "Error reading page."
-                + "\nFile path: "
-                + path.toURI().getPath()
-                + "\nRow count: "
-                + rowCount
-                + "\nColumn Chunk Metadata: "
-                + metaData
-                + "\nPage Header: "
-                + pageHeader
-                + "\nFile offset: "
-                + fileOffset
-                + "\nSize: "
-                + size
-                + "\nValue read so far: "
-                + valueReadSoFar,
-            e);
+        throw new RuntimeException("Error reading page." + pageErrorContext(pageHeader), e);
       }
     }
 
+    /**
+     * Moves past the next data page without reading or decompressing its data. A dictionary page in
+     * front of it is still loaded, since the pages after the skipped one may need it.
+     *
+     * @return number of values in the skipped page, 0 if the column chunk has no more pages
+     */
+    public int skipPage() {
+      PageHeader pageHeader = new PageHeader();
+      try {
+        releasePrevDataPageBuffers();
+        while (valueReadSoFar < metaData.getValueCount()) {
+          pageHeader = Util.readPageHeader(in.asSeekableInputStream());
+          switch (pageHeader.type) {
+            case DICTIONARY_PAGE:
+              if (dictionaryPage == null) {
+                dictionaryPage = readDictionaryPageHelper(pageHeader);
+              } else {
+                in.skip(pageHeader.compressed_page_size);
+              }
+              break;
+            case DATA_PAGE:
+              in.skip(pageHeader.compressed_page_size);
+              valueReadSoFar += pageHeader.data_page_header.getNum_values();
+              return pageHeader.data_page_header.getNum_values();
+            case DATA_PAGE_V2:
+              in.skip(pageHeader.compressed_page_size);
+              valueReadSoFar += pageHeader.data_page_header_v2.getNum_values();
+              return pageHeader.data_page_header_v2.getNum_values();
+            default:
+              in.skip(pageHeader.compressed_page_size);
+              break;
+          }
+        }
+        return 0;
+      } catch (OutOfMemoryException e) {
+        throw e; // throw as it is
+      } catch (Exception e) {
+        throw new RuntimeException("Error skipping page." + pageErrorContext(pageHeader), e);
+      }
+    }
+
+    private String pageErrorContext(PageHeader pageHeader) {
+      return "\nFile path: "
+          + path.toURI().getPath()
+          + "\nRow count: "
+          + rowCount
+          + "\nColumn Chunk Metadata: "
+          + metaData
+          + "\nPage Header: "
+          + pageHeader
+          + "\nFile offset: "
+          + fileOffset
+          + "\nSize: "
+          + size
+          + "\nValue read so far: "
+          + valueReadSoFar;
+    }
+
     void close() {
       try {
         releasePrevDataPageBuffers();
@@ -23,20 +23,31 @@ import static com.dremio.exec.physical.impl.window.DataPar.dataB3P2;
 import static com.dremio.exec.physical.impl.window.DataPar.dataB4P4;
 import static com.dremio.exec.physical.impl.window.WindowGenerator.generateInput;
 import static com.dremio.exec.physical.impl.window.WindowGenerator.generateOutput;
+import static com.dremio.sabot.Fixtures.NULL_BIGINT;
+import static com.dremio.sabot.Fixtures.NULL_DOUBLE;
 import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
 import static java.util.Collections.singletonList;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.ASCENDING;
 import static org.apache.calcite.rel.RelFieldCollation.Direction.DESCENDING;
 import static org.apache.calcite.rel.RelFieldCollation.NullDirection.FIRST;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.dremio.common.logical.data.NamedExpression;
 import com.dremio.common.logical.data.Order;
+import com.dremio.exec.ExecConstants;
 import com.dremio.exec.physical.config.WindowPOP;
 import com.dremio.exec.physical.config.WindowPOP.Bound;
 import com.dremio.exec.physical.config.WindowPOP.BoundType;
 import com.dremio.sabot.BaseTestOperator;
 import com.dremio.sabot.Fixtures;
+import com.dremio.sabot.Fixtures.DataRow;
 import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.exec.context.OperatorStats;
 import com.dremio.sabot.op.windowframe.WindowFrameOperator;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -77,10 +88,16 @@ public class TestWindowOperator extends BaseTestOperator {
 
   private void validateWindow(DataPar[] dataDef, boolean withPartitionBy, boolean withOrderBy)
       throws Exception {
+    validateWindow(dataDef, withPartitionBy, withOrderBy, 20);
+  }
+
+  private OperatorStats validateWindow(
+      DataPar[] dataDef, boolean withPartitionBy, boolean withOrderBy, int batchSize)
+      throws Exception {
     final WindowPOP window = createWindowPOP(withPartitionBy, withOrderBy);
     final Table input = t(WindowGenerator.header, generateInput(dataDef));
-    validateSingle(
-        window, WindowFrameOperator.class, input, generateOutput(dataDef, withOrderBy), 20);
+    return validateSingle(
+        window, WindowFrameOperator.class, input, generateOutput(dataDef, withOrderBy), batchSize);
   }
 
   private void runTests(DataPar[] withPartitionDef, DataPar[] withoutPartitionDef)
@@ -121,6 +138,128 @@ public class TestWindowOperator extends BaseTestOperator {
     runTests(dataB4P4(true), dataB4P4(false));
   }
 
+  @Test
+  public void testSpill() throws Exception {
+    // keep a single batch in memory besides the ones being processed
+    try (AutoCloseable option = with(ExecConstants.WINDOW_SPILL_MAX_BATCHES_IN_MEMORY, 1)) {
+      validateWindow(dataB4P4(true), true, true, 5);
+      validateWindow(dataB4P4(true), true, false, 5);
+      validateWindow(dataB4P4(false), false, true, 5);
+
+      // the whole input is a single partition, buffered until the last batch
+      final OperatorStats stats = validateWindow(dataB4P4(false), false, false, 5);
+      assertTrue(stats.getLongStat(WindowFrameOperator.Metric.SPILL_COUNT) > 0);
+      assertTrue(stats.getLongStat(WindowFrameOperator.Metric.RELOAD_COUNT) > 0);
+    }
+  }
+
+  @Test
+  public void testSpillDisabled() throws Exception {
+    try (AutoCloseable option = with(ExecConstants.WINDOW_SPILL_MAX_BATCHES_IN_MEMORY, 1);
+        AutoCloseable spillDisabled = with(ExecConstants.WINDOW_SPILL_ENABLED, false)) {
+      final OperatorStats stats = validateWindow(dataB4P4(false), false, false, 5);
+      assertEquals(0, stats.getLongStat(WindowFrameOperator.Metric.SPILL_COUNT));
+    }
+  }
+
+  private static final int[] SLIDING_PARTITION_SIZES = {7, 1, 12};
+
+  private static Long slidingValue(int partition, int row) {
+    return row % 5 == 3 ? null : (long) (partition * 10 + row) * (row % 2 == 0 ? 1 : -1);
+  }
+
+  private static Table slidingInput() {
+    final List<DataRow> rows = new ArrayList<>();
+    for (int p = 0; p < SLIDING_PARTITION_SIZES.length; p++) {
+      for (int row = 0; row < SLIDING_PARTITION_SIZES[p]; row++) {
+        final Long value = slidingValue(p, row);
+        rows.add(tr(p, row, value == null ? NULL_BIGINT : value));
+      }
+    }
+    return t(th("p", "o", "v"), rows.toArray(new DataRow[0]));
+  }
+
+  /** Aggregates the frame of each row the naive way. */
+  private static Table slidingOutput(int lowerOffset, int upperOffset) {
+    final List<DataRow> rows = new ArrayList<>();
+    for (int p = 0; p < SLIDING_PARTITION_SIZES.length; p++) {
+      final int size = SLIDING_PARTITION_SIZES[p];
+      for (int row = 0; row < size; row++) {
+        long sum = 0;
+        long count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        final int last = Math.min(size - 1, row + upperOffset);
+        for (int i = Math.max(0, row + lowerOffset); i <= last; i++) {
+          final Long value = slidingValue(p, i);
+          if (value != null) {
+            sum += value;
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+          }
+        }
+        final Long value = slidingValue(p, row);
+        rows.add(
+            tr(
+                p,
+                row,
+                value == null ? NULL_BIGINT : value,
+                count == 0 ? NULL_BIGINT : sum,
+                count,
+                count == 0 ? NULL_BIGINT : min,
+                count == 0 ? NULL_BIGINT : max,
+                count == 0 ? NULL_DOUBLE : (double) sum / count));
+      }
+    }
+    return t(
+        th("p", "o", "v", "sum", "count", "min", "max", "avg"), rows.toArray(new DataRow[0]));
+  }
+
+  private static Bound slidingBound(int offset) {
+    if (offset < 0) {
+      return new Bound(false, -offset, BoundType.PRECEDING);
+    }
+    return new Bound(false, offset, offset == 0 ? BoundType.CURRENT_ROW : BoundType.FOLLOWING);
+  }
+
+  private void validateSlidingFrame(int lowerOffset, int upperOffset) throws Exception {
+    final WindowPOP window =
+        new WindowPOP(
+            PROPS,
+            null,
+            singletonList(n("p")),
+            Arrays.asList(
+                n("sum(v)", "sum"),
+                n("count(v)", "count"),
+                n("min(v)", "min"),
+                n("max(v)", "max"),
+                n("avg(v)", "avg")),
+            singletonList(ordering("o", ASCENDING, FIRST)),
+            true,
+            slidingBound(lowerOffset),
+            slidingBound(upperOffset));
+    final Table output = slidingOutput(lowerOffset, upperOffset);
+    // small batches, so that frames and partitions span several batches
+    validateSingle(window, WindowFrameOperator.class, slidingInput(), output, 3);
+  }
+
+  @Test
+  public void testSlidingFrames() throws Exception {
+    validateSlidingFrame(-2, 1);
+    validateSlidingFrame(-4, 0);
+    validateSlidingFrame(-3, -1);
+    validateSlidingFrame(1, 4);
+    validateSlidingFrame(0, 0);
+  }
+
+  @Test
+  public void testSlidingFramesWithSpill() throws Exception {
+    try (AutoCloseable option = with(ExecConstants.WINDOW_SPILL_MAX_BATCHES_IN_MEMORY, 1)) {
+      validateSlidingFrame(-5, 2);
+    }
+  }
+
   @Test // DRILL-4657
   public void test4657() throws Exception {
     // SELECT row_number() OVER(ORDER BY position_id) rn, rank() OVER(ORDER BY position_id) rnk FROM
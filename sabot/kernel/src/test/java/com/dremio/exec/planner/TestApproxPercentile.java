@@ -18,6 +18,7 @@ package com.dremio.exec.planner;
 
 import com.dremio.PlanTestBase;
 import com.dremio.common.exceptions.UserRemoteException;
+import com.dremio.exec.ExecConstants;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -84,6 +85,24 @@ public class TestApproxPercentile extends PlanTestBase {
     testBuilder().unOrdered().sqlQuery(sql).baselineColumns("EXPR$0").baselineValues(1389.0).go();
   }
 
+  @Test
+  public void testApproxPercentileGroupBy() throws Exception {
+    final String sql =
+        "SELECT store_id, approx_percentile(employee_id, 0.6), approx_percentile(salary, 0.5)"
+            + " from cp.\"employee.json\" group by store_id";
+    final String option = "alter session set \"exec.operator.vectorized_spill.tdigest\" = %s";
+    try (AutoCloseable ignored =
+        withOption(ExecConstants.ENABLE_VECTORIZED_SPILL_TDIGEST_ACCUMULATOR, true)) {
+      testBuilder()
+          .unOrdered()
+          .optionSettingQueriesForTestQuery(option, true)
+          .optionSettingQueriesForBaseline(option, false)
+          .sqlQuery(sql)
+          .sqlBaselineQuery(sql)
+          .go();
+    }
+  }
+
   @Test
   public void testApproxPercentileOutOfRange1() {
     final String sql = "SELECT approx_percentile(employee_id, 1.6) from cp.\"employee.json\" ";
@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.exec.catalog.DremioTable;
+import com.dremio.exec.planner.LiteralParameterizer.ParameterizedQuery;
+import com.dremio.exec.planner.common.ScanRelBase;
+import com.dremio.exec.planner.cost.DremioCost;
+import com.dremio.exec.planner.physical.PlannerSettings;
+import com.dremio.exec.planner.types.SqlTypeFactoryImpl;
+import com.dremio.exec.store.ScanFilter;
+import com.dremio.exec.store.TableMetadata;
+import com.dremio.exec.store.dfs.FilterableScan;
+import com.dremio.options.OptionResolver;
+import com.dremio.service.namespace.dataset.proto.DatasetConfig;
+import com.dremio.service.namespace.dataset.proto.IcebergMetadata;
+import com.dremio.service.namespace.dataset.proto.PhysicalDataset;
+import com.dremio.service.namespace.dataset.proto.ReadDefinition;
+import com.dremio.service.namespace.file.proto.FileType;
+import com.dremio.test.specs.OptionResolverSpec;
+import com.dremio.test.specs.OptionResolverSpecBuilder;
+import com.google.common.collect.ImmutableList;
+import java.math.BigDecimal;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.hep.HepPlanner;
+import org.apache.calcite.plan.hep.HepProgramBuilder;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.logical.LogicalTableScan;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.sql.SqlNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.calcite.util.TimestampString;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLiteralParameterizer {
+  private static final RelDataTypeFactory typeFactory = SqlTypeFactoryImpl.INSTANCE;
+  private static final RexBuilder rexBuilder = new DremioRexBuilder(typeFactory);
+
+  private RelOptCluster cluster;
+  private RelBuilder relBuilder;
+  private RelOptTable table;
+
+  @Before
+  public void setup() {
+    OptionResolver optionResolver = OptionResolverSpecBuilder.build(new OptionResolverSpec());
+    PlannerSettings context = new PlannerSettings(null, optionResolver, null);
+    RelOptPlanner planner =
+        new HepPlanner(
+            new HepProgramBuilder().build(), context, false, null, new DremioCost.Factory());
+    cluster = RelOptCluster.create(planner, rexBuilder);
+    relBuilder = RelBuilder.proto(context).create(cluster, null);
+
+    table =
+        mockTable(
+            new DatasetConfig()
+                .setReadDefinition(
+                    new ReadDefinition().setPartitionColumnsList(ImmutableList.of("P"))));
+  }
+
+  @Test
+  public void testParameterizeFilterLiteral() throws Exception {
+    ParameterizedQuery query =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 10"), filterOnA(10));
+
+    Assert.assertNotNull(query);
+    Assert.assertEquals(1, query.getParameters().size());
+    Assert.assertEquals(10, query.getParameters().get(0).getValueAs(Integer.class).intValue());
+    Assert.assertTrue(RelOptUtil.toString(query.getNormalizedRel()).contains("?0"));
+    Assert.assertFalse(query.getNormalizedSql().contains("10"));
+  }
+
+  @Test
+  public void testQueriesDifferingByLiteralShareNormalizedForm() throws Exception {
+    ParameterizedQuery first =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 10"), filterOnA(10));
+    ParameterizedQuery second =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 20"), filterOnA(20));
+
+    Assert.assertEquals(first.getNormalizedSql(), second.getNormalizedSql());
+    Assert.assertEquals(
+        RelOptUtil.toString(first.getNormalizedRel()),
+        RelOptUtil.toString(second.getNormalizedRel()));
+  }
+
+  @Test
+  public void testRepeatedValueIsNotParameterized() throws Exception {
+    RelNode rel =
+        relBuilder
+            .push(scan())
+            .filter(
+                relBuilder.or(
+                    relBuilder.equals(relBuilder.field("a"), relBuilder.literal(10)),
+                    relBuilder.greaterThan(relBuilder.field("a"), relBuilder.literal(10))))
+            .build();
+
+    Assert.assertNull(
+        LiteralParameterizer.parameterize(
+            sql("select * from t where a = 10 or a > 10"), rel));
+  }
+
+  @Test
+  public void testPartitionColumnIsNotParameterized() throws Exception {
+    RelNode rel =
+        relBuilder
+            .push(scan())
+            .filter(relBuilder.equals(relBuilder.field("p"), relBuilder.literal("x")))
+            .build();
+
+    Assert.assertNull(
+        LiteralParameterizer.parameterize(sql("select * from t where p = 'x'"), rel));
+  }
+
+  @Test
+  public void testTemplateBindRoundTrip() throws Exception {
+    RelNode plan = filterOnA(10);
+    ParameterizedQuery query =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 10"), plan);
+    RelNode template = LiteralParameterizer.createTemplate(plan, query.getParameters());
+    Assert.assertNotNull(template);
+    Assert.assertFalse(RelOptUtil.toString(template).contains("10"));
+
+    ParameterizedQuery other =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 20"), filterOnA(20));
+    RelNode bound = LiteralParameterizer.bind(template, other.getParameters());
+    Assert.assertEquals(RelOptUtil.toString(filterOnA(20)), RelOptUtil.toString(bound));
+  }
+
+  @Test
+  public void testTemplateRejectedWhenValueIsUsedTwice() throws Exception {
+    ParameterizedQuery query =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 10"), filterOnA(10));
+    RelNode plan =
+        relBuilder
+            .push(filterOnA(10))
+            .project(relBuilder.field("a"), relBuilder.literal(10))
+            .build();
+
+    Assert.assertNull(LiteralParameterizer.createTemplate(plan, query.getParameters()));
+  }
+
+  @Test
+  public void testMinMaxPrunedDatasetIsNotParameterized() throws Exception {
+    table =
+        mockTable(
+            new DatasetConfig()
+                .setPhysicalDataset(
+                    new PhysicalDataset()
+                        .setIcebergMetadata(new IcebergMetadata().setFileType(FileType.ICEBERG)))
+                .setReadDefinition(new ReadDefinition()));
+
+    Assert.assertNull(
+        LiteralParameterizer.parameterize(sql("select * from t where a = 10"), filterOnA(10)));
+  }
+
+  @Test
+  public void testDecimalTemplateBindRoundTrip() throws Exception {
+    RelNode plan = filterOn("d", rexBuilder.makeExactLiteral(new BigDecimal("100.00")));
+    ParameterizedQuery query =
+        LiteralParameterizer.parameterize(sql("select * from t where d = 100.00"), plan);
+    RelNode template = LiteralParameterizer.createTemplate(plan, query.getParameters());
+    Assert.assertNotNull(template);
+
+    RelNode other = filterOn("d", rexBuilder.makeExactLiteral(new BigDecimal("250.50")));
+    ParameterizedQuery otherQuery =
+        LiteralParameterizer.parameterize(sql("select * from t where d = 250.50"), other);
+    Assert.assertEquals(
+        RelOptUtil.toString(other),
+        RelOptUtil.toString(LiteralParameterizer.bind(template, otherQuery.getParameters())));
+  }
+
+  @Test
+  public void testTemplateRejectedWhenDecimalIsHeldByScan() throws Exception {
+    RexLiteral value = rexBuilder.makeExactLiteral(new BigDecimal("100.00"));
+    assertTemplateRejectedWhenHeldByScan("d", value);
+  }
+
+  @Test
+  public void testTemplateRejectedWhenTimestampIsHeldByScan() throws Exception {
+    RexLiteral value =
+        rexBuilder.makeTimestampLiteral(new TimestampString("2024-03-01 10:15:00"), 0);
+    assertTemplateRejectedWhenHeldByScan("ts", value);
+  }
+
+  @Test
+  public void testTemplateRejectedWithPushedDownFilter() throws Exception {
+    ParameterizedQuery query =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 10"), filterOnA(10));
+    FilterableScan scan = mock(FilterableScan.class);
+    when(scan.getFilter()).thenReturn(mock(ScanFilter.class));
+
+    Assert.assertNull(LiteralParameterizer.createTemplate(scan, query.getParameters()));
+  }
+
+  @Test
+  public void testTemplateRejectedWithPrunedSplits() throws Exception {
+    ParameterizedQuery query =
+        LiteralParameterizer.parameterize(sql("select * from t where a = 10"), filterOnA(10));
+    TableMetadata tableMetadata = mock(TableMetadata.class);
+    when(tableMetadata.getSplitRatio()).thenReturn(0.5);
+    ScanRelBase scan = mock(ScanRelBase.class);
+    when(scan.getTableMetadata()).thenReturn(tableMetadata);
+
+    Assert.assertNull(LiteralParameterizer.createTemplate(scan, query.getParameters()));
+  }
+
+  /** The value is held by a scan which visits its condition, but doesn't rewrite it. */
+  private void assertTemplateRejectedWhenHeldByScan(String field, RexLiteral value)
+      throws Exception {
+    ParameterizedQuery query =
+        LiteralParameterizer.parameterize(
+            sql("select * from t where " + field + " = ?"), filterOn(field, value));
+    Assert.assertNotNull(query);
+
+    RelDataType rowType = table.getRowType();
+    int index = rowType.getField(field, false, false).getIndex();
+    RexNode condition =
+        rexBuilder.makeCall(
+            SqlStdOperatorTable.EQUALS,
+            rexBuilder.makeInputRef(rowType.getFieldList().get(index).getType(), index),
+            value);
+    RelNode plan = new ConditionScan(cluster, table, condition);
+    Assert.assertNull(LiteralParameterizer.createTemplate(plan, query.getParameters()));
+  }
+
+  private RelOptTable mockTable(DatasetConfig datasetConfig) {
+    RelDataType rowType =
+        typeFactory
+            .builder()
+            .add("a", SqlTypeName.INTEGER)
+            .add("p", SqlTypeName.VARCHAR, 10)
+            .add("d", SqlTypeName.DECIMAL, 10, 2)
+            .add("ts", SqlTypeName.TIMESTAMP)
+            .build();
+    DremioTable dremioTable = mock(DremioTable.class);
+    when(dremioTable.getDatasetConfig()).thenReturn(datasetConfig);
+    RelOptTable relOptTable = mock(RelOptTable.class);
+    when(relOptTable.getRowType()).thenReturn(rowType);
+    when(relOptTable.getQualifiedName()).thenReturn(ImmutableList.of("src", "t"));
+    when(relOptTable.unwrap(DremioTable.class)).thenReturn(dremioTable);
+    return relOptTable;
+  }
+
+  private RelNode scan() {
+    return LogicalTableScan.create(cluster, table, ImmutableList.of());
+  }
+
+  private RelNode filterOnA(int value) {
+    return filterOn("a", relBuilder.literal(value));
+  }
+
+  private RelNode filterOn(String field, RexNode value) {
+    return relBuilder
+        .push(scan())
+        .filter(relBuilder.equals(relBuilder.field(field), value))
+        .build();
+  }
+
+  private static SqlNode sql(String sql) throws SqlParseException {
+    return SqlParser.create(sql).parseQuery();
+  }
+
+  /** A scan holding a pushed down condition, which it exposes but can't rewrite. */
+  private static final class ConditionScan extends TableScan {
+    private final RexNode condition;
+
+    private ConditionScan(RelOptCluster cluster, RelOptTable table, RexNode condition) {
+      super(cluster, cluster.traitSet(), ImmutableList.of(), table);
+      this.condition = condition;
+    }
+
+    @Override
+    public RelNode accept(RexShuttle shuttle) {
+      condition.accept(shuttle);
+      return this;
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+      return super.explainTerms(pw).item("condition", condition);
+    }
+  }
+}
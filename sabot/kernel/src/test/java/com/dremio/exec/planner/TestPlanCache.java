@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.planner;
+
+import static org.mockito.Mockito.mock;
+
+import com.dremio.catalog.model.dataset.TableVersionContext;
+import com.dremio.catalog.model.dataset.TableVersionType;
+import com.dremio.exec.catalog.VersionedDatasetId;
+import com.dremio.exec.planner.physical.Prel;
+import com.dremio.service.namespace.catalogstatusevents.events.VersionedTableUpdateCatalogStatusEvent;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestPlanCache {
+  private static final List<String> TABLE = ImmutableList.of("nessie", "folder", "table");
+  private static final List<String> OTHER_TABLE = ImmutableList.of("nessie", "folder", "other");
+
+  private Cache<String, CachedPlan> cachePlans;
+  private Multimap<String, String> datasetMap;
+  private PlanCache planCache;
+
+  @Before
+  public void setup() {
+    cachePlans = CacheBuilder.newBuilder().build();
+    datasetMap = Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+    planCache = new PlanCache(cachePlans, datasetMap);
+  }
+
+  @Test
+  public void testVersionedTableUpdateInvalidatesPlansOnBranch() {
+    cache("onMain", versionedDatasetId(TABLE, TableVersionType.BRANCH, "main"));
+    cache("onDev", versionedDatasetId(TABLE, TableVersionType.BRANCH, "dev"));
+    cache("onTag", versionedDatasetId(TABLE, TableVersionType.TAG, "main"));
+    cache("otherOnMain", versionedDatasetId(OTHER_TABLE, TableVersionType.BRANCH, "main"));
+    cache("unversioned", "5f3e0c1a-4a50-4bb0-9a2c-1cf0c3a5e2b1");
+
+    planCache.onCatalogStatusEvent(new VersionedTableUpdateCatalogStatusEvent(TABLE, "main"));
+
+    Assert.assertNull(cachePlans.getIfPresent("onMain"));
+    Assert.assertNotNull(cachePlans.getIfPresent("onDev"));
+    Assert.assertNotNull(cachePlans.getIfPresent("onTag"));
+    Assert.assertNotNull(cachePlans.getIfPresent("otherOnMain"));
+    Assert.assertNotNull(cachePlans.getIfPresent("unversioned"));
+  }
+
+  private void cache(String cacheKey, String datasetId) {
+    cachePlans.put(cacheKey, CachedPlan.createCachedPlan(mock(Prel.class), 1));
+    datasetMap.put(datasetId, cacheKey);
+  }
+
+  private static String versionedDatasetId(
+      List<String> tableKey, TableVersionType type, String refName) {
+    return VersionedDatasetId.newBuilder()
+        .setTableKey(tableKey)
+        .setContentId("content-" + String.join(".", tableKey))
+        .setTableVersionContext(new TableVersionContext(type, refName))
+        .build()
+        .asString();
+  }
+}
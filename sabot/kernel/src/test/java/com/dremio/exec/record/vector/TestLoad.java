@@ -17,6 +17,7 @@ package com.dremio.exec.record.vector;
 
 import static org.apache.arrow.vector.types.Types.getMinorTypeForArrowType;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import com.dremio.exec.ExecTest;
 import com.dremio.exec.record.RecordBatchLoader;
@@ -33,6 +34,7 @@ import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.types.Types.MinorType;
+import org.apache.arrow.vector.util.Text;
 import org.junit.Test;
 
 public class TestLoad extends ExecTest {
@@ -114,4 +116,52 @@ public class TestLoad extends ExecTest {
     batchLoader.clear();
     writableBatch.clear();
   }
+
+  @Test
+  public void testLoadFromSeparateBuffers() throws Exception {
+    final IntVector ints = new IntVector("ints", allocator);
+    final VarCharVector chars = new VarCharVector("chars", allocator);
+    ints.allocateNew(100);
+    chars.allocateNew(100 * 10, 100);
+    for (int i = 0; i < 100; i++) {
+      if (i % 7 == 0) {
+        ints.setNull(i);
+        chars.setNull(i);
+      } else {
+        ints.set(i, i);
+        chars.setSafe(i, new Text("value" + i));
+      }
+    }
+    ints.setValueCount(100);
+    chars.setValueCount(100);
+
+    final WritableBatch writableBatch =
+        WritableBatch.getBatchNoHV(100, Lists.<ValueVector>newArrayList(ints, chars), false);
+    final List<ArrowBuf> buffers = Lists.newArrayList();
+    for (NettyArrowBuf buf : writableBatch.getBuffers()) {
+      buffers.add(buf.arrowBuf().slice(buf.readerIndex(), buf.readableBytes()));
+    }
+
+    try (RecordBatchLoader batchLoader = new RecordBatchLoader(allocator)) {
+      batchLoader.load(writableBatch.getDef(), buffers);
+      // the loaded vectors hold their own references to the buffers
+      writableBatch.clear();
+
+      assertEquals(0, batchLoader.getBytesCopied());
+      assertEquals(100, batchLoader.getRecordCount());
+      final IntVector loadedInts =
+          batchLoader.getValueAccessorById(IntVector.class, 0).getValueVector();
+      final VarCharVector loadedChars =
+          batchLoader.getValueAccessorById(VarCharVector.class, 1).getValueVector();
+      for (int i = 0; i < 100; i++) {
+        if (i % 7 == 0) {
+          assertTrue(loadedInts.isNull(i));
+          assertTrue(loadedChars.isNull(i));
+        } else {
+          assertEquals(i, loadedInts.get(i));
+          assertEquals(new Text("value" + i), loadedChars.getObject(i));
+        }
+      }
+    }
+  }
 }
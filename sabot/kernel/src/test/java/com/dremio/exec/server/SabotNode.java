@@ -681,7 +681,8 @@ public class SabotNode implements AutoCloseable {
             .toInstance(
                 new BasicResourceAllocator(
                     getProvider(ClusterCoordinator.class),
-                    getProvider(GroupResourceInformation.class)));
+                    getProvider(GroupResourceInformation.class),
+                    getProvider(OptionManager.class)));
 
         bind(ExecutorSelectorFactory.class).toInstance(new ExecutorSelectorFactoryImpl());
 
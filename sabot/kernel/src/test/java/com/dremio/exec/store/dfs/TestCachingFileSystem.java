@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.dfs;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dremio.io.AsyncByteReader;
+import com.dremio.io.file.FileAttributes;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.Path;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Tests for {@link CachingFileSystem} and {@link BlockCache}. */
+public class TestCachingFileSystem {
+  private static final int BLOCK_SIZE = 64;
+  private static final int FILE_LENGTH = 1000;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final byte[] data = new byte[FILE_LENGTH];
+  private final AtomicInteger remoteReads = new AtomicInteger();
+  private BlockCache cache;
+  private FileSystem fs;
+
+  @Before
+  public void setup() throws Exception {
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i % 251);
+    }
+    cache =
+        new BlockCache(
+            ImmutableList.of(temporaryFolder.getRoot().toPath()),
+            ImmutableList.of(10_000L),
+            ImmutableList.of(0),
+            BLOCK_SIZE,
+            Runnable::run);
+
+    final AsyncByteReader remoteReader =
+        (offset, dst, dstOffset, len) -> {
+          remoteReads.incrementAndGet();
+          dst.setBytes(dstOffset, data, (int) offset, len);
+          return AsyncByteReader.completedFuture;
+        };
+    final FileAttributes attributes = mock(FileAttributes.class);
+    when(attributes.size()).thenReturn((long) FILE_LENGTH);
+    fs = mock(FileSystem.class);
+    when(fs.getAsyncByteReader(any(), any())).thenReturn(remoteReader);
+    when(fs.getFileAttributes(any())).thenReturn(attributes);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    cache.close();
+  }
+
+  @Test
+  public void testReadThrough() throws Exception {
+    final CachingFileSystem cachingFs = new CachingFileSystem(fs, cache, "source", 100, null);
+    try (AsyncByteReader reader = cachingFs.getAsyncByteReader(fileKey("1"), ImmutableMap.of())) {
+      validateRead(reader, 100, 150);
+      assertThat(remoteReads).hasValue(1);
+
+      // blocks 1 to 3 are cached
+      validateRead(reader, 100, 150);
+      validateRead(reader, 70, 180);
+      assertThat(remoteReads).hasValue(1);
+
+      // the last block is shorter than the block size
+      validateRead(reader, 990, 10);
+      validateRead(reader, 961, 39);
+      assertThat(remoteReads).hasValue(2);
+
+      validateRead(reader, 0, 70);
+      assertThat(remoteReads).hasValue(3);
+    }
+    assertThat(cache.getUsedBytes()).isEqualTo(4 * BLOCK_SIZE + 40);
+  }
+
+  @Test
+  public void testNewVersionIsNotServedFromCache() throws Exception {
+    final CachingFileSystem cachingFs = new CachingFileSystem(fs, cache, "source", 100, null);
+    try (AsyncByteReader reader = cachingFs.getAsyncByteReader(fileKey("1"), ImmutableMap.of())) {
+      validateRead(reader, 0, 200);
+    }
+    try (AsyncByteReader reader = cachingFs.getAsyncByteReader(fileKey("2"), ImmutableMap.of())) {
+      validateRead(reader, 0, 200);
+    }
+    assertThat(remoteReads).hasValue(2);
+  }
+
+  @Test
+  public void testUnversionedFilesAreNotCached() throws Exception {
+    final CachingFileSystem cachingFs = new CachingFileSystem(fs, cache, "source", 100, null);
+    try (AsyncByteReader reader = cachingFs.getAsyncByteReader(fileKey(""), ImmutableMap.of())) {
+      validateRead(reader, 0, 200);
+      validateRead(reader, 0, 200);
+    }
+    assertThat(remoteReads).hasValue(2);
+    assertThat(cache.getUsedBytes()).isZero();
+  }
+
+  @Test
+  public void testSourceLimitEvictsLeastRecentlyUsedBlocks() throws Exception {
+    final OperatorStats stats = mock(OperatorStats.class);
+    // 5% of the cache fits 7 blocks
+    final CachingFileSystem cachingFs = new CachingFileSystem(fs, cache, "source", 5, stats);
+    try (AsyncByteReader reader = cachingFs.getAsyncByteReader(fileKey("1"), ImmutableMap.of())) {
+      validateRead(reader, 0, FILE_LENGTH);
+      assertThat(cache.getUsedBytes()).isLessThanOrEqualTo(500);
+
+      // the last blocks are still cached, the first ones were evicted
+      validateRead(reader, 9 * BLOCK_SIZE, FILE_LENGTH - 9 * BLOCK_SIZE);
+      assertThat(remoteReads).hasValue(1);
+      validateRead(reader, 0, BLOCK_SIZE);
+      assertThat(remoteReads).hasValue(2);
+    }
+
+    verify(stats).addLongStat(Metric.BLOCK_CACHE_HITS, 1);
+    verify(stats).addLongStat(Metric.BLOCK_CACHE_MISSES, 2);
+    verify(stats).addLongStat(eq(Metric.BLOCK_CACHE_EVICTED_BYTES), longThat(bytes -> bytes > 0));
+  }
+
+  @Test
+  public void testEvictionWhenFull() throws Exception {
+    final CachingFileSystem cachingFs = new CachingFileSystem(fs, cache, "source", 100, null);
+    for (int version = 0; version < 20; version++) {
+      try (AsyncByteReader reader =
+          cachingFs.getAsyncByteReader(fileKey(Integer.toString(version)), ImmutableMap.of())) {
+        validateRead(reader, 0, FILE_LENGTH);
+      }
+      assertThat(cache.getUsedBytes()).isLessThanOrEqualTo(cache.getCapacity());
+    }
+    assertThat(temporaryFolder.getRoot().toPath().resolve("blockcache").toFile().list())
+        .hasSizeLessThanOrEqualTo((int) (cache.getCapacity() / 40));
+  }
+
+  @Test
+  public void testReadCompletesBeforeBlocksAreWritten() throws Exception {
+    final Queue<Runnable> pendingWrites = new ArrayDeque<>();
+    try (BlockCache deferredCache =
+        new BlockCache(
+            ImmutableList.of(temporaryFolder.newFolder().toPath()),
+            ImmutableList.of(10_000L),
+            ImmutableList.of(0),
+            BLOCK_SIZE,
+            pendingWrites::add)) {
+      final CachingFileSystem cachingFs =
+          new CachingFileSystem(fs, deferredCache, "source", 100, null);
+      try (AsyncByteReader reader = cachingFs.getAsyncByteReader(fileKey("1"), ImmutableMap.of())) {
+        validateRead(reader, 100, 150);
+        assertThat(deferredCache.getUsedBytes()).isZero();
+        assertThat(pendingWrites).hasSize(1);
+
+        pendingWrites.remove().run();
+        assertThat(deferredCache.getUsedBytes()).isEqualTo(3 * BLOCK_SIZE);
+        validateRead(reader, 100, 150);
+        assertThat(remoteReads).hasValue(1);
+      }
+    }
+  }
+
+  @Test
+  public void testDirectoryCapacityIsEnforced() throws Exception {
+    final java.nio.file.Path large = temporaryFolder.newFolder().toPath();
+    final java.nio.file.Path small = temporaryFolder.newFolder().toPath();
+    try (BlockCache twoDirectoryCache =
+        new BlockCache(
+            ImmutableList.of(large, small),
+            ImmutableList.of(10_000L, 2L * BLOCK_SIZE),
+            ImmutableList.of(0),
+            BLOCK_SIZE,
+            Runnable::run)) {
+      final CachingFileSystem cachingFs =
+          new CachingFileSystem(fs, twoDirectoryCache, "source", 100, null);
+      for (int version = 0; version < 5; version++) {
+        try (AsyncByteReader reader =
+            cachingFs.getAsyncByteReader(fileKey(Integer.toString(version)), ImmutableMap.of())) {
+          validateRead(reader, 0, FILE_LENGTH);
+        }
+        try (Stream<java.nio.file.Path> files = Files.list(small.resolve("blockcache"))) {
+          assertThat(files.mapToLong(file -> file.toFile().length()).sum())
+              .isLessThanOrEqualTo(2L * BLOCK_SIZE);
+        }
+      }
+    }
+  }
+
+  private static AsyncByteReader.FileKey fileKey(String version) {
+    return AsyncByteReader.FileKey.of(
+        Path.of("/source/file.parquet"), version, AsyncByteReader.FileKey.FileType.PARQUET);
+  }
+
+  private void validateRead(AsyncByteReader reader, long offset, int len) throws Exception {
+    final ByteBuf buf = Unpooled.buffer(len + 10);
+    try {
+      reader.readFully(offset, buf, 10, len).get();
+      final byte[] actual = new byte[len];
+      buf.getBytes(10, actual);
+      assertThat(actual).isEqualTo(Arrays.copyOfRange(data, (int) offset, (int) offset + len));
+    } finally {
+      buf.release();
+    }
+  }
+}
@@ -33,28 +33,33 @@ import com.dremio.sabot.op.common.ht2.VariableBlockVector;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.FieldVector;
 
 public class BaseTestEqualityDeleteFilter extends BaseTestOperator {
 
   protected EqualityDeleteHashTable buildTable(RecordSet buildRs, List<Integer> buildOrdinals)
       throws Exception {
+    return buildTable(getTestAllocator(), buildRs, buildOrdinals);
+  }
+
+  protected EqualityDeleteHashTable buildTable(
+      BufferAllocator tableAllocator, RecordSet buildRs, List<Integer> buildOrdinals)
+      throws Exception {
     int buildBatchSize = buildRs.getMaxBatchSize();
     int buildRecords = buildRs.getTotalRecords();
 
+    List<SchemaPath> equalityFields = getFields(buildRs.getSchema());
     try (Generator buildGenerator = buildRs.toGenerator(getTestAllocator());
         ArrowBuf buildOrdinalBuf =
-            getTestAllocator().buffer((long) buildBatchSize * ORDINAL_SIZE)) {
-
-      List<SchemaPath> equalityFields = getFields(buildRs.getSchema());
-      VectorAccessible buildAccessible = buildGenerator.getOutput();
-      EqualityDeleteHashTable.Builder builder =
-          new EqualityDeleteHashTable.Builder(
-              getTestAllocator(),
-              equalityFields,
-              getFieldVectors(buildAccessible, buildRs.getSchema()),
-              buildRecords,
-              buildBatchSize);
+            getTestAllocator().buffer((long) buildBatchSize * ORDINAL_SIZE);
+        EqualityDeleteHashTable.Builder builder =
+            new EqualityDeleteHashTable.Builder(
+                tableAllocator,
+                equalityFields,
+                getFieldVectors(buildGenerator.getOutput(), buildRs.getSchema()),
+                buildRecords,
+                buildBatchSize)) {
 
       int records;
       while ((records = buildGenerator.next(buildBatchSize)) > 0) {
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.iceberg.deletes;
+
+import static com.dremio.sabot.RecordSet.r;
+import static com.dremio.sabot.RecordSet.rb;
+import static com.dremio.sabot.RecordSet.rs;
+import static com.dremio.sabot.op.common.ht2.LBlockHashTable.ORDINAL_SIZE;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_EQ_DELETE_TABLE_CACHE_HITS;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_EQ_DELETE_TABLE_CACHE_MISSES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.dremio.exec.record.BatchSchema;
+import com.dremio.sabot.Generator;
+import com.dremio.sabot.RecordSet;
+import com.dremio.sabot.exec.context.OpProfileDef;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.common.ht2.PivotDef;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.OutOfMemoryException;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.Test;
+
+public class TestEqualityDeleteHashTableCache extends BaseTestEqualityDeleteFilter {
+
+  private static final BatchSchema SCHEMA_INT =
+      BatchSchema.newBuilder()
+          .addField(Field.nullable("col1", Types.MinorType.INT.getType()))
+          .build();
+  private static final BatchSchema SCHEMA_BIGINT =
+      BatchSchema.newBuilder()
+          .addField(Field.nullable("col1", Types.MinorType.BIGINT.getType()))
+          .build();
+  private static final RecordSet BUILD_INT = rs(SCHEMA_INT, rb(r(1), r(5), r(2)));
+  private static final RecordSet BUILD_BIGINT = rs(SCHEMA_BIGINT, rb(r(1L), r(5L), r(2L)));
+  private static final RecordSet PROBE_INT = rs(SCHEMA_INT, rb(r(5), r(3), r(1)));
+
+  @Test
+  public void testTableSharedAcrossReaders() throws Exception {
+    OperatorStats stats = new OperatorStats(new OpProfileDef(0, 0, 0, 0), getTestAllocator());
+    EqualityDeleteFileReader reader1 = mockReader("eq-delete1", BUILD_INT);
+    EqualityDeleteFileReader reader2 = mockReader("eq-delete1", BUILD_INT);
+
+    try (EqualityDeleteHashTableCache cache =
+        new EqualityDeleteHashTableCache(getTestAllocator(), Long.MAX_VALUE)) {
+      try (EqualityDeleteHashTable table1 = cache.getOrBuild(reader1, getTestAllocator(), stats);
+          EqualityDeleteHashTable table2 = cache.getOrBuild(reader2, getTestAllocator(), stats)) {
+        assertThat(probe(table1)).containsExactly(true, false, true);
+        assertThat(probe(table2)).containsExactly(true, false, true);
+      }
+
+      // idle entries stay cached while under the memory limit
+      assertThat(cache.size()).isEqualTo(1);
+      assertThat(cache.getAllocatedMemory()).isGreaterThan(0);
+    }
+
+    verify(reader1, times(1)).buildHashTable(any(BufferAllocator.class));
+    verify(reader2, never()).buildHashTable(any(BufferAllocator.class));
+    assertThat(stats.getLongStat(NUM_EQ_DELETE_TABLE_CACHE_MISSES)).isEqualTo(1);
+    assertThat(stats.getLongStat(NUM_EQ_DELETE_TABLE_CACHE_HITS)).isEqualTo(1);
+  }
+
+  @Test
+  public void testDifferentFieldTypesAreNotShared() throws Exception {
+    EqualityDeleteFileReader intReader = mockReader("eq-delete1", BUILD_INT);
+    EqualityDeleteFileReader bigIntReader = mockReader("eq-delete1", BUILD_BIGINT);
+
+    try (EqualityDeleteHashTableCache cache =
+        new EqualityDeleteHashTableCache(getTestAllocator(), Long.MAX_VALUE)) {
+      try (EqualityDeleteHashTable table1 = cache.getOrBuild(intReader, getTestAllocator(), null);
+          EqualityDeleteHashTable table2 =
+              cache.getOrBuild(bigIntReader, getTestAllocator(), null)) {
+        assertThat(cache.size()).isEqualTo(2);
+      }
+    }
+
+    verify(intReader, times(1)).buildHashTable(any(BufferAllocator.class));
+    verify(bigIntReader, times(1)).buildHashTable(any(BufferAllocator.class));
+  }
+
+  @Test
+  public void testUnknownFilePathIsNotCached() throws Exception {
+    EqualityDeleteFileReader reader = mockReader("", BUILD_INT);
+
+    try (EqualityDeleteHashTableCache cache =
+        new EqualityDeleteHashTableCache(getTestAllocator(), Long.MAX_VALUE)) {
+      assertThat(cache.getOrBuild(reader, getTestAllocator(), null)).isNull();
+      assertThat(cache.size()).isEqualTo(0);
+    }
+
+    verify(reader, never()).buildHashTable(any(BufferAllocator.class));
+  }
+
+  @Test
+  public void testEntriesInUseAreNotEvicted() throws Exception {
+    EqualityDeleteFileReader reader1 = mockReader("eq-delete1", BUILD_INT);
+    EqualityDeleteFileReader reader2 = mockReader("eq-delete2", BUILD_INT);
+
+    // room for building a single table
+    try (EqualityDeleteHashTableCache cache =
+        new EqualityDeleteHashTableCache(getTestAllocator(), getBuildPeakMemory())) {
+      EqualityDeleteHashTable table1 = cache.getOrBuild(reader1, getTestAllocator(), null);
+      assertThatThrownBy(() -> cache.getOrBuild(reader2, getTestAllocator(), null))
+          .isInstanceOf(OutOfMemoryException.class);
+      assertThat(cache.size()).isEqualTo(1);
+      assertThat(probe(table1)).containsExactly(true, false, true);
+
+      // once idle, eq-delete1 is evicted to make room for eq-delete2
+      table1.close();
+      try (EqualityDeleteHashTable table2 = cache.getOrBuild(reader2, getTestAllocator(), null)) {
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(probe(table2)).containsExactly(true, false, true);
+      }
+    }
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+    EqualityDeleteFileReader reader1 = mockReader("eq-delete1", BUILD_INT);
+    EqualityDeleteFileReader reader2 = mockReader("eq-delete2", BUILD_INT);
+    EqualityDeleteFileReader reader3 = mockReader("eq-delete3", BUILD_INT);
+
+    long tableSize;
+    long buildPeakMemory;
+    try (EqualityDeleteHashTableCache sizingCache =
+        new EqualityDeleteHashTableCache(getTestAllocator(), Long.MAX_VALUE)) {
+      sizingCache.getOrBuild(mockReader("sizing", BUILD_INT), getTestAllocator(), null).close();
+      tableSize = sizingCache.getAllocatedMemory();
+      buildPeakMemory = sizingCache.getPeakMemoryAllocation();
+    }
+
+    // room for one table, and for building another one
+    try (EqualityDeleteHashTableCache cache =
+        new EqualityDeleteHashTableCache(getTestAllocator(), tableSize + buildPeakMemory)) {
+      cache.getOrBuild(reader1, getTestAllocator(), null).close();
+      cache.getOrBuild(reader2, getTestAllocator(), null).close();
+
+      // touch eq-delete1 so that eq-delete2 becomes the least recently used entry
+      cache.getOrBuild(reader1, getTestAllocator(), null).close();
+      cache.getOrBuild(reader3, getTestAllocator(), null).close();
+      assertThat(cache.size()).isEqualTo(2);
+
+      cache.getOrBuild(reader1, getTestAllocator(), null).close();
+      cache.getOrBuild(reader2, getTestAllocator(), null).close();
+    }
+
+    verify(reader1, times(1)).buildHashTable(any(BufferAllocator.class));
+    verify(reader2, times(2)).buildHashTable(any(BufferAllocator.class));
+    verify(reader3, times(1)).buildHashTable(any(BufferAllocator.class));
+  }
+
+  @Test
+  public void testSupplierBuildsUncachedTableWhenCacheIsFull() throws Exception {
+    EqualityDeleteFileReader reader1 = mockReader("eq-delete1", BUILD_INT);
+    EqualityDeleteFileReader reader2 = mockReader("eq-delete2", BUILD_INT);
+    EqualityDeleteFileReader uncachedReader = mockReader("eq-delete2", BUILD_INT);
+    when(uncachedReader.buildHashTable())
+        .thenAnswer(i -> buildTable(getTestAllocator(), BUILD_INT, null));
+
+    try (EqualityDeleteHashTableCache cache =
+            new EqualityDeleteHashTableCache(getTestAllocator(), getBuildPeakMemory());
+        EqualityDeleteHashTable table1 = cache.getOrBuild(reader1, getTestAllocator(), null);
+        LazyEqualityDeleteTableSupplier supplier =
+            new LazyEqualityDeleteTableSupplier(
+                ImmutableList.of(reader2),
+                cache,
+                i -> uncachedReader,
+                getTestAllocator(),
+                null)) {
+      assertThat(supplier.get()).hasSize(1);
+      assertThat(probe(supplier.get().get(0))).containsExactly(true, false, true);
+      assertThat(cache.size()).isEqualTo(1);
+    }
+
+    verify(uncachedReader, times(1)).buildHashTable();
+    verify(uncachedReader, times(1)).close();
+  }
+
+  @Test
+  public void testSupplierReleasesTablesAndReadersOnFailure() throws Exception {
+    EqualityDeleteFileReader reader1 = mockReader("eq-delete1", BUILD_INT);
+    EqualityDeleteFileReader reader2 = mockReader("eq-delete2", BUILD_INT);
+    EqualityDeleteFileReader reader3 = mockReader("eq-delete3", BUILD_INT);
+    when(reader2.buildHashTable(any(BufferAllocator.class)))
+        .thenThrow(new RuntimeException("read failure"));
+
+    try (EqualityDeleteHashTableCache cache =
+            new EqualityDeleteHashTableCache(getTestAllocator(), Long.MAX_VALUE);
+        LazyEqualityDeleteTableSupplier supplier =
+            new LazyEqualityDeleteTableSupplier(
+                ImmutableList.of(reader1, reader2, reader3),
+                cache,
+                i -> null,
+                getTestAllocator(),
+                null)) {
+      // the handle on the table of reader1 is closed, or the test allocator reports a leak
+      assertThatThrownBy(supplier::get).hasMessage("read failure");
+      assertThat(cache.size()).isEqualTo(1);
+    }
+
+    verify(reader1, times(1)).close();
+    verify(reader2, times(1)).close();
+    verify(reader3, times(1)).close();
+    verify(reader3, never()).buildHashTable(any(BufferAllocator.class));
+  }
+
+  /** Returns the memory needed to build a table of BUILD_INT in the cache. */
+  private long getBuildPeakMemory() throws Exception {
+    try (EqualityDeleteHashTableCache sizingCache =
+        new EqualityDeleteHashTableCache(getTestAllocator(), Long.MAX_VALUE)) {
+      sizingCache.getOrBuild(mockReader("sizing", BUILD_INT), getTestAllocator(), null).close();
+      return sizingCache.getPeakMemoryAllocation();
+    }
+  }
+
+  private EqualityDeleteFileReader mockReader(String path, RecordSet build) {
+    EqualityDeleteFileReader reader = mock(EqualityDeleteFileReader.class);
+    when(reader.getFilePath()).thenReturn(path);
+    when(reader.getEqualityVectorFields()).thenReturn(build.getSchema().getFields());
+    when(reader.buildHashTable(any(BufferAllocator.class)))
+        .thenAnswer(i -> buildTable(i.getArgument(0, BufferAllocator.class), build, null));
+    return reader;
+  }
+
+  private List<Boolean> probe(EqualityDeleteHashTable table) throws Exception {
+    List<Boolean> found = new ArrayList<>();
+    int batchSize = PROBE_INT.getMaxBatchSize();
+    try (Generator generator = PROBE_INT.toGenerator(getTestAllocator());
+        ArrowBuf ordinals = getTestAllocator().buffer((long) batchSize * ORDINAL_SIZE)) {
+      PivotDef pivotDef = createPivotDef(generator.getOutput(), table.getEqualityFields());
+      int records;
+      while ((records = generator.next(batchSize)) > 0) {
+        find(table, records, pivotDef, ordinals);
+        for (int i = 0; i < records; i++) {
+          found.add(ordinals.getInt((long) i * ORDINAL_SIZE) != -1);
+        }
+      }
+    }
+
+    return found;
+  }
+}
@@ -17,6 +17,8 @@ package com.dremio.exec.store.iceberg.deletes;
 
 import static com.dremio.sabot.op.scan.ScanOperator.Metric.PARQUET_BYTES_READ;
 import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_DELETE_FILE_READERS;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_POS_DELETE_INDEX_CACHE_HITS;
+import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.NUM_POS_DELETE_INDEX_CACHE_MISSES;
 import static com.dremio.sabot.op.tablefunction.TableFunctionOperator.Metric.PARQUET_DELETE_FILE_BYTES_READ;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
@@ -279,6 +281,132 @@ public class TestRowLevelDeleteFilterFactory extends BaseTestOperator {
     assertThat(context.getStats().getLongStat(PARQUET_DELETE_FILE_BYTES_READ)).isEqualTo(70);
   }
 
+  @Test
+  public void testCreatePositionalDeleteFilterWithIndexCache() throws Exception {
+    PositionalDeleteIndexCache indexCache = new PositionalDeleteIndexCache(1024 * 1024, 60);
+    Map<String, DataFileInfo> dataFileInfo =
+        ImmutableMap.of(
+            DATA_FILE_1,
+            new DataFileInfo(
+                DATA_FILE_1, ImmutableList.of(POS_DELETE_FILE_INFO_2, POS_DELETE_FILE_INFO_1), 1));
+
+    // first scan reads the delete files and populates the cache
+    try (RowLevelDeleteFilterFactory factory =
+        new RowLevelDeleteFilterFactory(context, readerFactory, indexCache, null)) {
+      factory.setDataFileInfoForBatch(dataFileInfo);
+      PositionalDeleteFilter filter = factory.createPositionalDeleteFilter(DATA_FILE_1);
+      filter.seek(0);
+
+      // filter rows [ 1 .. 6 ]
+      verifyFilter(filter, ImmutableList.of(0, 6, 0));
+      filter.release();
+    }
+
+    assertThat(indexCache.size()).isEqualTo(1);
+    verify(posReader1, times(1)).release();
+    verify(posReader2, times(1)).release();
+
+    // second scan is served from the cache for DATA_FILE_1, even though its delete files are
+    // listed in a different order
+    Map<String, DataFileInfo> reorderedDataFileInfo =
+        ImmutableMap.of(
+            DATA_FILE_1,
+            new DataFileInfo(
+                DATA_FILE_1, ImmutableList.of(POS_DELETE_FILE_INFO_1, POS_DELETE_FILE_INFO_2), 1));
+    try (RowLevelDeleteFilterFactory factory =
+        new RowLevelDeleteFilterFactory(context, readerFactory, indexCache, null)) {
+      factory.setDataFileInfoForBatch(reorderedDataFileInfo);
+      PositionalDeleteFilter filter = factory.createPositionalDeleteFilter(DATA_FILE_1);
+      filter.seek(0);
+      verifyFilter(filter, ImmutableList.of(0, 6, 0));
+      filter.release();
+    }
+
+    verify(readerFactory, times(1))
+        .createPositionalDeleteFileReader(any(), eq(POS_DELETE_FILE_1), anyList());
+    verify(readerFactory, times(1))
+        .createPositionalDeleteFileReader(any(), eq(POS_DELETE_FILE_2), anyList());
+    verify(posReader1, times(1)).release();
+    verify(posReader2, times(1)).release();
+    assertThat(context.getStats().getLongStat(NUM_DELETE_FILE_READERS)).isEqualTo(2);
+    assertThat(context.getStats().getLongStat(NUM_POS_DELETE_INDEX_CACHE_MISSES)).isEqualTo(1);
+    assertThat(context.getStats().getLongStat(NUM_POS_DELETE_INDEX_CACHE_HITS)).isEqualTo(1);
+  }
+
+  @Test
+  public void testSkipCachedDataFileDoesNotReleaseSharedReader() throws Exception {
+    PositionalDeleteIndexCache indexCache = new PositionalDeleteIndexCache(1024 * 1024, 60);
+    try (RowLevelDeleteFilterFactory factory =
+        new RowLevelDeleteFilterFactory(context, readerFactory, indexCache, null)) {
+      factory.setDataFileInfoForBatch(
+          ImmutableMap.of(
+              DATA_FILE_1,
+              new DataFileInfo(DATA_FILE_1, ImmutableList.of(POS_DELETE_FILE_INFO_1), 1)));
+      PositionalDeleteFilter filter = factory.createPositionalDeleteFilter(DATA_FILE_1);
+      filter.seek(0);
+      verifyFilter(filter, ImmutableList.of(0, 3, 0));
+      filter.release();
+
+      // DATA_FILE_1 is now cached, so only DATA_FILE_2 holds a reference on POS_DELETE_FILE_1
+      factory.setDataFileInfoForBatch(
+          ImmutableMap.of(
+              DATA_FILE_1,
+              new DataFileInfo(DATA_FILE_1, ImmutableList.of(POS_DELETE_FILE_INFO_1), 1),
+              DATA_FILE_2,
+              new DataFileInfo(DATA_FILE_2, ImmutableList.of(POS_DELETE_FILE_INFO_1), 1)));
+      filter = factory.createPositionalDeleteFilter(DATA_FILE_2);
+
+      // skipping the cached data file entirely must leave the shared reader alone
+      factory.adjustRowGroupCount(DATA_FILE_1, -1);
+      verify(posReader1, times(1)).release();
+
+      filter.seek(0);
+      verifyFilter(filter, ImmutableList.of(0, 3, 0));
+      filter.release();
+    }
+
+    verify(readerFactory, times(1))
+        .createPositionalDeleteFileReader(
+            any(), eq(POS_DELETE_FILE_1), eq(ImmutableList.of(DATA_FILE_2)));
+    verify(posReader1, times(2)).release();
+    assertThat(context.getStats().getLongStat(NUM_POS_DELETE_INDEX_CACHE_HITS)).isEqualTo(1);
+  }
+
+  @Test
+  public void testCreatePositionalDeleteFilterWithDifferentDeleteFilesMissesIndexCache()
+      throws Exception {
+    PositionalDeleteIndexCache indexCache = new PositionalDeleteIndexCache(1024 * 1024, 60);
+
+    try (RowLevelDeleteFilterFactory factory =
+        new RowLevelDeleteFilterFactory(context, readerFactory, indexCache, null)) {
+      factory.setDataFileInfoForBatch(
+          ImmutableMap.of(
+              DATA_FILE_1,
+              new DataFileInfo(DATA_FILE_1, ImmutableList.of(POS_DELETE_FILE_INFO_1), 1)));
+      PositionalDeleteFilter filter = factory.createPositionalDeleteFilter(DATA_FILE_1);
+      filter.seek(0);
+      verifyFilter(filter, ImmutableList.of(0, 3, 0));
+      filter.release();
+
+      // a newer snapshot added a delete file for the same data file
+      factory.setDataFileInfoForBatch(
+          ImmutableMap.of(
+              DATA_FILE_1,
+              new DataFileInfo(
+                  DATA_FILE_1,
+                  ImmutableList.of(POS_DELETE_FILE_INFO_1, POS_DELETE_FILE_INFO_2),
+                  1)));
+      filter = factory.createPositionalDeleteFilter(DATA_FILE_1);
+      filter.seek(0);
+      verifyFilter(filter, ImmutableList.of(0, 6, 0));
+      filter.release();
+    }
+
+    assertThat(indexCache.size()).isEqualTo(2);
+    assertThat(context.getStats().getLongStat(NUM_POS_DELETE_INDEX_CACHE_MISSES)).isEqualTo(2);
+    assertThat(context.getStats().getLongStat(NUM_POS_DELETE_INDEX_CACHE_HITS)).isEqualTo(0);
+  }
+
   @Test
   public void testIncrementRowGroupCount() throws Exception {
     try (RowLevelDeleteFilterFactory factory =
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.BOOLEAN;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.DOUBLE;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT32;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.dremio.common.expression.FieldReference;
+import com.dremio.common.expression.FunctionCallFactory;
+import com.dremio.common.expression.LogicalExpression;
+import com.dremio.common.expression.SchemaPath;
+import com.dremio.common.expression.ValueExpressions;
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.store.parquet.BaseTestUnifiedParquetReader;
+import com.dremio.exec.store.parquet.ParquetFilterCondition;
+import com.dremio.exec.store.parquet.ParquetFilterIface;
+import com.dremio.exec.store.parquet.ParquetFilters;
+import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.ParquetReaderOptions;
+import com.dremio.io.file.Path;
+import com.dremio.sabot.op.scan.ScanOperator.Metric;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.ParquetProperties;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Types;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Compares the output of the columnar parquet reader with the row-wise reader. */
+public class TestColumnarParquetReader extends BaseTestUnifiedParquetReader {
+
+  private static final ParquetReaderOptions VECTORIZED_READER_OPTIONS =
+      ParquetReaderOptions.builder().enableVectorization(true).build();
+
+  private static final MessageType SCHEMA =
+      MessageTypeParser.parseMessageType(
+          "message test {\n"
+              + "  required int32 id;\n"
+              + "  optional int64 big;\n"
+              + "  optional double dbl;\n"
+              + "  optional float flt;\n"
+              + "  optional boolean flag;\n"
+              + "  optional binary name (UTF8);\n"
+              + "  optional binary raw;\n"
+              + "  optional int32 day (DATE);\n"
+              + "  optional int64 ts (TIMESTAMP_MICROS);\n"
+              + "  optional int64 ts_millis (TIMESTAMP_MILLIS);\n"
+              + "}");
+
+  private static final List<String> COLUMNS =
+      ImmutableList.of(
+          "id", "big", "dbl", "flt", "flag", "name", "raw", "day", "ts", "ts_millis");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ParquetReaderFactory readerFactory = ParquetReaderFactory.NONE;
+
+  @Override
+  protected ParquetReaderFactory getParquetReaderFactory() {
+    return readerFactory;
+  }
+
+  @Before
+  public void enableColumnarReader() {
+    testCloseables.add(with(ExecConstants.PARQUET_COLUMNAR_READER_ENABLED, true));
+  }
+
+  @Test
+  public void testPlainV1() throws Exception {
+    validateAgainstRowwise(
+        writeFile(ParquetProperties.WriterVersion.PARQUET_1_0, false), COLUMNS);
+  }
+
+  @Test
+  public void testDictionaryV1() throws Exception {
+    validateAgainstRowwise(writeFile(ParquetProperties.WriterVersion.PARQUET_1_0, true), COLUMNS);
+  }
+
+  @Test
+  public void testPlainV2() throws Exception {
+    // V2 pages use the delta encodings for ints and binaries
+    validateAgainstRowwise(
+        writeFile(ParquetProperties.WriterVersion.PARQUET_2_0, false), COLUMNS);
+  }
+
+  @Test
+  public void testDictionaryV2() throws Exception {
+    validateAgainstRowwise(writeFile(ParquetProperties.WriterVersion.PARQUET_2_0, true), COLUMNS);
+  }
+
+  @Test
+  public void testProjectionSubset() throws Exception {
+    validateAgainstRowwise(
+        writeFile(ParquetProperties.WriterVersion.PARQUET_1_0, true),
+        ImmutableList.of("name", "id"));
+  }
+
+  @Test
+  public void testMixedWithRowwiseColumns() throws Exception {
+    // decimal columns are still read row-wise, the other columns by the columnar reader
+    List<String> columns =
+        ImmutableList.of(
+            "c_varchar",
+            "c_integer",
+            "c_bigint",
+            "c_float",
+            "c_double",
+            "c_date",
+            "c_time",
+            "c_timestamp",
+            "c_boolean",
+            "d18");
+    validateAgainstRowwise(getParquetFileFromResource("first_page_all_nulls.parquet"), columns);
+    validateAgainstRowwise(getParquetFileFromResource("all_nulls.parquet"), columns);
+  }
+
+  @Test
+  public void testDates() throws Exception {
+    validateAgainstRowwise(
+        getParquetFileFromResource("date_dictionary.parquet"),
+        ImmutableList.of("date_req", "date_opt"));
+    validateAgainstRowwise(
+        getParquetFileFromResource("date_nodictionary.parquet"),
+        ImmutableList.of("date_req", "date_opt"));
+  }
+
+  @Test
+  public void testPageIndexPruning() throws Exception {
+    // ids are sorted, so the page indexes select the pages of a narrow id range
+    List<ParquetFilterCondition> conditions =
+        ImmutableList.of(
+            idCondition("greater_than_or_equal_to", 1000), idCondition("less_than", 1234));
+    Path path = writeFile(ParquetProperties.WriterVersion.PARQUET_1_0, false);
+
+    context.getStats().setLongStat(Metric.NUM_PAGES_PRUNED, 0);
+    List<List<Object>> rows = validateAgainstRowwise(path, COLUMNS, new ParquetFilters(conditions));
+
+    assertThat(rows).hasSize(234);
+    assertThat(rows.get(0).get(0)).isEqualTo(1000);
+    assertThat(context.getStats().getLongStat(Metric.NUM_PAGES_PRUNED)).isPositive();
+  }
+
+  @Test
+  public void testPageIndexPruningWithDictionary() throws Exception {
+    List<ParquetFilterCondition> conditions = ImmutableList.of(idCondition("less_than", 100));
+    Path path = writeFile(ParquetProperties.WriterVersion.PARQUET_2_0, true);
+
+    List<List<Object>> rows = validateAgainstRowwise(path, COLUMNS, new ParquetFilters(conditions));
+
+    assertThat(rows).hasSize(100);
+  }
+
+  @Test
+  public void testUnsupportedEncodingsStayRowwise() {
+    assertThat(ColumnChunkBatchReader.isSupported(chunk("flag", BOOLEAN, Encoding.RLE))).isTrue();
+    assertThat(ColumnChunkBatchReader.isSupported(chunk("flag", BOOLEAN, Encoding.RLE_DICTIONARY)))
+        .isFalse();
+    assertThat(
+            ColumnChunkBatchReader.isSupported(chunk("big", INT64, Encoding.DELTA_BINARY_PACKED)))
+        .isTrue();
+    assertThat(ColumnChunkBatchReader.isSupported(chunk("dbl", DOUBLE, Encoding.DELTA_BYTE_ARRAY)))
+        .isFalse();
+    assertThat(ColumnChunkBatchReader.isSupported(chunk("id", INT32, Encoding.BIT_PACKED)))
+        .isFalse();
+  }
+
+  private static ColumnChunkMetaData chunk(
+      String name, PrimitiveType.PrimitiveTypeName type, Encoding valueEncoding) {
+    ColumnChunkMetaData chunk = mock(ColumnChunkMetaData.class);
+    when(chunk.getPath()).thenReturn(ColumnPath.get(name));
+    when(chunk.getPrimitiveType()).thenReturn(Types.optional(type).named(name));
+    when(chunk.getEncodings()).thenReturn(ImmutableSet.of(Encoding.RLE, valueEncoding));
+    return chunk;
+  }
+
+  private static ParquetFilterCondition idCondition(String function, int value) {
+    SchemaPath id = SchemaPath.getSimplePath("id");
+    LogicalExpression expr =
+        FunctionCallFactory.createExpression(
+            function, new FieldReference(id), ValueExpressions.getInt(value));
+    return new ParquetFilterCondition(id, new ParquetFilterIface() {}, expr, 0);
+  }
+
+  private void validateAgainstRowwise(Path path, List<String> columns) throws Exception {
+    validateAgainstRowwise(path, columns, ParquetFilters.NONE);
+  }
+
+  private List<List<Object>> validateAgainstRowwise(
+      Path path, List<String> columns, ParquetFilters filters) throws Exception {
+    readerFactory = ParquetReaderFactory.NONE;
+    List<List<Object>> expected = readAll(path, columns, filters);
+
+    readerFactory = new ColumnarParquetReaderFactory();
+    context.getStats().setLongStat(Metric.NUM_VECTORIZED_COLUMNS, 0);
+    List<List<Object>> actual = readAll(path, columns, filters);
+
+    assertThat(context.getStats().getLongStat(Metric.NUM_VECTORIZED_COLUMNS)).isPositive();
+    assertThat(actual).hasSameSizeAs(expected);
+    for (int i = 0; i < expected.size(); i++) {
+      assertThat(actual.get(i)).as("row %d", i).isEqualTo(expected.get(i));
+    }
+    return actual;
+  }
+
+  private List<List<Object>> readAll(Path path, List<String> columns, ParquetFilters filters)
+      throws Exception {
+    List<List<Object>> rows = new ArrayList<>();
+    readAndValidate(
+        path,
+        filters,
+        columns,
+        VECTORIZED_READER_OPTIONS,
+        (rowGroupIndex, outputRowIndex, records, mutator) -> {
+          for (int i = 0; i < records; i++) {
+            List<Object> row = new ArrayList<>();
+            for (String column : columns) {
+              ValueVector vector = mutator.getVector(column);
+              Object value = vector.getObject(i);
+              row.add(value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value);
+            }
+            rows.add(row);
+          }
+        });
+    return rows;
+  }
+
+  private Path writeFile(ParquetProperties.WriterVersion version, boolean dictionary)
+      throws Exception {
+    File file = new File(temporaryFolder.getRoot(), "columnar-" + version + "-" + dictionary);
+    SimpleGroupFactory groups = new SimpleGroupFactory(SCHEMA);
+    try (ParquetWriter<Group> writer =
+        ExampleParquetWriter.builder(new org.apache.hadoop.fs.Path(file.toURI()))
+            .withType(SCHEMA)
+            .withWriterVersion(version)
+            .withDictionaryEncoding(dictionary)
+            .withPageSize(1024)
+            .withRowGroupSize(64 * 1024)
+            .build()) {
+      for (int i = 0; i < 5000; i++) {
+        Group group = groups.newGroup().append("id", i);
+        if (i % 7 != 0) {
+          group
+              .append("big", (long) i * 1_000_003)
+              .append("dbl", i / 3.0)
+              .append("flt", i / 7.0f)
+              .append("flag", i % 3 == 0)
+              .append("name", i % 11 == 0 ? "unique-" + i : "name-" + (i % 13))
+              .append("raw", "raw-" + (i % 5))
+              .append("day", 18000 + i % 400)
+              .append("ts", 1_600_000_000_000_000L + i * 1_001L)
+              .append("ts_millis", 1_600_000_000_000L + i);
+        }
+        writer.write(group);
+      }
+    }
+    return Path.of(file.getAbsolutePath());
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.exec.store.parquet.columnar;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.store.parquet.BaseTestUnifiedParquetReader;
+import com.dremio.exec.store.parquet.ParquetFilters;
+import com.dremio.exec.store.parquet.ParquetReaderFactory;
+import com.dremio.exec.store.parquet.ParquetReaderOptions;
+import com.dremio.io.file.Path;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.example.ExampleParquetWriter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ * Read the same files with the row-wise and the columnar parquet readers, and compare the perf.
+ * Ignoring test by default, since it can take very long to run.
+ */
+@Ignore
+public class TestColumnarParquetReaderPerf extends BaseTestUnifiedParquetReader {
+  private static final int NUM_ROWS = 2_000_000;
+  private static final int NUM_ITERATIONS = 5;
+  private static final ParquetReaderOptions VECTORIZED_READER_OPTIONS =
+      ParquetReaderOptions.builder().enableVectorization(true).build();
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private ParquetReaderFactory readerFactory = ParquetReaderFactory.NONE;
+
+  @Override
+  protected ParquetReaderFactory getParquetReaderFactory() {
+    return readerFactory;
+  }
+
+  @Before
+  public void enableColumnarReader() {
+    testCloseables.add(with(ExecConstants.PARQUET_COLUMNAR_READER_ENABLED, true));
+  }
+
+  @Override
+  protected int getBatchSize() {
+    return 4095;
+  }
+
+  @Test
+  public void narrowSchema() throws Exception {
+    compare("narrow", 4, NUM_ROWS);
+  }
+
+  @Test
+  public void wideSchema() throws Exception {
+    compare("wide", 100, NUM_ROWS / 20);
+  }
+
+  private void compare(String name, int numColumns, int numRows) throws Exception {
+    Path path = writeFile(name, numColumns, numRows);
+    List<String> columns = new ArrayList<>();
+    for (int i = 0; i < numColumns; i++) {
+      columns.add("c" + i);
+    }
+
+    long rowwise = time(ParquetReaderFactory.NONE, path, columns);
+    long columnar = time(new ColumnarParquetReaderFactory(), path, columns);
+    System.out.println(
+        String.format(
+            "%s schema (%d columns, %d rows): row-wise %d ms, columnar %d ms, speedup %.2fx",
+            name,
+            numColumns,
+            numRows,
+            rowwise,
+            columnar,
+            (double) rowwise / columnar));
+  }
+
+  /*
+   * Returns the best of NUM_ITERATIONS read times, in millis.
+   */
+  private long time(ParquetReaderFactory factory, Path path, List<String> columns)
+      throws Exception {
+    readerFactory = factory;
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < NUM_ITERATIONS; i++) {
+      long start = System.nanoTime();
+      readAndValidate(
+          path,
+          ParquetFilters.NONE,
+          columns,
+          VECTORIZED_READER_OPTIONS,
+          (rowGroupIndex, outputRowIndex, records, mutator) -> {});
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return TimeUnit.NANOSECONDS.toMillis(best);
+  }
+
+  /*
+   * Columns cycle through int, bigint, double and dictionary friendly varchar types, every fifth
+   * value is null.
+   */
+  private Path writeFile(String name, int numColumns, int numRows) throws Exception {
+    StringBuilder schema = new StringBuilder("message perf {\n");
+    for (int i = 0; i < numColumns; i++) {
+      switch (i % 4) {
+        case 0:
+          schema.append("  optional int32 c").append(i).append(";\n");
+          break;
+        case 1:
+          schema.append("  optional int64 c").append(i).append(";\n");
+          break;
+        case 2:
+          schema.append("  optional double c").append(i).append(";\n");
+          break;
+        default:
+          schema.append("  optional binary c").append(i).append(" (UTF8);\n");
+      }
+    }
+    MessageType messageType = MessageTypeParser.parseMessageType(schema.append("}").toString());
+
+    File file = new File(temporaryFolder.getRoot(), name + ".parquet");
+    SimpleGroupFactory groups = new SimpleGroupFactory(messageType);
+    try (ParquetWriter<Group> writer =
+        ExampleParquetWriter.builder(new org.apache.hadoop.fs.Path(file.toURI()))
+            .withType(messageType)
+            .build()) {
+      for (int row = 0; row < numRows; row++) {
+        Group group = groups.newGroup();
+        for (int i = 0; i < numColumns; i++) {
+          if ((row + i) % 5 == 0) {
+            continue;
+          }
+          String column = "c" + i;
+          switch (i % 4) {
+            case 0:
+              group.append(column, row);
+              break;
+            case 1:
+              group.append(column, (long) row * i);
+              break;
+            case 2:
+              group.append(column, row / 7.0);
+              break;
+            default:
+              group.append(column, "value-" + (row % 100));
+          }
+        }
+        writer.write(group);
+      }
+    }
+    return Path.of(file.getAbsolutePath());
+  }
+}
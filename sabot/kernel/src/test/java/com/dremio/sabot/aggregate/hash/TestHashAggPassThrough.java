@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.aggregate.hash;
+
+import static com.dremio.sabot.Fixtures.NULL_BIGINT;
+import static com.dremio.sabot.Fixtures.NULL_INT;
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+import static org.junit.Assert.assertEquals;
+
+import com.dremio.exec.physical.base.OpProps;
+import com.dremio.exec.physical.config.HashAggregate;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Fixtures.Table;
+import com.dremio.sabot.exec.context.OperatorStats;
+import com.dremio.sabot.op.aggregate.vectorized.HashAggStats.Metric;
+import com.dremio.sabot.op.aggregate.vectorized.VectorizedHashAggOperator;
+import java.util.Arrays;
+import org.junit.Test;
+
+/** Tests the adaptive pass-through of partial aggregations in {@link VectorizedHashAggOperator}. */
+public class TestHashAggPassThrough extends BaseTestOperator {
+
+  private static HashAggregate partialAgg(boolean partial) {
+    return new HashAggregate(
+        OpProps.prototype(),
+        null,
+        Arrays.asList(n("k")),
+        Arrays.asList(
+            n("sum(v)", "s"), n("min(v)", "mn"), n("count(v)", "c"), n("count(1)", "c1")),
+        true,
+        true,
+        1f,
+        3968,
+        partial);
+  }
+
+  private OperatorStats validate(HashAggregate conf, Table input, Table expected)
+      throws Exception {
+    try (AutoCloseable sample =
+            with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_PASS_THROUGH_SAMPLE_BATCHES, 2);
+        AutoCloseable ratio =
+            with(VectorizedHashAggOperator.VECTORIZED_HASHAGG_PASS_THROUGH_GROUP_RATIO, 0.9)) {
+      return validateSingle(
+          conf,
+          VectorizedHashAggOperator.class,
+          input.toGenerator(getTestAllocator()),
+          expected,
+          2);
+    }
+  }
+
+  @Test
+  public void uniqueKeysArePassedThrough() throws Exception {
+    final Table input =
+        t(
+            th("k", "v"),
+            tr(1, 10),
+            tr(2, 20),
+            tr(3, 30),
+            tr(4, 40),
+            tr(1, 5),
+            tr(1, NULL_INT),
+            tr(5, 50),
+            tr(5, 1));
+
+    /* the records after the first two batches are output one group per record */
+    final Table expected =
+        t(
+                th("k", "s", "mn", "c", "c1"),
+                tr(1, 10L, 10, 1L, 1L),
+                tr(2, 20L, 20, 1L, 1L),
+                tr(3, 30L, 30, 1L, 1L),
+                tr(4, 40L, 40, 1L, 1L),
+                tr(1, 5L, 5, 1L, 1L),
+                tr(1, NULL_BIGINT, NULL_INT, 0L, 1L),
+                tr(5, 50L, 50, 1L, 1L),
+                tr(5, 1L, 1, 1L, 1L))
+            .orderInsensitive();
+
+    final OperatorStats stats = validate(partialAgg(true), input, expected);
+    assertEquals(1, stats.getLongStat(Metric.PASS_THROUGH));
+    assertEquals(4, stats.getLongStat(Metric.PASS_THROUGH_RECORDS));
+    assertEquals(4, stats.getLongStat(Metric.PASS_THROUGH_SAMPLED_RECORDS));
+  }
+
+  @Test
+  public void reducingKeysAreAggregated() throws Exception {
+    final Table input =
+        t(
+            th("k", "v"),
+            tr(1, 10),
+            tr(1, 20),
+            tr(2, 30),
+            tr(1, 40),
+            tr(2, 5),
+            tr(2, NULL_INT),
+            tr(3, 50),
+            tr(3, 1));
+
+    final Table expected =
+        t(
+                th("k", "s", "mn", "c", "c1"),
+                tr(1, 70L, 10, 3L, 3L),
+                tr(2, 35L, 5, 2L, 3L),
+                tr(3, 51L, 1, 2L, 2L))
+            .orderInsensitive();
+
+    final OperatorStats stats = validate(partialAgg(true), input, expected);
+    assertEquals(0, stats.getLongStat(Metric.PASS_THROUGH));
+    assertEquals(0, stats.getLongStat(Metric.PASS_THROUGH_RECORDS));
+  }
+
+  @Test
+  public void finalAggregationIsNeverPassedThrough() throws Exception {
+    final Table input =
+        t(th("k", "v"), tr(1, 10), tr(2, 20), tr(3, 30), tr(4, 40), tr(1, 5), tr(4, 1));
+
+    final Table expected =
+        t(
+                th("k", "s", "mn", "c", "c1"),
+                tr(1, 15L, 5, 2L, 2L),
+                tr(2, 20L, 20, 1L, 1L),
+                tr(3, 30L, 30, 1L, 1L),
+                tr(4, 41L, 1, 2L, 2L))
+            .orderInsensitive();
+
+    final OperatorStats stats = validate(partialAgg(false), input, expected);
+    assertEquals(0, stats.getLongStat(Metric.PASS_THROUGH));
+  }
+}
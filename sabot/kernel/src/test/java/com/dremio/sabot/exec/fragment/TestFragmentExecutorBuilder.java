@@ -34,6 +34,7 @@ import com.dremio.exec.proto.CoordinationProtos;
 import com.dremio.exec.proto.ExecProtos;
 import com.dremio.exec.server.BootStrapContext;
 import com.dremio.exec.store.CatalogService;
+import com.dremio.exec.store.iceberg.deletes.RowLevelDeleteCaches;
 import com.dremio.options.OptionManager;
 import com.dremio.sabot.driver.OperatorCreatorRegistry;
 import com.dremio.sabot.exec.EventProvider;
@@ -106,6 +107,7 @@ public class TestFragmentExecutorBuilder extends DremioTest {
             mock(Provider.class),
             mock(Provider.class),
             mock(ExpressionSplitCache.class),
+            mock(RowLevelDeleteCaches.class),
             mock(HeapLowMemController.class));
 
     try {
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.dremio.exec.expr.fn.moments.CoMoments;
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TestMomentsAccumulator extends DremioTest {
+  private static final int MAX_VALUES_PER_BATCH = 16;
+  private static final int NUM_VALUES = 10_000;
+  /* large offset, so that naive sums of squares would lose most of the precision */
+  private static final double OFFSET = 1e9;
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  @Test
+  public void testMomentsAreKeptInAccumulatorBuffers() throws Exception {
+    try (final BufferAllocator allocator =
+            allocatorRule.newAllocator("test-moments-accumulator", 0, Long.MAX_VALUE);
+        final VarBinaryVector output = new VarBinaryVector("output", allocator);
+        final VarBinaryVector tempHolder = newTempHolder(allocator)) {
+      final MomentsAccumulators.MomentsAccumulator accumulator =
+          new MomentsAccumulators.MomentsAccumulator(
+              null, null, output, MAX_VALUES_PER_BATCH, tempHolder);
+      assertEquals(MAX_VALUES_PER_BATCH * CoMoments.SIZE, accumulator.getDataBufferSize());
+
+      try (final ArrowBuf dataBuf = allocator.buffer(accumulator.getDataBufferSize())) {
+        accumulator.addBatch(dataBuf, null);
+        accumulator.commitResize();
+        assertEquals(accumulator.getDataBufferSize(), accumulator.getSizeInBytes());
+
+        for (int i = 0; i < NUM_VALUES; i++) {
+          accumulator.update(0, 3, x(i), y(i));
+        }
+        accumulator.update(0, 5, 42, 7);
+
+        accumulator.output(0, new int[] {MAX_VALUES_PER_BATCH});
+        assertEquals(MAX_VALUES_PER_BATCH, output.getValueCount());
+        assertEquals(0, toMoments(output, 0).getCount());
+        assertExpected(toMoments(output, 3), 0, NUM_VALUES);
+        assertEquals(1, toMoments(output, 5).getCount());
+        assertEquals(0, toMoments(output, 5).getCovarPop(), 0);
+        assertFalse(toMoments(output, 5).hasCorrelation());
+        accumulator.close();
+      }
+    }
+  }
+
+  @Test
+  public void testMergeSpilledMoments() throws Exception {
+    try (final BufferAllocator allocator =
+            allocatorRule.newAllocator("test-moments-accumulator", 0, Long.MAX_VALUE);
+        final VarBinaryVector output = new VarBinaryVector("output", allocator);
+        final VarBinaryVector tempHolder = newTempHolder(allocator)) {
+      final MomentsAccumulators.MomentsAccumulator accumulator =
+          new MomentsAccumulators.MomentsAccumulator(
+              null, null, output, MAX_VALUES_PER_BATCH, tempHolder);
+
+      try (final ArrowBuf dataBuf = allocator.buffer(accumulator.getDataBufferSize());
+          final ArrowBuf spilled = allocator.buffer(CoMoments.SIZE);
+          final ArrowBuf secondHalf = allocator.buffer(CoMoments.SIZE)) {
+        accumulator.addBatch(dataBuf, null);
+        accumulator.commitResize();
+
+        /* first half of the values, then spill */
+        for (int i = 0; i < NUM_VALUES / 2; i++) {
+          accumulator.update(0, 3, x(i), y(i));
+        }
+        accumulator.getBuffers(0, MAX_VALUES_PER_BATCH);
+        spilled.setBytes(
+            0, tempHolder.getDataBuffer(), tempHolder.getStartOffset(3), CoMoments.SIZE);
+        accumulator.resetToMinimumSize();
+
+        /* the merge accumulator takes over the partition buffer */
+        final MomentsAccumulators.MomentsMergeAccumulator merge =
+            new MomentsAccumulators.MomentsMergeAccumulator(
+                accumulator, null, MAX_VALUES_PER_BATCH);
+        accumulator.close();
+
+        /* second half of the values, as another phase would have sent it */
+        final CoMoments moments = new CoMoments();
+        for (int i = NUM_VALUES / 2; i < NUM_VALUES; i++) {
+          moments.add(x(i), y(i));
+        }
+        moments.write(secondHalf, 0);
+        merge.update(0, 3, secondHalf, 0);
+        merge.update(0, 3, spilled, 0);
+
+        merge.output(0, new int[] {MAX_VALUES_PER_BATCH});
+        assertEquals(0, toMoments(output, 0).getCount());
+        assertExpected(toMoments(output, 3), 0, NUM_VALUES);
+        merge.close();
+      }
+    }
+  }
+
+  @Test
+  public void testMoveValuesAndFreeSpace() throws Exception {
+    try (final BufferAllocator allocator =
+            allocatorRule.newAllocator("test-moments-accumulator", 0, Long.MAX_VALUE);
+        final VarBinaryVector output = new VarBinaryVector("output", allocator);
+        final VarBinaryVector tempHolder = newTempHolder(allocator)) {
+      final MomentsAccumulators.MomentsAccumulator accumulator =
+          new MomentsAccumulators.MomentsAccumulator(
+              null, null, output, MAX_VALUES_PER_BATCH, tempHolder);
+
+      try (final ArrowBuf dataBuf0 = allocator.buffer(accumulator.getDataBufferSize());
+          final ArrowBuf dataBuf1 = allocator.buffer(accumulator.getDataBufferSize())) {
+        accumulator.addBatch(dataBuf0, null);
+        accumulator.addBatch(dataBuf1, null);
+        accumulator.commitResize();
+        for (int i = 0; i < 100; i++) {
+          accumulator.update(1, 2, x(i), y(i));
+        }
+
+        accumulator.moveValuesAndFreeSpace(1, 0, 2, 7, 1);
+
+        accumulator.output(0, new int[] {MAX_VALUES_PER_BATCH, MAX_VALUES_PER_BATCH});
+        assertExpected(toMoments(output, 7), 0, 100);
+        assertEquals(0, toMoments(output, MAX_VALUES_PER_BATCH + 2).getCount());
+        accumulator.close();
+      }
+    }
+  }
+
+  private static double x(int i) {
+    return OFFSET + (i % 101);
+  }
+
+  private static double y(int i) {
+    return OFFSET + 3 * (i % 101) + (i % 7);
+  }
+
+  /** Compare with the two pass computation of the values from start (inclusive) to end. */
+  private static void assertExpected(CoMoments actual, int start, int end) {
+    final int count = end - start;
+    double meanX = 0;
+    double meanY = 0;
+    for (int i = start; i < end; i++) {
+      meanX += (x(i) - OFFSET) / count;
+      meanY += (y(i) - OFFSET) / count;
+    }
+    double cXY = 0;
+    double m2X = 0;
+    double m2Y = 0;
+    for (int i = start; i < end; i++) {
+      final double dx = x(i) - OFFSET - meanX;
+      final double dy = y(i) - OFFSET - meanY;
+      cXY += dx * dy;
+      m2X += dx * dx;
+      m2Y += dy * dy;
+    }
+
+    assertEquals(count, actual.getCount());
+    assertEquals(cXY / count, actual.getCovarPop(), 1e-6 * Math.abs(cXY / count));
+    assertEquals(cXY / (count - 1), actual.getCovarSamp(), 1e-6 * Math.abs(cXY / (count - 1)));
+    assertEquals(cXY / Math.sqrt(m2X * m2Y), actual.getCorrelation(), 1e-6);
+  }
+
+  private static VarBinaryVector newTempHolder(BufferAllocator allocator) {
+    final VarBinaryVector tempHolder = new VarBinaryVector("moments tmp-holder", allocator);
+    tempHolder.allocateNew((long) CoMoments.SIZE * MAX_VALUES_PER_BATCH, MAX_VALUES_PER_BATCH);
+    return tempHolder;
+  }
+
+  private static CoMoments toMoments(VarBinaryVector vector, int index) {
+    final CoMoments moments = new CoMoments();
+    moments.read(vector.getDataBuffer(), vector.getStartOffset(index));
+    return moments;
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.aggregate.vectorized;
+
+import static org.junit.Assert.assertEquals;
+
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import java.nio.ByteBuffer;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TestTDigestAccumulator extends DremioTest {
+  private static final int MAX_VALUES_PER_BATCH = 16;
+  private static final int COMPRESSION = 100;
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  @Test
+  public void testDigestsAreKeptInAccumulatorBuffers() throws Exception {
+    try (final BufferAllocator allocator =
+            allocatorRule.newAllocator("test-tdigest-accumulator", 0, Long.MAX_VALUE);
+        final VarBinaryVector output = new VarBinaryVector("output", allocator);
+        final VarBinaryVector tempHolder = newTempHolder(allocator)) {
+      final TDigestAccumulators.DoubleTDigestAccumulator accumulator =
+          new TDigestAccumulators.DoubleTDigestAccumulator(
+              null, output, MAX_VALUES_PER_BATCH, allocator, tempHolder, COMPRESSION);
+      assertEquals(
+          MAX_VALUES_PER_BATCH * BaseTDigestAccumulator.getAccumulatorSize(COMPRESSION),
+          accumulator.getDataBufferSize());
+
+      try (final ArrowBuf dataBuf = allocator.buffer(accumulator.getDataBufferSize())) {
+        accumulator.addBatch(dataBuf, null);
+        accumulator.commitResize();
+        assertEquals(accumulator.getDataBufferSize(), accumulator.getSizeInBytes());
+
+        /* enough values to flush the buffered values into the digest many times */
+        final TDigest expected = new MergingDigest(COMPRESSION);
+        for (int i = 0; i < 10_000; i++) {
+          accumulator.update(0, 3, i);
+          expected.add(i);
+        }
+        accumulator.update(0, 5, 42);
+
+        accumulator.output(0, new int[] {MAX_VALUES_PER_BATCH});
+        assertEquals(MAX_VALUES_PER_BATCH, output.getValueCount());
+        assertEquals(0, toDigest(output, 0).size());
+        assertEquals(10_000, toDigest(output, 3).size());
+        assertEquals(expected.quantile(0.5), toDigest(output, 3).quantile(0.5), 50);
+        assertEquals(42, toDigest(output, 5).quantile(0.5), 0);
+        accumulator.close();
+      }
+    }
+  }
+
+  @Test
+  public void testMoveValuesAndFreeSpace() throws Exception {
+    try (final BufferAllocator allocator =
+            allocatorRule.newAllocator("test-tdigest-accumulator", 0, Long.MAX_VALUE);
+        final VarBinaryVector output = new VarBinaryVector("output", allocator);
+        final VarBinaryVector tempHolder = newTempHolder(allocator)) {
+      final TDigestAccumulators.DoubleTDigestAccumulator accumulator =
+          new TDigestAccumulators.DoubleTDigestAccumulator(
+              null, output, MAX_VALUES_PER_BATCH, allocator, tempHolder, COMPRESSION);
+
+      try (final ArrowBuf dataBuf0 = allocator.buffer(accumulator.getDataBufferSize());
+          final ArrowBuf dataBuf1 = allocator.buffer(accumulator.getDataBufferSize())) {
+        accumulator.addBatch(dataBuf0, null);
+        accumulator.addBatch(dataBuf1, null);
+        accumulator.commitResize();
+        for (int i = 0; i < 100; i++) {
+          accumulator.update(1, 2, i);
+        }
+
+        accumulator.moveValuesAndFreeSpace(1, 0, 2, 7, 1);
+
+        accumulator.output(0, new int[] {MAX_VALUES_PER_BATCH, MAX_VALUES_PER_BATCH});
+        assertEquals(100, toDigest(output, 7).size());
+        assertEquals(99, toDigest(output, 7).getMax(), 0);
+        assertEquals(0, toDigest(output, MAX_VALUES_PER_BATCH + 2).size());
+        accumulator.close();
+      }
+    }
+  }
+
+  private static VarBinaryVector newTempHolder(BufferAllocator allocator) {
+    final VarBinaryVector tempHolder = new VarBinaryVector("tdigest tmp-holder", allocator);
+    tempHolder.allocateNew(
+        (long) BaseTDigestAccumulator.getMaxSerializedSize(COMPRESSION) * MAX_VALUES_PER_BATCH,
+        MAX_VALUES_PER_BATCH);
+    return tempHolder;
+  }
+
+  private static TDigest toDigest(VarBinaryVector vector, int index) {
+    return MergingDigest.fromBytes(ByteBuffer.wrap(vector.get(index)));
+  }
+}
@@ -638,7 +638,8 @@ public class TestVectorizedHashAggPartitionSerializable extends DremioTest {
                 postSpillAccumulatorVectorFields,
                 accumulatorTypes,
                 records,
-                estimatedVariableWidthKeySize * records)) {
+                estimatedVariableWidthKeySize * records,
+                0)) {
 
       /* pivot the data into temporary space */
       Pivots.pivot(pivot, records, fbv, var);
@@ -439,7 +439,8 @@ public class TestVectorizedHashAggPartitionSpillHandler extends DremioTest {
               postSpillAccumulatorVectorFields,
               accumulatorTypes,
               MAX_VALUES_PER_BATCH,
-              (estimatedVariableWidthKeySize * MAX_VALUES_PER_BATCH))) {
+              (estimatedVariableWidthKeySize * MAX_VALUES_PER_BATCH),
+              0)) {
         Configuration conf = new org.apache.hadoop.conf.Configuration();
         conf.set(FileSystem.FS_DEFAULT_NAME_KEY, "file:///");
 
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sender;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.common.expression.CompleteType;
+import com.dremio.exec.proto.UserBitShared.QueryId;
+import com.dremio.exec.record.ArrowRecordBatchLoader;
+import com.dremio.exec.record.FragmentWritableBatch;
+import com.dremio.exec.record.VectorContainer;
+import com.dremio.exec.record.VectorWrapper;
+import com.dremio.exec.record.compression.ExchangeCompressionCodec;
+import com.dremio.exec.record.compression.ExchangeCompressionCodecs;
+import com.dremio.sabot.op.receiver.BatchDecompressor;
+import com.dremio.sabot.op.receiver.RawFragmentBatch;
+import com.dremio.test.AllocatorRule;
+import com.dremio.test.DremioTest;
+import com.google.common.io.ByteStreams;
+import com.google.flatbuffers.FlatBufferBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Random;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import org.apache.arrow.flatbuf.RecordBatch;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TestBatchCompressor extends DremioTest {
+  private static final int RECORDS = 4096;
+
+  @Rule public final AllocatorRule allocatorRule = AllocatorRule.defaultAllocator();
+
+  private BufferAllocator allocator;
+  private VectorContainer container;
+
+  @Before
+  public void setup() {
+    allocator = allocatorRule.newAllocator("test-batch-compressor", 0, Long.MAX_VALUE);
+    container = new VectorContainer(allocator);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    container.close();
+    allocator.close();
+  }
+
+  @Test
+  public void testLz4RoundTrip() {
+    testRoundTrip("lz4");
+  }
+
+  @Test
+  public void testZstdRoundTrip() {
+    testRoundTrip("zstd");
+  }
+
+  @Test
+  public void testLz4WritesStandardFrames() throws Exception {
+    final ExchangeCompressionCodec codec = ExchangeCompressionCodecs.fromOption("lz4");
+    final byte[] data = new byte[100_000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i % 13);
+    }
+    final long maxLength = codec.maxCompressedLength(data.length);
+    try (ArrowBuf src = allocator.buffer(data.length);
+        ArrowBuf dst = allocator.buffer(maxLength)) {
+      src.setBytes(0, data);
+      final byte[] frame = new byte[(int) codec.compress(src, 0, data.length, dst, 0, maxLength)];
+      dst.getBytes(0, frame);
+      try (InputStream in = new LZ4FrameInputStream(new ByteArrayInputStream(frame))) {
+        assertArrayEquals(data, ByteStreams.toByteArray(in));
+      }
+    }
+  }
+
+  @Test
+  public void testNoCompression() {
+    fillCompressible();
+    final BatchCompressor compressor =
+        new BatchCompressor(ExchangeCompressionCodecs.fromOption("none"), 0.9, allocator);
+    try (ArrowRecordBatch batch = FragmentWritableBatch.getArrowRecordBatch(container)) {
+      assertSame(batch, compressor.compress(batch));
+    }
+    assertEquals(0, compressor.getBytesSaved());
+  }
+
+  @Test
+  public void testIncompressibleBuffersAreSentRaw() {
+    final BigIntVector longs = container.addOrGet(CompleteType.BIGINT.toField("longs"));
+    container.buildSchema();
+    // small enough for the validity buffer not to be worth compressing
+    final int records = 2048;
+    longs.allocateNew(records);
+    final Random random = new Random(42);
+    for (int i = 0; i < records; i++) {
+      longs.set(i, random.nextLong());
+    }
+    container.setAllCount(records);
+
+    final BatchCompressor compressor =
+        new BatchCompressor(ExchangeCompressionCodecs.fromOption("lz4"), 0.9, allocator);
+    // the first batch samples the buffer
+    try (ArrowRecordBatch batch =
+        compressor.compress(FragmentWritableBatch.getArrowRecordBatch(container))) {
+      assertTrue(isCompressed(batch));
+    }
+    // the next ones skip it
+    for (int i = 0; i < BatchCompressor.RESAMPLE_INTERVAL; i++) {
+      final ArrowRecordBatch batch = FragmentWritableBatch.getArrowRecordBatch(container);
+      try (ArrowRecordBatch sent = compressor.compress(batch)) {
+        assertSame(batch, sent);
+      }
+    }
+    // until it is sampled again
+    try (ArrowRecordBatch batch =
+        compressor.compress(FragmentWritableBatch.getArrowRecordBatch(container))) {
+      assertTrue(isCompressed(batch));
+    }
+  }
+
+  private void testRoundTrip(String codec) {
+    fillCompressible();
+    final BatchCompressor compressor =
+        new BatchCompressor(ExchangeCompressionCodecs.fromOption(codec), 0.9, allocator);
+    final BatchDecompressor decompressor = new BatchDecompressor(allocator);
+
+    final RawFragmentBatch received;
+    try (ArrowRecordBatch compressed =
+        compressor.compress(FragmentWritableBatch.getArrowRecordBatch(container))) {
+      assertTrue(isCompressed(compressed));
+      received = receive(compressed);
+    }
+    assertTrue(compressor.getBytesSaved() > 0);
+
+    try (RawFragmentBatch batch = decompressor.decompress(received);
+        ArrowRecordBatchLoader loader =
+            new ArrowRecordBatchLoader(allocator, container.getSchema())) {
+      assertNotSame(received, batch);
+      loader.load(batch);
+      assertEquals(RECORDS, loader.getRecordCount());
+
+      final Iterator<VectorWrapper<?>> vectors = loader.iterator();
+      final IntVector ints = (IntVector) vectors.next().getValueVector();
+      final VarCharVector strings = (VarCharVector) vectors.next().getValueVector();
+      for (int i = 0; i < RECORDS; i++) {
+        if (i % 7 == 0) {
+          assertNull(ints.getObject(i));
+        } else {
+          assertEquals(i % 10, ints.get(i));
+        }
+        assertEquals("value-" + (i % 13), strings.getObject(i).toString());
+      }
+    }
+    assertEquals(compressor.getBytesSaved(), decompressor.getBytesSaved());
+  }
+
+  private void fillCompressible() {
+    final IntVector ints = container.addOrGet(CompleteType.INT.toField("ints"));
+    final VarCharVector strings = container.addOrGet(CompleteType.VARCHAR.toField("strings"));
+    container.buildSchema();
+    ints.allocateNew(RECORDS);
+    strings.allocateNew(RECORDS);
+    for (int i = 0; i < RECORDS; i++) {
+      if (i % 7 != 0) {
+        ints.set(i, i % 10);
+      }
+      strings.setSafe(i, ("value-" + (i % 13)).getBytes(StandardCharsets.UTF_8));
+    }
+    container.setAllCount(RECORDS);
+  }
+
+  /** Lays out the batch like the fabric does on the receiving side: one body for all buffers. */
+  private RawFragmentBatch receive(ArrowRecordBatch batch) {
+    final FragmentWritableBatch writableBatch =
+        new FragmentWritableBatch(QueryId.getDefaultInstance(), 0, 0, 1, batch, 0);
+    try (ArrowBuf body = allocator.buffer(batch.computeBodyLength())) {
+      long offset = 0;
+      for (ArrowBuf buffer : batch.getBuffers()) {
+        body.setBytes(offset, buffer, 0, buffer.readableBytes());
+        offset += buffer.readableBytes();
+      }
+      body.writerIndex(offset);
+      return new RawFragmentBatch(writableBatch.getHeader(), body, null);
+    }
+  }
+
+  private static boolean isCompressed(ArrowRecordBatch batch) {
+    final FlatBufferBuilder builder = new FlatBufferBuilder();
+    builder.finish(batch.writeTo(builder));
+    return RecordBatch.getRootAsRecordBatch(builder.dataBuffer()).compression() != null;
+  }
+}
@@ -82,6 +82,7 @@ public class TestMemoryRun extends BaseTestOperator {
             tracer,
             2,
             false,
+            false,
             8192,
             mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
@@ -101,6 +102,7 @@ public class TestMemoryRun extends BaseTestOperator {
             tracer,
             2,
             false,
+            false,
             8192,
             mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
@@ -120,6 +122,7 @@ public class TestMemoryRun extends BaseTestOperator {
             tracer,
             2,
             true,
+            false,
             8192,
             mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
@@ -139,6 +142,47 @@ public class TestMemoryRun extends BaseTestOperator {
             tracer,
             2,
             true,
+            false,
+            8192,
+            mock(ExecutionControls.class))) {
+      int totalAdded = addBatches(memoryRun);
+      validateCloseToDisk(memoryRun, totalAdded);
+    }
+  }
+
+  @Test
+  public void testRadixSorterCloseToCopier() throws Exception {
+    final ExternalSortTracer tracer = new ExternalSortTracer();
+    try (MemoryRun memoryRun =
+        new MemoryRun(
+            externalSort,
+            producer,
+            allocator,
+            generator.getSchema(),
+            tracer,
+            2,
+            false,
+            true,
+            8192,
+            mock(ExecutionControls.class))) {
+      int totalAdded = addBatches(memoryRun);
+      validateCloseToCopier(memoryRun, 100, totalAdded);
+    }
+  }
+
+  @Test
+  public void testRadixSorterCloseToDisk() throws Exception {
+    final ExternalSortTracer tracer = new ExternalSortTracer();
+    try (MemoryRun memoryRun =
+        new MemoryRun(
+            externalSort,
+            producer,
+            allocator,
+            generator.getSchema(),
+            tracer,
+            2,
+            false,
+            true,
             8192,
             mock(ExecutionControls.class))) {
       int totalAdded = addBatches(memoryRun);
@@ -148,15 +192,21 @@ public class TestMemoryRun extends BaseTestOperator {
 
   @Test
   public void testQuickSortStartMicroSpilling() throws Exception {
-    testStartMicroSpilling(false);
+    testStartMicroSpilling(false, false);
   }
 
   @Test
   public void testSplaySortStartMicroSpilling() throws Exception {
-    testStartMicroSpilling(true);
+    testStartMicroSpilling(true, false);
   }
 
-  private void testStartMicroSpilling(boolean useSplaySort) throws Exception {
+  @Test
+  public void testRadixSortStartMicroSpilling() throws Exception {
+    testStartMicroSpilling(false, true);
+  }
+
+  private void testStartMicroSpilling(boolean useSplaySort, boolean useRadixSort)
+      throws Exception {
     final ExternalSortTracer tracer = new ExternalSortTracer();
     try (MemoryRun memoryRun =
         new MemoryRun(
@@ -167,6 +217,7 @@ public class TestMemoryRun extends BaseTestOperator {
             tracer,
             2,
             useSplaySort,
+            useRadixSort,
             8192,
             mock(ExecutionControls.class))) {
       final int totalAdded = addBatches(memoryRun);
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.op.sort.external;
+
+import static com.dremio.sabot.Fixtures.NULL_BIGINT;
+import static com.dremio.sabot.Fixtures.NULL_DOUBLE;
+import static com.dremio.sabot.Fixtures.NULL_INT;
+import static com.dremio.sabot.Fixtures.NULL_VARCHAR;
+import static com.dremio.sabot.Fixtures.t;
+import static com.dremio.sabot.Fixtures.th;
+import static com.dremio.sabot.Fixtures.tr;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.ASCENDING;
+import static org.apache.calcite.rel.RelFieldCollation.Direction.DESCENDING;
+import static org.apache.calcite.rel.RelFieldCollation.NullDirection.FIRST;
+import static org.apache.calcite.rel.RelFieldCollation.NullDirection.LAST;
+
+import com.dremio.exec.ExecConstants;
+import com.dremio.exec.physical.config.ExternalSort;
+import com.dremio.sabot.BaseTestOperator;
+import com.dremio.sabot.Fixtures;
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests the external sort with the radix sort of normalized keys enabled. */
+public class TestRadixSorter extends BaseTestOperator {
+
+  @Test
+  public void testTruncatedStringKeys() throws Exception {
+    final String prefix = "a_common_prefix_longer_than_the_normalized_key_";
+    final Fixtures.Table input =
+        t(
+            th("c_str", "c_int"),
+            tr(prefix + "2", 1),
+            tr(NULL_VARCHAR, 5),
+            tr("b", NULL_INT),
+            tr(prefix + "10", 3),
+            tr(prefix + "2", NULL_INT),
+            tr("b", 7),
+            tr("a", 2),
+            tr(prefix + "2", 4),
+            tr(NULL_VARCHAR, NULL_INT));
+
+    final Fixtures.Table expected =
+        t(
+            th("c_str", "c_int"),
+            tr("a", 2),
+            tr(prefix + "10", 3),
+            tr(prefix + "2", NULL_INT),
+            tr(prefix + "2", 4),
+            tr(prefix + "2", 1),
+            tr("b", NULL_INT),
+            tr("b", 7),
+            tr(NULL_VARCHAR, NULL_INT),
+            tr(NULL_VARCHAR, 5));
+
+    final ExternalSort sort =
+        new ExternalSort(
+            PROPS,
+            null,
+            ImmutableList.of(
+                ordering("c_str", ASCENDING, LAST), ordering("c_int", DESCENDING, FIRST)),
+            false);
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT, true)) {
+      validateSingle(sort, ExternalSortOperator.class, input, expected, 4);
+    }
+  }
+
+  @Test
+  public void testNumericKeys() throws Exception {
+    final Fixtures.Table input =
+        t(
+            th("c_double", "c_bigint"),
+            tr(-1.5d, 3L),
+            tr(NULL_DOUBLE, 1L),
+            tr(3.5d, NULL_BIGINT),
+            tr(0d, -4L),
+            tr(Double.NEGATIVE_INFINITY, 0L),
+            tr(3.5d, -2L),
+            tr(-1.5d, Long.MIN_VALUE),
+            tr(0d, Long.MAX_VALUE));
+
+    final Fixtures.Table expected =
+        t(
+            th("c_double", "c_bigint"),
+            tr(3.5d, -2L),
+            tr(3.5d, NULL_BIGINT),
+            tr(0d, -4L),
+            tr(0d, Long.MAX_VALUE),
+            tr(-1.5d, Long.MIN_VALUE),
+            tr(-1.5d, 3L),
+            tr(Double.NEGATIVE_INFINITY, 0L),
+            tr(NULL_DOUBLE, 1L));
+
+    final ExternalSort sort =
+        new ExternalSort(
+            PROPS,
+            null,
+            ImmutableList.of(
+                ordering("c_double", DESCENDING, LAST), ordering("c_bigint", ASCENDING, LAST)),
+            false);
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT, true)) {
+      validateSingle(sort, ExternalSortOperator.class, input, expected, 3);
+    }
+  }
+
+  @Test
+  public void testManyRecords() throws Exception {
+    final int numRecords = 10_000;
+    final Random random = new Random(42);
+    final int[][] values = new int[numRecords][];
+    for (int i = 0; i < numRecords; i++) {
+      // few distinct values for the first key, so that the second key breaks ties
+      values[i] = new int[] {random.nextInt(16) - 8, random.nextInt()};
+    }
+
+    final Fixtures.DataRow[] inputRows = new Fixtures.DataRow[numRecords];
+    for (int i = 0; i < numRecords; i++) {
+      inputRows[i] = tr(values[i][0], values[i][1]);
+    }
+
+    Arrays.sort(
+        values,
+        Comparator.<int[]>comparingInt(v -> v[0])
+            .reversed()
+            .thenComparingInt(v -> v[1]));
+    final Fixtures.DataRow[] expectedRows = new Fixtures.DataRow[numRecords];
+    for (int i = 0; i < numRecords; i++) {
+      expectedRows[i] = tr(values[i][0], values[i][1]);
+    }
+
+    final ExternalSort sort =
+        new ExternalSort(
+            PROPS,
+            null,
+            ImmutableList.of(ordering("c0", DESCENDING, LAST), ordering("c1", ASCENDING, LAST)),
+            false);
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_RADIX_SORT, true)) {
+      validateSingle(
+          sort,
+          ExternalSortOperator.class,
+          t(th("c0", "c1"), inputRows),
+          t(th("c0", "c1"), expectedRows),
+          4095);
+    }
+  }
+}
@@ -255,6 +255,42 @@ public class TestSortOp extends BaseTestOperator {
     }
   }
 
+  @Test
+  public void testQuickSorterSpillSortWithReadAhead() throws Exception {
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT, false);
+        AutoCloseable readAhead = with(ExecConstants.EXTERNAL_SORT_READ_AHEAD_BATCHES, 4)) {
+      ExternalSort sort =
+          new ExternalSort(
+              PROPS.cloneWithNewReserve(1_000_000),
+              null,
+              singletonList(ordering(ID.getName(), ASCENDING, FIRST)),
+              false);
+      sort.getProps().setMemLimit(2_000_000); // this can't go below sort's initialAllocation (20K)
+      Fixtures.Table table = generator.getExpectedSortedTable();
+      OperatorStats stats =
+          validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
+      assertTrue(stats.getLongStat(ExternalSortStats.Metric.READ_AHEAD_BATCHES) > 0);
+    }
+  }
+
+  @Test
+  public void testQuickSorterSpillSortWithReadAheadOff() throws Exception {
+    try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_SPLAY_SORT, false);
+        AutoCloseable readAheadOff = with(ExecConstants.EXTERNAL_SORT_READ_AHEAD_BATCHES, 0)) {
+      ExternalSort sort =
+          new ExternalSort(
+              PROPS.cloneWithNewReserve(1_000_000),
+              null,
+              singletonList(ordering(ID.getName(), ASCENDING, FIRST)),
+              false);
+      sort.getProps().setMemLimit(2_000_000); // this can't go below sort's initialAllocation (20K)
+      Fixtures.Table table = generator.getExpectedSortedTable();
+      OperatorStats stats =
+          validateSingle(sort, ExternalSortOperator.class, generator, table, 1000);
+      assertEquals(0, stats.getLongStat(ExternalSortStats.Metric.READ_AHEAD_BATCHES));
+    }
+  }
+
   @Test
   public void testMicroSpillBatches() throws Exception {
     try (AutoCloseable option = with(ExecConstants.EXTERNAL_SORT_ENABLE_MICRO_SPILL, true)) {
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.sabot.task.slicing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.dremio.sabot.task.AsyncTask;
+import com.dremio.sabot.task.AsyncTaskWrapper;
+import com.dremio.sabot.task.SchedulingGroup;
+import com.dremio.sabot.task.Task;
+import com.dremio.sabot.task.TaskDescriptor;
+import com.dremio.sabot.task.TaskPool;
+import com.dremio.sabot.threads.AvailabilityCallback;
+import com.dremio.sabot.threads.sharedres.SharedResourceType;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Unit tests for {@link SlicingTaskPool} */
+public class TestSlicingTaskPool {
+
+  private SlicingTaskPool pool;
+
+  @Before
+  public void setup() {
+    pool = new SlicingTaskPool(4, 5);
+  }
+
+  @After
+  public void cleanup() throws Exception {
+    pool.close();
+  }
+
+  /** A task that stays runnable for a given number of slices, optionally blocking once */
+  private static class TestAsyncTask implements AsyncTask {
+    private final int numSlices;
+    private final boolean blockOnce;
+    private final AtomicInteger slicesRun = new AtomicInteger();
+    private final AtomicReference<AvailabilityCallback> callback = new AtomicReference<>();
+    private volatile Task.State state = Task.State.RUNNABLE;
+    private boolean blocked;
+
+    TestAsyncTask(int numSlices, boolean blockOnce) {
+      this.numSlices = numSlices;
+      this.blockOnce = blockOnce;
+    }
+
+    @Override
+    public void run() {
+      final int run = slicesRun.incrementAndGet();
+      if (run >= numSlices) {
+        state = Task.State.DONE;
+      } else if (blockOnce && !blocked) {
+        blocked = true;
+        state = Task.State.BLOCKED_ON_UPSTREAM;
+      }
+    }
+
+    void unblock() {
+      callback.get().nowAvailable();
+    }
+
+    @Override
+    public void refreshState() {
+      state = Task.State.RUNNABLE;
+    }
+
+    @Override
+    public Task.State getState() {
+      return state;
+    }
+
+    @Override
+    public String getTaskId() {
+      return "test";
+    }
+
+    @Override
+    public SharedResourceType getFirstBlockedResource() {
+      return SharedResourceType.UNKNOWN;
+    }
+
+    @Override
+    public void updateSleepDuration(long duration) {}
+
+    @Override
+    public void updateBlockedOnDownstreamDuration(long duration) {}
+
+    @Override
+    public void updateBlockedOnUpstreamDuration(long duration) {}
+
+    @Override
+    public void updateBlockedOnMemoryDuration(long duration) {}
+
+    @Override
+    public void addBlockedOnSharedResourceDuration(SharedResourceType resource, long duration) {}
+
+    @Override
+    public void setWakeupCallback(AvailabilityCallback callback) {
+      this.callback.set(callback);
+    }
+
+    @Override
+    public void setTaskDescriptor(TaskDescriptor descriptor) {}
+  }
+
+  private AsyncTaskWrapper newTask(
+      SchedulingGroup<AsyncTaskWrapper> group, AsyncTask task, CountDownLatch done) {
+    return new AsyncTaskWrapper(1, group, task, done::countDown, Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testRunsAllTasksToCompletion() throws Exception {
+    final int numTasks = 100;
+    final CountDownLatch done = new CountDownLatch(numTasks);
+    final SchedulingGroup<AsyncTaskWrapper> group = pool.getGroupManager().newGroup(100);
+    final TestAsyncTask[] tasks = new TestAsyncTask[numTasks];
+    for (int i = 0; i < numTasks; i++) {
+      tasks[i] = new TestAsyncTask(10, false);
+      pool.execute(newTask(group.addGroup(1), tasks[i], done));
+    }
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    for (TestAsyncTask task : tasks) {
+      assertEquals(10, task.slicesRun.get());
+    }
+  }
+
+  @Test
+  public void testBlockedTaskIsReEnqueued() throws Exception {
+    final CountDownLatch done = new CountDownLatch(1);
+    final TestAsyncTask task = new TestAsyncTask(3, true);
+    pool.execute(newTask(pool.getGroupManager().newGroup(1), task, done));
+
+    while (task.callback.get() == null) {
+      Thread.sleep(1);
+    }
+    assertEquals(1, task.slicesRun.get());
+    task.unblock();
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertEquals(3, task.slicesRun.get());
+  }
+
+  @Test
+  public void testHigherWeightGroupIsMoreEligible() {
+    final WeightedSchedulingGroup root = new WeightedSchedulingGroup(pool, null, 1);
+    final WeightedSchedulingGroup light = (WeightedSchedulingGroup) root.addGroup(1);
+    final WeightedSchedulingGroup heavy = (WeightedSchedulingGroup) root.addGroup(10);
+    final SlicingTaskHandle lightTask = new SlicingTaskHandle(pool, light, null, 1);
+    final SlicingTaskHandle heavyTask = new SlicingTaskHandle(pool, heavy, null, 1);
+
+    // both tasks ran for the same amount of time, the task of the heavier group should run next
+    lightTask.charge(TimeUnit.MILLISECONDS.toNanos(10));
+    heavyTask.charge(TimeUnit.MILLISECONDS.toNanos(10));
+    assertTrue(SlicingTaskHandle.compareEligibility(heavyTask, lightTask) < 0);
+
+    // the heavier group has to run ten times longer before it loses its priority
+    heavyTask.charge(TimeUnit.MILLISECONDS.toNanos(95));
+    assertTrue(SlicingTaskHandle.compareEligibility(lightTask, heavyTask) < 0);
+  }
+
+  @Test
+  public void testEligibilityAcrossVruntimeOverflow() {
+    final WeightedSchedulingGroup root = new WeightedSchedulingGroup(pool, null, 1);
+    // start the groups just below Long.MAX_VALUE so that the next charges wrap around
+    root.advanceChildClock(Long.MAX_VALUE - TimeUnit.MILLISECONDS.toNanos(1));
+    final WeightedSchedulingGroup light = (WeightedSchedulingGroup) root.addGroup(1);
+    final WeightedSchedulingGroup heavy = (WeightedSchedulingGroup) root.addGroup(10);
+    final SlicingTaskHandle lightTask = new SlicingTaskHandle(pool, light, null, 1);
+    final SlicingTaskHandle heavyTask = new SlicingTaskHandle(pool, heavy, null, 1);
+
+    lightTask.charge(TimeUnit.MILLISECONDS.toNanos(10));
+    heavyTask.charge(TimeUnit.MILLISECONDS.toNanos(10));
+    assertTrue(light.getVruntime() < 0);
+    assertTrue(SlicingTaskHandle.compareEligibility(heavyTask, lightTask) < 0);
+
+    heavyTask.charge(TimeUnit.MILLISECONDS.toNanos(95));
+    assertTrue(heavy.getVruntime() < 0);
+    assertTrue(SlicingTaskHandle.compareEligibility(lightTask, heavyTask) < 0);
+  }
+
+  @Test
+  public void testVirtualTimeSaturates() {
+    assertEquals(
+        WeightedSchedulingGroup.MAX_VIRTUAL_SLICE,
+        WeightedSchedulingGroup.toVirtualTime(Long.MAX_VALUE, 1));
+    assertEquals(
+        WeightedSchedulingGroup.MAX_VIRTUAL_SLICE,
+        WeightedSchedulingGroup.toVirtualTime(Long.MAX_VALUE / 2, 1000));
+    assertEquals(0, WeightedSchedulingGroup.toVirtualTime(-1, 1));
+    assertEquals(1000, WeightedSchedulingGroup.toVirtualTime(10, 10));
+    assertEquals(
+        Long.MIN_VALUE, WeightedSchedulingGroup.maxVruntime(Long.MAX_VALUE, Long.MIN_VALUE));
+  }
+
+  @Test
+  public void testSlicingThreadsInfo() {
+    int numThreads = 0;
+    for (TaskPool.ThreadInfo info : pool.getSlicingThreads()) {
+      assertEquals(numThreads++, info.slicingThreadId);
+    }
+    assertEquals(4, numThreads);
+    assertTrue(pool.areAllThreadsAlive());
+  }
+}
@@ -24,13 +24,20 @@ import com.dremio.exec.record.selection.SelectionVector2;
 import com.dremio.exec.record.selection.SelectionVector4;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import org.apache.arrow.memory.ArrowBuf;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.vector.AllocationHelper;
+import org.apache.arrow.vector.BaseFixedWidthVector;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BitVectorHelper;
+import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.ipc.message.ArrowFieldNode;
 import org.apache.arrow.vector.types.SerializedFieldHelper;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.slf4j.Logger;
@@ -45,6 +52,63 @@ public class RecordBatchLoader
   private VectorContainer container;
   private int valueCount;
   private BatchSchema schema;
+  private long bytesCopied;
+
+  /** Loads a vector from its serialized field, at the given offset of the batch data. */
+  @FunctionalInterface
+  private interface FieldLoader {
+    void load(ValueVector vector, SerializedField field, long offset);
+  }
+
+  /** Non empty buffers of a batch, addressed as if they were a single buffer. */
+  private static final class BufferSegments {
+    private final List<ArrowBuf> buffers = new ArrayList<>();
+    private final long[] starts;
+
+    private BufferSegments(List<ArrowBuf> batchBuffers) {
+      final List<Long> offsets = new ArrayList<>();
+      long offset = 0;
+      for (ArrowBuf buffer : batchBuffers) {
+        if (buffer.capacity() > 0) {
+          buffers.add(buffer);
+          offsets.add(offset);
+          offset += buffer.capacity();
+        }
+      }
+      starts = offsets.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * @return index of the buffer holding all the given bytes, -1 if there is none
+     */
+    private int find(long offset, long length) {
+      int index = Arrays.binarySearch(starts, offset);
+      if (index < 0) {
+        index = -index - 2;
+      }
+      if (index < 0 || offset + length > starts[index] + buffers.get(index).capacity()) {
+        return -1;
+      }
+      return index;
+    }
+
+    private ArrowBuf slice(int index, long offset, long length) {
+      return buffers.get(index).slice(offset - starts[index], length);
+    }
+
+    private void copy(long offset, ArrowBuf target, long length) {
+      int index = Math.max(find(offset, 1), 0);
+      long copied = 0;
+      while (copied < length) {
+        final ArrowBuf buffer = buffers.get(index);
+        final long srcIndex = offset + copied - starts[index];
+        final long toCopy = Math.min(length - copied, buffer.capacity() - srcIndex);
+        target.setBytes(copied, buffer, srcIndex, toCopy);
+        copied += toCopy;
+        index++;
+      }
+    }
+  }
 
   /** Constructs a loader using the given allocator for vector buffer allocation. */
   public RecordBatchLoader(BufferAllocator allocator) {
@@ -77,6 +141,36 @@ public class RecordBatchLoader
       logger.trace("Load, ThreadID: {}\n{}", Thread.currentThread().getId(), new StackTrace());
     }
 
+    return load(
+        def,
+        (vector, field, offset) ->
+            TypeHelper.load(vector, field, buf.slice(offset, field.getBufferLength())));
+  }
+
+  /**
+   * Load a record batch from the buffers it was written to, without first merging them into a
+   * single buffer.
+   *
+   * <p>The buffers are read in full and back to back, as if they were a single buffer. Vectors
+   * reference the given buffers whenever possible: the caller can release its own references once
+   * loaded, but the content must not be modified until the next load or until this loader is
+   * closed. A field is only copied when it spans several buffers in a way its vector can't
+   * reference, see {@link #getBytesCopied()}.
+   *
+   * @param def The definition for the record batch.
+   * @param buffers The buffers that hold the data associated with the record batch.
+   * @return Whether the schema changed since the previous load.
+   */
+  public boolean load(RecordBatchDef def, List<ArrowBuf> buffers) {
+    if (logger.isTraceEnabled()) {
+      logger.trace("Loading record batch with def {} and data {}", def, buffers);
+    }
+
+    final BufferSegments segments = new BufferSegments(buffers);
+    return load(def, (vector, field, offset) -> loadField(vector, field, offset, segments));
+  }
+
+  private boolean load(RecordBatchDef def, FieldLoader fieldLoader) {
     final BatchSchema initialSchema = schema;
     container.zeroVectors();
     valueCount = def.getRecordCount();
@@ -96,7 +190,7 @@ public class RecordBatchLoader
     final VectorContainer newVectors = new VectorContainer();
     try {
       final List<SerializedField> fields = def.getFieldList();
-      int bufOffset = 0;
+      long bufOffset = 0;
       for (final SerializedField field : fields) {
         final Field fieldDef = SerializedFieldHelper.create(field);
         ValueVector vector = oldFields.remove(fieldDef.getName());
@@ -117,7 +211,7 @@ public class RecordBatchLoader
         if (field.getValueCount() == 0) {
           AllocationHelper.allocate(vector, 0, 0, 0);
         } else {
-          TypeHelper.load(vector, field, buf.slice(bufOffset, field.getBufferLength()));
+          fieldLoader.load(vector, field, bufOffset);
         }
         bufOffset += field.getBufferLength();
         newVectors.add(vector);
@@ -157,6 +251,81 @@ public class RecordBatchLoader
     return schemaChanged;
   }
 
+  private void loadField(
+      ValueVector vector, SerializedField field, long offset, BufferSegments segments) {
+    final int length = field.getBufferLength();
+    final int index = segments.find(offset, length);
+    if (index >= 0) {
+      TypeHelper.load(vector, field, segments.slice(index, offset, length));
+      return;
+    }
+    if (loadInnerBuffers(vector, field, offset, segments)) {
+      return;
+    }
+
+    try (ArrowBuf copy = allocator.buffer(length)) {
+      segments.copy(offset, copy, length);
+      TypeHelper.load(vector, field, copy);
+    }
+    bytesCopied += length;
+  }
+
+  /**
+   * Loads a fixed or variable width vector from its validity, offset and data buffers, when each
+   * of them lies in a single buffer (which is how they are written by {@link WritableBatch}).
+   *
+   * @return false if the vector can't be loaded that way
+   */
+  private boolean loadInnerBuffers(
+      ValueVector vector, SerializedField field, long offset, BufferSegments segments) {
+    final long[] lengths;
+    if (vector instanceof BaseFixedWidthVector) {
+      lengths =
+          new long[] {field.getChild(0).getBufferLength(), field.getChild(1).getBufferLength()};
+    } else if (vector instanceof BaseVariableWidthVector) {
+      final SerializedField values = field.getChild(1);
+      final int offsetsLength = values.getChild(0).getBufferLength();
+      lengths =
+          new long[] {
+            field.getChild(0).getBufferLength(),
+            offsetsLength,
+            values.getBufferLength() - offsetsLength
+          };
+    } else {
+      return false;
+    }
+
+    final List<ArrowBuf> innerBuffers = new ArrayList<>(lengths.length);
+    long innerOffset = offset;
+    for (long innerLength : lengths) {
+      if (innerLength == 0) {
+        innerBuffers.add(allocator.getEmpty());
+        continue;
+      }
+      final int index = segments.find(innerOffset, innerLength);
+      if (index < 0) {
+        return false;
+      }
+      innerBuffers.add(segments.slice(index, innerOffset, innerLength));
+      innerOffset += innerLength;
+    }
+
+    // arrow rebuilds the validity buffer when the null count says all or none of the values are
+    // null, so it has to be exact
+    final int valueCount = field.getValueCount();
+    final int nullCount = BitVectorHelper.getNullCount(innerBuffers.get(0), valueCount);
+    ((FieldVector) vector)
+        .loadFieldBuffers(new ArrowFieldNode(valueCount, nullCount), innerBuffers);
+    return true;
+  }
+
+  /**
+   * @return number of bytes copied while loading batches from several buffers
+   */
+  public long getBytesCopied() {
+    return bytesCopied;
+  }
+
   @Override
   public TypedFieldId getValueVectorId(BasePath path) {
     return container.getValueVectorId(path);
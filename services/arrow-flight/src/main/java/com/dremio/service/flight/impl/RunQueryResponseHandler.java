@@ -17,6 +17,7 @@ package com.dremio.service.flight.impl;
 
 import static org.apache.arrow.flight.BackpressureStrategy.WaitResult;
 
+import com.dremio.common.utils.protos.ExternalIdHelper;
 import com.dremio.common.utils.protos.QueryWritableBatch;
 import com.dremio.exec.proto.GeneralRPCProtos;
 import com.dremio.exec.proto.UserBitShared;
@@ -32,11 +33,14 @@ import com.dremio.options.OptionManager;
 import com.dremio.sabot.rpc.user.UserSession;
 import com.dremio.service.flight.DremioFlightServiceOptions;
 import com.dremio.service.flight.error.mapping.DremioFlightErrorMapper;
+import com.dremio.telemetry.api.metrics.Counter;
+import com.dremio.telemetry.api.metrics.Metrics;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.NettyArrowBuf;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -51,6 +55,15 @@ import org.apache.arrow.vector.VectorSchemaRoot;
 
 /** The UserResponseHandler that streams results to a FlightProducer listener. */
 public abstract class RunQueryResponseHandler implements UserResponseHandler {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(RunQueryResponseHandler.class);
+
+  private static final Counter BYTES_COPIED =
+      Metrics.newCounter(
+          Metrics.join("DremioFlight", "ResultBytes", "copied"), Metrics.ResetType.NEVER);
+  private static final Counter BYTES_REFERENCED =
+      Metrics.newCounter(
+          Metrics.join("DremioFlight", "ResultBytes", "referenced"), Metrics.ResetType.NEVER);
 
   private final UserBitShared.ExternalId runExternalId;
   private final UserSession userSession;
@@ -59,6 +72,8 @@ public abstract class RunQueryResponseHandler implements UserResponseHandler {
   private final BufferAllocator allocator;
   private final Runnable queryCompletionCallback;
   private RecordBatchLoader recordBatchLoader;
+  private long bytesCopied;
+  private long bytesReferenced;
 
   private volatile VectorSchemaRoot vectorSchemaRoot;
   private volatile boolean completed;
@@ -92,37 +107,12 @@ public abstract class RunQueryResponseHandler implements UserResponseHandler {
 
     final ByteBuf[] buffers = result.getBuffers();
 
-    /*
-     * RecordBatchLoader cannot reassemble ValueVectors for types which propagate more than one NettyArrowBuffer
-     * (such as DataBuffers [1] and OffsetBuffers [2]) in calls to UserResponseHandler#sendData.
-     * Because of this limitation, when {@link com.dremio.service.flight.impl.RunQueryResponseHandler#sendData}
-     * receives more than 1 buffer instance, it must consolidate all buffers into a single buffer before
-     * calling RecordBatchReader before returning data to the user.
-     *
-     * TODO: https://dremio.atlassian.net/browse/DX-25624
-     * This task is to improve RecordBatchLoader or find some other way to handle more than one buffer
-     * instance being provided for any given ValueVector, and then update this.
-     *
-     * [1] https://github.com/apache/arrow/blob/7b2d68570b4336308c52081a0349675e488caf11/java/vector/src/main/java/org/apache/arrow/vector/ValueVector.java#L197
-     * [2] https://github.com/apache/arrow/blob/7b2d68570b4336308c52081a0349675e488caf11/java/vector/src/main/java/org/apache/arrow/vector/ValueVector.java#L204
-     */
     if (null == buffers || buffers.length == 0) {
       loadEmptyBuffer(def, result.getByteCount());
-    } else if (buffers.length > 1) {
-      loadFromCopyOfEntireResult(result, def);
+    } else if (buffers.length == 1 && buffers[0] instanceof NettyArrowBuf) {
+      loadDirectlyFromNettyArrowBuf(def, (NettyArrowBuf) buffers[0]);
     } else {
-      final ByteBuf byteBuf = buffers[0];
-      /*
-       * The most optimistic approach from a buffer copying perspective is to use buffers as they
-       * are provided to this method directly. When a NettyArrowBuf is provided, the underlying
-       * Arrow Buffer gets used directly. Other implementations will require copying the data into
-       * a new Arrow Buffer first.
-       */
-      if (byteBuf instanceof NettyArrowBuf) {
-        loadDirectlyFromNettyArrowBuf(def, (NettyArrowBuf) byteBuf);
-      } else {
-        loadFromCopyOfSingleBuffer(def, byteBuf);
-      }
+      loadFromBuffers(def, buffers);
     }
 
     prepareVectorSchemaRoot(result.getHeader().getRowCount());
@@ -135,26 +125,46 @@ public abstract class RunQueryResponseHandler implements UserResponseHandler {
     }
   }
 
+  /**
+   * Loads a batch from its buffers by reference. The vectors keep their own references to the
+   * Arrow buffers backing the result, until the next batch is loaded or the loader and the root
+   * are closed once the listener is completed (Flight retains what it still has to send). Only the
+   * buffers that aren't backed by Arrow memory, and the fields that can't be referenced, are
+   * copied.
+   */
   @VisibleForTesting
-  void loadFromCopyOfEntireResult(QueryWritableBatch result, RecordBatchDef def) {
-    try (final ArrowBuf arrowBuf = allocator.buffer((int) result.getByteCount())) {
-      long arrowBufIndex = 0;
-      for (ByteBuf byteBuf : result.getBuffers()) {
+  void loadFromBuffers(RecordBatchDef def, ByteBuf[] byteBufs) {
+    final List<ArrowBuf> arrowBufs = new ArrayList<>(byteBufs.length);
+    final List<ArrowBuf> copies = new ArrayList<>();
+    final long copiedBefore = recordBatchLoader.getBytesCopied();
+    long copied = 0;
+    long total = 0;
+    try {
+      for (ByteBuf byteBuf : byteBufs) {
         final int readableBytes = byteBuf.readableBytes();
-        arrowBuf.setBytes(arrowBufIndex, byteBuf.nioBuffer());
-        arrowBufIndex += readableBytes;
-        byteBuf.release();
+        total += readableBytes;
+        if (byteBuf instanceof NettyArrowBuf) {
+          arrowBufs.add(
+              ((NettyArrowBuf) byteBuf).arrowBuf().slice(byteBuf.readerIndex(), readableBytes));
+        } else {
+          final ArrowBuf copy = allocator.buffer(readableBytes);
+          copies.add(copy);
+          copy.setBytes(0, byteBuf.nioBuffer());
+          arrowBufs.add(copy.slice(0, readableBytes));
+          copied += readableBytes;
+        }
       }
-      recordBatchLoader.load(def, arrowBuf);
-    }
-  }
-
-  private void loadFromCopyOfSingleBuffer(RecordBatchDef def, ByteBuf byteBuf) {
-    try (final ArrowBuf arrowBuf = allocator.buffer(byteBuf.readableBytes())) {
-      arrowBuf.setBytes(0, byteBuf.nioBuffer());
-      recordBatchLoader.load(def, arrowBuf);
+      recordBatchLoader.load(def, arrowBufs);
     } finally {
-      byteBuf.release();
+      copied += recordBatchLoader.getBytesCopied() - copiedBefore;
+      bytesCopied += copied;
+      bytesReferenced += Math.max(total - copied, 0);
+      for (ByteBuf byteBuf : byteBufs) {
+        byteBuf.release();
+      }
+      for (ArrowBuf copy : copies) {
+        copy.close();
+      }
     }
   }
 
@@ -214,6 +224,13 @@ public abstract class RunQueryResponseHandler implements UserResponseHandler {
   @Override
   public void completed(UserResult result) {
     completed = true;
+    BYTES_COPIED.increment(bytesCopied);
+    BYTES_REFERENCED.increment(bytesReferenced);
+    logger.debug(
+        "Streamed results of {}: {} bytes referenced, {} bytes copied",
+        ExternalIdHelper.toString(runExternalId),
+        bytesReferenced,
+        bytesCopied);
 
     try {
       handleUserResultState(result);
@@ -45,6 +45,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -64,6 +66,8 @@ import org.rocksdb.FlushOptions;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
 import org.xerial.snappy.SnappyInputStream;
 import org.xerial.snappy.SnappyOutputStream;
 
@@ -76,7 +80,8 @@ import org.xerial.snappy.SnappyOutputStream;
  * multiple operation items. These do multiple operations and need to ensure a consistent viewpoint
  * of data. As such, we grab an exclusive lock for the desired key range for the life of the set of
  * operations. We use the AutoCloseableLock pattern with try-with-resources to ensure that we avoid
- * any lock leaking.
+ * any lock leaking. Bulk operations lock all the stripes of their keys, always in stripe order so
+ * that concurrent bulk operations cannot deadlock, and use a single multiGet or WriteBatch.
  *
  * <p>Since the RocksDB interface is native, we need to manage native memory cautiously. To this
  * end, we manage the range iterator through the use of a ReferenceQueue and parallel Set. This
@@ -342,22 +347,68 @@ class RocksDBStore implements ByteStore {
     }
   }
 
-  private AutoCloseableLock sharedLock(byte[] key) {
+  private int stripe(byte[] key) {
     Preconditions.checkNotNull(key);
     final int hash = Arrays.hashCode(key);
-    AutoCloseableLock lock = sharedLocks[Math.abs(hash % parallel)];
+    return Math.abs(hash % parallel);
+  }
+
+  private AutoCloseableLock sharedLock(byte[] key) {
+    AutoCloseableLock lock = sharedLocks[stripe(key)];
     lock.open();
     return lock;
   }
 
   private AutoCloseableLock exclusiveLock(byte[] key) {
-    Preconditions.checkNotNull(key);
-    final int hash = Arrays.hashCode(key);
-    AutoCloseableLock lock = exclusiveLocks[Math.abs(hash % parallel)];
+    AutoCloseableLock lock = exclusiveLocks[stripe(key)];
     lock.open();
     return lock;
   }
 
+  /** Opens the locks of all the stripes of the keys, in stripe order. */
+  private StripeLocks lockStripes(List<byte[]> keys, AutoCloseableLock[] locks) {
+    final BitSet stripes = new BitSet(parallel);
+    for (byte[] key : keys) {
+      stripes.set(stripe(key));
+    }
+
+    final StripeLocks stripeLocks = new StripeLocks(stripes.cardinality());
+    try {
+      for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+        stripeLocks.add(locks[i].open());
+      }
+    } catch (RuntimeException e) {
+      stripeLocks.close();
+      throw e;
+    }
+    return stripeLocks;
+  }
+
+  /** Locks held by a bulk operation, released in reverse order. */
+  private static final class StripeLocks implements AutoCloseable {
+    private final List<AutoCloseableLock> locks;
+
+    private StripeLocks(int count) {
+      this.locks = new ArrayList<>(count);
+    }
+
+    private void add(AutoCloseableLock lock) {
+      locks.add(lock);
+    }
+
+    @Override
+    public void close() {
+      for (int i = locks.size() - 1; i >= 0; i--) {
+        locks.get(i).close();
+      }
+    }
+  }
+
+  /** Reads the raw values of the keys with a single multiGet. Stripe locks must be held. */
+  private List<byte[]> multiGet(List<byte[]> keys) throws RocksDBException {
+    return db.multiGetAsList(Collections.nCopies(keys.size(), handle), keys);
+  }
+
   /**
    * Delete all values. Deletes only values inside the store, leaving behind any leftover blobs that
    * have been placed directly in the file system.
@@ -527,11 +578,27 @@ class RocksDBStore implements ByteStore {
 
   @Override
   public Iterable<Document<byte[], byte[]>> get(List<byte[]> keys, GetOption... options) {
-    final List<Document<byte[], byte[]>> results = new ArrayList<>();
-    for (byte[] key : keys) {
-      results.add(get(key, options));
+    if (keys.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    try (StripeLocks ac = lockStripes(keys, sharedLocks)) {
+      throwIfClosed();
+      final List<byte[]> values = multiGet(keys);
+      final List<Document<byte[], byte[]>> results = new ArrayList<>(keys.size());
+      for (int i = 0; i < keys.size(); i++) {
+        final RocksEntry result = resolvePtrOrValue(values.get(i));
+        if (result == null) {
+          results.add(null);
+          continue;
+        }
+        final byte[] value = result.getData();
+        results.add(toDocument(keys.get(i), value, toTag(result.getMeta(), value)));
+      }
+      return results;
+    } catch (RocksDBException | BlobNotFoundException e) {
+      throw new RuntimeException(e);
     }
-    return results;
   }
 
   @Override
@@ -647,16 +714,89 @@ class RocksDBStore implements ByteStore {
     return new RockIterable(find);
   }
 
+  /**
+   * Atomically increments the counters of the entries. The value of an entry updated with this
+   * method is a serialized {@link Rocks.Counters} message, missing entries and counters start at 0.
+   * All the updates are written with a single WriteBatch under the exclusive locks of the keys, so
+   * no concurrent update can be lost and readers see either none or all of the increments.
+   */
   @Override
   public void bulkIncrement(
       Map<byte[], List<IncrementCounter>> keysToIncrement, IncrementOption option) {
-    throw new UnsupportedOperationException("BulkIncrement is not supported in RocksDB.");
+    if (keysToIncrement.isEmpty()) {
+      return;
+    }
+
+    final List<byte[]> keys = new ArrayList<>(keysToIncrement.keySet());
+    final List<BlobHolder> blobs = new ArrayList<>(keys.size());
+    try (StripeLocks ac = lockStripes(keys, exclusiveLocks);
+        WriteBatch batch = new WriteBatch();
+        WriteOptions writeOptions = new WriteOptions()) {
+      throwIfClosed();
+      final List<byte[]> oldValuesOrPtrs = multiGet(keys);
+      for (int i = 0; i < keys.size(); i++) {
+        final RocksEntry oldEntry = resolvePtrOrValue(oldValuesOrPtrs.get(i));
+        final Rocks.Counters.Builder counters =
+            oldEntry == null
+                ? Rocks.Counters.newBuilder()
+                : Rocks.Counters.parseFrom(oldEntry.getData()).toBuilder();
+        for (IncrementCounter counter : keysToIncrement.get(keys.get(i))) {
+          counters.putCounters(
+              counter.getCounterName(),
+              counters.getCountersOrDefault(counter.getCounterName(), 0L)
+                  + counter.getIncrementBy());
+        }
+
+        final byte[] newValue = counters.build().toByteArray();
+        final BlobHolder blob =
+            metaManager.filterPut(newValue, ByteStore.generateTagFromBytes(newValue));
+        blobs.add(blob);
+        batch.put(handle, keys.get(i), blob.ptrOrValue());
+      }
+      db.write(writeOptions, batch);
+
+      blobs.forEach(BlobHolder::commit);
+      for (byte[] oldValueOrPtr : oldValuesOrPtrs) {
+        metaManager.deleteTranslation(meta(oldValueOrPtr));
+      }
+    } catch (RocksDBException | IOException e) {
+      throw new RuntimeException(e);
+    } finally {
+      blobs.forEach(BlobHolder::close);
+    }
   }
 
   @Override
   public void bulkDelete(List<byte[]> keysToDelete, DeleteOption... deleteOptions) {
-    for (byte[] key : keysToDelete) {
-      delete(key, deleteOptions);
+    if (keysToDelete.isEmpty()) {
+      return;
+    }
+
+    final boolean skipMeta = KVStoreOptionUtility.canSkipMeta(deleteOptions);
+    try (StripeLocks ac = lockStripes(keysToDelete, sharedLocks);
+        WriteBatch batch = new WriteBatch();
+        WriteOptions writeOptions = new WriteOptions()) {
+      throwIfClosed();
+      final List<byte[]> oldValuesOrPtrs = skipMeta ? null : multiGet(keysToDelete);
+      for (int i = 0; i < keysToDelete.size(); i++) {
+        if (oldValuesOrPtrs == null || oldValuesOrPtrs.get(i) != null) {
+          batch.delete(handle, keysToDelete.get(i));
+        }
+      }
+      if (batch.count() == 0) {
+        return;
+      }
+      db.write(writeOptions, batch);
+
+      if (oldValuesOrPtrs != null) {
+        for (byte[] oldValueOrPtr : oldValuesOrPtrs) {
+          if (oldValueOrPtr != null) {
+            metaManager.deleteTranslation(meta(oldValueOrPtr));
+          }
+        }
+      }
+    } catch (RocksDBException e) {
+      throw new RuntimeException(e);
     }
   }
 
@@ -75,6 +75,19 @@ public interface LegacyKVStore<K, V> {
    */
   void delete(K key);
 
+  /**
+   * Remove the keys, and the associated values from the store. Keys which do not exist are ignored.
+   * Possibly more efficient than looping over the keys in application code depending on the
+   * underlying storage system.
+   *
+   * @param keys the keys to remove.
+   */
+  default void bulkDelete(List<K> keys) {
+    for (K key : keys) {
+      delete(key);
+    }
+  }
+
   /**
    * Return a iterable of keys & values for any key within the provided Range
    *
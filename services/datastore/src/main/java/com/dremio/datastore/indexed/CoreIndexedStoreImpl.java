@@ -41,6 +41,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
@@ -415,6 +416,8 @@ public class CoreIndexedStoreImpl<K, V> implements CoreIndexedStore<K, V> {
   @Override
   public void bulkDelete(List<KVStoreTuple<K>> keysToDelete, DeleteOption... deleteOptions) {
     base.bulkDelete(keysToDelete, deleteOptions);
+    index.deleteDocuments(
+        keysToDelete.stream().map(CoreIndexedStoreImpl::keyAsTerm).collect(Collectors.toList()));
   }
 
   @Override
@@ -567,6 +567,15 @@ public class LuceneSearchIndex implements AutoCloseable {
     }
   }
 
+  public void deleteDocuments(List<Term> keys) {
+    committerThread.throwExceptionIfAny();
+    try {
+      writer.deleteDocuments(keys.toArray(new Term[0]));
+    } catch (IOException ex) {
+      throw Throwables.propagate(ex);
+    }
+  }
+
   public void delete() {
     committerThread.throwExceptionIfAny();
     try {
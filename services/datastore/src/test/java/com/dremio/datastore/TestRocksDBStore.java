@@ -22,20 +22,30 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
 import com.dremio.datastore.RocksDBStore.RocksMetaManager;
 import com.dremio.datastore.api.Document;
+import com.dremio.datastore.api.ImmutableIncrementCounter;
+import com.dremio.datastore.api.IncrementCounter;
+import com.dremio.datastore.api.KVStore;
 import com.dremio.datastore.api.options.ImmutableVersionOption;
 import com.dremio.datastore.api.options.VersionOption;
+import com.dremio.datastore.rocks.Rocks;
+import com.google.common.collect.ImmutableMap;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -368,6 +378,102 @@ public class TestRocksDBStore {
     }
   }
 
+  @Test
+  public void testBulkGet() {
+    byte[] blobKey = "blob".getBytes(UTF_8);
+    byte[] blobValue = new byte[(int) BLOB_FILTER_SIZE + 1];
+    new Random(7).nextBytes(blobValue);
+    blobValue[0] = META_MARKER + 1;
+    store.put(blobKey, blobValue);
+    byte[] missingKey = "missing".getBytes(UTF_8);
+
+    List<byte[]> keys = Arrays.asList(specialKey, missingKey, blobKey);
+    List<Document<byte[], byte[]>> documents = new ArrayList<>();
+    store.get(keys).forEach(documents::add);
+
+    assertThat(documents).hasSize(3);
+    assertArrayEquals(store.get(specialKey).getValue(), documents.get(0).getValue());
+    assertEquals(store.get(specialKey).getTag(), documents.get(0).getTag());
+    assertNull(documents.get(1));
+    assertArrayEquals(blobKey, documents.get(2).getKey());
+    assertArrayEquals(blobValue, documents.get(2).getValue());
+  }
+
+  @Test
+  public void testBulkDelete() throws IOException {
+    byte[] blobKey = "blob".getBytes(UTF_8);
+    byte[] blobValue = new byte[(int) BLOB_FILTER_SIZE + 1];
+    new Random(7).nextBytes(blobValue);
+    store.put(blobKey, blobValue);
+    byte[] missingKey = "missing".getBytes(UTF_8);
+
+    store.bulkDelete(Arrays.asList(specialKey, missingKey, blobKey));
+
+    assertNull(store.get(specialKey));
+    assertNull(store.get(blobKey));
+    Path blobDir = Paths.get(rocksDBResource.getDbDir(), "blob", "test");
+    try (Stream<Path> stream = Files.list(blobDir)) {
+      assertThat(stream.collect(Collectors.toList())).isEmpty();
+    }
+  }
+
+  @Test
+  public void testBulkIncrement() throws IOException {
+    byte[] key1 = "counters1".getBytes(UTF_8);
+    byte[] key2 = "counters2".getBytes(UTF_8);
+    Map<byte[], List<IncrementCounter>> increments = new HashMap<>();
+    increments.put(key1, Arrays.asList(counter("a", 1), counter("b", 2)));
+    increments.put(key2, Collections.singletonList(counter("a", 5)));
+
+    store.bulkIncrement(increments, KVStore.IncrementOption.USE_UNORDERED_WRITES);
+    store.bulkIncrement(increments, KVStore.IncrementOption.USE_UNORDERED_WRITES);
+
+    Map<String, Long> counters1 =
+        Rocks.Counters.parseFrom(store.get(key1).getValue()).getCountersMap();
+    assertEquals(ImmutableMap.of("a", 2L, "b", 4L), counters1);
+    Map<String, Long> counters2 =
+        Rocks.Counters.parseFrom(store.get(key2).getValue()).getCountersMap();
+    assertEquals(ImmutableMap.of("a", 10L), counters2);
+  }
+
+  @Test
+  public void testConcurrentBulkIncrement() throws Exception {
+    byte[] key1 = "counters1".getBytes(UTF_8);
+    byte[] key2 = "counters2".getBytes(UTF_8);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        // alternate the key order so that every thread locks stripes in a different order
+        Map<byte[], List<IncrementCounter>> increments = new LinkedHashMap<>();
+        List<byte[]> keys = i % 2 == 0 ? Arrays.asList(key1, key2) : Arrays.asList(key2, key1);
+        keys.forEach(key -> increments.put(key, Collections.singletonList(counter("a", 1))));
+        futures.add(
+            executor.submit(
+                () ->
+                    store.bulkIncrement(
+                        increments, KVStore.IncrementOption.USE_UNORDERED_WRITES)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (byte[] key : Arrays.asList(key1, key2)) {
+      assertEquals(
+          64L, Rocks.Counters.parseFrom(store.get(key).getValue()).getCountersOrThrow("a"));
+    }
+  }
+
+  private static IncrementCounter counter(String name, int incrementBy) {
+    return new ImmutableIncrementCounter.Builder()
+        .setCounterName(name)
+        .setIncrementBy(incrementBy)
+        .build();
+  }
+
   private static final byte[] newRandomValue(Random r) {
     int size = r.nextInt(Byte.MAX_VALUE);
     byte[] res = new byte[size];
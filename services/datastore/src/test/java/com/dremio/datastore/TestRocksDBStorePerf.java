@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.datastore;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.dremio.datastore.RocksDBStore.RocksMetaManager;
+import com.dremio.datastore.api.Document;
+import com.google.common.base.Stopwatch;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.RocksDB;
+
+/**
+ * Micro-benchmark of the {@code RocksDBStore} bulk operations. Compares the multiGet and WriteBatch
+ * paths with a loop over the single key operations. Ignored by default, run manually.
+ */
+@Ignore("perf test")
+public class TestRocksDBStorePerf {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(TestRocksDBStorePerf.class);
+
+  private static final int NUM_KEYS = 1 << 18;
+  private static final int BATCH_SIZE = 1_000;
+  private static final int VALUE_SIZE = 128;
+  private static final int ITERATIONS = 5;
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private RocksDB db;
+  private RocksDBStore store;
+  private List<byte[]> keys;
+
+  @Before
+  public void setUpStore() throws Exception {
+    final String dbPath = temporaryFolder.newFolder().getPath();
+    db = RocksDB.open(dbPath);
+    store =
+        new RocksDBStore(
+            "test",
+            new ColumnFamilyDescriptor("test".getBytes(UTF_8)),
+            db.getDefaultColumnFamily(),
+            db,
+            4,
+            new RocksMetaManager(dbPath, "test", Long.MAX_VALUE));
+
+    keys = new ArrayList<>(NUM_KEYS);
+    final Random random = new Random(42);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      final byte[] key = String.format("key-%08d", i).getBytes(UTF_8);
+      final byte[] value = new byte[VALUE_SIZE];
+      random.nextBytes(value);
+      // ensure that the random value doesn't contain our blob prefix
+      value[0] = RocksDBStore.META_MARKER + 1;
+      store.put(key, value);
+      keys.add(key);
+    }
+    // random reads, as a lookup of unrelated keys would be
+    Collections.shuffle(keys, random);
+  }
+
+  @After
+  public void closeStore() throws IOException {
+    store.close();
+    db.close();
+  }
+
+  @Test
+  public void get() {
+    for (int i = 0; i < ITERATIONS; i++) {
+      final Stopwatch loop = Stopwatch.createStarted();
+      long found = 0;
+      for (byte[] key : keys) {
+        if (store.get(key) != null) {
+          found++;
+        }
+      }
+      loop.stop();
+
+      final Stopwatch bulk = Stopwatch.createStarted();
+      long bulkFound = 0;
+      for (List<byte[]> batch : batches()) {
+        for (Document<byte[], byte[]> document : store.get(batch)) {
+          if (document != null) {
+            bulkFound++;
+          }
+        }
+      }
+      bulk.stop();
+
+      report("get", loop, found, bulk, bulkFound);
+    }
+  }
+
+  @Test
+  public void delete() throws Exception {
+    for (int i = 0; i < ITERATIONS; i++) {
+      final Stopwatch loop = Stopwatch.createStarted();
+      for (byte[] key : keys) {
+        store.delete(key);
+      }
+      loop.stop();
+      reloadStore();
+
+      final Stopwatch bulk = Stopwatch.createStarted();
+      for (List<byte[]> batch : batches()) {
+        store.bulkDelete(batch);
+      }
+      bulk.stop();
+      reloadStore();
+
+      report("delete", loop, NUM_KEYS, bulk, NUM_KEYS);
+    }
+  }
+
+  /** Starts over from a freshly populated store. */
+  private void reloadStore() throws Exception {
+    closeStore();
+    setUpStore();
+  }
+
+  private List<List<byte[]>> batches() {
+    final List<List<byte[]>> batches = new ArrayList<>();
+    for (int i = 0; i < keys.size(); i += BATCH_SIZE) {
+      batches.add(keys.subList(i, Math.min(i + BATCH_SIZE, keys.size())));
+    }
+    return batches;
+  }
+
+  private static void report(
+      String operation, Stopwatch loop, long loopCount, Stopwatch bulk, long bulkCount) {
+    logger.info(
+        "{}: per key loop {} keys in {} ms, bulk (batches of {}) {} keys in {} ms",
+        operation,
+        loopCount,
+        loop.elapsed(TimeUnit.MILLISECONDS),
+        BATCH_SIZE,
+        bulkCount,
+        bulk.elapsed(TimeUnit.MILLISECONDS));
+  }
+}
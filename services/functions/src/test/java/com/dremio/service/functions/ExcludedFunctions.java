@@ -186,6 +186,11 @@ public final class ExcludedFunctions {
             "ITEMS_SKETCH",
             "KVGEN",
             "LEAKRESOURCE",
+            "MOMENTS",
+            "MOMENTS_CORR",
+            "MOMENTS_COVAR_POP",
+            "MOMENTS_COVAR_SAMP",
+            "MOMENTS_MERGE",
             "NEWPARTITIONNUMBER",
             "NEWPARTITIONVALUE",
             "NONNULLSTATCOUNT",
@@ -0,0 +1,405 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import static com.dremio.exec.record.RecordBatchHolder.newRecordBatchHolder;
+
+import com.dremio.exec.cache.VectorAccessibleSerializable;
+import com.dremio.exec.record.RecordBatchData;
+import com.dremio.exec.record.RecordBatchHolder;
+import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
+import com.dremio.exec.store.easy.arrow.ArrowRecordBatchSummary;
+import com.dremio.io.FSInputStream;
+import com.dremio.io.file.FileSystem;
+import com.dremio.io.file.Path;
+import com.dremio.service.job.proto.JobId;
+import com.dremio.telemetry.api.metrics.Counter;
+import com.dremio.telemetry.api.metrics.Metrics;
+import com.dremio.telemetry.api.metrics.Timer;
+import com.dremio.telemetry.api.metrics.Timer.TimerContext;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.commons.io.input.TeeInputStream;
+
+/**
+ * Reads pages of job results from their arrow files.
+ *
+ * <p>The batches of a job are indexed by their first record, so a page is found with a binary
+ * search and read with a single seek per batch. The following are cached, and bounded:
+ *
+ * <ul>
+ *   <li>the index of the jobs recently read
+ *   <li>the open streams of the files recently read, closed after a minute of inactivity
+ *   <li>the serialized bytes of the batches recently read, so scrolling back and forth over the
+ *       same rows doesn't read them again
+ * </ul>
+ */
+class JobResultsReader implements AutoCloseable {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(JobResultsReader.class);
+
+  private static final long MAX_INDEXES =
+      Long.getLong("dremio.jobs.results.reader.max_indexes", 1_000);
+  private static final long MAX_OPEN_FILES =
+      Long.getLong("dremio.jobs.results.reader.max_open_files", 32);
+  private static final long OPEN_FILE_EXPIRATION_SECONDS =
+      Long.getLong("dremio.jobs.results.reader.open_file_expiration_seconds", 60);
+  private static final long MAX_CACHED_BATCH_BYTES =
+      Long.getLong("dremio.jobs.results.reader.max_cached_batch_bytes", 64L * 1024 * 1024);
+  private static final long CACHED_BATCH_EXPIRATION_SECONDS =
+      Long.getLong("dremio.jobs.results.reader.cached_batch_expiration_seconds", 300);
+
+  private static final Timer PAGE_LOAD_TIMER =
+      Metrics.newTimer(Metrics.join("JobResultsStore", "pageLoad"), Metrics.ResetType.NEVER);
+  private static final Counter BATCH_CACHE_HITS =
+      Metrics.newCounter(
+          Metrics.join("JobResultsStore", "batchCache", "hits"), Metrics.ResetType.NEVER);
+  private static final Counter BATCH_CACHE_MISSES =
+      Metrics.newCounter(
+          Metrics.join("JobResultsStore", "batchCache", "misses"), Metrics.ResetType.NEVER);
+
+  private final FileSystem dfs;
+  private final BufferAllocator allocator;
+  private final Cache<JobId, Index> indexes;
+  private final Cache<FileKey, OpenFile> openFiles;
+  private final Cache<BatchKey, byte[]> batches;
+
+  JobResultsReader(FileSystem dfs, BufferAllocator allocator) {
+    this.dfs = dfs;
+    this.allocator = allocator;
+    this.indexes = CacheBuilder.newBuilder().maximumSize(MAX_INDEXES).build();
+    this.openFiles =
+        CacheBuilder.newBuilder()
+            .maximumSize(MAX_OPEN_FILES)
+            .expireAfterAccess(OPEN_FILE_EXPIRATION_SECONDS, TimeUnit.SECONDS)
+            .removalListener(
+                (RemovalNotification<FileKey, OpenFile> notification) ->
+                    notification.getValue().close())
+            .build();
+    this.batches =
+        CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_BATCH_BYTES)
+            .weigher((BatchKey key, byte[] bytes) -> bytes.length)
+            .expireAfterAccess(CACHED_BATCH_EXPIRATION_SECONDS, TimeUnit.SECONDS)
+            .build();
+  }
+
+  /**
+   * Reads the given range of records.
+   *
+   * @param jobId job the results belong to
+   * @param jobOutputDir directory of the result files
+   * @param resultMetadata metadata of the result files, in the order of the records
+   * @param offset index of the first record to read
+   * @param limit maximum number of records to read
+   * @return the batches holding the records, empty if there are no records in the range
+   */
+  List<RecordBatchHolder> read(
+      JobId jobId, Path jobOutputDir, List<ArrowFileMetadata> resultMetadata, int offset, int limit)
+      throws IOException {
+    try (TimerContext ignored = PAGE_LOAD_TIMER.start()) {
+      final Index index = getIndex(jobId, resultMetadata);
+      final List<RecordBatchHolder> holders = new ArrayList<>();
+      if (limit <= 0 || offset < 0 || offset >= index.getRecordCount()) {
+        return holders;
+      }
+
+      try {
+        long remaining = limit;
+        for (int batch = index.findBatch(offset);
+            batch < index.size() && remaining > 0;
+            batch++) {
+          final RecordBatchData data = readBatch(jobId, jobOutputDir, resultMetadata, index, batch);
+          final int batchStart = (int) Math.max(0, offset - index.firstRecords[batch]);
+          final int batchEnd = (int) Math.min(index.recordCounts[batch], batchStart + remaining);
+          holders.add(newRecordBatchHolder(data, batchStart, batchEnd));
+          remaining -= batchEnd - batchStart;
+        }
+      } catch (IOException | RuntimeException e) {
+        for (RecordBatchHolder holder : holders) {
+          holder.getData().close();
+        }
+        throw e;
+      }
+      return holders;
+    }
+  }
+
+  private Index getIndex(JobId jobId, List<ArrowFileMetadata> resultMetadata) {
+    final Index index = indexes.getIfPresent(jobId);
+    if (index != null && index.matches(resultMetadata)) {
+      return index;
+    }
+    final Index newIndex = new Index(resultMetadata);
+    indexes.put(jobId, newIndex);
+    return newIndex;
+  }
+
+  private RecordBatchData readBatch(
+      JobId jobId,
+      Path jobOutputDir,
+      List<ArrowFileMetadata> resultMetadata,
+      Index index,
+      int batch)
+      throws IOException {
+    final BatchKey key = new BatchKey(jobId, index.fileIndexes[batch], index.offsets[batch]);
+    final byte[] cached = batches.getIfPresent(key);
+    final VectorAccessibleSerializable serializable = new VectorAccessibleSerializable(allocator);
+    if (cached != null) {
+      BATCH_CACHE_HITS.increment();
+      serializable.readFromStream(new ByteArrayInputStream(cached));
+    } else {
+      BATCH_CACHE_MISSES.increment();
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      final OpenFile file =
+          getOpenFile(
+              new FileKey(jobId, index.fileIndexes[batch]),
+              jobOutputDir.resolve(resultMetadata.get(index.fileIndexes[batch]).getPath()));
+      file.read(
+          index.offsets[batch],
+          input -> serializable.readFromStream(new TeeInputStream(input, bytes, false)));
+      batches.put(key, bytes.toByteArray());
+    }
+    return new RecordBatchData(serializable.get(), allocator);
+  }
+
+  private OpenFile getOpenFile(FileKey key, Path path) throws IOException {
+    try {
+      return openFiles.get(key, () -> new OpenFile(path));
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /** Drops everything cached for the given job, e.g. when its results are deleted. */
+  void invalidate(JobId jobId) {
+    indexes.invalidate(jobId);
+    openFiles.asMap().keySet().removeIf(key -> key.jobId.equals(jobId));
+    batches.asMap().keySet().removeIf(key -> key.jobId.equals(jobId));
+  }
+
+  @VisibleForTesting
+  long getCachedBatchCount() {
+    return batches.size();
+  }
+
+  @VisibleForTesting
+  long getOpenFileCount() {
+    return openFiles.size();
+  }
+
+  @Override
+  public void close() {
+    indexes.invalidateAll();
+    openFiles.invalidateAll();
+    batches.invalidateAll();
+  }
+
+  /** Location of the non empty batches of a job, ordered by their first record. */
+  @VisibleForTesting
+  static final class Index {
+    private final int fileCount;
+    private final int size;
+    private final long recordCount;
+    private final long[] firstRecords;
+    private final long[] recordCounts;
+    private final int[] fileIndexes;
+    private final long[] offsets;
+
+    Index(List<ArrowFileMetadata> resultMetadata) {
+      int batchCount = 0;
+      for (ArrowFileMetadata file : resultMetadata) {
+        batchCount += getBatches(file).size();
+      }
+
+      this.fileCount = resultMetadata.size();
+      this.firstRecords = new long[batchCount];
+      this.recordCounts = new long[batchCount];
+      this.fileIndexes = new int[batchCount];
+      this.offsets = new long[batchCount];
+
+      int batch = 0;
+      long records = 0;
+      for (int fileIndex = 0; fileIndex < resultMetadata.size(); fileIndex++) {
+        for (ArrowRecordBatchSummary summary : getBatches(resultMetadata.get(fileIndex))) {
+          if (summary.getRecordCount() == 0) {
+            continue;
+          }
+          firstRecords[batch] = records;
+          recordCounts[batch] = summary.getRecordCount();
+          fileIndexes[batch] = fileIndex;
+          offsets[batch] = summary.getOffset();
+          records += summary.getRecordCount();
+          batch++;
+        }
+      }
+      this.recordCount = records;
+      this.size = batch;
+    }
+
+    private static List<ArrowRecordBatchSummary> getBatches(ArrowFileMetadata file) {
+      if (file.getFooter() == null || file.getFooter().getBatchList() == null) {
+        return Collections.emptyList();
+      }
+      return file.getFooter().getBatchList();
+    }
+
+    int size() {
+      return size;
+    }
+
+    long getRecordCount() {
+      return recordCount;
+    }
+
+    /**
+     * @return index of the batch holding the given record
+     */
+    int findBatch(long record) {
+      Preconditions.checkArgument(record >= 0 && record < recordCount);
+      final int index = Arrays.binarySearch(firstRecords, 0, size, record);
+      return index >= 0 ? index : -index - 2;
+    }
+
+    /** Results don't change once written, unless the job is attempted again. */
+    private boolean matches(List<ArrowFileMetadata> resultMetadata) {
+      if (resultMetadata.size() != fileCount) {
+        return false;
+      }
+      long records = 0;
+      for (ArrowFileMetadata file : resultMetadata) {
+        records += file.getRecordCount();
+      }
+      return records == recordCount;
+    }
+  }
+
+  /** Reads from the input stream of a file. */
+  @FunctionalInterface
+  private interface StreamReader {
+    void read(InputStream input) throws IOException;
+  }
+
+  /**
+   * An open result file. Reads are serialized, and the file is reopened for the read if it was
+   * evicted and closed in the meantime.
+   */
+  private final class OpenFile {
+    private final Path path;
+    private FSInputStream input;
+    private boolean closed;
+
+    private OpenFile(Path path) throws IOException {
+      this.path = path;
+      this.input = dfs.open(path);
+    }
+
+    private synchronized void read(long position, StreamReader reader) throws IOException {
+      if (closed) {
+        try (FSInputStream transientInput = dfs.open(path)) {
+          transientInput.setPosition(position);
+          reader.read(transientInput);
+        }
+        return;
+      }
+      input.setPosition(position);
+      reader.read(input);
+    }
+
+    private synchronized void close() {
+      closed = true;
+      try {
+        input.close();
+      } catch (IOException e) {
+        logger.warn("Failed to close job results file {}", path, e);
+      }
+    }
+  }
+
+  private static final class FileKey {
+    private final JobId jobId;
+    private final int fileIndex;
+
+    private FileKey(JobId jobId, int fileIndex) {
+      this.jobId = jobId;
+      this.fileIndex = fileIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof FileKey)) {
+        return false;
+      }
+      final FileKey that = (FileKey) o;
+      return fileIndex == that.fileIndex && jobId.equals(that.jobId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(jobId, fileIndex);
+    }
+  }
+
+  private static final class BatchKey {
+    private final JobId jobId;
+    private final int fileIndex;
+    private final long offset;
+
+    private BatchKey(JobId jobId, int fileIndex, long offset) {
+      this.jobId = jobId;
+      this.fileIndex = fileIndex;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof BatchKey)) {
+        return false;
+      }
+      final BatchKey that = (BatchKey) o;
+      return fileIndex == that.fileIndex && offset == that.offset && jobId.equals(that.jobId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(jobId, fileIndex, offset);
+    }
+  }
+}
@@ -39,7 +39,6 @@ import com.dremio.service.job.proto.JobState;
 import com.dremio.service.job.proto.SessionId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.util.Arrays;
@@ -61,6 +60,7 @@ public class JobResultsStore implements Service {
   private final FileSystem dfs;
   private final BufferAllocator allocator;
   private final LegacyIndexedStore<JobId, JobResult> store;
+  private final JobResultsReader resultsReader;
 
   public JobResultsStore(
       final JobResultsStoreConfig resultsStoreConfig,
@@ -74,6 +74,7 @@ public class JobResultsStore implements Service {
 
     this.store = store;
     this.allocator = allocator;
+    this.resultsReader = new JobResultsReader(dfs, allocator);
   }
 
   /** Get the output table path for the given id */
@@ -93,6 +94,7 @@ public class JobResultsStore implements Service {
   }
 
   public boolean cleanup(JobId jobId) {
+    resultsReader.invalidate(jobId);
     final Path jobOutputDir = getJobOutputDir(jobId);
     try {
       if (doesQueryResultsDirExists(jobOutputDir, jobId)) {
@@ -168,61 +170,13 @@ public class JobResultsStore implements Service {
             .build(logger);
       }
 
-      final List<ArrowFileMetadata> resultFilesToRead = Lists.newArrayList();
-      int runningFileRecordCount = 0;
-      int remainingRecords = limit;
-      for (ArrowFileMetadata fileMetadata : resultMetadata) {
-        if (offset < runningFileRecordCount + fileMetadata.getRecordCount()) {
-          resultFilesToRead.add(fileMetadata);
-
-          // offset within current file to read records
-          long fileOffset = 0; // fileOffset will be 0 from second file to be read for records.
-          if (resultFilesToRead.size() == 1) {
-            // update the given offset to start from the current file
-            offset -= runningFileRecordCount;
-            fileOffset =
-                offset; // fileOffset will be "offset" for the first file to be read for records.
-          }
-
-          // Find how many records to read from current file.
-          // Min of remaining records in file or remaining records in total to read.
-          long fileLimit = Math.min(fileMetadata.getRecordCount() - fileOffset, remainingRecords);
-          remainingRecords -= fileLimit;
-
-          // stop including files if there are no remainingRecords to be included.
-          if (remainingRecords <= 0) {
-            break;
-          }
-        }
-
-        runningFileRecordCount += fileMetadata.getRecordCount();
-      }
-
-      final List<RecordBatchHolder> batchHolders = Lists.newArrayList();
-      if (resultFilesToRead.isEmpty()) {
+      final List<RecordBatchHolder> batchHolders =
+          resultsReader.read(jobId, jobOutputDir, resultMetadata, offset, limit);
+      if (batchHolders.isEmpty()) {
         // when the query returns no results at all or the requested range is invalid, return an
         // empty record batch
         // for metadata purposes.
         batchHolders.addAll(getQueryResults(jobOutputDir, resultMetadata.get(0), allocator, 0, 0));
-
-      } else {
-        runningFileRecordCount = 0;
-        int remaining = limit;
-        for (ArrowFileMetadata file : resultFilesToRead) {
-
-          // Find the starting record index in file
-          final long fileOffset = Math.max(0, offset - runningFileRecordCount);
-
-          // Find how many records to read from file.
-          // Min of remaining records in file or remaining records in total to read.
-          final long fileLimit = Math.min(file.getRecordCount() - fileOffset, remaining);
-
-          batchHolders.addAll(
-              getQueryResults(jobOutputDir, file, allocator, fileOffset, fileLimit));
-          remaining -= fileLimit;
-
-          runningFileRecordCount += file.getRecordCount();
-        }
       }
 
       return new RecordBatches(batchHolders);
@@ -364,7 +318,9 @@ public class JobResultsStore implements Service {
   }
 
   @Override
-  public void close() throws Exception {}
+  public void close() throws Exception {
+    resultsReader.close();
+  }
 
   protected Set<NodeEndpoint> getNodeEndpoints(JobId jobId) {
     JobResult jobResult = store.get(jobId);
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.jobs;
+
+import static org.junit.Assert.assertEquals;
+
+import com.dremio.exec.store.easy.arrow.ArrowFileFooter;
+import com.dremio.exec.store.easy.arrow.ArrowFileMetadata;
+import com.dremio.exec.store.easy.arrow.ArrowRecordBatchSummary;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+/** Unit tests for {@link JobResultsReader} */
+public class TestJobResultsReader {
+
+  @Test
+  public void testIndexSkipsEmptyBatches() {
+    final JobResultsReader.Index index =
+        new JobResultsReader.Index(Arrays.asList(file(0, 10, 5), file(0), file(7)));
+
+    assertEquals(3, index.size());
+    assertEquals(22, index.getRecordCount());
+  }
+
+  @Test
+  public void testFindBatch() {
+    final JobResultsReader.Index index =
+        new JobResultsReader.Index(Arrays.asList(file(10, 0, 5), file(), file(7)));
+
+    assertEquals(0, index.findBatch(0));
+    assertEquals(0, index.findBatch(9));
+    assertEquals(1, index.findBatch(10));
+    assertEquals(1, index.findBatch(14));
+    assertEquals(2, index.findBatch(15));
+    assertEquals(2, index.findBatch(21));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFindBatchOutOfRange() {
+    new JobResultsReader.Index(Arrays.asList(file(10))).findBatch(10);
+  }
+
+  private static ArrowFileMetadata file(int... recordCounts) {
+    final List<ArrowRecordBatchSummary> batches = new ArrayList<>();
+    long records = 0;
+    long offset = 0;
+    for (int recordCount : recordCounts) {
+      batches.add(new ArrowRecordBatchSummary().setRecordCount(recordCount).setOffset(offset));
+      records += recordCount;
+      offset += 100;
+    }
+    return new ArrowFileMetadata()
+        .setPath("file")
+        .setRecordCount(records)
+        .setFooter(new ArrowFileFooter().setBatchList(batches));
+  }
+}
@@ -15,7 +15,6 @@
  */
 package com.dremio.service.jobtelemetry.server.store;
 
-import com.dremio.common.utils.protos.QueryIdHelper;
 import com.dremio.exec.proto.CoordExecRPC;
 import com.dremio.exec.proto.UserBitShared;
 import com.dremio.service.Service;
@@ -29,10 +28,17 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Implementation of metrics store, keeps all metrics in-memory. */
+/**
+ * Implementation of metrics store, keeps all metrics in-memory.
+ *
+ * <p>Executors of a query report their metrics concurrently, so the latest metrics of each node
+ * are kept in a concurrent map per query, without locking. The {@link QueryProgressMetricsMap} of
+ * a query is only built when it is read.
+ */
 public class LocalMetricsStore implements MetricsStore, Service {
   private static final Logger LOGGER = LoggerFactory.getLogger(LocalMetricsStore.class);
-  private Map<String, QueryProgressMetricsMap> map = new ConcurrentHashMap<>();
+  private final Map<UserBitShared.QueryId, Map<String, CoordExecRPC.QueryProgressMetrics>> map =
+      new ConcurrentHashMap<>();
 
   @SuppressWarnings("NoGuavaCacheUsage") // TODO: fix as part of DX-51884
   private Cache<UserBitShared.QueryId, Boolean> deletedQueryIds =
@@ -47,35 +53,40 @@ public class LocalMetricsStore implements MetricsStore, Service {
   public void close() throws Exception {}
 
   @Override
-  public synchronized void put(
+  public void put(
       UserBitShared.QueryId queryId,
       String nodeEndPoint,
       CoordExecRPC.QueryProgressMetrics queryNodeProgressMetrics) {
 
-    if (deletedQueryIds.asMap().containsKey(queryId)) {
+    if (isDeleted(queryId)) {
       return;
     }
 
-    QueryProgressMetricsMap metrics =
-        QueryProgressMetricsMap.newBuilder()
-            .mergeFrom(get(queryId).orElse(QueryProgressMetricsMap.getDefaultInstance()))
-            .putMetricsMap(nodeEndPoint, queryNodeProgressMetrics)
-            .build();
-    map.put(queryIdToString(queryId), metrics);
+    map.computeIfAbsent(queryId, id -> new ConcurrentHashMap<>())
+        .put(nodeEndPoint, queryNodeProgressMetrics);
+
+    // the query may have been deleted while its metrics were being added
+    if (isDeleted(queryId)) {
+      map.remove(queryId);
+    }
   }
 
   @Override
   public Optional<QueryProgressMetricsMap> get(UserBitShared.QueryId queryId) {
-    return Optional.ofNullable(map.get(queryIdToString(queryId)));
+    final Map<String, CoordExecRPC.QueryProgressMetrics> nodeMetrics = map.get(queryId);
+    if (nodeMetrics == null) {
+      return Optional.empty();
+    }
+    return Optional.of(QueryProgressMetricsMap.newBuilder().putAllMetricsMap(nodeMetrics).build());
   }
 
   @Override
   public void delete(UserBitShared.QueryId queryId) {
     deletedQueryIds.put(queryId, Boolean.TRUE);
-    map.remove(queryIdToString(queryId));
+    map.remove(queryId);
   }
 
-  private String queryIdToString(UserBitShared.QueryId queryId) {
-    return QueryIdHelper.getQueryId(queryId);
+  private boolean isDeleted(UserBitShared.QueryId queryId) {
+    return deletedQueryIds.getIfPresent(queryId) != null;
   }
 }
@@ -46,12 +46,14 @@ import com.dremio.service.jobtelemetry.JobTelemetryServiceGrpc;
 import com.dremio.service.jobtelemetry.PutExecutorProfileRequest;
 import com.dremio.service.jobtelemetry.PutPlanningProfileRequest;
 import com.dremio.service.jobtelemetry.PutTailProfileRequest;
+import com.dremio.service.jobtelemetry.QueryProgressMetricsMap;
 import com.dremio.service.jobtelemetry.server.store.LocalMetricsStore;
 import com.dremio.service.jobtelemetry.server.store.LocalProfileStore;
 import com.dremio.service.jobtelemetry.server.store.MetricsStore;
 import com.dremio.service.jobtelemetry.server.store.ProfileStore;
 import com.dremio.telemetry.utils.GrpcTracerFacade;
 import com.dremio.telemetry.utils.TracerFacade;
+import com.google.common.base.Stopwatch;
 import io.grpc.inprocess.InProcessChannelBuilder;
 import io.grpc.inprocess.InProcessServerBuilder;
 import io.grpc.stub.StreamObserver;
@@ -61,11 +63,15 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
@@ -468,6 +474,99 @@ public class TestProfiles {
     tmpService.close();
   }
 
+  /** Executors of many queries report their progress concurrently. */
+  @Test
+  public void testConcurrentProgressMetricsIngestion() throws Exception {
+    final int numQueries = 16;
+    final int numExecutors = 32;
+    final int numUpdates = 10;
+    final List<ProfileSet> profileSets = new ArrayList<>();
+    for (int i = 0; i < numQueries; ++i) {
+      profileSets.add(new ProfileSet(numExecutors));
+    }
+
+    final ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (ProfileSet profileSet : profileSets) {
+        for (PutExecutorProfileRequest request : profileSet.executorQueryProfileRequests) {
+          futures.add(
+              pool.submit(
+                  () -> {
+                    for (int i = 0; i < numUpdates; ++i) {
+                      server.putExecutorProfile(request);
+                    }
+                  }));
+        }
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    for (ProfileSet profileSet : profileSets) {
+      final QueryProgressMetricsMap metrics = metricsStore.get(profileSet.queryId).get();
+      assertEquals(numExecutors, metrics.getMetricsMapCount());
+      for (QueryProgressMetrics nodeMetrics : metrics.getMetricsMapMap().values()) {
+        assertEquals(6666, nodeMetrics.getRowsProcessed());
+        assertEquals(8888, nodeMetrics.getOutputRecords());
+      }
+    }
+  }
+
+  /** Measures the throughput of concurrent executor progress reports, run manually. */
+  @Ignore("perf test")
+  @Test
+  public void testConcurrentProgressMetricsIngestionPerf() throws Exception {
+    final int numQueries = 64;
+    final int numExecutors = 128;
+    final int numUpdates = 100;
+    final List<ProfileSet> profileSets = new ArrayList<>();
+    for (int i = 0; i < numQueries; ++i) {
+      profileSets.add(new ProfileSet(numExecutors));
+    }
+
+    // warm up the server before measuring
+    putExecutorProfilesConcurrently(profileSets, 1);
+
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    putExecutorProfilesConcurrently(profileSets, numUpdates);
+    final long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+    final long numProfiles = (long) numQueries * numExecutors * numUpdates;
+    logger.info(
+        "{} executor profiles ingested in {} ms, {} profiles/s",
+        numProfiles,
+        elapsedMillis,
+        numProfiles * 1000 / Math.max(1, elapsedMillis));
+  }
+
+  /** Sends every executor profile of the sets numUpdates times, from a pool of threads. */
+  private void putExecutorProfilesConcurrently(List<ProfileSet> profileSets, int numUpdates)
+      throws Exception {
+    final ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (ProfileSet profileSet : profileSets) {
+        for (PutExecutorProfileRequest request : profileSet.executorQueryProfileRequests) {
+          futures.add(
+              pool.submit(
+                  () -> {
+                    for (int i = 0; i < numUpdates; ++i) {
+                      server.putExecutorProfile(request);
+                    }
+                  }));
+        }
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
   /** Helper class to generate profile requests. */
   private class ProfileSet {
     private final QueryId queryId;
@@ -70,6 +70,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
@@ -120,6 +121,7 @@ public class NamespaceServiceImpl implements NamespaceService {
   private static final int MAX_EXCEPTIONS_ALLOWED = 100;
   private static final int NUM_EXAMINED_SPLITS_BEFORE_LOGGING = 1_000_000;
   private static final int MAX_DELETE_SPLIT_RETRIES = 1;
+  private static final int DELETE_SPLITS_BATCH_SIZE = 1_000;
 
   private final LegacyIndexedStore<String, NameSpaceContainer> namespace;
   private final LegacyIndexedStore<PartitionChunkId, PartitionChunk> partitionChunkStore;
@@ -243,7 +245,7 @@ public class NamespaceServiceImpl implements NamespaceService {
 
   /** Delete split with retry */
   private void deleteSplitWithRetry(
-      final LegacyKVStore store,
+      final LegacyKVStore<PartitionChunkId, ?> store,
       final PartitionChunkId key,
       int numberOfRetries,
       ExpiredSplitsTracker expiredSplitsTracker)
@@ -265,11 +267,46 @@ public class NamespaceServiceImpl implements NamespaceService {
     }
   }
 
-  private void processSplit(
-      final ArrayList<LegacyKVStore> kvStores,
-      PartitionChunkId id,
-      List<Range<PartitionChunkId>> splitsToRetain,
+  /**
+   * Deletes the given splits from the store with a single bulk delete. If the bulk delete fails,
+   * falls back to deleting the splits one by one so that failures are counted per split.
+   *
+   * @return the splits which were deleted
+   */
+  private List<PartitionChunkId> deleteSplits(
+      final LegacyKVStore<PartitionChunkId, ?> store,
+      final List<PartitionChunkId> keys,
       ExpiredSplitsTracker expiredSplitsTracker) {
+    try {
+      store.bulkDelete(keys);
+      return keys;
+    } catch (final RuntimeException exception) {
+      logger.debug(
+          "Bulk delete of {} {} failed, deleting them one by one.",
+          keys.size(),
+          expiredSplitsTracker.desc,
+          exception);
+    }
+
+    final List<PartitionChunkId> deleted = new ArrayList<>(keys.size());
+    RuntimeException lastException = null;
+    for (PartitionChunkId key : keys) {
+      try {
+        deleteSplitWithRetry(store, key, MAX_DELETE_SPLIT_RETRIES, expiredSplitsTracker);
+        deleted.add(key);
+      } catch (final RuntimeException exception) {
+        lastException = exception;
+      }
+    }
+    if (lastException != null
+        && expiredSplitsTracker.getNumExceptionsIgnored() > MAX_EXCEPTIONS_ALLOWED) {
+      throw lastException;
+    }
+    return deleted;
+  }
+
+  private static boolean isExpiredSplit(
+      PartitionChunkId id, List<Range<PartitionChunkId>> splitsToRetain) {
     final int item =
         Collections.binarySearch(
             splitsToRetain, Range.singleton(id), PARTITION_CHUNK_RANGE_COMPARATOR);
@@ -284,17 +321,99 @@ public class NamespaceServiceImpl implements NamespaceService {
             - 1; // since a normal match would come directly after the start range, we need to check
     // the range directly above the insertion point.
 
-    boolean deleteSplit =
-        (consideredRange < 0 || !splitsToRetain.get(consideredRange).contains(id));
+    return consideredRange < 0 || !splitsToRetain.get(consideredRange).contains(id);
+  }
+
+  /**
+   * Deletes the given batch of expired splits from each store, in order, and records them in the
+   * tracker once they are processed. Failures are counted per split against {@link
+   * #MAX_EXCEPTIONS_ALLOWED}, not per batch.
+   */
+  private void deleteExpiredSplits(
+      final List<LegacyKVStore<PartitionChunkId, ?>> kvStores,
+      List<PartitionChunkId> expiredSplits,
+      ExpiredSplitsTracker expiredSplitsTracker) {
+    if (expiredSplits.isEmpty()) {
+      return;
+    }
     try {
-      if (deleteSplit) {
-        // delete from the kvstore in order
-        for (int i = 0; i < kvStores.size(); i++) {
-          deleteSplitWithRetry(kvStores.get(i), id, MAX_DELETE_SPLIT_RETRIES, expiredSplitsTracker);
+      // delete from the kvstore in order, a split which could not be deleted from a store is kept
+      // in the following ones
+      List<PartitionChunkId> remaining = expiredSplits;
+      for (LegacyKVStore<PartitionChunkId, ?> kvStore : kvStores) {
+        if (remaining.isEmpty()) {
+          break;
         }
+        remaining = deleteSplits(kvStore, remaining, expiredSplitsTracker);
       }
     } finally {
-      expiredSplitsTracker.trackPartitionChunk(id, deleteSplit);
+      for (PartitionChunkId id : expiredSplits) {
+        expiredSplitsTracker.trackPartitionChunk(id, true);
+      }
+      expiredSplits.clear();
+    }
+  }
+
+  /**
+   * Scans the given split keys and deletes the ones outside of the ranges to retain. Expired keys
+   * are deleted in batches of {@link #DELETE_SPLITS_BATCH_SIZE}, so that each store applies one
+   * write batch (and one index update) per batch rather than one per split.
+   */
+  private void deleteExpiredSplits(
+      Iterable<PartitionChunkId> ids,
+      final List<LegacyKVStore<PartitionChunkId, ?>> kvStores,
+      List<Range<PartitionChunkId>> splitsToRetain,
+      ExpiredSplitsTracker expiredSplitsTracker) {
+    final List<PartitionChunkId> expiredSplits = new ArrayList<>(DELETE_SPLITS_BATCH_SIZE);
+    final Iterator<PartitionChunkId> iterator = ids.iterator();
+    while (true) {
+      try {
+        if (!iterator.hasNext()) {
+          deleteExpiredSplits(kvStores, expiredSplits, expiredSplitsTracker);
+          break;
+        }
+        final PartitionChunkId id = iterator.next();
+        if (!isExpiredSplit(id, splitsToRetain)) {
+          expiredSplitsTracker.trackPartitionChunk(id, false);
+        } else {
+          expiredSplits.add(id);
+          if (expiredSplits.size() >= DELETE_SPLITS_BATCH_SIZE) {
+            deleteExpiredSplits(kvStores, expiredSplits, expiredSplitsTracker);
+          }
+        }
+      } catch (final RuntimeException exception) {
+        if (expiredSplitsTracker.getNumExceptionsIgnored() > MAX_EXCEPTIONS_ALLOWED) {
+          logger.warn(
+              "Maximum number of exceptions occurred in deleting {}. The last exception is: ",
+              expiredSplitsTracker.desc,
+              exception);
+          break;
+        }
+      }
+
+      if (expiredSplitsTracker.shouldLogProgress()) {
+        // log after examining every million splits
+        logger.info(
+            "Examined {} {}, deleted {}",
+            expiredSplitsTracker.getSplitsExamined(),
+            expiredSplitsTracker.desc,
+            expiredSplitsTracker.getDeletedSplits());
+      }
+    }
+
+    if (expiredSplitsTracker.getDeletedSplits() > 0) {
+      logger.info(
+          "Examined {} {} in total, deleted {} {}",
+          expiredSplitsTracker.getSplitsExamined(),
+          expiredSplitsTracker.desc,
+          expiredSplitsTracker.getDeletedSplits(),
+          expiredSplitsTracker.desc);
+    }
+    if (expiredSplitsTracker.getNumExceptionsIgnored() > 0) {
+      logger.warn(
+          "{} exceptions occurred and ignored in deleting {}.",
+          expiredSplitsTracker.getNumExceptionsIgnored(),
+          expiredSplitsTracker.desc);
     }
   }
 
@@ -479,86 +598,23 @@ public class NamespaceServiceImpl implements NamespaceService {
     // partitionChunkStore to identify the splits to read
     try (ExpiredSplitsTracker expiredSplitsTracker =
         new ExpiredMultiSplitTracker(datasetMetadataConsistencyValidate)) {
-      final ArrayList<LegacyKVStore> kvStores = new ArrayList<LegacyKVStore>(2);
       // delete from partitionChunkStore before deleting from multiSplitStore
-      kvStores.add(partitionChunkStore);
-      kvStores.add(multiSplitStore);
-      for (Map.Entry<PartitionChunkId, MultiSplit> e : multiSplitStore.find()) {
-        PartitionChunkId id = e.getKey();
-
-        try {
-          processSplit(kvStores, id, ranges, expiredSplitsTracker);
-        } catch (final RuntimeException exception) {
-          if (expiredSplitsTracker.getNumExceptionsIgnored() > MAX_EXCEPTIONS_ALLOWED) {
-            logger.warn(
-                "Maximum number of exceptions occurred in deleting multi splits. The last exception is: ",
-                exception);
-            break;
-          }
-        }
-
-        if ((expiredSplitsTracker.getSplitsExamined() % NUM_EXAMINED_SPLITS_BEFORE_LOGGING) == 0) {
-          // log after examining every million splits
-          logger.info(
-              "Examined {} multi splits, deleted {}",
-              expiredSplitsTracker.getSplitsExamined(),
-              expiredSplitsTracker.getDeletedSplits());
-        }
-      }
-
-      if (expiredSplitsTracker.getDeletedSplits() > 0) {
-        logger.info(
-            "Examined {} multi splits in total, deleted {} multi splits",
-            expiredSplitsTracker.getSplitsExamined(),
-            expiredSplitsTracker.getDeletedSplits());
-      }
-      if (expiredSplitsTracker.getNumExceptionsIgnored() > 0) {
-        logger.warn(
-            "{} exceptions occurred and ignored in deleting multi splits.",
-            expiredSplitsTracker.getNumExceptionsIgnored());
-      }
+      deleteExpiredSplits(
+          Iterables.transform(multiSplitStore.find(), Map.Entry::getKey),
+          ImmutableList.of(partitionChunkStore, multiSplitStore),
+          ranges,
+          expiredSplitsTracker);
     }
 
     int numPartitionChunksDeleted;
     try (ExpiredSplitsTracker expiredSplitsTracker =
         new ExpiredSplitsTracker("partition chunks", datasetMetadataConsistencyValidate)) {
-      final ArrayList<LegacyKVStore> kvStores = new ArrayList<LegacyKVStore>(1);
-      kvStores.add(partitionChunkStore);
-      for (Map.Entry<PartitionChunkId, PartitionChunk> e : partitionChunkStore.find()) {
-        PartitionChunkId id = e.getKey();
-
-        try {
-          processSplit(kvStores, id, ranges, expiredSplitsTracker);
-        } catch (final RuntimeException exception) {
-          if (expiredSplitsTracker.getNumExceptionsIgnored() > MAX_EXCEPTIONS_ALLOWED) {
-            logger.warn(
-                "Maximum number of exceptions occurred in deleting partition chunks. The last exception is: ",
-                exception);
-            break;
-          }
-        }
-
-        if ((expiredSplitsTracker.getSplitsExamined() % NUM_EXAMINED_SPLITS_BEFORE_LOGGING) == 0) {
-          // log after examining every million splits
-          logger.info(
-              "Examined {} partition chunks, deleted {}",
-              expiredSplitsTracker.getSplitsExamined(),
-              expiredSplitsTracker.getDeletedSplits());
-        }
-      }
-
+      deleteExpiredSplits(
+          Iterables.transform(partitionChunkStore.find(), Map.Entry::getKey),
+          ImmutableList.of(partitionChunkStore),
+          ranges,
+          expiredSplitsTracker);
       numPartitionChunksDeleted = expiredSplitsTracker.getDeletedSplits();
-      if (expiredSplitsTracker.getDeletedSplits() > 0) {
-        logger.info(
-            "Examined {} partition chunks in total, deleted {} partition chunks",
-            expiredSplitsTracker.getSplitsExamined(),
-            expiredSplitsTracker.getDeletedSplits());
-      }
-      if (expiredSplitsTracker.getNumExceptionsIgnored() > 0) {
-        logger.warn(
-            "{} exceptions occurred and ignored in deleting partition chunks.",
-            expiredSplitsTracker.getNumExceptionsIgnored());
-      }
     }
 
     return numPartitionChunksDeleted;
@@ -1084,9 +1140,9 @@ public class NamespaceServiceImpl implements NamespaceService {
 
   @Override
   public void deleteSplits(Iterable<PartitionChunkId> splits) {
-    for (PartitionChunkId split : splits) {
-      partitionChunkStore.delete(split);
-      multiSplitStore.delete(split);
+    for (List<PartitionChunkId> batch : Iterables.partition(splits, DELETE_SPLITS_BATCH_SIZE)) {
+      partitionChunkStore.bulkDelete(batch);
+      multiSplitStore.bulkDelete(batch);
     }
   }
 
@@ -2241,6 +2297,8 @@ public class NamespaceServiceImpl implements NamespaceService {
   private class ExpiredSplitsTracker implements AutoCloseable {
     // number of examined splits
     private int splitsExamined;
+    // number of examined splits when progress was last logged
+    private int lastLoggedSplitsExamined;
     // number of deleted splits
     private int deletedSplits;
     private boolean verifyMetadataConsistency;
@@ -2284,6 +2342,15 @@ public class NamespaceServiceImpl implements NamespaceService {
       numExceptionsIgnored++;
     }
 
+    // splits are tracked in batches, so progress is logged once per crossed threshold
+    boolean shouldLogProgress() {
+      if (splitsExamined - lastLoggedSplitsExamined < NUM_EXAMINED_SPLITS_BEFORE_LOGGING) {
+        return false;
+      }
+      lastLoggedSplitsExamined = splitsExamined;
+      return true;
+    }
+
     public int getSplitsExamined() {
       return splitsExamined;
     }
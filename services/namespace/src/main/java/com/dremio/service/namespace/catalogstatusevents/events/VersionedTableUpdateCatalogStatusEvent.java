@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.service.namespace.catalogstatusevents.events;
+
+import com.dremio.service.namespace.catalogstatusevents.CatalogStatusEvent;
+import com.dremio.service.namespace.catalogstatusevents.CatalogStatusEventTopic;
+import java.util.List;
+
+/** Published when a commit updates a versioned table at the head of a branch. */
+public class VersionedTableUpdateCatalogStatusEvent implements CatalogStatusEvent {
+  private static final String TOPIC_NAME = "VERSIONED_TABLE_UPDATE";
+  private static final CatalogStatusEventTopic eventsTopic =
+      new CatalogStatusEventTopic(TOPIC_NAME);
+  private final List<String> tableKey;
+  private final String branchName;
+
+  public VersionedTableUpdateCatalogStatusEvent(List<String> tableKey, String branchName) {
+    this.tableKey = tableKey;
+    this.branchName = branchName;
+  }
+
+  public static CatalogStatusEventTopic getEventTopic() {
+    return eventsTopic;
+  }
+
+  @Override
+  public CatalogStatusEventTopic getTopic() {
+    return eventsTopic;
+  }
+
+  /** The full path of the table, source name included. */
+  public List<String> getTableKey() {
+    return tableKey;
+  }
+
+  public String getBranchName() {
+    return branchName;
+  }
+
+  @Override
+  public String toString() {
+    return "VersionedTableUpdateCatalogStatusEvent{tableKey="
+        + tableKey
+        + ", branchName="
+        + branchName
+        + "}";
+  }
+}
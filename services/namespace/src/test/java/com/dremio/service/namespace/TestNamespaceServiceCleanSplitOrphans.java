@@ -178,6 +178,17 @@ public class TestNamespaceServiceCleanSplitOrphans {
             });
   }
 
+  @Test
+  public void testMultiSplitsDeletedWithPartitionChunks() throws Exception {
+    namespaceService.deleteSplitOrphans(KEEP_CURRENT_VERSION_ONLY, false);
+
+    // expired splits are deleted in batches, check that no multi split or chunk was left behind
+    assertThat(StreamSupport.stream(multiSplitStore.find().spliterator(), false).count())
+        .isEqualTo(10 + 20 + 100 + 1000 + 100);
+    assertThat(StreamSupport.stream(partitionChunksStore.find().spliterator(), false).count())
+        .isEqualTo(10 + 20 + 100 + 1000 + 100);
+  }
+
   @Test
   public void testKeepValidSplits() throws Exception {
     namespaceService.deleteSplitOrphans(SplitOrphansRetentionPolicy.KEEP_VALID_SPLITS, true);
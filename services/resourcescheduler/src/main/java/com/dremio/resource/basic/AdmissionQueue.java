@@ -0,0 +1,357 @@
+/*
+ * Copyright (C) 2017-2019 Dremio Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dremio.resource.basic;
+
+import com.dremio.resource.exception.ResourceUnavailableException;
+import com.dremio.service.coordinator.DistributedSemaphore;
+import com.dremio.service.coordinator.DistributedSemaphore.DistributedLease;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Queries waiting for a lease of one of the queues of {@link BasicResourceAllocator}.
+ *
+ * <p>A query is admitted once it gets a lease of the distributed semaphore of its queue, and once
+ * its estimated memory fits in the executors, see {@link MemoryBudget}. Queries are admitted in
+ * order: a query is only tried right away, on the thread submitting it, when no query is waiting.
+ * Otherwise it is added to the queue, and no thread waits for the lease.
+ *
+ * <p>The head of the queue is tried again on the admitter when the semaphore or the memory budget
+ * changes, and at least every {@link #POLL_INTERVAL_MILLIS}, as the semaphore is not notified of
+ * all the leases released by the other coordinators. At most one thread drains the queue at a time,
+ * and the scheduler thread only runs the timeouts and polls, so that it is never blocked by a
+ * semaphore round-trip.
+ */
+class AdmissionQueue {
+  private static final org.slf4j.Logger logger =
+      org.slf4j.LoggerFactory.getLogger(AdmissionQueue.class);
+
+  @VisibleForTesting static final long POLL_INTERVAL_MILLIS = 1_000;
+
+  private final String name;
+  private final ScheduledExecutorService scheduler;
+  private final Executor admitter;
+  private final MemoryBudget memoryBudget;
+  private final LongConsumer waitTimeConsumer;
+  private final Deque<Request> waiting = new ArrayDeque<>();
+  // registrations are weak, so the listener is kept for as long as the queue
+  private final DistributedSemaphore.UpdateListener updateListener = this::scheduleDrain;
+
+  private DistributedSemaphore registeredSemaphore;
+  // set from the time a drain is scheduled until it is done, so that drains never run concurrently
+  private boolean drainScheduled;
+  // set when the queue changes while it is being drained, so that the drain goes over it again
+  private boolean drainRequested;
+  private boolean pollScheduled;
+
+  /**
+   * @param name name of the queue, used in error messages
+   * @param scheduler executor used to time out waiting queries and to poll the semaphore
+   * @param admitter executor used to admit waiting queries
+   * @param memoryBudget memory reserved by the running queries
+   * @param waitTimeConsumer consumer of the time (in nanoseconds) spent waiting by each query
+   */
+  AdmissionQueue(
+      String name,
+      ScheduledExecutorService scheduler,
+      Executor admitter,
+      MemoryBudget memoryBudget,
+      LongConsumer waitTimeConsumer) {
+    this.name = name;
+    this.scheduler = scheduler;
+    this.admitter = admitter;
+    this.memoryBudget = memoryBudget;
+    this.waitTimeConsumer = waitTimeConsumer;
+  }
+
+  /**
+   * Submits a query.
+   *
+   * @param semaphore semaphore of the queue
+   * @param memory memory (in bytes) the query is estimated to use on each executor
+   * @param timeoutMillis maximum time the query waits in the queue
+   * @return the lease of the query once it is admitted
+   */
+  ListenableFuture<DistributedLease> submit(
+      DistributedSemaphore semaphore, long memory, long timeoutMillis) {
+    final Request request = new Request(semaphore, memory, timeoutMillis);
+    register(semaphore);
+
+    if (isEmpty() && tryAdmit(request)) {
+      return request.future;
+    }
+
+    synchronized (this) {
+      waiting.addLast(request);
+      request.timeout =
+          scheduler.schedule(() -> timeout(request), timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    // a cancelled query leaves the queue
+    request.future.addListener(() -> remove(request), MoreExecutors.directExecutor());
+    scheduleDrain();
+    return request.future;
+  }
+
+  @VisibleForTesting
+  synchronized int getWaitingCount() {
+    return waiting.size();
+  }
+
+  private synchronized boolean isEmpty() {
+    return waiting.isEmpty();
+  }
+
+  private synchronized void register(DistributedSemaphore semaphore) {
+    if (semaphore != registeredSemaphore) {
+      registeredSemaphore = semaphore;
+      semaphore.registerUpdateListener(updateListener);
+    }
+  }
+
+  /** Tries to admit the query in the queue, without waiting for a lease. */
+  private boolean tryAdmit(Request request) {
+    if (!memoryBudget.tryReserve(request.memory)) {
+      return false;
+    }
+
+    final DistributedLease lease;
+    try {
+      lease = request.semaphore.acquire(0, TimeUnit.MILLISECONDS);
+    } catch (Exception e) {
+      memoryBudget.release(request.memory);
+      final String message =
+          String.format(
+              "Query cancelled by Workload Manager. Cannot enqueue as the '%s' queue is full. Please try again later.",
+              name);
+      logger.trace(message, e);
+      request.fail(new ResourceUnavailableException(message));
+      return true;
+    }
+
+    if (lease == null) {
+      memoryBudget.release(request.memory);
+      return false;
+    }
+    if (!request.admit(lease)) {
+      // the query was cancelled or timed out in the meantime
+      releaseLease(lease);
+      memoryBudget.release(request.memory);
+    }
+    return true;
+  }
+
+  /** Tries to admit the waiting queries, on the admitter. */
+  void scheduleDrain() {
+    synchronized (this) {
+      drainRequested = true;
+      if (drainScheduled || waiting.isEmpty()) {
+        return;
+      }
+      drainScheduled = true;
+    }
+    try {
+      admitter.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      // the allocator is closed
+      synchronized (this) {
+        drainScheduled = false;
+      }
+    }
+  }
+
+  private void drain() {
+    boolean drained = false;
+    try {
+      while (!drained) {
+        synchronized (this) {
+          drainRequested = false;
+        }
+        admitWaiting();
+        synchronized (this) {
+          drained = !drainRequested;
+          if (drained) {
+            drainScheduled = false;
+          }
+        }
+      }
+    } finally {
+      if (!drained) {
+        synchronized (this) {
+          drainScheduled = false;
+        }
+      }
+    }
+
+    synchronized (this) {
+      if (waiting.isEmpty() || pollScheduled) {
+        return;
+      }
+      pollScheduled = true;
+    }
+    try {
+      scheduler.schedule(this::poll, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // the allocator is closed
+      synchronized (this) {
+        pollScheduled = false;
+      }
+    }
+  }
+
+  /** Admits the queries at the head of the queue, until one can't be admitted. */
+  private void admitWaiting() {
+    while (true) {
+      final Request head;
+      synchronized (this) {
+        head = waiting.peekFirst();
+      }
+      if (head == null || !tryAdmit(head)) {
+        return;
+      }
+      remove(head);
+    }
+  }
+
+  private void poll() {
+    synchronized (this) {
+      pollScheduled = false;
+    }
+    scheduleDrain();
+  }
+
+  private synchronized void remove(Request request) {
+    waiting.remove(request);
+  }
+
+  private void timeout(Request request) {
+    synchronized (this) {
+      if (!waiting.remove(request)) {
+        return;
+      }
+    }
+    final String message =
+        String.format(
+            "Query cancelled by Workload Manager. Query enqueued time of %.2f seconds exceeded for '%s' queue.",
+            request.timeoutMillis / 1000.0, name);
+    logger.trace(message);
+    request.fail(new ResourceUnavailableException(message));
+    // the next query may fit in the memory this one was waiting for
+    scheduleDrain();
+  }
+
+  static void releaseLease(DistributedLease lease) {
+    while (lease != null) {
+      try {
+        lease.close();
+        lease = null;
+      } catch (final InterruptedException e) {
+        // if we end up here, the while loop will try again
+      } catch (final Exception e) {
+        logger.warn("Failure while releasing lease.", e);
+        break;
+      }
+    }
+  }
+
+  private final class Request {
+    private final DistributedSemaphore semaphore;
+    private final long memory;
+    private final long timeoutMillis;
+    private final long submittedNanos = System.nanoTime();
+    private final SettableFuture<DistributedLease> future = SettableFuture.create();
+    private ScheduledFuture<?> timeout;
+
+    private Request(DistributedSemaphore semaphore, long memory, long timeoutMillis) {
+      this.semaphore = semaphore;
+      this.memory = memory;
+      this.timeoutMillis = timeoutMillis;
+    }
+
+    private boolean admit(DistributedLease lease) {
+      if (!future.set(lease)) {
+        return false;
+      }
+      waitTimeConsumer.accept(System.nanoTime() - submittedNanos);
+      cancelTimeout();
+      return true;
+    }
+
+    private void fail(Exception e) {
+      future.setException(e);
+      cancelTimeout();
+    }
+
+    private void cancelTimeout() {
+      final ScheduledFuture<?> scheduledTimeout;
+      synchronized (AdmissionQueue.this) {
+        scheduledTimeout = timeout;
+      }
+      if (scheduledTimeout != null) {
+        scheduledTimeout.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Memory reserved on each executor by the running queries. A query is admitted if its estimated
+   * memory fits in the capacity of the executors, or if no other query is running, so that queries
+   * larger than the executors still run.
+   */
+  static final class MemoryBudget {
+    private long reserved;
+    private int queries;
+
+    private volatile long capacity;
+
+    /**
+     * @param capacity memory (in bytes) of each executor, 0 to admit queries regardless of their
+     *     memory
+     */
+    void setCapacity(long capacity) {
+      this.capacity = capacity;
+    }
+
+    synchronized boolean tryReserve(long memory) {
+      final long currentCapacity = capacity;
+      if (currentCapacity > 0 && queries > 0 && reserved + memory > currentCapacity) {
+        return false;
+      }
+      reserved += memory;
+      queries++;
+      return true;
+    }
+
+    synchronized void release(long memory) {
+      reserved -= memory;
+      queries--;
+    }
+
+    @VisibleForTesting
+    synchronized long getReserved() {
+      return reserved;
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.dremio.resource.basic;
 
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.exec.proto.CoordinationProtos;
 import com.dremio.exec.proto.UserBitShared;
 import com.dremio.options.OptionManager;
@@ -29,20 +30,25 @@ import com.dremio.resource.ResourceSet;
 import com.dremio.resource.common.ResourceSchedulingContext;
 import com.dremio.resource.exception.ResourceAllocationException;
 import com.dremio.resource.exception.ResourceUnavailableException;
-import com.dremio.service.Pointer;
 import com.dremio.service.coordinator.ClusterCoordinator;
 import com.dremio.service.coordinator.DistributedSemaphore;
+import com.dremio.telemetry.api.metrics.Metrics;
+import com.dremio.telemetry.api.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import javax.annotation.Nullable;
 import javax.inject.Provider;
 
 /** Basic implementation of Resource Allocation APIs */
@@ -51,16 +57,52 @@ public class BasicResourceAllocator implements ResourceAllocator {
   private static final org.slf4j.Logger logger =
       org.slf4j.LoggerFactory.getLogger(BasicResourceAllocator.class);
 
+  private static final Timer QUEUE_WAIT_TIMER =
+      Metrics.newTimer(
+          Metrics.join("BasicResourceAllocator", "queueWait"), Metrics.ResetType.NEVER);
+
   private final Provider<ClusterCoordinator> clusterCoordinatorProvider;
   private final Provider<GroupResourceInformation> clusterResourceInformationProvider;
+  private final Provider<OptionManager> systemOptionsProvider;
   private ClusterCoordinator clusterCoordinator;
-  private final ListeningExecutorService executorService = MoreExecutors.newDirectExecutorService();
+
+  // times out the waiting queries and polls the semaphores
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("query-admission-timer-"));
+  // admits the queries waiting in the queues, so that no thread waits for a lease. Each queue
+  // drains on its own thread, so a slow semaphore round-trip only holds back its own queue
+  private final ExecutorService admitter =
+      Executors.newCachedThreadPool(new NamedThreadFactory("query-admission-"));
+  private final AdmissionQueue.MemoryBudget memoryBudget = new AdmissionQueue.MemoryBudget();
+  private final Map<QueueType, AdmissionQueue> admissionQueues = new EnumMap<>(QueueType.class);
 
   public BasicResourceAllocator(
       final Provider<ClusterCoordinator> clusterCoordinatorProvider,
       final Provider<GroupResourceInformation> clusterResourceInformationProvider) {
+    this(clusterCoordinatorProvider, clusterResourceInformationProvider, null);
+  }
+
+  /**
+   * @param systemOptionsProvider system options, used to enable memory admission. Memory admission
+   *     is disabled if null.
+   */
+  public BasicResourceAllocator(
+      final Provider<ClusterCoordinator> clusterCoordinatorProvider,
+      final Provider<GroupResourceInformation> clusterResourceInformationProvider,
+      final Provider<OptionManager> systemOptionsProvider) {
     this.clusterCoordinatorProvider = clusterCoordinatorProvider;
     this.clusterResourceInformationProvider = clusterResourceInformationProvider;
+    this.systemOptionsProvider = systemOptionsProvider;
+    for (QueueType queueType : QueueType.values()) {
+      admissionQueues.put(
+          queueType,
+          new AdmissionQueue(
+              queueType.name().toLowerCase(Locale.ROOT),
+              scheduler,
+              admitter,
+              memoryBudget,
+              nanos -> QUEUE_WAIT_TIMER.update(nanos, TimeUnit.NANOSECONDS)));
+    }
   }
 
   @Override
@@ -81,50 +123,36 @@ public class BasicResourceAllocator implements ResourceAllocator {
     schedulingDecisionInfoConsumer.accept(resourceSchedulingDecisionInfo);
 
     resourceSchedulingObserver.beginQueueWait();
-    final Pointer<DistributedSemaphore.DistributedLease> lease = new Pointer();
-    ListenableFuture<ResourceSet> futureAllocation =
-        executorService.submit(
-            () -> {
-              lease.value = acquireQuerySemaphoreIfNecessary(queryContext, queueType);
-
-              // update query limit based on the queueType
-              final OptionManager options = queryContext.getOptions();
-              final boolean memoryControlEnabled =
-                  options.getOption(BasicResourceConstants.ENABLE_QUEUE_MEMORY_LIMIT);
-              // TODO REFLECTION_SMALL, REFLECTION_LARGE was not there before - was it a bug???
-              final long memoryLimit =
-                  (queueType == QueueType.SMALL || queueType == QueueType.REFLECTION_SMALL)
-                      ? options.getOption(BasicResourceConstants.SMALL_QUEUE_MEMORY_LIMIT)
-                      : options.getOption(BasicResourceConstants.LARGE_QUEUE_MEMORY_LIMIT);
-              long queryMaxAllocation = queryContext.getQueryContextInfo().getQueryMaxAllocation();
-              if (memoryControlEnabled && memoryLimit > 0) {
-                queryMaxAllocation = Math.min(memoryLimit, queryMaxAllocation);
-              }
-              final UserBitShared.QueryId queryId = queryContext.getQueryId();
-              final long queryMaxAllocationFinal = queryMaxAllocation;
-
-              final ResourceSet resourceSet =
-                  new BasicResourceSet(
-                      queryId, lease.value, queryMaxAllocationFinal, queueType.name());
-
-              return resourceSet;
-            });
-    Futures.addCallback(
-        futureAllocation,
-        new FutureCallback<ResourceSet>() {
-          @Override
-          public void onSuccess(@Nullable ResourceSet resourceSet) {
-            // don't need to do anything additional
-          }
-
-          @Override
-          public void onFailure(Throwable throwable) {
-            // need to close lease
-            releaseLease(lease.value);
-          }
-        },
-        executorService);
 
+    // update query limit based on the queueType
+    final OptionManager options = queryContext.getOptions();
+    final boolean memoryControlEnabled =
+        options.getOption(BasicResourceConstants.ENABLE_QUEUE_MEMORY_LIMIT);
+    // TODO REFLECTION_SMALL, REFLECTION_LARGE was not there before - was it a bug???
+    final long memoryLimit =
+        (queueType == QueueType.SMALL || queueType == QueueType.REFLECTION_SMALL)
+            ? options.getOption(BasicResourceConstants.SMALL_QUEUE_MEMORY_LIMIT)
+            : options.getOption(BasicResourceConstants.LARGE_QUEUE_MEMORY_LIMIT);
+    long queryMaxAllocation = queryContext.getQueryContextInfo().getQueryMaxAllocation();
+    if (memoryControlEnabled && memoryLimit > 0) {
+      queryMaxAllocation = Math.min(memoryLimit, queryMaxAllocation);
+    }
+    final UserBitShared.QueryId queryId = queryContext.getQueryId();
+    final long queryMaxAllocationFinal = queryMaxAllocation;
+
+    final long admissionMemory = getAdmissionMemory(queryMaxAllocation);
+    ListenableFuture<ResourceSet> futureAllocation;
+    try {
+      futureAllocation =
+          Futures.transform(
+              acquireQuerySemaphoreIfNecessary(queryContext, queueType, admissionMemory),
+              lease ->
+                  new BasicResourceSet(
+                      queryId, lease, admissionMemory, queryMaxAllocationFinal, queueType.name()),
+              MoreExecutors.directExecutor());
+    } catch (ResourceAllocationException e) {
+      futureAllocation = Futures.immediateFailedFuture(e);
+    }
     final ResourceSchedulingResult resourceSchedulingResult =
         new ResourceSchedulingResult(resourceSchedulingDecisionInfo, futureAllocation);
     return resourceSchedulingResult;
@@ -164,13 +192,49 @@ public class BasicResourceAllocator implements ResourceAllocator {
   @Override
   public void start() throws Exception {
     this.clusterCoordinator = clusterCoordinatorProvider.get();
+    for (Map.Entry<QueueType, AdmissionQueue> entry : admissionQueues.entrySet()) {
+      Metrics.newGauge(
+          Metrics.join(
+              "BasicResourceAllocator", "waiting", entry.getKey().name().toLowerCase(Locale.ROOT)),
+          entry.getValue()::getWaitingCount);
+    }
   }
 
   @Override
-  public void close() throws Exception {}
+  public void close() throws Exception {
+    scheduler.shutdownNow();
+    admitter.shutdownNow();
+  }
 
-  private DistributedSemaphore.DistributedLease acquireQuerySemaphoreIfNecessary(
-      final ResourceSchedulingContext queryContext, QueueType queueType)
+  @VisibleForTesting
+  AdmissionQueue getAdmissionQueue(QueueType queueType) {
+    return admissionQueues.get(queueType);
+  }
+
+  /**
+   * Memory admission is a cluster wide setting, as the budget is shared by the queries of all the
+   * users, so it only depends on the system options and not on the options of the query.
+   *
+   * @return memory (in bytes) the query is estimated to use on each executor, 0 if admission
+   *     doesn't depend on memory
+   */
+  private long getAdmissionMemory(long queryMaxAllocation) {
+    if (systemOptionsProvider == null
+        || clusterResourceInformationProvider == null
+        || !systemOptionsProvider
+            .get()
+            .getOption(BasicResourceConstants.ENABLE_QUEUE_MEMORY_ADMISSION)) {
+      memoryBudget.setCapacity(0);
+      return 0;
+    }
+
+    final long executorMemory = clusterResourceInformationProvider.get().getAverageExecutorMemory();
+    memoryBudget.setCapacity(executorMemory);
+    return executorMemory > 0 ? Math.min(queryMaxAllocation, executorMemory) : 0;
+  }
+
+  private ListenableFuture<DistributedSemaphore.DistributedLease> acquireQuerySemaphoreIfNecessary(
+      final ResourceSchedulingContext queryContext, QueueType queueType, long admissionMemory)
       throws ResourceAllocationException {
 
     final OptionManager optionManager = queryContext.getOptions();
@@ -180,7 +244,7 @@ public class BasicResourceAllocator implements ResourceAllocator {
         optionManager.getOption(BasicResourceConstants.REFLECTION_ENABLE_QUEUE);
 
     if (!queuingEnabled) {
-      return null;
+      return Futures.immediateFuture(null);
     }
 
     // switch back to regular queues if the reflection queuing is disabled
@@ -197,7 +261,6 @@ public class BasicResourceAllocator implements ResourceAllocator {
     String queueName = null;
     int maxRunningConcurrency = 0;
 
-    DistributedSemaphore.DistributedLease lease;
     try {
       @SuppressWarnings("resource")
       final DistributedSemaphore distributedSemaphore;
@@ -237,7 +300,9 @@ public class BasicResourceAllocator implements ResourceAllocator {
         default:
           throw new ResourceAllocationException("Unsupported Queue type: " + adjustedQueueType);
       }
-      lease = distributedSemaphore.acquire(queueTimeout, TimeUnit.MILLISECONDS);
+      return admissionQueues
+          .get(adjustedQueueType)
+          .submit(distributedSemaphore, admissionMemory, queueTimeout);
     } catch (final Exception e) {
       final String message =
           String.format(
@@ -246,16 +311,6 @@ public class BasicResourceAllocator implements ResourceAllocator {
       logger.trace(message, e);
       throw new ResourceUnavailableException(message);
     }
-
-    if (lease == null) {
-      final String message =
-          String.format(
-              "Query cancelled by Workload Manager. Query enqueued time of %.2f seconds exceeded for '%s' queue.",
-              queueTimeout / 1000.0, queueName);
-      logger.trace(message);
-      throw new ResourceUnavailableException(message);
-    }
-    return lease;
   }
 
   /**
@@ -277,16 +332,20 @@ public class BasicResourceAllocator implements ResourceAllocator {
     private final UserBitShared.QueryId queryId;
     private volatile DistributedSemaphore.DistributedLease
         lease; // used to limit the number of concurrent queries
+    private final long admissionMemory;
     private final long memoryLimit;
     private final String queueName;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     BasicResourceSet(
         UserBitShared.QueryId queryId,
         DistributedSemaphore.DistributedLease lease,
+        long admissionMemory,
         long memoryLimit,
         String queueName) {
       this.queryId = queryId;
       this.lease = lease;
+      this.admissionMemory = admissionMemory;
       this.memoryLimit = memoryLimit;
       this.queueName = queueName;
     }
@@ -298,20 +357,14 @@ public class BasicResourceAllocator implements ResourceAllocator {
 
     @Override
     public void close() throws IOException {
-      releaseLease(lease);
-    }
-  }
-
-  private static void releaseLease(DistributedSemaphore.DistributedLease lease) {
-    while (lease != null) {
-      try {
-        lease.close();
-        lease = null;
-      } catch (final InterruptedException e) {
-        // if we end up here, the while loop will try again
-      } catch (final Exception e) {
-        logger.warn("Failure while releasing lease.", e);
-        break;
+      if (!closed.compareAndSet(false, true)) {
+        return;
+      }
+      AdmissionQueue.releaseLease(lease);
+      if (lease != null) {
+        memoryBudget.release(admissionMemory);
+        // the released lease and memory may admit waiting queries of any queue
+        admissionQueues.values().forEach(AdmissionQueue::scheduleDrain);
       }
     }
   }
@@ -27,6 +27,10 @@ public interface BasicResourceConstants {
       new TypeValidators.RangeLongValidator("exec.queue.memory.large", 0, Long.MAX_VALUE, 0);
   TypeValidators.LongValidator SMALL_QUEUE_MEMORY_LIMIT =
       new TypeValidators.RangeLongValidator("exec.queue.memory.small", 0, Long.MAX_VALUE, 0);
+  // admit queries only when their memory limit fits in the memory of the executors, on top of the
+  // memory limits of the running queries
+  TypeValidators.BooleanValidator ENABLE_QUEUE_MEMORY_ADMISSION =
+      new TypeValidators.BooleanValidator("exec.queue.memory.admission.enable", false);
   TypeValidators.LongValidator QUEUE_TIMEOUT =
       new TypeValidators.PositiveLongValidator(
           "exec.queue.timeout_millis", Long.MAX_VALUE, 60 * 1000 * 5);
@@ -16,10 +16,13 @@
 package com.dremio.resource.basic;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +31,7 @@ import com.dremio.exec.proto.CoordExecRPC;
 import com.dremio.exec.proto.CoordinationProtos;
 import com.dremio.exec.proto.UserBitShared;
 import com.dremio.options.OptionManager;
+import com.dremio.resource.GroupResourceInformation;
 import com.dremio.resource.ResourceSchedulingProperties;
 import com.dremio.resource.ResourceSchedulingResult;
 import com.dremio.resource.ResourceSet;
@@ -39,7 +43,11 @@ import com.dremio.service.coordinator.DistributedSemaphore;
 import com.dremio.service.coordinator.local.LocalClusterCoordinator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import org.apache.curator.CuratorConnectionLossException;
@@ -217,7 +225,7 @@ public class BasicResourceTest {
     resourceSchedulingProperties.setQueryCost(112100D);
 
     DistributedSemaphore mockLease = mock(DistributedSemaphore.class);
-    when(mockLease.acquire(1000L, TimeUnit.MILLISECONDS))
+    when(mockLease.acquire(anyLong(), any(TimeUnit.class)))
         .thenThrow(new CuratorConnectionLossException());
 
     ClusterCoordinator mockClusterCoordinator = mock(ClusterCoordinator.class);
@@ -312,6 +320,159 @@ public class BasicResourceTest {
         "SMALL", resourceSchedulingResult.getResourceSchedulingDecisionInfo().getQueueId());
   }
 
+  @Test
+  public void testQueuedAllocationAdmittedOnRelease() throws Exception {
+    final OptionManager optionManager = mockOptions(1L, 10000L, false);
+    final ClusterCoordinator clusterCoordinator = LocalClusterCoordinator.newRunningCoordinator();
+    final BasicResourceAllocator resourceAllocator =
+        new BasicResourceAllocator(DirectProvider.wrap(clusterCoordinator), null);
+    resourceAllocator.start();
+
+    final ResourceSchedulingProperties resourceSchedulingProperties =
+        new ResourceSchedulingProperties();
+    resourceSchedulingProperties.setQueryCost(112100D);
+
+    final ResourceSet resourceSet =
+        resourceAllocator
+            .allocate(newQueryContext(optionManager), resourceSchedulingProperties)
+            .getResourceSetFuture()
+            .get();
+
+    // the second query waits in the queue, without holding a thread
+    final CompletableFuture<ResourceSet> queued =
+        resourceAllocator
+            .allocate(newQueryContext(optionManager), resourceSchedulingProperties)
+            .getResourceSetFuture();
+    assertFalse(queued.isDone());
+    assertEquals(1, resourceAllocator.getAdmissionQueue(QueueType.SMALL).getWaitingCount());
+
+    resourceSet.close();
+    final ResourceSet resourceSet1 = queued.get();
+    assertEquals(0, resourceAllocator.getAdmissionQueue(QueueType.SMALL).getWaitingCount());
+
+    resourceSet1.close();
+    resourceAllocator.close();
+  }
+
+  @Test
+  public void testMemoryAdmission() throws Exception {
+    final OptionManager optionManager = mockOptions(10L, 10000L, true);
+    final GroupResourceInformation resourceInformation = mock(GroupResourceInformation.class);
+    when(resourceInformation.getAverageExecutorMemory()).thenReturn(8192L);
+
+    final ClusterCoordinator clusterCoordinator = LocalClusterCoordinator.newRunningCoordinator();
+    final BasicResourceAllocator resourceAllocator =
+        new BasicResourceAllocator(
+            DirectProvider.wrap(clusterCoordinator),
+            DirectProvider.wrap(resourceInformation),
+            DirectProvider.wrap(optionManager));
+    resourceAllocator.start();
+
+    final ResourceSchedulingProperties resourceSchedulingProperties =
+        new ResourceSchedulingProperties();
+    resourceSchedulingProperties.setQueryCost(112100D);
+
+    // two queries of 4096 bytes fit in the executors, even though the queue has more slots
+    final ResourceSet resourceSet =
+        resourceAllocator
+            .allocate(newQueryContext(optionManager), resourceSchedulingProperties)
+            .getResourceSetFuture()
+            .get();
+    final ResourceSet resourceSet1 =
+        resourceAllocator
+            .allocate(newQueryContext(optionManager), resourceSchedulingProperties)
+            .getResourceSetFuture()
+            .get();
+    final CompletableFuture<ResourceSet> queued =
+        resourceAllocator
+            .allocate(newQueryContext(optionManager), resourceSchedulingProperties)
+            .getResourceSetFuture();
+    assertFalse(queued.isDone());
+
+    resourceSet.close();
+    final ResourceSet resourceSet2 = queued.get();
+    assertEquals(4096, resourceSet2.getPerNodeQueryMemoryLimit());
+
+    resourceSet1.close();
+    resourceSet2.close();
+    resourceAllocator.close();
+  }
+
+  @Test
+  public void testMemoryAdmissionOnlyFollowsSystemOptions() throws Exception {
+    final OptionManager systemOptions = mockOptions(10L, 10000L, false);
+    final OptionManager queryOptions = mockOptions(10L, 10000L, true);
+    final GroupResourceInformation resourceInformation = mock(GroupResourceInformation.class);
+    when(resourceInformation.getAverageExecutorMemory()).thenReturn(8192L);
+
+    final ClusterCoordinator clusterCoordinator = LocalClusterCoordinator.newRunningCoordinator();
+    final BasicResourceAllocator resourceAllocator =
+        new BasicResourceAllocator(
+            DirectProvider.wrap(clusterCoordinator),
+            DirectProvider.wrap(resourceInformation),
+            DirectProvider.wrap(systemOptions));
+    resourceAllocator.start();
+
+    final ResourceSchedulingProperties resourceSchedulingProperties =
+        new ResourceSchedulingProperties();
+    resourceSchedulingProperties.setQueryCost(112100D);
+
+    // the queries don't fit in the executors together, but memory admission is disabled
+    final List<ResourceSet> resourceSets = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      resourceSets.add(
+          resourceAllocator
+              .allocate(newQueryContext(queryOptions), resourceSchedulingProperties)
+              .getResourceSetFuture()
+              .get(10, TimeUnit.SECONDS));
+    }
+
+    for (ResourceSet resourceSet : resourceSets) {
+      resourceSet.close();
+    }
+    resourceAllocator.close();
+  }
+
+  private OptionManager mockOptions(
+      long smallQueueSize, long queueTimeout, boolean memoryAdmissionEnabled) {
+    final OptionManager optionManager = mock(OptionManager.class);
+
+    when(optionManager.getOption(BasicResourceConstants.ENABLE_QUEUE)).thenReturn(true);
+    when(optionManager.getOption(BasicResourceConstants.REFLECTION_ENABLE_QUEUE)).thenReturn(true);
+    when(optionManager.getOption(BasicResourceConstants.ENABLE_QUEUE_MEMORY_LIMIT))
+        .thenReturn(true);
+    when(optionManager.getOption(BasicResourceConstants.ENABLE_QUEUE_MEMORY_ADMISSION))
+        .thenReturn(memoryAdmissionEnabled);
+    when(optionManager.getOption(BasicResourceConstants.SMALL_QUEUE_MEMORY_LIMIT))
+        .thenReturn(4096L);
+    when(optionManager.getOption(BasicResourceConstants.LARGE_QUEUE_MEMORY_LIMIT))
+        .thenReturn(Long.MAX_VALUE);
+    when(optionManager.getOption(BasicResourceConstants.QUEUE_THRESHOLD_SIZE))
+        .thenReturn(30000000L);
+    when(optionManager.getOption(BasicResourceConstants.QUEUE_TIMEOUT)).thenReturn(queueTimeout);
+    when(optionManager.getOption(BasicResourceConstants.SMALL_QUEUE_SIZE))
+        .thenReturn(smallQueueSize);
+    return optionManager;
+  }
+
+  private ResourceSchedulingContext newQueryContext(final OptionManager optionManager) {
+    final CoordinationProtos.NodeEndpoint nodeEndpoint =
+        CoordinationProtos.NodeEndpoint.newBuilder()
+            .setAddress("host1")
+            .setFabricPort(1234)
+            .setUserPort(2345)
+            .setAvailableCores(3)
+            .setMaxDirectMemory(8 * 1024)
+            .setRoles(
+                ClusterCoordinator.Role.toEndpointRoles(
+                    Sets.newHashSet(ClusterCoordinator.Role.EXECUTOR)))
+            .build();
+    return createQueryContext(
+        ExternalIdHelper.toQueryId(ExternalIdHelper.generateExternalId()),
+        optionManager,
+        nodeEndpoint);
+  }
+
   private ResourceSchedulingContext createQueryContext(
       final UserBitShared.QueryId queryId,
       final OptionManager optionManager,
@@ -30,6 +30,7 @@ public class DefaultSpillServiceOptions implements SpillServiceOptions {
   public static final long SPILL_SWEEP_INTERVAL = 60 * 60 * 1000; // spill sweep once an hour
   public static final long SPILL_SWEEP_THRESHOLD =
       7L * 24 * 60 * 60 * 1000; // remove spills older than one week
+  public static final int READ_AHEAD_THREADS = 4;
 
   @VisibleForTesting
   public DefaultSpillServiceOptions() {}
@@ -63,4 +64,9 @@ public class DefaultSpillServiceOptions implements SpillServiceOptions {
   public long spillSweepThreshold() {
     return SPILL_SWEEP_THRESHOLD;
   }
+
+  @Override
+  public int readAheadThreads() {
+    return READ_AHEAD_THREADS;
+  }
 }
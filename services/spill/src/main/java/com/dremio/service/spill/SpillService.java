@@ -18,6 +18,7 @@ package com.dremio.service.spill;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.service.Service;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 /**
  * Tracks spill files generated by operators that support spilling (such as sort, hash agg, etc.)
@@ -65,4 +66,12 @@ public interface SpillService extends Service {
    * @throws IOException
    */
   boolean isEmpty() throws IOException;
+
+  /**
+   * Returns the bounded pool spilled data is read ahead on, so that reads don't compete with the
+   * general purpose executor.
+   *
+   * @return the executor, or null if the service is not started
+   */
+  Executor getReadAheadExecutor();
 }
@@ -17,6 +17,8 @@ package com.dremio.service.spill;
 
 import static com.dremio.exec.proto.CoordinationProtos.NodeEndpoint;
 
+import com.dremio.common.concurrent.CloseableSchedulerThreadPool;
+import com.dremio.common.concurrent.NamedThreadFactory;
 import com.dremio.common.exceptions.UserException;
 import com.dremio.common.io.DefaultTemporaryFolderManager;
 import com.dremio.common.io.ExecutorId;
@@ -34,7 +36,11 @@ import java.util.ArrayList;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -82,6 +88,7 @@ public class SpillServiceImpl implements SpillService {
   // NB: healthySpillDirs set by a background task, and used by users fo SpillServiceImpl
   private volatile ArrayList<String> healthySpillDirs;
   private Cancellable healthCheckTask;
+  private volatile ThreadPoolExecutor readAheadPool;
 
   public SpillServiceImpl(
       DremioConfig config,
@@ -169,6 +176,18 @@ public class SpillServiceImpl implements SpillService {
     spillSweepInterval = options.spillSweepInterval();
     spillSweepThreshold = options.spillSweepThreshold();
 
+    // reads are queued once all the threads are busy, there is at most one read in flight per run
+    final int readAheadThreads = options.readAheadThreads();
+    readAheadPool =
+        new ThreadPoolExecutor(
+            readAheadThreads,
+            readAheadThreads,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new NamedThreadFactory("spill-read-ahead-"));
+    readAheadPool.allowCoreThreadTimeOut(true);
+
     folderManager.startMonitoring();
 
     // Create spill directories, in case it doesn't already exist
@@ -209,6 +228,9 @@ public class SpillServiceImpl implements SpillService {
 
   @Override
   public void close() throws Exception {
+    if (readAheadPool != null) {
+      CloseableSchedulerThreadPool.close(readAheadPool, logger);
+    }
     folderManager.close();
   }
 
@@ -265,6 +287,11 @@ public class SpillServiceImpl implements SpillService {
     }
   }
 
+  @Override
+  public Executor getReadAheadExecutor() {
+    return readAheadPool;
+  }
+
   // checks if all spill directories are empty, used for testing.
   @Override
   public boolean isEmpty() throws IOException {
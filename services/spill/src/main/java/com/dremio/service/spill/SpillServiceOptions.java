@@ -54,4 +54,10 @@ public interface SpillServiceOptions {
    * unresponsive spill drives.
    */
   long spillSweepThreshold();
+
+  /**
+   * Number of threads reading spilled data ahead of the operators consuming it. Read once, when the
+   * spill service starts.
+   */
+  int readAheadThreads();
 }